@@ -0,0 +1,51 @@
+package com.chy.agents.chat.config;
+
+import com.chy.agents.chat.service.SessionManager;
+import com.chy.agents.chat.session.ChatClientSessionSummarizer;
+import com.chy.agents.chat.session.SessionCompactor;
+import com.chy.agents.chat.session.SessionProperties;
+import com.chy.agents.chat.session.SessionSummarizer;
+import com.chy.agents.common.tokenizer.Tokenizer;
+import com.chy.agents.common.tokenizer.Tokenizers;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 会话存储配置
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(SessionProperties.class)
+public class SessionConfig {
+
+    /**
+     * 创建所有控制器共享的会话管理服务
+     * 启用压缩时优先使用自定义的{@link SessionSummarizer}，否则使用默认聊天客户端生成摘要
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public SessionManager sessionManager(SessionProperties properties,
+                                         ObjectProvider<SessionSummarizer> summarizer,
+                                         ObjectProvider<ChatClient> chatClient,
+                                         ObjectProvider<Tokenizer> tokenizer) {
+        SessionProperties.Compaction compaction = properties.getCompaction();
+        if (!compaction.isEnabled()) {
+            return new SessionManager(properties);
+        }
+        SessionSummarizer resolved = summarizer.getIfAvailable(() -> {
+            ChatClient client = chatClient.getIfUnique();
+            return client != null ? new ChatClientSessionSummarizer(client, compaction.getModel()) : null;
+        });
+        if (resolved == null) {
+            log.warn("未找到可用于生成摘要的聊天客户端，会话压缩未启用");
+            return new SessionManager(properties);
+        }
+        return new SessionManager(properties,
+                new SessionCompactor(compaction, resolved, tokenizer.getIfAvailable(Tokenizers::getDefault)));
+    }
+}
@@ -1,25 +1,91 @@
 package com.chy.agents.chat.service;
 
+import com.chy.agents.chat.session.SessionCompactor;
+import com.chy.agents.chat.session.SessionLog;
+import com.chy.agents.chat.session.SessionProperties;
+import com.chy.agents.chat.session.SessionSpillFile;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.messages.Message;
-import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 会话管理服务
+ * 所有控制器共享的有界会话存储：会话保存在并发哈希表中，读写已在内存中的会话不加锁；
+ * 创建、恢复、淘汰和删除按会话ID分段加锁，不同会话之间互不阻塞。
+ * 超过最大会话数或估算总字节数时按最近访问时间淘汰最久未访问的会话（每次多淘汰约1/64的余量以摊销扫描开销），
+ * 空闲超时的会话由后台任务定期淘汰。启用溢出时被淘汰的会话写入本地追加文件，再次访问时自动恢复并从文件中移除。
+ * 配置压缩器时，超过token阈值的会话在后台用摘要替换较早的对话。
  *
  * @author YuRuizhi
  * @date 2025/3/12
  */
-@Service
-public class SessionManager {
+@Slf4j
+public class SessionManager implements AutoCloseable {
     
-    private final Map<String, List<Message>> sessions = new ConcurrentHashMap<>();
+    private static final int LOCK_STRIPES = 64;
+    
+    private final SessionProperties properties;
+    private final ConcurrentHashMap<String, SessionLog> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final SessionSpillFile spillFile;
+    
+    // 按会话ID分段的锁，保证同一会话的创建、恢复、淘汰（含写入溢出文件）和删除互斥
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    // 同一时刻只有一个线程执行淘汰扫描
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final ScheduledExecutorService sweeper;
+    private final SessionCompactor compactor;
+    
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder spills = new LongAdder();
+    private final LongAdder rehydrations = new LongAdder();
+    
+    public SessionManager(SessionProperties properties) {
+        this(properties, null);
+    }
+    
+    /**
+     * @param properties 会话存储配置
+     * @param compactor 会话压缩器，为null时不压缩
+     */
+    public SessionManager(SessionProperties properties, SessionCompactor compactor) {
+        this.properties = properties;
+        this.compactor = compactor;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        SessionProperties.Spill spill = properties.getSpill();
+        this.spillFile = spill.isEnabled()
+                ? new SessionSpillFile(Path.of(spill.getFile()), spill.getTtlSeconds() * 1000,
+                        spill.getCompactThresholdBytes())
+                : null;
+        
+        long sweepMillis = Math.max(1000, Math.min(properties.getIdleTtlSeconds() * 1000 / 4, 60_000));
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chy-session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::expireIdleSessions, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
     
     /**
      * 创建新的会话
@@ -27,17 +93,18 @@ public class SessionManager {
      */
     public String createSession() {
         String sessionId = UUID.randomUUID().toString();
-        sessions.put(sessionId, new ArrayList<>());
+        find(sessionId, true);
         return sessionId;
     }
     
     /**
      * 获取会话历史
      * @param sessionId 会话ID
-     * @return 消息列表
+     * @return 消息列表快照
      */
     public List<Message> getSessionHistory(String sessionId) {
-        return sessions.getOrDefault(sessionId, new ArrayList<>());
+        SessionLog session = find(sessionId, false);
+        return session != null ? session.snapshot() : new ArrayList<>();
     }
     
     /**
@@ -46,7 +113,28 @@ public class SessionManager {
      * @param message 消息
      */
     public void addMessage(String sessionId, Message message) {
-        sessions.computeIfAbsent(sessionId, k -> new ArrayList<>()).add(message);
+        addMessages(sessionId, List.of(message));
+    }
+    
+    /**
+     * 按顺序添加多条消息到会话，会话不存在时创建
+     * @param sessionId 会话ID
+     * @param messages 消息
+     */
+    public void addMessages(String sessionId, List<Message> messages) {
+        while (true) {
+            SessionLog session = find(sessionId, true);
+            long delta = session.append(messages);
+            if (delta >= 0) {
+                totalBytes.addAndGet(delta);
+                if (compactor != null) {
+                    compactor.maybeCompact(sessionId, session, totalBytes::addAndGet);
+                }
+                break;
+            }
+            // 会话恰好被淘汰，重新获取（必要时从溢出文件恢复）
+        }
+        enforceBounds();
     }
     
     /**
@@ -54,7 +142,22 @@ public class SessionManager {
      * @param sessionId 会话ID
      */
     public void clearSession(String sessionId) {
-        sessions.put(sessionId, new ArrayList<>());
+        while (true) {
+            SessionLog session = find(sessionId, true);
+            long released;
+            synchronized (lockFor(sessionId)) {
+                released = session.clear();
+                if (released >= 0 && spillFile != null) {
+                    // 持有分段锁时会话不会被淘汰，溢出文件中不会再写入清空前的历史
+                    spillFile.delete(sessionId);
+                }
+            }
+            if (released >= 0) {
+                totalBytes.addAndGet(-released);
+                break;
+            }
+            // 会话恰好被淘汰，重新获取（必要时从溢出文件恢复）后再清空
+        }
     }
     
     /**
@@ -62,14 +165,206 @@ public class SessionManager {
      * @param sessionId 会话ID
      */
     public void deleteSession(String sessionId) {
-        sessions.remove(sessionId);
+        synchronized (lockFor(sessionId)) {
+            SessionLog removed = sessions.remove(sessionId);
+            if (removed != null) {
+                SessionLog.Closed closed = removed.close();
+                if (closed != null) {
+                    totalBytes.addAndGet(-closed.bytes());
+                }
+            }
+            if (spillFile != null) {
+                spillFile.delete(sessionId);
+            }
+        }
     }
     
     /**
-     * 获取所有会话ID
+     * 获取所有会话ID（包括已溢出到磁盘的会话）
      * @return 会话ID列表
      */
     public List<String> getAllSessions() {
-        return new ArrayList<>(sessions.keySet());
+        Set<String> ids = new LinkedHashSet<>(sessions.keySet());
+        if (spillFile != null) {
+            ids.addAll(spillFile.sessionIds());
+        }
+        return new ArrayList<>(ids);
+    }
+    
+    /**
+     * 获取会话存储统计
+     * @return 统计映射
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("sessions", sessions.size());
+        metrics.put("bytes", totalBytes.get());
+        metrics.put("evictions", evictions.sum());
+        metrics.put("expirations", expirations.sum());
+        metrics.put("spills", spills.sum());
+        metrics.put("rehydrations", rehydrations.sum());
+        if (spillFile != null) {
+            metrics.put("spilledSessions", spillFile.size());
+            metrics.put("spillFileBytes", spillFile.fileSize());
+        }
+        if (compactor != null) {
+            metrics.put("compaction", compactor.getMetrics());
+        }
+        return metrics;
+    }
+    
+    /**
+     * 停止后台任务；启用溢出时将内存中的会话全部写入溢出文件，重启后可恢复
+     */
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+        if (compactor != null) {
+            compactor.close();
+        }
+        for (Map.Entry<String, SessionLog> entry : sessions.entrySet()) {
+            remove(entry.getKey(), entry.getValue());
+        }
+        if (spillFile == null) {
+            return;
+        }
+        try {
+            spillFile.close();
+        } catch (IOException e) {
+            log.warn("关闭会话溢出文件失败: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 获取会话，不在内存中时尝试从溢出文件恢复
+     *
+     * @param sessionId 会话ID
+     * @param create 不存在时是否创建
+     * @return 会话日志，不存在且不创建时返回null
+     */
+    private SessionLog find(String sessionId, boolean create) {
+        SessionLog existing = sessions.get(sessionId);
+        if (existing != null) {
+            return existing;
+        }
+        
+        SessionLog session;
+        synchronized (lockFor(sessionId)) {
+            session = sessions.get(sessionId);
+            if (session == null) {
+                List<Message> restored = spillFile != null ? spillFile.read(sessionId) : null;
+                if (restored == null && !create) {
+                    return null;
+                }
+                session = new SessionLog(properties.getMaxMessagesPerSession());
+                if (restored != null) {
+                    totalBytes.addAndGet(session.append(restored));
+                    // 恢复后以内存中的会话为准，淘汰时重新写入
+                    spillFile.delete(sessionId);
+                    rehydrations.increment();
+                }
+                sessions.put(sessionId, session);
+            }
+        }
+        enforceBounds();
+        return session;
+    }
+    
+    /**
+     * 超过会话数或字节数上限时淘汰最久未访问的会话
+     * 按最近访问时间排序一次会话表的快照，淘汰到上限以下约1/64的余量，避免每新增一个会话都重新扫描
+     */
+    private void enforceBounds() {
+        if (!overBounds(properties.getMaxSessions(), properties.getMaxBytes())
+                || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int targetSessions = properties.getMaxSessions() - properties.getMaxSessions() / 64;
+            long targetBytes = properties.getMaxBytes() - properties.getMaxBytes() / 64;
+            // 访问时间在排序期间会变化，先取快照再排序
+            List<Candidate> candidates = new ArrayList<>(sessions.size());
+            sessions.forEach((sessionId, session) ->
+                    candidates.add(new Candidate(sessionId, session, session.getLastAccess())));
+            candidates.sort(Comparator.comparingLong(Candidate::lastAccess));
+            int evicted = 0;
+            for (Candidate candidate : candidates) {
+                if (!overBounds(targetSessions, targetBytes) || sessions.size() <= 1) {
+                    break;
+                }
+                if (remove(candidate.sessionId(), candidate.session())) {
+                    evicted++;
+                }
+            }
+            evictions.add(evicted);
+        } finally {
+            evicting.set(false);
+        }
+    }
+    
+    private boolean overBounds(int maxSessions, long maxBytes) {
+        return sessions.size() > maxSessions || totalBytes.get() > maxBytes;
+    }
+    
+    /**
+     * 淘汰空闲超时的会话
+     */
+    private void expireIdleSessions() {
+        try {
+            long deadline = System.currentTimeMillis() - properties.getIdleTtlSeconds() * 1000;
+            int expired = 0;
+            for (Map.Entry<String, SessionLog> entry : sessions.entrySet()) {
+                if (entry.getValue().getLastAccess() < deadline && remove(entry.getKey(), entry.getValue())) {
+                    expired++;
+                }
+            }
+            expirations.add(expired);
+        } catch (RuntimeException e) {
+            log.warn("清理空闲会话失败: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 从内存中移除会话，启用溢出时写入溢出文件
+     * 写入在会话的分段锁内完成，期间对该会话的访问等待写入结束后从文件恢复
+     *
+     * @param sessionId 会话ID
+     * @param session 期望移除的会话日志，已被替换或移除时不做处理
+     * @return 是否移除
+     */
+    private boolean remove(String sessionId, SessionLog session) {
+        synchronized (lockFor(sessionId)) {
+            if (!sessions.remove(sessionId, session)) {
+                return false;
+            }
+            SessionLog.Closed closed = session.close();
+            if (closed == null) {
+                return true;
+            }
+            totalBytes.addAndGet(-closed.bytes());
+            if (spillFile != null && !closed.messages().isEmpty()) {
+                try {
+                    spillFile.write(sessionId, closed.messages());
+                    spills.increment();
+                } catch (RuntimeException e) {
+                    log.warn("会话 {} 溢出到磁盘失败: {}", sessionId, e.getMessage());
+                }
+            }
+            return true;
+        }
+    }
+    
+    private Object lockFor(String sessionId) {
+        return locks[(sessionId.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+    }
+    
+    /**
+     * 淘汰候选
+     *
+     * @param sessionId 会话ID
+     * @param session 会话日志
+     * @param lastAccess 取快照时的最近访问时间
+     */
+    private record Candidate(String sessionId, SessionLog session, long lastAccess) {
     }
-} 
\ No newline at end of file
+}
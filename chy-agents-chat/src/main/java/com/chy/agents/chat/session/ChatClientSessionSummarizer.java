@@ -0,0 +1,60 @@
+package com.chy.agents.chat.session;
+
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.prompt.ChatOptions;
+
+import java.util.List;
+
+/**
+ * 基于聊天客户端的会话摘要生成器
+ * 可指定较便宜的模型，摘要在后台线程中生成，不影响对话延迟
+ */
+public class ChatClientSessionSummarizer implements SessionSummarizer {
+
+    private static final String SYSTEM_PROMPT = """
+            你负责压缩对话历史。请用简洁的条目总结下面的对话，保留用户的目标、偏好、已确认的事实、\
+            做出的决定和尚未解决的问题，省略寒暄和重复内容。只输出摘要本身。""";
+
+    private final ChatClient chatClient;
+    private final String model;
+
+    /**
+     * @param chatClient 聊天客户端
+     * @param model 模型名称，为空时使用客户端的默认模型
+     */
+    public ChatClientSessionSummarizer(ChatClient chatClient, String model) {
+        this.chatClient = chatClient;
+        this.model = model;
+    }
+
+    @Override
+    public String summarize(List<Message> messages, int maxTokens) {
+        StringBuilder transcript = new StringBuilder();
+        for (Message message : messages) {
+            transcript.append(label(message.getMessageType())).append(": ")
+                    .append(message.getContent()).append('\n');
+        }
+
+        ChatOptions.Builder options = ChatOptions.builder().maxTokens(maxTokens);
+        if (model != null && !model.isBlank()) {
+            options.model(model);
+        }
+        return chatClient.prompt()
+                .system(SYSTEM_PROMPT)
+                .user(transcript.toString())
+                .options(options.build())
+                .call()
+                .content();
+    }
+
+    private static String label(MessageType type) {
+        return switch (type) {
+            case USER -> "用户";
+            case ASSISTANT -> "助手";
+            case SYSTEM -> "之前的摘要";
+            default -> "工具";
+        };
+    }
+}
@@ -0,0 +1,188 @@
+package com.chy.agents.chat.session;
+
+import com.chy.agents.common.tokenizer.Tokenizer;
+import com.chy.agents.core.chat.message.Message.Role;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+/**
+ * 会话压缩器
+ * 会话超过token阈值时，在有界的后台线程池中为较早的对话生成摘要，并用一条摘要消息替换它们，
+ * 最近的对话原样保留。上一次的摘要也参与下一次摘要，因此无论对话多长，每轮的提示词大小都大致恒定。
+ * 摘要生成期间会话可以继续追加；若期间较早的消息被修改（清空、丢弃、其他压缩），本次结果作废。
+ */
+@Slf4j
+public class SessionCompactor implements AutoCloseable {
+
+    /**
+     * 摘要消息的内容前缀
+     */
+    public static final String SUMMARY_PREFIX = "以下是之前对话的摘要：\n";
+
+    /**
+     * 每条消息的格式开销token数
+     */
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    private final SessionProperties.Compaction properties;
+    private final SessionSummarizer summarizer;
+    private final Tokenizer tokenizer;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder compactions = new LongAdder();
+    private final LongAdder compactedMessages = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public SessionCompactor(SessionProperties.Compaction properties, SessionSummarizer summarizer,
+                            Tokenizer tokenizer) {
+        this.properties = properties;
+        this.summarizer = summarizer;
+        this.tokenizer = tokenizer;
+        int threads = Math.max(1, properties.getWorkerThreads());
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())), runnable -> {
+                    Thread thread = new Thread(runnable, "chy-session-compactor-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 会话可能超过阈值时提交后台压缩，同一会话同时只有一个压缩任务
+     *
+     * @param sessionId 会话ID
+     * @param session 会话日志
+     * @param bytesChanged 压缩完成后估算字节数变化的回调
+     */
+    public void maybeCompact(String sessionId, SessionLog session, LongConsumer bytesChanged) {
+        // 每个token至少一个字节，字节数未达阈值时无需计算token
+        if (session.getContentBytes() < properties.getTriggerTokens() || !inFlight.add(sessionId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    compact(sessionId, session, bytesChanged);
+                } finally {
+                    inFlight.remove(sessionId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(sessionId);
+            rejected.increment();
+        }
+    }
+
+    /**
+     * 获取压缩统计
+     *
+     * @return 统计映射
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("compactions", compactions.sum());
+        metrics.put("compactedMessages", compactedMessages.sum());
+        metrics.put("stale", stale.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("failures", failures.sum());
+        metrics.put("pending", executor.getQueue().size());
+        metrics.put("active", executor.getActiveCount());
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void compact(String sessionId, SessionLog session, LongConsumer bytesChanged) {
+        SessionLog.Snapshot snapshot = session.compactionSnapshot();
+        if (snapshot == null) {
+            return;
+        }
+        List<Message> messages = snapshot.messages();
+        List<String> contents = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            contents.add(message.getContent() != null ? message.getContent() : "");
+        }
+        int[] tokens = tokenizer.countTokens(contents);
+        long total = 0;
+        for (int count : tokens) {
+            total += count + MESSAGE_OVERHEAD_TOKENS;
+        }
+        if (total < properties.getTriggerTokens()) {
+            return;
+        }
+
+        List<Role> roles = snapshot.roles();
+        int split = splitPoint(roles, tokens, properties.getKeepRecentMessages(), properties.getKeepRecentTokens());
+        if (split == 0 || (split == 1 && roles.get(0) == Role.SYSTEM)) {
+            return;
+        }
+
+        String summary;
+        try {
+            summary = summarizer.summarize(messages.subList(0, split), properties.getSummaryMaxTokens());
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("会话 [{}] 生成摘要失败: {}", sessionId, e.getMessage());
+            return;
+        }
+        if (summary == null || summary.isBlank()) {
+            failures.increment();
+            return;
+        }
+
+        Long delta = session.replacePrefix(snapshot.generation(), split, SUMMARY_PREFIX + summary.strip());
+        if (delta == null) {
+            stale.increment();
+            return;
+        }
+        bytesChanged.accept(delta);
+        compactions.increment();
+        compactedMessages.add(split);
+        log.debug("会话 [{}] 已压缩 {} 条消息（约 {} tokens）", sessionId, split, total);
+    }
+
+    /**
+     * 计算被摘要的前缀长度：从末尾向前保留最近的对话，直到超过保留的token数且满足最少消息数，
+     * 然后向前对齐到用户消息，避免把一问一答、工具调用和工具结果拆开
+     */
+    static int splitPoint(List<Role> roles, int[] tokens, int keepRecentMessages, int keepRecentTokens) {
+        int n = roles.size();
+        int split = n;
+        long kept = 0;
+        while (split > 0) {
+            long cost = tokens[split - 1] + MESSAGE_OVERHEAD_TOKENS;
+            if (n - split >= keepRecentMessages && kept + cost > keepRecentTokens) {
+                break;
+            }
+            kept += cost;
+            split--;
+        }
+        // 按保存时的角色判断，工具结果（FUNCTION）不是对齐点
+        while (split > 0 && split < n && roles.get(split) != Role.USER) {
+            split--;
+        }
+        return split;
+    }
+}
@@ -0,0 +1,165 @@
+package com.chy.agents.chat.session;
+
+import com.chy.agents.core.chat.message.CompactMessageLog;
+import com.chy.agents.core.chat.message.Message.Role;
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 单个会话的消息日志
+ * 消息以角色字节加UTF-8内容的紧凑形式保存，读取快照时才还原为Spring AI消息。
+ * 所有操作在日志自身上同步，同一会话的并发追加是安全的；被淘汰后日志关闭，之后的追加返回-1由调用方重新获取会话
+ */
+public final class SessionLog {
+
+    private final CompactMessageLog messages;
+    /**
+     * 已计入会话管理器总量的估算字节数，首次追加时才开始计入
+     */
+    private long bytes;
+    /**
+     * 除追加以外的修改（丢弃最早消息、清空、压缩）都会递增代数，压缩据此判断快照之后的前缀是否仍然有效
+     */
+    private long generation;
+    private boolean closed;
+    private volatile long lastAccess = System.currentTimeMillis();
+
+    public SessionLog(int maxMessages) {
+        this.messages = new CompactMessageLog(maxMessages);
+    }
+
+    /**
+     * 追加消息
+     *
+     * @param appended 消息
+     * @return 估算字节数的变化量，日志已关闭时返回-1
+     */
+    public synchronized long append(Collection<Message> appended) {
+        if (closed) {
+            return -1;
+        }
+        long before = bytes;
+        if (messages.size() + appended.size() > messages.getMaxMessages()) {
+            generation++;
+        }
+        messages.addAll(appended);
+        bytes = messages.retainedBytes();
+        touch();
+        return bytes - before;
+    }
+
+    /**
+     * 获取消息快照
+     */
+    public synchronized List<Message> snapshot() {
+        touch();
+        return messages.toSpringAiMessages(messages.size());
+    }
+
+    /**
+     * 清空消息
+     *
+     * @return 释放的估算字节数，日志已关闭时返回-1
+     */
+    public synchronized long clear() {
+        if (closed) {
+            return -1;
+        }
+        long before = bytes;
+        messages.clear();
+        bytes = messages.retainedBytes();
+        generation++;
+        touch();
+        return before - bytes;
+    }
+
+    /**
+     * 获取用于压缩的快照（不更新访问时间）
+     *
+     * @return 快照，日志已关闭时返回null
+     */
+    public synchronized Snapshot compactionSnapshot() {
+        if (closed) {
+            return null;
+        }
+        Role[] roles = new Role[messages.size()];
+        for (int i = 0; i < roles.length; i++) {
+            roles[i] = messages.role(i);
+        }
+        return new Snapshot(messages.toSpringAiMessages(messages.size()), List.of(roles), generation);
+    }
+
+    /**
+     * 用摘要替换最早的若干条消息
+     *
+     * @param generation 快照时的代数，期间前缀被修改过时放弃替换
+     * @param count 被替换的消息数
+     * @param summary 摘要内容
+     * @return 估算字节数的变化量，日志已关闭、前缀已变化或count越界时返回null
+     */
+    public synchronized Long replacePrefix(long generation, int count, String summary) {
+        if (closed || generation != this.generation || count < 1 || count > messages.size()) {
+            return null;
+        }
+        long before = bytes;
+        messages.replaceOldest(count, Role.SYSTEM, summary);
+        bytes = messages.retainedBytes();
+        this.generation++;
+        return bytes - before;
+    }
+
+    /**
+     * 消息内容的UTF-8字节数，每个token至少占一个字节，可作为token数的上界
+     */
+    public synchronized long getContentBytes() {
+        return messages.contentBytes();
+    }
+
+    /**
+     * 关闭日志并取出全部消息
+     *
+     * @return 关闭结果，已关闭时返回null
+     */
+    public synchronized Closed close() {
+        if (closed) {
+            return null;
+        }
+        closed = true;
+        List<Message> content = messages.toSpringAiMessages(messages.size());
+        messages.clear();
+        return new Closed(content, bytes);
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public long getLastAccess() {
+        return lastAccess;
+    }
+
+    private void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+    /**
+     * 关闭时的日志内容
+     *
+     * @param messages 消息
+     * @param bytes 估算字节数
+     */
+    public record Closed(List<Message> messages, long bytes) {
+    }
+
+    /**
+     * 压缩快照
+     *
+     * @param messages 消息
+     * @param roles 保存时的角色，与messages一一对应（工具结果还原为Spring AI消息后是用户消息，角色仍为FUNCTION）
+     * @param generation 代数
+     */
+    public record Snapshot(List<Message> messages, List<Role> roles, long generation) {
+    }
+}
@@ -0,0 +1,110 @@
+package com.chy.agents.chat.session;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 会话存储配置
+ */
+@Data
+@ConfigurationProperties(prefix = "chy.agents.session")
+public class SessionProperties {
+
+    /**
+     * 会话空闲过期时间（秒），超时未访问的会话被淘汰
+     */
+    private long idleTtlSeconds = 1800;
+
+    /**
+     * 内存中的最大会话数，超出时淘汰最久未访问的会话
+     */
+    private int maxSessions = 10_000;
+
+    /**
+     * 内存中所有会话消息的估算总字节数上限
+     */
+    private long maxBytes = 256L * 1024 * 1024;
+
+    /**
+     * 单个会话保留的最大消息数，超出时丢弃最早的消息
+     */
+    private int maxMessagesPerSession = 1_000;
+
+    /**
+     * 淘汰的会话溢出到磁盘配置
+     */
+    private Spill spill = new Spill();
+
+    /**
+     * 长会话压缩配置
+     */
+    private Compaction compaction = new Compaction();
+
+    @Data
+    public static class Spill {
+
+        /**
+         * 是否启用溢出到磁盘，启用后淘汰的会话写入本地追加文件，再次访问时恢复
+         */
+        private boolean enabled = false;
+
+        /**
+         * 溢出文件路径
+         */
+        private String file = "./data/sessions/sessions.log";
+
+        /**
+         * 溢出会话保留时间（秒），过期后不再恢复
+         */
+        private long ttlSeconds = 7 * 24 * 3600;
+
+        /**
+         * 文件超过该大小且失效记录过半时压缩
+         */
+        private long compactThresholdBytes = 64L * 1024 * 1024;
+    }
+
+    @Data
+    public static class Compaction {
+
+        /**
+         * 是否启用压缩，启用后会话超过token阈值时在后台用摘要替换较早的对话
+         */
+        private boolean enabled = false;
+
+        /**
+         * 触发压缩的会话token数
+         */
+        private int triggerTokens = 6_000;
+
+        /**
+         * 原样保留的最近对话token数
+         */
+        private int keepRecentTokens = 2_000;
+
+        /**
+         * 原样保留的最少消息数
+         */
+        private int keepRecentMessages = 4;
+
+        /**
+         * 摘要的最大token数
+         */
+        private int summaryMaxTokens = 512;
+
+        /**
+         * 生成摘要使用的模型，为空时使用聊天客户端的默认模型
+         */
+        private String model;
+
+        /**
+         * 压缩线程数
+         */
+        private int workerThreads = 2;
+
+        /**
+         * 等待压缩的会话数上限，超出时跳过本次压缩（下次追加消息时重试）
+         */
+        private int queueCapacity = 100;
+    }
+}
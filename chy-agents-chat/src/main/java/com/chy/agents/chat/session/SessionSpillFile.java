@@ -0,0 +1,359 @@
+package com.chy.agents.chat.session;
+
+import com.chy.agents.core.chat.message.Message.Role;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.Message;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 会话溢出文件
+ * 被淘汰的会话以记录形式追加到本地文件，内存中只保留会话ID到最新记录位置的索引，
+ * 启动时扫描文件重建索引。删除以墓碑记录表示，失效记录（被覆盖、已删除或已过期）过多时重写文件压缩。
+ * 索引按写入顺序排列，过期的会话从索引头部依次清除，不计入有效字节数。
+ * <p>
+ * 记录格式：[int 记录体长度][byte 类型][long 写入时间][int ID长度][ID]，会话记录之后是
+ * [int 消息数]和每条消息的[byte 角色（{@link Role}序号，与{@link com.chy.agents.core.chat.message.CompactMessageLog}一致）]
+ * [int 内容长度][内容]，字符串均为UTF-8。
+ */
+@Slf4j
+public class SessionSpillFile implements Closeable {
+
+    private static final byte RECORD_SESSION = 1;
+    private static final byte RECORD_TOMBSTONE = 2;
+
+    private static final Role[] ROLES = Role.values();
+
+    private final Path path;
+    private final long ttlMillis;
+    private final long compactThresholdBytes;
+    // 按写入时间排列：同一会话重新写入时先移除旧索引项再追加到末尾
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>();
+    private FileChannel channel;
+    private long liveBytes;
+
+    public SessionSpillFile(Path path, long ttlMillis, long compactThresholdBytes) {
+        this.path = path;
+        this.ttlMillis = ttlMillis;
+        this.compactThresholdBytes = compactThresholdBytes;
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            this.channel = open(path);
+            rebuildIndex();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open session spill file " + path, e);
+        }
+    }
+
+    /**
+     * 写入会话
+     *
+     * @param sessionId 会话ID
+     * @param messages 消息
+     */
+    public synchronized void write(String sessionId, List<Message> messages) {
+        append(sessionId, RECORD_SESSION, messages);
+    }
+
+    /**
+     * 读取会话
+     *
+     * @param sessionId 会话ID
+     * @return 消息，会话未溢出或已过期时返回null
+     */
+    public synchronized List<Message> read(String sessionId) {
+        Entry entry = index.get(sessionId);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry)) {
+            purgeExpired();
+            return null;
+        }
+        try {
+            ByteBuffer record = readRecord(entry.offset);
+            return decodeMessages(record);
+        } catch (IOException e) {
+            log.warn("读取溢出会话 {} 失败: {}", sessionId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 删除会话
+     *
+     * @param sessionId 会话ID
+     */
+    public synchronized void delete(String sessionId) {
+        if (index.containsKey(sessionId)) {
+            append(sessionId, RECORD_TOMBSTONE, List.of());
+        }
+    }
+
+    /**
+     * 是否存在未过期的溢出会话
+     */
+    public synchronized boolean contains(String sessionId) {
+        Entry entry = index.get(sessionId);
+        return entry != null && !isExpired(entry);
+    }
+
+    /**
+     * 所有未过期的溢出会话ID
+     */
+    public synchronized Set<String> sessionIds() {
+        purgeExpired();
+        return new HashSet<>(index.keySet());
+    }
+
+    /**
+     * 未过期的溢出会话数
+     */
+    public synchronized int size() {
+        purgeExpired();
+        return index.size();
+    }
+
+    /**
+     * 文件大小
+     */
+    public synchronized long fileSize() {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    private void append(String sessionId, byte type, List<Message> messages) {
+        try {
+            long now = System.currentTimeMillis();
+            byte[] body = encode(sessionId, type, now, messages);
+            long offset = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(4 + body.length);
+            buffer.putInt(body.length).put(body).flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, offset + buffer.position());
+            }
+            index(sessionId, type, offset, 4 + body.length, now);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write session spill file " + path, e);
+        }
+        try {
+            compactIfNeeded();
+        } catch (IOException e) {
+            // 记录已经写入，压缩失败不影响本次写入，下次写入时重试
+            log.warn("会话溢出文件 {} 压缩失败: {}", path, e.getMessage());
+        }
+    }
+
+    private void index(String sessionId, byte type, long offset, int length, long writtenAt) {
+        Entry previous = index.remove(sessionId);
+        if (previous != null) {
+            liveBytes -= previous.length;
+        }
+        if (type == RECORD_SESSION) {
+            index.put(sessionId, new Entry(offset, length, writtenAt));
+            liveBytes += length;
+        }
+    }
+
+    /**
+     * 从索引头部清除过期的会话，遇到未过期的即停止
+     */
+    private void purgeExpired() {
+        Iterator<Entry> iterator = index.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (!isExpired(entry)) {
+                break;
+            }
+            iterator.remove();
+            liveBytes -= entry.length;
+        }
+    }
+
+    /**
+     * 扫描文件重建索引，末尾不完整的记录（写入时崩溃）被截掉
+     */
+    private void rebuildIndex() throws IOException {
+        long size = channel.size();
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(4);
+        while (offset + 4 <= size) {
+            header.clear();
+            channel.read(header, offset);
+            int length = header.flip().getInt();
+            if (length <= 0 || offset + 4 + length > size) {
+                break;
+            }
+            ByteBuffer record = readRecord(offset);
+            byte type = record.get();
+            long writtenAt = record.getLong();
+            String sessionId = readString(record);
+            index(sessionId, type, offset, 4 + length, writtenAt);
+            offset += 4 + length;
+        }
+        if (offset < size) {
+            log.warn("会话溢出文件 {} 末尾有 {} 字节不完整记录，已截断", path, size - offset);
+            channel.truncate(offset);
+        }
+        log.info("会话溢出文件 {} 已加载 {} 个会话", path, index.size());
+    }
+
+    /**
+     * 失效记录过半且文件超过阈值时，只保留有效记录重写文件
+     * 新文件写完并落盘后才替换原文件；替换失败时保留原文件和原索引，重新打开原文件继续使用
+     */
+    private void compactIfNeeded() throws IOException {
+        long size = channel.size();
+        if (size < compactThresholdBytes) {
+            return;
+        }
+        purgeExpired();
+        if (liveBytes * 2 > size) {
+            return;
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".compact");
+        LinkedHashMap<String, Entry> compacted = new LinkedHashMap<>();
+        long position = 0;
+        try (FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Map.Entry<String, Entry> item : index.entrySet()) {
+                Entry entry = item.getValue();
+                ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+                channel.read(buffer, entry.offset);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    target.write(buffer, position + buffer.position());
+                }
+                compacted.put(item.getKey(), new Entry(position, entry.length, entry.writtenAt));
+                position += entry.length;
+            }
+            target.force(true);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+        channel.close();
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw e;
+        } finally {
+            // 无论替换是否成功都重新打开，失败时打开的仍是原文件，原索引继续有效
+            channel = open(path);
+        }
+        index.clear();
+        index.putAll(compacted);
+        liveBytes = position;
+        log.info("会话溢出文件 {} 压缩完成: {} -> {} 字节", path, size, position);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除临时文件 {} 失败: {}", file, e.getMessage());
+        }
+    }
+
+    private boolean isExpired(Entry entry) {
+        return System.currentTimeMillis() - entry.writtenAt > ttlMillis;
+    }
+
+    private ByteBuffer readRecord(long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        channel.read(header, offset);
+        int length = header.flip().getInt();
+        ByteBuffer record = ByteBuffer.allocate(length);
+        while (record.hasRemaining()) {
+            if (channel.read(record, offset + 4 + record.position()) < 0) {
+                throw new IOException("Unexpected end of session spill file");
+            }
+        }
+        return record.flip();
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static byte[] encode(String sessionId, byte type, long writtenAt, List<Message> messages)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(type);
+        out.writeLong(writtenAt);
+        writeString(out, sessionId);
+        if (type == RECORD_SESSION) {
+            out.writeInt(messages.size());
+            for (Message message : messages) {
+                out.writeByte(com.chy.agents.core.chat.message.Message.roleOf(message).ordinal());
+                writeString(out, message.getContent());
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static List<Message> decodeMessages(ByteBuffer record) {
+        record.get();
+        record.getLong();
+        readString(record);
+        int count = record.getInt();
+        List<Message> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Role role = ROLES[record.get()];
+            messages.add(com.chy.agents.core.chat.message.Message.springAiMessage(role, readString(record)));
+        }
+        return messages;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * 索引项
+     */
+    private record Entry(long offset, int length, long writtenAt) {
+    }
+}
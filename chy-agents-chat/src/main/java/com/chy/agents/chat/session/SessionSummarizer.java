@@ -0,0 +1,21 @@
+package com.chy.agents.chat.session;
+
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.List;
+
+/**
+ * 会话摘要生成器
+ */
+@FunctionalInterface
+public interface SessionSummarizer {
+
+    /**
+     * 为一段对话生成摘要
+     *
+     * @param messages 按时间先后排列的消息（可能以上一次的摘要开头）
+     * @param maxTokens 摘要的最大token数
+     * @return 摘要内容
+     */
+    String summarize(List<Message> messages, int maxTokens);
+}
@@ -0,0 +1,59 @@
+package com.chy.agents.chat.service;
+
+import com.chy.agents.chat.session.SessionProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionManagerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void clearedSpilledSessionDoesNotComeBack() {
+        try (SessionManager manager = new SessionManager(properties())) {
+            manager.addMessages("s1", List.of(new UserMessage("one"), new UserMessage("two")));
+            // 只保留一个会话，s1被淘汰到溢出文件
+            manager.addMessage("s2", new UserMessage("other"));
+
+            manager.clearSession("s1");
+            manager.addMessage("s2", new UserMessage("again"));
+
+            assertTrue(manager.getSessionHistory("s1").isEmpty());
+            assertEquals(List.of("other", "again"),
+                    manager.getSessionHistory("s2").stream().map(Message::getContent).toList());
+        }
+    }
+
+    @Test
+    void clearingReleasesTrackedBytes() {
+        try (SessionManager manager = new SessionManager(properties())) {
+            manager.addMessages("s1", List.of(new UserMessage("one"), new UserMessage("two")));
+
+            long before = (long) manager.getMetrics().get("bytes");
+
+            manager.clearSession("s1");
+            long cleared = (long) manager.getMetrics().get("bytes");
+            manager.clearSession("s1");
+
+            assertTrue(cleared > 0 && cleared < before);
+            assertEquals(cleared, manager.getMetrics().get("bytes"));
+        }
+    }
+
+    private SessionProperties properties() {
+        SessionProperties properties = new SessionProperties();
+        properties.setMaxSessions(1);
+        properties.getSpill().setEnabled(true);
+        properties.getSpill().setFile(dir.resolve("sessions.log").toString());
+        return properties;
+    }
+}
@@ -0,0 +1,216 @@
+package com.chy.agents.chat.session;
+
+import com.chy.agents.common.tokenizer.Tokenizer;
+import com.chy.agents.core.chat.message.Message.Role;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionCompactorTest {
+
+    private static final int CONTENT_LENGTH = 10;
+    /**
+     * 每条消息的token数（内容加格式开销）
+     */
+    private static final int MESSAGE_TOKENS = CONTENT_LENGTH + 4;
+
+    /**
+     * 每个字符一个token
+     */
+    private static final Tokenizer CHARACTERS = new Tokenizer() {
+        @Override
+        public String getName() {
+            return "characters";
+        }
+
+        @Override
+        public int countTokens(String text) {
+            return text == null ? 0 : text.length();
+        }
+
+        @Override
+        public String truncate(String text, int maxTokens) {
+            return text.length() <= maxTokens ? text : text.substring(0, maxTokens);
+        }
+    };
+
+    private final SessionProperties.Compaction properties = new SessionProperties.Compaction();
+    private final List<List<Message>> summarized = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong bytesChanged = new AtomicLong();
+    private CountDownLatch release = new CountDownLatch(0);
+    private SessionCompactor compactor;
+
+    SessionCompactorTest() {
+        properties.setEnabled(true);
+        properties.setTriggerTokens(10 * CONTENT_LENGTH);
+        properties.setKeepRecentMessages(1);
+        properties.setKeepRecentTokens(4 * MESSAGE_TOKENS);
+        properties.setWorkerThreads(1);
+        compactor = new SessionCompactor(properties, (messages, maxTokens) -> {
+            summarized.add(List.copyOf(messages));
+            await(release);
+            return "摘要";
+        }, CHARACTERS);
+    }
+
+    @AfterEach
+    void shutdown() {
+        compactor.close();
+    }
+
+    @Test
+    void neverSplitsToolCallFromItsResult() {
+        List<Role> roles = List.of(Role.USER, Role.ASSISTANT, Role.FUNCTION, Role.ASSISTANT,
+                Role.USER, Role.ASSISTANT, Role.FUNCTION, Role.ASSISTANT, Role.USER, Role.ASSISTANT);
+        int[] tokens = tokens(roles.size());
+
+        // 保留最近4条时原始切点落在工具结果上，保留5条时落在工具调用上，都向前对齐到发起本轮的用户消息
+        assertEquals(4, SessionCompactor.splitPoint(roles, tokens, 1, 4 * MESSAGE_TOKENS));
+        assertEquals(4, SessionCompactor.splitPoint(roles, tokens, 1, 5 * MESSAGE_TOKENS));
+        assertEquals(8, SessionCompactor.splitPoint(roles, tokens, 1, 2 * MESSAGE_TOKENS));
+
+        for (int keep = 0; keep <= roles.size() * MESSAGE_TOKENS; keep++) {
+            int split = SessionCompactor.splitPoint(roles, tokens, 1, keep);
+            assertTrue(split == 0 || roles.get(split) == Role.USER, "keep " + keep);
+            assertTrue(split < roles.size(), "keep " + keep);
+        }
+    }
+
+    @Test
+    void keepsWholeSessionWithoutUserMessageToAlignTo() {
+        List<Role> roles = List.of(Role.SYSTEM, Role.ASSISTANT, Role.FUNCTION, Role.ASSISTANT);
+
+        assertEquals(0, SessionCompactor.splitPoint(roles, tokens(roles.size()), 1, MESSAGE_TOKENS));
+    }
+
+    @Test
+    void replacesOlderTurnsWithSummary() throws InterruptedException {
+        SessionLog session = session(100, 10);
+
+        compactor.maybeCompact("s", session, bytesChanged::addAndGet);
+        waitUntil(() -> (long) compactor.getMetrics().get("compactions") == 1);
+
+        List<Message> messages = session.snapshot();
+        assertEquals(6, summarized.get(0).size());
+        assertEquals(5, messages.size());
+        assertEquals(MessageType.SYSTEM, messages.get(0).getMessageType());
+        assertEquals(SessionCompactor.SUMMARY_PREFIX + "摘要", messages.get(0).getContent());
+        assertEquals(MessageType.USER, messages.get(1).getMessageType());
+        assertEquals("u6".repeat(CONTENT_LENGTH / 2), messages.get(1).getContent());
+        assertTrue(bytesChanged.get() < 0);
+    }
+
+    @Test
+    void keepsMessagesAppendedDuringSummarization() throws InterruptedException {
+        SessionLog session = session(100, 10);
+        release = new CountDownLatch(1);
+
+        compactor.maybeCompact("s", session, bytesChanged::addAndGet);
+        waitUntil(() -> !summarized.isEmpty());
+        session.append(List.of(new UserMessage("late")));
+        release.countDown();
+        waitUntil(() -> (long) compactor.getMetrics().get("compactions") == 1);
+
+        List<Message> messages = session.snapshot();
+        assertEquals(6, messages.size());
+        assertEquals("late", messages.get(5).getContent());
+    }
+
+    @Test
+    void discardsSummaryWhenAppendEvictsSummarizedMessages() throws InterruptedException {
+        // 日志已满，摘要期间追加会淘汰最早的消息，快照中的前缀不再有效
+        SessionLog session = session(10, 10);
+        release = new CountDownLatch(1);
+
+        compactor.maybeCompact("s", session, bytesChanged::addAndGet);
+        waitUntil(() -> !summarized.isEmpty());
+        session.append(List.of(new UserMessage("late")));
+        release.countDown();
+        waitUntil(() -> (long) compactor.getMetrics().get("stale") == 1);
+
+        List<Message> messages = session.snapshot();
+        assertEquals(0L, compactor.getMetrics().get("compactions"));
+        assertEquals(10, messages.size());
+        assertEquals("a1".repeat(CONTENT_LENGTH / 2), messages.get(0).getContent());
+        assertEquals("late", messages.get(9).getContent());
+        assertEquals(0, bytesChanged.get());
+    }
+
+    @Test
+    void discardsSummaryWhenSessionIsClearedDuringSummarization() throws InterruptedException {
+        SessionLog session = session(100, 10);
+        release = new CountDownLatch(1);
+
+        compactor.maybeCompact("s", session, bytesChanged::addAndGet);
+        waitUntil(() -> !summarized.isEmpty());
+        session.clear();
+        session.append(List.of(new UserMessage("new")));
+        release.countDown();
+        waitUntil(() -> (long) compactor.getMetrics().get("stale") == 1);
+
+        assertEquals(List.of("new"), session.snapshot().stream().map(Message::getContent).toList());
+    }
+
+    @Test
+    void skipsSessionsBelowTrigger() throws InterruptedException {
+        SessionLog session = session(100, 4);
+
+        compactor.maybeCompact("s", session, bytesChanged::addAndGet);
+        Thread.sleep(50);
+
+        assertTrue(summarized.isEmpty());
+        assertEquals(4, session.snapshot().size());
+    }
+
+    /**
+     * 交替的用户和助手消息，第i条内容为角色首字母加序号重复到固定长度
+     */
+    private static SessionLog session(int maxMessages, int count) {
+        SessionLog session = new SessionLog(maxMessages);
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(i % 2 == 0
+                    ? new UserMessage(("u" + i).repeat(CONTENT_LENGTH / 2))
+                    : new AssistantMessage(("a" + i).repeat(CONTENT_LENGTH / 2)));
+        }
+        session.append(messages);
+        return session;
+    }
+
+    private static int[] tokens(int count) {
+        int[] tokens = new int[count];
+        Arrays.fill(tokens, CONTENT_LENGTH);
+        return tokens;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,133 @@
+package com.chy.agents.chat.session;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionSpillFileTest {
+
+    private static final long DAY_MILLIS = 24 * 3600 * 1000L;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBackMessagesWithRoles() throws Exception {
+        try (SessionSpillFile file = new SessionSpillFile(dir.resolve("sessions.log"), DAY_MILLIS, Long.MAX_VALUE)) {
+            file.write("s1", List.of(new SystemMessage("系统"), new UserMessage("你好"), new AssistantMessage("hi")));
+
+            List<Message> messages = file.read("s1");
+            assertEquals(List.of(MessageType.SYSTEM, MessageType.USER, MessageType.ASSISTANT),
+                    messages.stream().map(Message::getMessageType).toList());
+            assertEquals(List.of("系统", "你好", "hi"), messages.stream().map(Message::getContent).toList());
+            assertNull(file.read("missing"));
+        }
+    }
+
+    @Test
+    void rebuildsIndexOnReopen() throws Exception {
+        Path path = dir.resolve("sessions.log");
+        try (SessionSpillFile file = new SessionSpillFile(path, DAY_MILLIS, Long.MAX_VALUE)) {
+            file.write("s1", List.of(new UserMessage("one")));
+            file.write("s2", List.of(new UserMessage("two")));
+            file.write("s1", List.of(new UserMessage("one again")));
+            file.delete("s2");
+        }
+        try (SessionSpillFile file = new SessionSpillFile(path, DAY_MILLIS, Long.MAX_VALUE)) {
+            assertEquals(Set.of("s1"), file.sessionIds());
+            assertEquals("one again", file.read("s1").get(0).getContent());
+            assertNull(file.read("s2"));
+        }
+    }
+
+    @Test
+    void truncatesIncompleteTailRecord() throws Exception {
+        Path path = dir.resolve("sessions.log");
+        try (SessionSpillFile file = new SessionSpillFile(path, DAY_MILLIS, Long.MAX_VALUE)) {
+            file.write("s1", List.of(new UserMessage("kept")));
+        }
+        long complete = Files.size(path);
+        // 模拟写入记录时崩溃：长度字段声明的记录体没有写完
+        Files.write(path, ByteBuffer.allocate(6).putInt(100).putShort((short) 1).array(), StandardOpenOption.APPEND);
+
+        try (SessionSpillFile file = new SessionSpillFile(path, DAY_MILLIS, Long.MAX_VALUE)) {
+            assertEquals(complete, file.fileSize());
+            assertEquals("kept", file.read("s1").get(0).getContent());
+            file.write("s2", List.of(new UserMessage("after")));
+            assertEquals("after", file.read("s2").get(0).getContent());
+        }
+    }
+
+    @Test
+    void compactsOverwrittenAndDeletedRecords() throws Exception {
+        Path path = dir.resolve("sessions.log");
+        try (SessionSpillFile file = new SessionSpillFile(path, DAY_MILLIS, 1)) {
+            for (int i = 0; i < 20; i++) {
+                file.write("s1", List.of(new UserMessage("version " + i)));
+                file.write("s2", List.of(new UserMessage("temp " + i)));
+                file.delete("s2");
+            }
+            long single = recordSize(dir.resolve("single.log"), "s1", "version 19");
+            assertTrue(file.fileSize() <= 2 * single, "file not compacted: " + file.fileSize());
+            assertEquals("version 19", file.read("s1").get(0).getContent());
+        }
+        try (SessionSpillFile file = new SessionSpillFile(path, DAY_MILLIS, 1)) {
+            assertEquals(Set.of("s1"), file.sessionIds());
+        }
+    }
+
+    @Test
+    void expiredSessionsDoNotCountAsLive() throws Exception {
+        Path path = dir.resolve("sessions.log");
+        try (SessionSpillFile file = new SessionSpillFile(path, 50, 1)) {
+            file.write("old", List.of(new UserMessage("x".repeat(1000))));
+            Thread.sleep(100);
+            assertFalse(file.contains("old"));
+            file.write("new", List.of(new UserMessage("y")));
+
+            assertEquals(1, file.size());
+            assertEquals(Set.of("new"), file.sessionIds());
+            assertEquals(recordSize(dir.resolve("single.log"), "new", "y"), file.fileSize());
+            assertNull(file.read("old"));
+        }
+    }
+
+    @Test
+    void keepsWorkingWhenCompactionFails() throws Exception {
+        Path path = dir.resolve("sessions.log");
+        // 临时文件路径被非空目录占用，压缩无法进行
+        Files.createDirectories(dir.resolve("sessions.log.compact").resolve("blocked"));
+        try (SessionSpillFile file = new SessionSpillFile(path, DAY_MILLIS, 1)) {
+            for (int i = 0; i < 5; i++) {
+                file.write("s1", List.of(new UserMessage("version " + i)));
+            }
+            assertEquals("version 4", file.read("s1").get(0).getContent());
+        }
+        try (SessionSpillFile file = new SessionSpillFile(path, DAY_MILLIS, Long.MAX_VALUE)) {
+            assertEquals("version 4", file.read("s1").get(0).getContent());
+        }
+    }
+
+    private static long recordSize(Path path, String sessionId, String content) throws Exception {
+        try (SessionSpillFile file = new SessionSpillFile(path, DAY_MILLIS, Long.MAX_VALUE)) {
+            file.write(sessionId, List.of(new UserMessage(content)));
+            return file.fileSize();
+        }
+    }
+}
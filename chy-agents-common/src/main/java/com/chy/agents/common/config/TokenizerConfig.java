@@ -0,0 +1,59 @@
+package com.chy.agents.common.config;
+
+import com.chy.agents.common.exception.AgentException;
+import com.chy.agents.common.exception.AgentException.ErrorCode;
+import com.chy.agents.common.tokenizer.BpeEncodingType;
+import com.chy.agents.common.tokenizer.Tokenizer;
+import com.chy.agents.common.tokenizer.TokenizerProperties;
+import com.chy.agents.common.tokenizer.Tokenizers;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * 分词器配置
+ * 将配置的词表路径和默认编码应用到{@link Tokenizers}，TokenUtils等静态工具随之使用同一分词器。
+ * 默认编码没有可用词表时输出警告，配置require-vocabulary后启动失败
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(TokenizerProperties.class)
+public class TokenizerConfig {
+
+    /**
+     * 创建默认分词器
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public Tokenizer tokenizer(TokenizerProperties properties) {
+        properties.getVocabularies().forEach((encoding, path) ->
+                Tokenizers.setVocabularyPath(resolve(encoding), Path.of(path)));
+        String directory = properties.getVocabularyDir();
+        Tokenizers.setVocabularyDirectory(directory != null && !directory.isBlank() ? Path.of(directory) : null);
+        Tokenizers.setDefaultEncoding(resolve(properties.getDefaultEncoding()));
+
+        Tokenizer tokenizer = Tokenizers.getDefault();
+        if (!Tokenizers.isExact(tokenizer)) {
+            String message = "No " + properties.getDefaultEncoding() + " vocabulary found, token counts are "
+                    + "heuristic estimates. Put " + properties.getDefaultEncoding() + ".tiktoken into "
+                    + directory + " or set chy.agents.tokenizer.vocabularies." + properties.getDefaultEncoding();
+            if (properties.isRequireVocabulary()) {
+                throw new AgentException(ErrorCode.CONFIG_ERROR, message);
+            }
+            log.warn("{}", message);
+        }
+        return tokenizer;
+    }
+
+    private static BpeEncodingType resolve(String encoding) {
+        BpeEncodingType type = BpeEncodingType.of(encoding);
+        if (type == null) {
+            throw new AgentException(ErrorCode.CONFIG_ERROR, "Unknown tokenizer encoding: " + encoding);
+        }
+        return type;
+    }
+}
@@ -0,0 +1,116 @@
+package com.chy.agents.common.tokenizer;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 内置的BPE编码类型
+ * 各类型的词表文件格式相同，区别在于预分词正则、特殊token以及适用的模型
+ */
+public enum BpeEncodingType {
+
+    /**
+     * GPT-4、GPT-3.5及text-embedding-3系列
+     */
+    CL100K_BASE("cl100k_base",
+            "(?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+|\\p{N}{1,3}"
+                    + "| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+",
+            Map.of("<|endoftext|>", 100257, "<|fim_prefix|>", 100258, "<|fim_middle|>", 100259,
+                    "<|fim_suffix|>", 100260, "<|endofprompt|>", 100276),
+            List.of("gpt-4", "gpt-3.5", "gpt-35", "text-embedding-3", "text-embedding-ada-002")),
+
+    /**
+     * GPT-4o、GPT-4.1及o系列推理模型
+     */
+    O200K_BASE("o200k_base",
+            "[^\\r\\n\\p{L}\\p{N}]?[\\p{Lu}\\p{Lt}\\p{Lm}\\p{Lo}\\p{M}]*[\\p{Ll}\\p{Lm}\\p{Lo}\\p{M}]+"
+                    + "(?i:'s|'t|'re|'ve|'m|'ll|'d)?"
+                    + "|[^\\r\\n\\p{L}\\p{N}]?[\\p{Lu}\\p{Lt}\\p{Lm}\\p{Lo}\\p{M}]+[\\p{Ll}\\p{Lm}\\p{Lo}\\p{M}]*"
+                    + "(?i:'s|'t|'re|'ve|'m|'ll|'d)?"
+                    + "|\\p{N}{1,3}| ?[^\\s\\p{L}\\p{N}]+[\\r\\n/]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+",
+            Map.of("<|endoftext|>", 199999, "<|endofprompt|>", 200018),
+            List.of("gpt-4o", "gpt-4.1", "gpt-4.5", "gpt-5", "o1", "o3", "o4", "chatgpt-4o")),
+
+    /**
+     * 通义千问系列，数字逐位切分
+     */
+    QWEN("qwen",
+            "(?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+|\\p{N}"
+                    + "| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+",
+            Map.of("<|endoftext|>", 151643, "<|im_start|>", 151644, "<|im_end|>", 151645),
+            List.of("qwen", "qwq"));
+
+    private final String encodingName;
+    private final String pattern;
+    private final Map<String, Integer> specialTokens;
+    private final List<String> modelPrefixes;
+
+    BpeEncodingType(String encodingName, String pattern, Map<String, Integer> specialTokens,
+                    List<String> modelPrefixes) {
+        this.encodingName = encodingName;
+        this.pattern = pattern;
+        this.specialTokens = specialTokens;
+        this.modelPrefixes = modelPrefixes;
+    }
+
+    public String getEncodingName() {
+        return encodingName;
+    }
+
+    /**
+     * 预分词正则
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    public Map<String, Integer> getSpecialTokens() {
+        return specialTokens;
+    }
+
+    /**
+     * 类路径中的默认词表位置
+     */
+    public String getResourcePath() {
+        return "tokenizer/" + encodingName + ".tiktoken";
+    }
+
+    /**
+     * 按编码名称查找
+     *
+     * @param encodingName 编码名称，忽略大小写
+     * @return 编码类型，未知名称返回null
+     */
+    public static BpeEncodingType of(String encodingName) {
+        for (BpeEncodingType type : values()) {
+            if (type.encodingName.equalsIgnoreCase(encodingName)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按模型名称查找编码类型，取最长匹配的模型前缀
+     *
+     * @param model 模型名称
+     * @return 编码类型，未知模型返回null
+     */
+    public static BpeEncodingType forModel(String model) {
+        if (model == null) {
+            return null;
+        }
+        String normalized = model.toLowerCase();
+        BpeEncodingType best = null;
+        int bestLength = 0;
+        for (BpeEncodingType type : values()) {
+            for (String prefix : type.modelPrefixes) {
+                if (prefix.length() > bestLength && normalized.startsWith(prefix)) {
+                    best = type;
+                    bestLength = prefix.length();
+                }
+            }
+        }
+        return best;
+    }
+}
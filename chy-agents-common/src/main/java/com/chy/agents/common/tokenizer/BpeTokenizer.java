@@ -0,0 +1,374 @@
+package com.chy.agents.common.tokenizer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 字节级BPE分词器
+ * 先按特殊token切分文本，再用预分词正则切出片段，片段按UTF-8编码后在词表中逐步合并排名最小的相邻字节对。
+ * 编码过程使用线程本地的缓冲区和正则匹配器，计数和截断不生成token数组，整个词即token时直接命中词表。
+ */
+public class BpeTokenizer implements Tokenizer {
+
+    private static final int NO_RANK = Integer.MAX_VALUE;
+
+    private final String name;
+    private final BpeVocabulary vocabulary;
+    private final Pattern pattern;
+    private final Map<String, Integer> specialTokens;
+    private final Map<Integer, String> specialTokensById;
+    private final Pattern specialPattern;
+    private final ThreadLocal<Scratch> scratch;
+
+    public BpeTokenizer(BpeEncodingType type, BpeVocabulary vocabulary) {
+        this(type.getEncodingName(), vocabulary, type.getPattern(), type.getSpecialTokens());
+    }
+
+    public BpeTokenizer(String name, BpeVocabulary vocabulary, String pattern, Map<String, Integer> specialTokens) {
+        this.name = name;
+        this.vocabulary = vocabulary;
+        // 与tiktoken一致，\s等字符类按Unicode匹配（全角空格、不换行空格等也是空白）
+        this.pattern = Pattern.compile(pattern, Pattern.UNICODE_CHARACTER_CLASS);
+        this.specialTokens = Map.copyOf(specialTokens);
+        this.specialTokensById = new HashMap<>();
+        specialTokens.forEach((token, id) -> specialTokensById.put(id, token));
+
+        if (specialTokens.isEmpty()) {
+            this.specialPattern = null;
+        } else {
+            StringBuilder alternatives = new StringBuilder();
+            for (String token : specialTokens.keySet()) {
+                if (alternatives.length() > 0) {
+                    alternatives.append('|');
+                }
+                alternatives.append(Pattern.quote(token));
+            }
+            this.specialPattern = Pattern.compile(alternatives.toString());
+        }
+        this.scratch = ThreadLocal.withInitial(Scratch::new);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int countTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return scan(text, Integer.MAX_VALUE, false, scratch.get());
+    }
+
+    @Override
+    public String truncate(String text, int maxTokens) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        Scratch s = scratch.get();
+        scan(text, Math.max(maxTokens, 0), false, s);
+        return s.stop < 0 ? text : text.substring(0, s.stop);
+    }
+
+    /**
+     * 编码为token ID
+     *
+     * @param text 输入文本
+     * @return token ID数组
+     */
+    public int[] encode(String text) {
+        if (text == null || text.isEmpty()) {
+            return new int[0];
+        }
+        Scratch s = scratch.get();
+        scan(text, Integer.MAX_VALUE, true, s);
+        return Arrays.copyOf(s.out, s.outSize);
+    }
+
+    /**
+     * 将token ID解码为文本
+     *
+     * @param tokens token ID数组
+     * @return 文本，不完整的UTF-8序列以替换字符表示
+     */
+    public String decode(int[] tokens) {
+        int length = 0;
+        for (int token : tokens) {
+            String special = specialTokensById.get(token);
+            length += special != null ? special.length() * 3 : vocabulary.tokenLength(token);
+        }
+        byte[] bytes = new byte[length];
+        int position = 0;
+        for (int token : tokens) {
+            String special = specialTokensById.get(token);
+            if (special != null) {
+                byte[] encoded = special.getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(encoded, 0, bytes, position, encoded.length);
+                position += encoded.length;
+            } else {
+                position += vocabulary.copyToken(token, bytes, position);
+            }
+        }
+        return new String(bytes, 0, position, StandardCharsets.UTF_8);
+    }
+
+    public BpeVocabulary getVocabulary() {
+        return vocabulary;
+    }
+
+    /**
+     * 扫描文本并计数，超过限制时停止
+     * 停止时s.stop为截断位置（字符下标），未超过限制时为-1；collect为true时token写入s.out
+     *
+     * @return token数，超过限制时返回限制值
+     */
+    private int scan(String text, int limit, boolean collect, Scratch s) {
+        s.stop = -1;
+        s.outSize = 0;
+        try {
+            return scanSegments(text, limit, collect, s);
+        } finally {
+            // 避免线程本地的匹配器长期持有大文本
+            s.release();
+        }
+    }
+
+    private int scanSegments(String text, int limit, boolean collect, Scratch s) {
+        int length = text.length();
+        int count = 0;
+        int position = 0;
+        Matcher special = specialPattern != null ? s.specialMatcher(specialPattern).reset(text) : null;
+        Matcher matcher = s.matcher(pattern);
+
+        while (position < length) {
+            int segmentEnd = length;
+            int specialEnd = -1;
+            if (special != null && special.find(position)) {
+                segmentEnd = special.start();
+                specialEnd = special.end();
+            }
+
+            matcher.reset(text).region(position, segmentEnd);
+            while (matcher.find()) {
+                int pieceStart = matcher.start();
+                int pieceEnd = matcher.end();
+                int byteLength = s.utf8(text, pieceStart, pieceEnd);
+                int mark = s.outSize;
+                int tokens = bytePairEncode(s, byteLength, collect);
+                if (count + tokens > limit) {
+                    if (!collect) {
+                        mark = s.outSize;
+                        bytePairEncode(s, byteLength, true);
+                    }
+                    int keepBytes = 0;
+                    for (int i = 0; i < limit - count; i++) {
+                        keepBytes += vocabulary.tokenLength(s.out[mark + i]);
+                    }
+                    s.outSize = mark + (limit - count);
+                    s.stop = charsForBytes(text, pieceStart, pieceEnd, keepBytes);
+                    return limit;
+                }
+                count += tokens;
+            }
+
+            if (specialEnd < 0) {
+                break;
+            }
+            if (count + 1 > limit) {
+                s.stop = segmentEnd;
+                return limit;
+            }
+            if (collect) {
+                s.add(specialTokens.get(special.group()));
+            }
+            count++;
+            position = specialEnd;
+        }
+        return count;
+    }
+
+    /**
+     * 对s.bytes[0, length)执行BPE合并
+     *
+     * @return token数
+     */
+    private int bytePairEncode(Scratch s, int length, boolean collect) {
+        byte[] bytes = s.bytes;
+        int whole = vocabulary.rank(bytes, 0, length);
+        if (whole >= 0) {
+            if (collect) {
+                s.add(whole);
+            }
+            return 1;
+        }
+
+        // parts[i]为第i个片段的起始位置，ranks[i]为片段i与i+1合并后的排名
+        s.ensureParts(length + 1);
+        int[] parts = s.parts;
+        int[] ranks = s.ranks;
+        int size = length + 1;
+        for (int i = 0; i < size; i++) {
+            parts[i] = i;
+        }
+        for (int i = 0; i < size; i++) {
+            ranks[i] = pairRank(bytes, parts, size, i);
+        }
+
+        while (size > 2) {
+            int minRank = NO_RANK;
+            int minIndex = -1;
+            for (int i = 0; i < size - 2; i++) {
+                if (ranks[i] < minRank) {
+                    minRank = ranks[i];
+                    minIndex = i;
+                }
+            }
+            if (minIndex < 0) {
+                break;
+            }
+            System.arraycopy(parts, minIndex + 2, parts, minIndex + 1, size - minIndex - 2);
+            System.arraycopy(ranks, minIndex + 2, ranks, minIndex + 1, size - minIndex - 2);
+            size--;
+            ranks[minIndex] = pairRank(bytes, parts, size, minIndex);
+            if (minIndex > 0) {
+                ranks[minIndex - 1] = pairRank(bytes, parts, size, minIndex - 1);
+            }
+        }
+
+        if (collect) {
+            for (int i = 0; i < size - 1; i++) {
+                s.add(vocabulary.rank(bytes, parts[i], parts[i + 1] - parts[i]));
+            }
+        }
+        return size - 1;
+    }
+
+    private int pairRank(byte[] bytes, int[] parts, int size, int index) {
+        if (index + 2 >= size) {
+            return NO_RANK;
+        }
+        int rank = vocabulary.rank(bytes, parts[index], parts[index + 2] - parts[index]);
+        return rank >= 0 ? rank : NO_RANK;
+    }
+
+    /**
+     * 从start开始累计完整字符的UTF-8字节数，返回不超过byteLimit的最远字符位置
+     */
+    private static int charsForBytes(String text, int start, int end, int byteLimit) {
+        int position = start;
+        int bytes = 0;
+        while (position < end) {
+            int codePoint = text.codePointAt(position);
+            int width = utf8Width(codePoint);
+            if (bytes + width > byteLimit) {
+                break;
+            }
+            bytes += width;
+            position += Character.charCount(codePoint);
+        }
+        return position;
+    }
+
+    private static int utf8Width(int codePoint) {
+        if (codePoint < 0x80) {
+            return 1;
+        } else if (codePoint < 0x800) {
+            return 2;
+        } else if (codePoint < 0x10000) {
+            // 孤立代理项按"?"编码
+            return Character.isSurrogate((char) codePoint) ? 1 : 3;
+        }
+        return 4;
+    }
+
+    /**
+     * 线程本地的编码缓冲区
+     */
+    private static final class Scratch {
+        private byte[] bytes = new byte[256];
+        private int[] parts = new int[257];
+        private int[] ranks = new int[257];
+        private int[] out = new int[256];
+        private int outSize;
+        private int stop;
+        private Matcher matcher;
+        private Matcher specialMatcher;
+
+        Matcher matcher(Pattern pattern) {
+            if (matcher == null || matcher.pattern() != pattern) {
+                matcher = pattern.matcher("");
+            }
+            return matcher;
+        }
+
+        Matcher specialMatcher(Pattern pattern) {
+            if (specialMatcher == null || specialMatcher.pattern() != pattern) {
+                specialMatcher = pattern.matcher("");
+            }
+            return specialMatcher;
+        }
+
+        void release() {
+            if (matcher != null) {
+                matcher.reset("");
+            }
+            if (specialMatcher != null) {
+                specialMatcher.reset("");
+            }
+        }
+
+        void ensureParts(int size) {
+            if (parts.length < size) {
+                parts = new int[Math.max(size, parts.length * 2)];
+                ranks = new int[parts.length];
+            }
+        }
+
+        void add(int token) {
+            if (outSize == out.length) {
+                out = Arrays.copyOf(out, out.length * 2);
+            }
+            out[outSize++] = token;
+        }
+
+        /**
+         * 将text[start, end)编码为UTF-8写入bytes
+         *
+         * @return 字节数
+         */
+        int utf8(String text, int start, int end) {
+            int required = (end - start) * 3;
+            if (bytes.length < required) {
+                bytes = new byte[Math.max(required, bytes.length * 2)];
+            }
+            int position = 0;
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    bytes[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[position++] = (byte) (0xC0 | (c >> 6));
+                    bytes[position++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    bytes[position++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    bytes[position++] = '?';
+                } else {
+                    bytes[position++] = (byte) (0xE0 | (c >> 12));
+                    bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    bytes[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            return position;
+        }
+    }
+}
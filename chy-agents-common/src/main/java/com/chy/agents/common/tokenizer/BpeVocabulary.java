@@ -0,0 +1,234 @@
+package com.chy.agents.common.tokenizer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * BPE词表
+ * 读取tiktoken格式（每行"base64(token字节) 排名"）的词表，cl100k、o200k和Qwen均使用该格式。
+ * 所有token字节连续存放在一个字节数组中，字节序列到排名的映射是开放寻址的int数组哈希表，
+ * 查找时直接比较调用方缓冲区中的字节片段，不创建任何对象。排名即token ID，排名越小合并优先级越高。
+ */
+public final class BpeVocabulary {
+
+    private static final int EMPTY = -1;
+
+    /**
+     * 所有token的字节，按排名顺序存放
+     */
+    private final byte[] arena;
+
+    /**
+     * 排名对应的token在arena中的起始位置，缺失的排名为-1
+     */
+    private final int[] offsets;
+
+    /**
+     * 排名对应的token字节长度
+     */
+    private final int[] lengths;
+
+    /**
+     * 哈希槽，存放排名，空槽为-1
+     */
+    private final int[] slots;
+    private final int mask;
+    private final int maxTokenLength;
+    private final int size;
+
+    private BpeVocabulary(byte[] arena, int[] offsets, int[] lengths, int size) {
+        this.arena = arena;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.size = size;
+
+        int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(slots, EMPTY);
+
+        int longest = 0;
+        for (int rank = 0; rank < offsets.length; rank++) {
+            if (offsets[rank] < 0) {
+                continue;
+            }
+            longest = Math.max(longest, lengths[rank]);
+            int slot = hash(arena, offsets[rank], lengths[rank]) & mask;
+            while (slots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = rank;
+        }
+        this.maxTokenLength = longest;
+    }
+
+    /**
+     * 从文件加载词表
+     *
+     * @param path 词表文件
+     * @return 词表
+     * @throws IOException 读取失败
+     */
+    public static BpeVocabulary load(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return load(in);
+        }
+    }
+
+    /**
+     * 从输入流加载词表，不关闭输入流
+     *
+     * @param in 输入流
+     * @return 词表
+     * @throws IOException 读取失败或格式错误
+     */
+    public static BpeVocabulary load(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII));
+        Base64.Decoder decoder = Base64.getDecoder();
+
+        byte[] arena = new byte[1 << 20];
+        int arenaSize = 0;
+        int[] ranks = new int[1 << 16];
+        int[] starts = new int[1 << 16];
+        int count = 0;
+        int maxRank = -1;
+
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            int space = line.lastIndexOf(' ');
+            if (space <= 0) {
+                throw new IOException("Invalid vocabulary line " + lineNumber);
+            }
+            byte[] token;
+            int rank;
+            try {
+                token = decoder.decode(line.substring(0, space));
+                rank = Integer.parseInt(line.substring(space + 1).trim());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid vocabulary line " + lineNumber, e);
+            }
+
+            if (arenaSize + token.length > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + token.length));
+            }
+            System.arraycopy(token, 0, arena, arenaSize, token.length);
+            if (count == ranks.length) {
+                ranks = Arrays.copyOf(ranks, count * 2);
+                starts = Arrays.copyOf(starts, count * 2);
+            }
+            ranks[count] = rank;
+            starts[count] = arenaSize;
+            count++;
+            arenaSize += token.length;
+            maxRank = Math.max(maxRank, rank);
+        }
+
+        int[] offsets = new int[maxRank + 1];
+        int[] lengths = new int[maxRank + 1];
+        Arrays.fill(offsets, -1);
+        for (int i = 0; i < count; i++) {
+            int end = i + 1 < count ? starts[i + 1] : arenaSize;
+            offsets[ranks[i]] = starts[i];
+            lengths[ranks[i]] = end - starts[i];
+        }
+
+        BpeVocabulary vocabulary = new BpeVocabulary(Arrays.copyOf(arena, arenaSize), offsets, lengths, count);
+        // 字节级BPE要求每个单字节都有对应的token，否则无法保证任意输入都能编码
+        byte[] single = new byte[1];
+        for (int b = 0; b < 256; b++) {
+            single[0] = (byte) b;
+            if (vocabulary.rank(single, 0, 1) < 0) {
+                throw new IOException("Vocabulary is missing single byte token " + b);
+            }
+        }
+        return vocabulary;
+    }
+
+    /**
+     * 查找字节片段的排名
+     *
+     * @param buffer 缓冲区
+     * @param offset 起始位置
+     * @param length 长度
+     * @return 排名，不在词表中时返回-1
+     */
+    public int rank(byte[] buffer, int offset, int length) {
+        if (length > maxTokenLength) {
+            return -1;
+        }
+        int slot = hash(buffer, offset, length) & mask;
+        int rank;
+        while ((rank = slots[slot]) != EMPTY) {
+            if (lengths[rank] == length && Arrays.equals(arena, offsets[rank], offsets[rank] + length,
+                    buffer, offset, offset + length)) {
+                return rank;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * 获取token的字节长度
+     *
+     * @param rank 排名
+     * @return 字节长度，排名不存在时返回0
+     */
+    public int tokenLength(int rank) {
+        return rank >= 0 && rank < offsets.length && offsets[rank] >= 0 ? lengths[rank] : 0;
+    }
+
+    /**
+     * 将token的字节复制到目标数组
+     *
+     * @param rank 排名
+     * @param target 目标数组
+     * @param position 写入位置
+     * @return 写入的字节数
+     */
+    public int copyToken(int rank, byte[] target, int position) {
+        int length = tokenLength(rank);
+        if (length > 0) {
+            System.arraycopy(arena, offsets[rank], target, position, length);
+        }
+        return length;
+    }
+
+    /**
+     * 词表大小
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 单个token的最大字节长度
+     */
+    public int getMaxTokenLength() {
+        return maxTokenLength;
+    }
+
+    /**
+     * FNV-1a哈希，末尾做一次混合以改善低位分布
+     */
+    private static int hash(byte[] buffer, int offset, int length) {
+        int h = 0x811c9dc5;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h ^= buffer[i];
+            h *= 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+}
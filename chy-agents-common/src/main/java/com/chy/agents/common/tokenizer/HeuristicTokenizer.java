@@ -0,0 +1,99 @@
+package com.chy.agents.common.tokenizer;
+
+/**
+ * 启发式分词器
+ * 没有可用词表时的兜底实现：中日韩字符按每字一个token计，拉丁字母和数字的连续片段按每4个字符一个token计，
+ * 其他文字按每2个字符一个token计，标点符号各计一个token，空白不计
+ */
+public class HeuristicTokenizer implements Tokenizer {
+
+    public static final HeuristicTokenizer INSTANCE = new HeuristicTokenizer();
+
+    private static final int ASCII_CHARS_PER_TOKEN = 4;
+    private static final int OTHER_CHARS_PER_TOKEN = 2;
+
+    @Override
+    public String getName() {
+        return "heuristic";
+    }
+
+    @Override
+    public int countTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return scan(text, Integer.MAX_VALUE, null);
+    }
+
+    @Override
+    public String truncate(String text, int maxTokens) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        int[] stop = {-1};
+        scan(text, Math.max(maxTokens, 0), stop);
+        return stop[0] < 0 ? text : text.substring(0, stop[0]);
+    }
+
+    /**
+     * 扫描文本并计数，超过限制时在stop[0]中记录截断位置
+     */
+    private static int scan(String text, int limit, int[] stop) {
+        int count = 0;
+        int position = 0;
+        int length = text.length();
+        while (position < length) {
+            int codePoint = text.codePointAt(position);
+            int width = Character.charCount(codePoint);
+
+            if (isCjk(codePoint) || (!Character.isLetterOrDigit(codePoint) && !Character.isWhitespace(codePoint))) {
+                if (count + 1 > limit) {
+                    stop[0] = position;
+                    return limit;
+                }
+                count++;
+                position += width;
+            } else if (Character.isWhitespace(codePoint)) {
+                position += width;
+            } else {
+                // 连续的字母数字片段
+                int ascii = 0;
+                int other = 0;
+                int runTokens = 0;
+                int end = position;
+                while (end < length) {
+                    int c = text.codePointAt(end);
+                    if (isCjk(c) || !Character.isLetterOrDigit(c)) {
+                        break;
+                    }
+                    if (c < 0x80) {
+                        ascii++;
+                    } else {
+                        other++;
+                    }
+                    runTokens = ceilDiv(ascii, ASCII_CHARS_PER_TOKEN) + ceilDiv(other, OTHER_CHARS_PER_TOKEN);
+                    if (count + runTokens > limit) {
+                        stop[0] = end;
+                        return limit;
+                    }
+                    end += Character.charCount(c);
+                }
+                count += runTokens;
+                position = end;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+}
@@ -0,0 +1,49 @@
+package com.chy.agents.common.tokenizer;
+
+import java.util.List;
+
+/**
+ * 分词器
+ * 用于上下文预算和成本控制中的token计数与截断
+ */
+public interface Tokenizer {
+
+    /**
+     * 获取分词器名称（如cl100k_base）
+     *
+     * @return 名称
+     */
+    String getName();
+
+    /**
+     * 计算文本的token数
+     *
+     * @param text 输入文本
+     * @return token数，文本为空时返回0
+     */
+    int countTokens(String text);
+
+    /**
+     * 批量计算token数
+     *
+     * @param texts 文本列表
+     * @return 与输入顺序对应的token数
+     */
+    default int[] countTokens(List<String> texts) {
+        int[] counts = new int[texts.size()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = countTokens(texts.get(i));
+        }
+        return counts;
+    }
+
+    /**
+     * 截断文本，使其token数不超过限制
+     * 截断位置总是落在完整字符上
+     *
+     * @param text 输入文本
+     * @param maxTokens 最大token数
+     * @return 截断后的文本，未超过限制时返回原文本
+     */
+    String truncate(String text, int maxTokens);
+}
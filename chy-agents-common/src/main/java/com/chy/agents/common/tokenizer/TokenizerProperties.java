@@ -0,0 +1,36 @@
+package com.chy.agents.common.tokenizer;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 分词器配置
+ */
+@Data
+@ConfigurationProperties(prefix = "chy.agents.tokenizer")
+public class TokenizerProperties {
+
+    /**
+     * 默认编码（cl100k_base、o200k_base、qwen），未知模型的计数使用该编码
+     */
+    private String defaultEncoding = "cl100k_base";
+
+    /**
+     * 词表文件路径，键为编码名称；未配置的编码依次从类路径tokenizer/{编码名称}.tiktoken
+     * 和词表目录中的{编码名称}.tiktoken加载
+     */
+    private Map<String, String> vocabularies = new HashMap<>();
+
+    /**
+     * 词表目录，放入cl100k_base.tiktoken等文件即可启用对应编码，无需逐个配置路径
+     */
+    private String vocabularyDir = System.getProperty("user.home") + "/.chy-agents/tokenizer";
+
+    /**
+     * 默认编码的词表缺失时是否启动失败；关闭时退化为启发式估算并输出警告
+     */
+    private boolean requireVocabulary = false;
+}
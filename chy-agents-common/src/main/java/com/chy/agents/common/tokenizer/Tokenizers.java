@@ -0,0 +1,159 @@
+package com.chy.agents.common.tokenizer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分词器注册表
+ * 按编码类型懒加载并缓存BPE分词器。词表依次从显式配置的路径、类路径tokenizer/{编码名称}.tiktoken
+ * 和词表目录中查找，均缺失或加载失败时退化为{@link HeuristicTokenizer}
+ */
+@Slf4j
+public final class Tokenizers {
+
+    private static final Map<BpeEncodingType, Tokenizer> TOKENIZERS = new ConcurrentHashMap<>();
+    private static final Map<BpeEncodingType, Path> VOCABULARY_PATHS = new ConcurrentHashMap<>();
+
+    private static volatile BpeEncodingType defaultEncoding = BpeEncodingType.CL100K_BASE;
+    private static volatile Path vocabularyDirectory;
+
+    private Tokenizers() {
+    }
+
+    /**
+     * 获取默认分词器
+     */
+    public static Tokenizer getDefault() {
+        return forEncoding(defaultEncoding);
+    }
+
+    /**
+     * 设置默认编码
+     *
+     * @param type 编码类型
+     */
+    public static void setDefaultEncoding(BpeEncodingType type) {
+        defaultEncoding = type;
+    }
+
+    /**
+     * 获取模型对应的分词器，未知模型使用默认分词器
+     *
+     * @param model 模型名称
+     * @return 分词器
+     */
+    public static Tokenizer forModel(String model) {
+        BpeEncodingType type = BpeEncodingType.forModel(model);
+        return type != null ? forEncoding(type) : getDefault();
+    }
+
+    /**
+     * 获取编码类型对应的分词器
+     *
+     * @param type 编码类型
+     * @return 分词器
+     */
+    public static Tokenizer forEncoding(BpeEncodingType type) {
+        return TOKENIZERS.computeIfAbsent(type, Tokenizers::load);
+    }
+
+    /**
+     * 指定编码的词表文件，已加载的分词器会在下次使用时重新加载
+     *
+     * @param type 编码类型
+     * @param path 词表文件
+     */
+    public static void setVocabularyPath(BpeEncodingType type, Path path) {
+        VOCABULARY_PATHS.put(type, path);
+        TOKENIZERS.remove(type);
+    }
+
+    /**
+     * 指定词表目录，目录中的{编码名称}.tiktoken在类路径中没有词表时使用，
+     * 已退化为启发式估算的分词器会在下次使用时重新加载
+     *
+     * @param directory 词表目录，为null时不查找目录
+     */
+    public static void setVocabularyDirectory(Path directory) {
+        vocabularyDirectory = directory;
+        TOKENIZERS.values().removeIf(HeuristicTokenizer.class::isInstance);
+    }
+
+    /**
+     * 判断分词器是否为精确的BPE分词器（而非启发式估算）
+     *
+     * @param tokenizer 分词器
+     * @return 是否精确
+     */
+    public static boolean isExact(Tokenizer tokenizer) {
+        return !(tokenizer instanceof HeuristicTokenizer);
+    }
+
+    /**
+     * 直接注册分词器
+     *
+     * @param type 编码类型
+     * @param tokenizer 分词器
+     */
+    public static void register(BpeEncodingType type, Tokenizer tokenizer) {
+        TOKENIZERS.put(type, tokenizer);
+    }
+
+    /**
+     * 移除已缓存的分词器，下次使用时重新加载
+     *
+     * @param type 编码类型
+     */
+    static void reset(BpeEncodingType type) {
+        TOKENIZERS.remove(type);
+    }
+
+    private static Tokenizer load(BpeEncodingType type) {
+        Path path = VOCABULARY_PATHS.get(type);
+        try {
+            BpeVocabulary vocabulary;
+            if (path != null) {
+                vocabulary = BpeVocabulary.load(path);
+            } else {
+                try (InputStream in = Tokenizers.class.getClassLoader().getResourceAsStream(type.getResourcePath())) {
+                    Path file = vocabularyFile(type);
+                    if (in != null) {
+                        vocabulary = BpeVocabulary.load(in);
+                    } else if (file != null) {
+                        vocabulary = BpeVocabulary.load(file);
+                    } else {
+                        log.warn("未找到{}词表，token计数使用启发式估算，误差可能超过20%。"
+                                        + "请将{}.tiktoken放入类路径tokenizer/或词表目录{}，"
+                                        + "或通过chy.agents.tokenizer.vocabularies.{}指定文件",
+                                type.getEncodingName(), type.getEncodingName(), vocabularyDirectory,
+                                type.getEncodingName());
+                        return HeuristicTokenizer.INSTANCE;
+                    }
+                }
+            }
+            log.info("已加载{}词表，共{}个token", type.getEncodingName(), vocabulary.size());
+            return new BpeTokenizer(type, vocabulary);
+        } catch (IOException | RuntimeException e) {
+            log.warn("加载{}词表失败，使用启发式token估算: {}", type.getEncodingName(), e.getMessage());
+            return HeuristicTokenizer.INSTANCE;
+        }
+    }
+
+    /**
+     * 词表目录中的词表文件，不存在时返回null
+     */
+    private static Path vocabularyFile(BpeEncodingType type) {
+        Path directory = vocabularyDirectory;
+        if (directory == null) {
+            return null;
+        }
+        Path file = directory.resolve(type.getEncodingName() + ".tiktoken");
+        return Files.isRegularFile(file) ? file : null;
+    }
+}
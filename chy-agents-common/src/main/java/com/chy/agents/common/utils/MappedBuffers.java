@@ -0,0 +1,63 @@
+package com.chy.agents.common.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+
+/**
+ * 内存映射缓冲区工具
+ * JDK 17没有公开的解除映射接口，映射要等缓冲区被垃圾回收后才释放，频繁创建和删除映射文件时
+ * 可能耗尽进程的映射数上限（vm.max_map_count）。这里通过sun.misc.Unsafe#invokeCleaner立即释放映射，
+ * 不可用时退回到等待垃圾回收。
+ * <p>
+ * 释放后再访问缓冲区会导致JVM崩溃，调用方必须保证之后不再使用该缓冲区及其视图。
+ */
+@Slf4j
+public final class MappedBuffers {
+
+    private static final MethodHandle INVOKE_CLEANER = lookupCleaner();
+
+    private MappedBuffers() {
+    }
+
+    /**
+     * 立即释放映射
+     *
+     * @param buffer 由FileChannel#map创建的缓冲区，为null时忽略
+     */
+    public static void unmap(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact(buffer);
+        } catch (Throwable e) {
+            log.debug("释放内存映射失败，等待垃圾回收释放: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 当前运行环境是否支持立即释放映射
+     */
+    public static boolean isUnmapSupported() {
+        return INVOKE_CLEANER != null;
+    }
+
+    private static MethodHandle lookupCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.info("不支持立即释放内存映射，映射将在垃圾回收时释放: {}", e.getMessage());
+            return null;
+        }
+    }
+}
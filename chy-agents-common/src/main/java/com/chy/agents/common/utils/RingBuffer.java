@@ -0,0 +1,150 @@
+package com.chy.agents.common.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁环形缓冲区
+ * 写入时领取递增序号并以CAS写入对应槽位，不复制已有元素；读取最近N个元素只做有限次数的数组读取，不加锁也不重试。
+ * 每个槽位保存带序号的节点，读取时按序号校验，正在写入或已被覆盖的槽位会被跳过，
+ * 因此并发写入时读取结果可能暂时缺少尚未完成写入的元素。
+ *
+ * @param <T> 元素类型
+ */
+public class RingBuffer<T> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<Node<T>> slots;
+
+    /**
+     * 下一个写入序号
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 清空时的序号，小于该序号的元素不可见
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity 最多保留的元素数
+     */
+    public RingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        int slotCount = Integer.highestOneBit(capacity);
+        if (slotCount < capacity) {
+            slotCount <<= 1;
+        }
+        this.mask = slotCount - 1;
+        this.slots = new AtomicReferenceArray<>(slotCount);
+    }
+
+    /**
+     * 追加元素，超出容量时最旧的元素被覆盖
+     *
+     * @param value 元素
+     */
+    public void add(T value) {
+        long sequence = tail.getAndIncrement();
+        Node<T> node = new Node<>(sequence, value);
+        int index = (int) (sequence & mask);
+        Node<T> current;
+        do {
+            current = slots.get(index);
+            if (current != null && current.sequence > sequence) {
+                // 更新的写入已经占用该槽位，本元素已超出保留范围
+                return;
+            }
+        } while (!slots.compareAndSet(index, current, node));
+    }
+
+    /**
+     * 获取最近的元素
+     *
+     * @param limit 数量上限
+     * @return 从旧到新排列的元素
+     */
+    public List<T> last(int limit) {
+        long end = tail.get();
+        long start = Math.max(head.get(), end - Math.min(limit, capacity));
+        if (start >= end) {
+            return Collections.emptyList();
+        }
+        List<T> result = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            Node<T> node = slots.get((int) (sequence & mask));
+            if (node != null && node.sequence == sequence) {
+                result.add(node.value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取全部保留的元素
+     *
+     * @return 从旧到新排列的元素
+     */
+    public List<T> toList() {
+        return last(capacity);
+    }
+
+    /**
+     * 当前保留的元素数
+     * 按已领取的序号计算，不扫描槽位：并发写入时包含已领取序号但尚未完成写入的元素，
+     * 因此可能暂时大于{@link #toList()}返回的元素数；没有并发写入时两者一致。
+     */
+    public int size() {
+        long end = tail.get();
+        return (int) Math.min(end - Math.min(head.get(), end), capacity);
+    }
+
+    /**
+     * 是否没有保留的元素，与{@link #size()}一样按已领取的序号判断
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 最多保留的元素数
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 清空缓冲区
+     * 清空前已领取序号的元素都不再可见
+     */
+    public void clear() {
+        long end = tail.get();
+        head.accumulateAndGet(end, Math::max);
+        for (int i = 0; i <= mask; i++) {
+            Node<T> node = slots.get(i);
+            if (node != null && node.sequence < end) {
+                slots.compareAndSet(i, node, null);
+            }
+        }
+    }
+
+    /**
+     * 带序号的槽位节点
+     */
+    private static final class Node<T> {
+        private final long sequence;
+        private final T value;
+
+        private Node(long sequence, T value) {
+            this.sequence = sequence;
+            this.value = value;
+        }
+    }
+}
@@ -2,27 +2,52 @@ package com.chy.agents.common.utils;
 
 import com.chy.agents.common.exception.AgentException;
 import com.chy.agents.common.exception.AgentException.ErrorCode;
+import com.chy.agents.common.tokenizer.Tokenizers;
+
+import java.util.List;
 
 /**
  * Token工具类
+ * 计数和截断使用{@link Tokenizers}的默认BPE分词器，词表不可用时退化为启发式估算
  */
 public class TokenUtils {
     
-    private static final int AVERAGE_CHARS_PER_TOKEN = 4;
     private static final int MAX_TOKENS_DEFAULT = 4096;
     
     /**
-     * 估算文本的token数量
-     * 这是一个粗略的估算，实际token数可能因模型和具体内容而异
+     * 计算文本的token数量
      *
      * @param text 输入文本
-     * @return 估算的token数
+     * @return token数
      */
     public static int estimateTokenCount(String text) {
-        if (text == null || text.isEmpty()) {
-            return 0;
+        return Tokenizers.getDefault().countTokens(text);
+    }
+    
+    /**
+     * 按模型对应的分词器计算文本的token数量
+     *
+     * @param text 输入文本
+     * @param model 模型名称，未知模型使用默认分词器
+     * @return token数
+     */
+    public static int estimateTokenCount(String text, String model) {
+        return Tokenizers.forModel(model).countTokens(text);
+    }
+    
+    /**
+     * 批量计算多段文本的token总数
+     *
+     * @param texts 文本列表
+     * @param model 模型名称，未知模型使用默认分词器
+     * @return token总数
+     */
+    public static long estimateTokenCount(List<String> texts, String model) {
+        long total = 0;
+        for (int count : Tokenizers.forModel(model).countTokens(texts)) {
+            total += count;
         }
-        return (int) Math.ceil((double) text.length() / AVERAGE_CHARS_PER_TOKEN);
+        return total;
     }
     
     /**
@@ -44,16 +69,7 @@ public class TokenUtils {
      * @return 截断后的文本
      */
     public static String truncateToTokenLimit(String text, int maxTokens) {
-        if (text == null || text.isEmpty()) {
-            return text;
-        }
-        
-        int estimatedMaxLength = maxTokens * AVERAGE_CHARS_PER_TOKEN;
-        if (text.length() <= estimatedMaxLength) {
-            return text;
-        }
-        
-        return text.substring(0, estimatedMaxLength);
+        return Tokenizers.getDefault().truncate(text, maxTokens);
     }
     
     /**
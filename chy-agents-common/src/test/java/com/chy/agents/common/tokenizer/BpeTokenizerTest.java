@@ -0,0 +1,221 @@
+package com.chy.agents.common.tokenizer;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BpeTokenizerTest {
+
+    private static final String[] WORDS = {
+            "the", " the", "ing", " token", "izer", " hello", "world", "中文", "你好", "分词", "😀",
+            "\u3000", "\u3000世界"
+    };
+    private static final String ALPHABET = "thethe ing token izer hello world 中文你好分词世界😀,.!?\n\t 123\u3000\u00a0";
+
+    private static Map<String, Integer> vocabulary;
+    private static String vocabularyFile;
+    private static BpeTokenizer tokenizer;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        // 256个单字节token，加上每个词的全部字节前缀，保证每个词都能逐步合并出来
+        Set<String> tokens = new LinkedHashSet<>();
+        for (int b = 0; b < 256; b++) {
+            tokens.add(latin1(new byte[]{(byte) b}));
+        }
+        for (String word : WORDS) {
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            for (int length = 2; length <= bytes.length; length++) {
+                tokens.add(latin1(Arrays.copyOf(bytes, length)));
+            }
+        }
+        vocabulary = new HashMap<>();
+        StringBuilder file = new StringBuilder();
+        int rank = 0;
+        for (String token : tokens) {
+            vocabulary.put(token, rank);
+            file.append(Base64.getEncoder().encodeToString(token.getBytes(StandardCharsets.ISO_8859_1)))
+                    .append(' ').append(rank++).append('\n');
+        }
+        vocabularyFile = file.toString();
+        BpeVocabulary loaded = BpeVocabulary.load(
+                new ByteArrayInputStream(vocabularyFile.getBytes(StandardCharsets.US_ASCII)));
+        tokenizer = new BpeTokenizer("test", loaded, BpeEncodingType.CL100K_BASE.getPattern(),
+                Map.of("<|endoftext|>", 100_000));
+    }
+
+    @Test
+    void loadsEveryRank() {
+        BpeVocabulary loaded = tokenizer.getVocabulary();
+        assertEquals(vocabulary.size(), loaded.size());
+        byte[] the = " the".getBytes(StandardCharsets.UTF_8);
+        assertEquals(vocabulary.get(latin1(the)).intValue(), loaded.rank(the, 0, the.length));
+        assertEquals(-1, loaded.rank("zz".getBytes(StandardCharsets.UTF_8), 0, 2));
+    }
+
+    @Test
+    void rejectsMalformedVocabulary() {
+        assertThrows(IOException.class, () -> BpeVocabulary.load(
+                new ByteArrayInputStream("not-a-vocabulary-line".getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    @Test
+    void loadsVocabularyFromDirectoryAfterHeuristicFallback(@TempDir Path directory) throws IOException {
+        try {
+            Tokenizers.setVocabularyDirectory(directory);
+            assertFalse(Tokenizers.isExact(Tokenizers.forEncoding(BpeEncodingType.QWEN)));
+
+            Files.writeString(directory.resolve("qwen.tiktoken"), vocabularyFile, StandardCharsets.US_ASCII);
+            Tokenizers.setVocabularyDirectory(directory);
+            Tokenizer loaded = Tokenizers.forEncoding(BpeEncodingType.QWEN);
+
+            assertTrue(Tokenizers.isExact(loaded));
+            assertEquals(1, loaded.countTokens(" hello"));
+        } finally {
+            Tokenizers.setVocabularyDirectory(null);
+            Tokenizers.reset(BpeEncodingType.QWEN);
+        }
+    }
+
+    @Test
+    void mergesWholeWordsIntoSingleTokens() {
+        assertArrayEquals(new int[]{vocabulary.get(latin1(" the".getBytes(StandardCharsets.UTF_8)))},
+                tokenizer.encode(" the"));
+        assertEquals(1, tokenizer.countTokens("你好"));
+        assertEquals(1, tokenizer.countTokens("😀"));
+    }
+
+    @Test
+    void splitsOnUnicodeWhitespace() {
+        // 全角空格是空白：第一个全角空格单独成片段，第二个与后面的文字合为一个片段，而不是两个连成一个标点片段
+        int[] tokens = tokenizer.encode("你好\u3000\u3000世界");
+
+        assertArrayEquals(new int[]{rank("你好"), rank("\u3000"), rank("\u3000世界")}, tokens);
+        assertEquals("你好\u3000\u3000世界", tokenizer.decode(tokens));
+    }
+
+    @Test
+    void encodesSpecialTokens() {
+        int[] tokens = tokenizer.encode("the<|endoftext|>the");
+        assertEquals(3, tokens.length);
+        assertEquals(100_000, tokens[1]);
+        assertEquals("the<|endoftext|>the", tokenizer.decode(tokens));
+    }
+
+    @Test
+    void matchesReferenceBytePairEncoding() {
+        Pattern pattern = Pattern.compile(BpeEncodingType.CL100K_BASE.getPattern(), Pattern.UNICODE_CHARACTER_CLASS);
+        Random random = new Random(42);
+        for (int round = 0; round < 2_000; round++) {
+            String text = randomText(random, 1 + random.nextInt(40));
+            List<Integer> expected = new ArrayList<>();
+            Matcher matcher = pattern.matcher(text);
+            while (matcher.find()) {
+                expected.addAll(referenceEncode(matcher.group().getBytes(StandardCharsets.UTF_8)));
+            }
+            int[] actual = tokenizer.encode(text);
+            assertEquals(expected, Arrays.stream(actual).boxed().toList(), text);
+            assertEquals(actual.length, tokenizer.countTokens(text), text);
+            assertEquals(text, tokenizer.decode(actual), text);
+        }
+    }
+
+    @Test
+    void truncatesOnCharacterBoundaries() {
+        Random random = new Random(7);
+        for (int round = 0; round < 1_000; round++) {
+            String text = randomText(random, 1 + random.nextInt(30));
+            int total = tokenizer.countTokens(text);
+            int limit = random.nextInt(total + 2);
+            String truncated = tokenizer.truncate(text, limit);
+            assertTrue(text.startsWith(truncated), text);
+            assertTrue(tokenizer.countTokens(truncated) <= limit, text);
+            if (!truncated.isEmpty()) {
+                assertTrue(!Character.isHighSurrogate(truncated.charAt(truncated.length() - 1)), text);
+            }
+            if (limit >= total) {
+                assertSame(text, truncated);
+            }
+        }
+    }
+
+    @Test
+    void countsBatches() {
+        List<String> texts = List.of("the token", "", "你好世界", "hello world!");
+        int[] counts = tokenizer.countTokens(texts);
+        for (int i = 0; i < texts.size(); i++) {
+            assertEquals(tokenizer.countTokens(texts.get(i)), counts[i]);
+        }
+    }
+
+    /**
+     * 参考实现：整个片段在词表中时直接返回，否则反复合并排名最小的相邻对（并列时取最左）
+     */
+    private static List<Integer> referenceEncode(byte[] piece) {
+        Integer whole = vocabulary.get(latin1(piece));
+        if (whole != null) {
+            return List.of(whole);
+        }
+        List<String> parts = new ArrayList<>();
+        for (byte b : piece) {
+            parts.add(latin1(new byte[]{b}));
+        }
+        while (parts.size() > 1) {
+            int best = -1;
+            int bestRank = Integer.MAX_VALUE;
+            for (int i = 0; i < parts.size() - 1; i++) {
+                Integer rank = vocabulary.get(parts.get(i) + parts.get(i + 1));
+                if (rank != null && rank < bestRank) {
+                    bestRank = rank;
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            parts.set(best, parts.get(best) + parts.remove(best + 1));
+        }
+        return parts.stream().map(vocabulary::get).toList();
+    }
+
+    private static String randomText(Random random, int codePoints) {
+        int[] alphabet = ALPHABET.codePoints().toArray();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < codePoints; i++) {
+            builder.appendCodePoint(alphabet[random.nextInt(alphabet.length)]);
+        }
+        return builder.toString();
+    }
+
+    private static int rank(String token) {
+        return vocabulary.get(latin1(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String latin1(byte[] bytes) {
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,116 @@
+package com.chy.agents.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferTest {
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(0));
+    }
+
+    @Test
+    void keepsMostRecentElementsInOrder() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        assertTrue(buffer.isEmpty());
+        for (int i = 0; i < 5; i++) {
+            buffer.add(i);
+        }
+        assertEquals(3, buffer.size());
+        assertEquals(List.of(2, 3, 4), buffer.toList());
+        assertEquals(List.of(3, 4), buffer.last(2));
+        assertEquals(List.of(2, 3, 4), buffer.last(10));
+        assertEquals(List.of(), buffer.last(0));
+    }
+
+    @Test
+    void honoursCapacityThatIsNotAPowerOfTwo() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(5);
+        for (int i = 0; i < 13; i++) {
+            buffer.add(i);
+        }
+        assertEquals(5, buffer.capacity());
+        assertEquals(List.of(8, 9, 10, 11, 12), buffer.toList());
+    }
+
+    @Test
+    void clearHidesEarlierElements() {
+        RingBuffer<String> buffer = new RingBuffer<>(4);
+        buffer.add("a");
+        buffer.add("b");
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+        assertEquals(List.of(), buffer.toList());
+        buffer.add("c");
+        assertEquals(1, buffer.size());
+        assertEquals(List.of("c"), buffer.toList());
+    }
+
+    @Test
+    void concurrentWritersKeepPerThreadOrder() throws Exception {
+        int threads = 4;
+        int perThread = 10_000;
+        int capacity = 64;
+        RingBuffer<long[]> buffer = new RingBuffer<>(capacity);
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long thread = t;
+                writers.add(pool.submit(() -> {
+                    start.await();
+                    for (long i = 0; i < perThread; i++) {
+                        buffer.add(new long[]{thread, i});
+                    }
+                    return null;
+                }));
+            }
+            Future<?> reader = pool.submit(() -> {
+                start.await();
+                while (writers.stream().anyMatch(writer -> !writer.isDone())) {
+                    assertOrdered(buffer.last(capacity), threads, capacity);
+                }
+                return null;
+            });
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+            reader.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        List<long[]> remaining = buffer.toList();
+        assertEquals(capacity, remaining.size());
+        assertEquals(capacity, buffer.size());
+        assertOrdered(remaining, threads, capacity);
+    }
+
+    /**
+     * 同一线程写入的元素在读取结果中必须保持写入顺序
+     */
+    private static void assertOrdered(List<long[]> snapshot, int threads, int capacity) {
+        assertTrue(snapshot.size() <= capacity);
+        long[] previous = new long[threads];
+        Arrays.fill(previous, -1);
+        for (long[] element : snapshot) {
+            int thread = (int) element[0];
+            assertTrue(element[1] > previous[thread], "out of order");
+            previous[thread] = element[1];
+        }
+    }
+}
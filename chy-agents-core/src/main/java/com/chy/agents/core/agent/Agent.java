@@ -1,6 +1,10 @@
 package com.chy.agents.core.agent;
 
+import com.chy.agents.core.chat.message.MessageDelta;
 import org.springframework.ai.chat.messages.Message;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -111,6 +115,21 @@ public interface Agent {
      */
     CompletableFuture<AgentResponse> executeAsync(String input, Map<String, Object> context);
     
+    /**
+     * 流式执行任务
+     * 默认实现基于异步执行，以单个片段返回完整结果，支持真流式的代理应覆盖此方法
+     *
+     * @param input 输入参数
+     * @param context 上下文参数
+     * @return 消息增量流
+     */
+    default Flux<MessageDelta> executeStream(String input, Map<String, Object> context) {
+        return Mono.fromFuture(() -> executeAsync(input, context))
+                .flatMapMany(response -> response.isError()
+                        ? Flux.error(new IllegalStateException(response.getError()))
+                        : Flux.just(MessageDelta.of(response.getContent(), 0), MessageDelta.finish(1, "stop")));
+    }
+    
     /**
      * 获取代理工具列表
      * 
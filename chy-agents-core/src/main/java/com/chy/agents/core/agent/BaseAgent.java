@@ -1,6 +1,7 @@
 package com.chy.agents.core.agent;
 
 import com.chy.agents.core.chat.ChatClient;
+import com.chy.agents.core.execution.AgentExecutor;
 import com.chy.agents.core.router.ModelRouter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,7 +11,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Agent接口的基本实现类
@@ -48,6 +48,10 @@ public class BaseAgent implements Agent {
     @Autowired
     private ModelRouter modelRouter;
     
+    // 异步执行器
+    @Autowired(required = false)
+    private AgentExecutor agentExecutor;
+    
     // 上下文存储
     private final Map<String, Object> context = new ConcurrentHashMap<>();
     
@@ -194,8 +198,8 @@ public class BaseAgent implements Agent {
      */
     @Override
     public CompletableFuture<AgentResponse> executeAsync(String input, Map<String, Object> contextParams) {
-        return CompletableFuture.supplyAsync(() -> execute(input, contextParams))
-                .orTimeout(30, TimeUnit.SECONDS); // 默认30秒超时
+        // 在代理所属提供商的舱壁内执行，避免阻塞公共ForkJoinPool
+        return getAgentExecutor().submitWithTimeout(config.getModelProvider(), () -> execute(input, contextParams));
     }
     
     /**
@@ -348,6 +352,24 @@ public class BaseAgent implements Agent {
         this.modelRouter = modelRouter;
     }
     
+    /**
+     * 获取异步执行器，未注入时使用全局默认执行器
+     *
+     * @return 异步执行器
+     */
+    protected AgentExecutor getAgentExecutor() {
+        return agentExecutor != null ? agentExecutor : AgentExecutor.getDefault();
+    }
+    
+    /**
+     * 设置异步执行器
+     *
+     * @param agentExecutor 异步执行器
+     */
+    public void setAgentExecutor(AgentExecutor agentExecutor) {
+        this.agentExecutor = agentExecutor;
+    }
+    
     /**
      * 获取上下文
      *
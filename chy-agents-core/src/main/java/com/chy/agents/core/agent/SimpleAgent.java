@@ -1,7 +1,13 @@
 package com.chy.agents.core.agent;
 
+import com.chy.agents.common.tokenizer.Tokenizer;
+import com.chy.agents.common.tokenizer.Tokenizers;
 import com.chy.agents.core.agent.Agent.Tool;
 import com.chy.agents.core.agent.Agent.Memory;
+import com.chy.agents.core.agent.context.ContextAssembler;
+import com.chy.agents.core.agent.context.ContextAssembly;
+import com.chy.agents.core.agent.context.ContextBudget;
+import com.chy.agents.core.agent.context.ContextItem;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.messages.Message;
@@ -31,13 +37,28 @@ public class SimpleAgent implements Agent {
     private List<Tool> tools;
     private Memory memory;
     private final ChatClient chatClient;
+    private final ContextAssembler contextAssembler;
+    private AgentConfig config = new AgentConfig();
     
     public SimpleAgent(String name, String description, ChatClient chatClient) {
+        this(name, description, chatClient, Tokenizers.getDefault());
+    }
+    
+    /**
+     * 构造函数
+     *
+     * @param name 名称
+     * @param description 描述
+     * @param chatClient 聊天客户端
+     * @param tokenizer 计算上下文预算的分词器
+     */
+    public SimpleAgent(String name, String description, ChatClient chatClient, Tokenizer tokenizer) {
         this.name = name;
         this.description = description;
         this.tools = new ArrayList<>();
         this.memory = new SimpleMemory();
         this.chatClient = chatClient;
+        this.contextAssembler = new ContextAssembler(tokenizer);
     }
     
     @Override
@@ -45,16 +66,8 @@ public class SimpleAgent implements Agent {
         ChatClient client = modelRouter.selectClient(modelProvider);
         // 使用指定provider的client执行
         
-        // 准备所有消息，包括记忆和当前输入
-        // 获取最近10条消息
-        List<Message> messages = new ArrayList<>(memory.get(10));
-        
-        // 添加系统提示
-        String systemPrompt = generateSystemPrompt();
-        messages.add(new SystemMessage(systemPrompt));
-        
-        // 添加用户输入
-        messages.add(new UserMessage(input));
+        // 在token预算内组装系统提示、记忆和当前输入
+        List<Message> messages = assembleMessages(input);
         
         // 调用LLM
         Prompt prompt = new Prompt(messages);
@@ -72,6 +85,37 @@ public class SimpleAgent implements Agent {
         return response;
     }
     
+    /**
+     * 在token预算内组装消息：系统提示（含工具描述）和当前输入必须装入，记忆从最近的消息开始装入
+     */
+    private List<Message> assembleMessages(String input) {
+        List<Message> history = memory.get(Integer.MAX_VALUE);
+        List<ContextItem> items = new ArrayList<>();
+        items.add(ContextItem.system(generateSystemPrompt()));
+        for (int i = 0; i < history.size(); i++) {
+            Message message = history.get(i);
+            items.add(ContextItem.history(com.chy.agents.core.chat.message.Message.roleOf(message),
+                    message.getContent(), i));
+        }
+        items.add(ContextItem.input(input));
+        
+        ContextAssembly assembly = contextAssembler.assemble(items, ContextBudget.of(config));
+        if (assembly.isTrimmed()) {
+            log.info("代理 [{}] 上下文超出预算 {}，丢弃 {} 条，截断 {} 条", name, assembly.budget(),
+                    assembly.dropped().size(), assembly.truncated().size());
+        }
+        
+        List<Message> messages = new ArrayList<>();
+        for (ContextItem item : assembly.included()) {
+            switch (item.kind()) {
+                case HISTORY -> messages.add(history.get((int) item.sequence()));
+                case INPUT -> messages.add(new UserMessage(item.content()));
+                default -> messages.add(new SystemMessage(item.content()));
+            }
+        }
+        return messages;
+    }
+    
     private String generateSystemPrompt() {
         Map<String, Object> variables = new HashMap<>();
         variables.put("name", name);
@@ -175,6 +219,20 @@ public class SimpleAgent implements Agent {
         this.tools = tools;
     }
     
+    @Override
+    public AgentConfig getConfig() {
+        return config;
+    }
+    
+    /**
+     * 设置代理配置，提示token预算按配置的模型上下文窗口和maxTokens计算
+     *
+     * @param config 代理配置
+     */
+    public void setConfig(AgentConfig config) {
+        this.config = config;
+    }
+    
     @Override
     public Memory getMemory() {
         return memory;
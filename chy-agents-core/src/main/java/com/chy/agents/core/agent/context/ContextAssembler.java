@@ -0,0 +1,116 @@
+package com.chy.agents.core.agent.context;
+
+import com.chy.agents.common.tokenizer.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 上下文组装器
+ * 在token预算内按优先级装入系统提示、工具描述、历史消息和检索到的记忆：
+ * 必须条目（当前输入、系统提示）总是装入，超出时截断；其余条目按优先级、顺序依次装入，
+ * 可截断的条目在剩余预算足够时截断装入，历史消息一旦有一条装不下，更早的全部丢弃。
+ * 相同输入总是得到相同结果。
+ */
+public class ContextAssembler {
+
+    /**
+     * 每条消息的格式开销（角色标记、分隔符）
+     */
+    public static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    /**
+     * 截断后至少保留的token数，剩余预算更少时直接丢弃
+     */
+    private static final int MIN_TRUNCATED_TOKENS = 32;
+
+    private static final Comparator<Indexed> PACKING_ORDER = Comparator
+            .comparing((Indexed indexed) -> !indexed.item.required())
+            .thenComparing(indexed -> -indexed.item.priority())
+            .thenComparing(indexed -> -indexed.item.sequence())
+            .thenComparingInt(indexed -> indexed.position);
+
+    private final Tokenizer tokenizer;
+
+    public ContextAssembler(Tokenizer tokenizer) {
+        this.tokenizer = tokenizer;
+    }
+
+    /**
+     * 组装上下文
+     *
+     * @param items 候选条目（顺序即最终提示中的顺序）
+     * @param budget token预算
+     * @return 组装结果
+     */
+    public ContextAssembly assemble(List<ContextItem> items, int budget) {
+        List<Indexed> order = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            order.add(new Indexed(items.get(i), i));
+        }
+        order.sort(PACKING_ORDER);
+
+        Map<Indexed, ContextItem> accepted = new IdentityHashMap<>();
+        List<ContextItem> dropped = new ArrayList<>();
+        List<ContextItem> truncated = new ArrayList<>();
+        int remaining = budget;
+        boolean historyCut = false;
+
+        for (Indexed indexed : order) {
+            ContextItem item = indexed.item;
+            if (item.kind() == ContextItem.Kind.HISTORY && historyCut) {
+                dropped.add(item);
+                continue;
+            }
+
+            int cost = tokenizer.countTokens(item.content()) + MESSAGE_OVERHEAD_TOKENS;
+            if (cost <= remaining) {
+                accepted.put(indexed, item);
+                remaining -= cost;
+                continue;
+            }
+
+            int room = remaining - MESSAGE_OVERHEAD_TOKENS;
+            if (item.truncatable() && (item.required() || room >= MIN_TRUNCATED_TOKENS)) {
+                ContextItem shortened = item.withContent(tokenizer.truncate(item.content(), Math.max(room, 0)));
+                accepted.put(indexed, shortened);
+                truncated.add(item);
+                remaining -= tokenizer.countTokens(shortened.content()) + MESSAGE_OVERHEAD_TOKENS;
+            } else if (item.required()) {
+                accepted.put(indexed, item);
+                remaining -= cost;
+            } else {
+                dropped.add(item);
+                if (item.kind() == ContextItem.Kind.HISTORY) {
+                    historyCut = true;
+                }
+            }
+        }
+
+        List<ContextItem> included = new ArrayList<>(accepted.size());
+        order.sort(Comparator.comparingInt(indexed -> indexed.position));
+        for (Indexed indexed : order) {
+            ContextItem item = accepted.get(indexed);
+            if (item != null) {
+                included.add(item);
+            }
+        }
+        return new ContextAssembly(included, dropped, truncated, budget, budget - remaining);
+    }
+
+    /**
+     * 带输入位置的条目
+     */
+    private static final class Indexed {
+        private final ContextItem item;
+        private final int position;
+
+        private Indexed(ContextItem item, int position) {
+            this.item = item;
+            this.position = position;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.chy.agents.core.agent.context;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 上下文组装结果
+ *
+ * @param included 装入的条目，保持输入顺序，被截断的条目为截断后的内容
+ * @param dropped 丢弃的条目
+ * @param truncated 被截断的条目（原始内容）
+ * @param budget token预算
+ * @param usedTokens 已使用的token数，必须条目本身超出预算时可能大于预算
+ */
+public record ContextAssembly(List<ContextItem> included, List<ContextItem> dropped, List<ContextItem> truncated,
+                              int budget, int usedTokens) {
+
+    /**
+     * 按类型筛选装入的条目
+     *
+     * @param kind 条目类型
+     * @return 条目列表
+     */
+    public List<ContextItem> included(ContextItem.Kind kind) {
+        List<ContextItem> result = new ArrayList<>();
+        for (ContextItem item : included) {
+            if (item.kind() == kind) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 是否有条目被丢弃或截断
+     */
+    public boolean isTrimmed() {
+        return !dropped.isEmpty() || !truncated.isEmpty();
+    }
+
+    /**
+     * 转换为响应元数据
+     *
+     * @return 元数据映射
+     */
+    public Map<String, Object> toMetadata() {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("budget", budget);
+        metadata.put("usedTokens", usedTokens);
+        metadata.put("included", included.size());
+        metadata.put("dropped", describe(dropped));
+        metadata.put("truncated", describe(truncated));
+        return metadata;
+    }
+
+    private static List<String> describe(List<ContextItem> items) {
+        List<String> descriptions = new ArrayList<>(items.size());
+        for (ContextItem item : items) {
+            descriptions.add(item.kind() + "#" + item.sequence());
+        }
+        return descriptions;
+    }
+}
@@ -0,0 +1,97 @@
+package com.chy.agents.core.agent.context;
+
+import com.chy.agents.core.agent.AgentConfig;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 提示token预算
+ * 预算为模型上下文窗口减去为输出预留的maxTokens
+ */
+public final class ContextBudget {
+
+    /**
+     * 代理配置中覆盖上下文窗口大小的参数名
+     */
+    public static final String CONTEXT_WINDOW_PARAM = "contextWindow";
+
+    /**
+     * 未知模型的上下文窗口
+     */
+    public static final int DEFAULT_CONTEXT_WINDOW = 8192;
+
+    /**
+     * 常见模型的上下文窗口，按最长前缀匹配
+     */
+    private static final Map<String, Integer> CONTEXT_WINDOWS = new LinkedHashMap<>();
+
+    static {
+        CONTEXT_WINDOWS.put("gpt-4o", 128_000);
+        CONTEXT_WINDOWS.put("gpt-4.1", 1_047_576);
+        CONTEXT_WINDOWS.put("gpt-4-turbo", 128_000);
+        CONTEXT_WINDOWS.put("gpt-4-32k", 32_768);
+        CONTEXT_WINDOWS.put("gpt-4", 8_192);
+        CONTEXT_WINDOWS.put("gpt-3.5-turbo", 16_385);
+        CONTEXT_WINDOWS.put("o1", 200_000);
+        CONTEXT_WINDOWS.put("o3", 200_000);
+        CONTEXT_WINDOWS.put("o4", 200_000);
+        CONTEXT_WINDOWS.put("qwen-max", 32_768);
+        CONTEXT_WINDOWS.put("qwen-plus", 131_072);
+        CONTEXT_WINDOWS.put("qwen-turbo", 131_072);
+        CONTEXT_WINDOWS.put("qwen-long", 1_000_000);
+        CONTEXT_WINDOWS.put("deepseek", 65_536);
+    }
+
+    private ContextBudget() {
+    }
+
+    /**
+     * 计算代理的提示token预算
+     *
+     * @param config 代理配置
+     * @return token预算
+     */
+    public static int of(AgentConfig config) {
+        Object override = config.getParameter(CONTEXT_WINDOW_PARAM);
+        int window = override instanceof Number number
+                ? number.intValue()
+                : contextWindow(config.getModelName());
+        return of(window, config.getMaxTokens());
+    }
+
+    /**
+     * 计算提示token预算
+     * 输出预留不小于上下文窗口时退化为窗口的一半
+     *
+     * @param contextWindow 上下文窗口
+     * @param maxOutputTokens 输出预留
+     * @return token预算
+     */
+    public static int of(int contextWindow, int maxOutputTokens) {
+        int budget = contextWindow - Math.max(maxOutputTokens, 0);
+        return budget > 0 ? budget : contextWindow / 2;
+    }
+
+    /**
+     * 获取模型的上下文窗口
+     *
+     * @param model 模型名称
+     * @return 上下文窗口，未知模型返回{@link #DEFAULT_CONTEXT_WINDOW}
+     */
+    public static int contextWindow(String model) {
+        if (model == null) {
+            return DEFAULT_CONTEXT_WINDOW;
+        }
+        String normalized = model.toLowerCase();
+        int window = DEFAULT_CONTEXT_WINDOW;
+        int matched = 0;
+        for (Map.Entry<String, Integer> entry : CONTEXT_WINDOWS.entrySet()) {
+            if (entry.getKey().length() > matched && normalized.startsWith(entry.getKey())) {
+                window = entry.getValue();
+                matched = entry.getKey().length();
+            }
+        }
+        return window;
+    }
+}
@@ -0,0 +1,79 @@
+package com.chy.agents.core.agent.context;
+
+import com.chy.agents.core.chat.message.Message;
+
+/**
+ * 上下文条目
+ * 组装提示时按优先级装入token预算的最小单元
+ *
+ * @param kind 条目类型
+ * @param role 消息角色
+ * @param content 内容
+ * @param priority 优先级，越大越先装入
+ * @param sequence 同优先级内的顺序，越大越先装入（历史消息为时间顺序，越新越大）
+ * @param required 是否必须装入，超出预算时截断而不丢弃
+ * @param truncatable 预算不足时是否允许截断
+ */
+public record ContextItem(Kind kind, Message.Role role, String content, int priority, long sequence,
+                          boolean required, boolean truncatable) {
+
+    /**
+     * 条目类型
+     */
+    public enum Kind {
+        SYSTEM,
+        TOOLS,
+        MEMORY,
+        HISTORY,
+        INPUT
+    }
+
+    /**
+     * 系统提示，必须装入，预算不足时截断
+     */
+    public static ContextItem system(String content) {
+        return new ContextItem(Kind.SYSTEM, Message.Role.SYSTEM, content, 100, 0, true, true);
+    }
+
+    /**
+     * 当前用户输入，最先装入
+     */
+    public static ContextItem input(String content) {
+        return new ContextItem(Kind.INPUT, Message.Role.USER, content, 110, 0, true, true);
+    }
+
+    /**
+     * 工具描述，预算不足时截断
+     */
+    public static ContextItem tools(String content) {
+        return new ContextItem(Kind.TOOLS, Message.Role.SYSTEM, content, 80, 0, false, true);
+    }
+
+    /**
+     * 历史消息，越新越先装入；某条装不下时更早的消息全部丢弃，保证历史是连续的最近若干轮
+     *
+     * @param role 消息角色
+     * @param content 内容
+     * @param sequence 时间顺序
+     */
+    public static ContextItem history(Message.Role role, String content, long sequence) {
+        return new ContextItem(Kind.HISTORY, role, content, 60, sequence, false, false);
+    }
+
+    /**
+     * 检索到的记忆，按相关度排名装入，装不下的跳过
+     *
+     * @param content 内容
+     * @param rank 相关度排名，0为最相关
+     */
+    public static ContextItem memory(String content, int rank) {
+        return new ContextItem(Kind.MEMORY, Message.Role.SYSTEM, content, 40, -rank, false, false);
+    }
+
+    /**
+     * 以新内容复制条目
+     */
+    ContextItem withContent(String newContent) {
+        return new ContextItem(kind, role, newContent, priority, sequence, required, truncatable);
+    }
+}
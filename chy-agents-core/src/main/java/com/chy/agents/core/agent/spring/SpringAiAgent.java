@@ -1,25 +1,35 @@
 package com.chy.agents.core.agent.spring;
 
+import com.chy.agents.common.tokenizer.Tokenizer;
+import com.chy.agents.common.tokenizer.Tokenizers;
 import com.chy.agents.core.agent.Agent;
 import com.chy.agents.core.agent.AgentConfig;
 import com.chy.agents.core.agent.AgentResponse;
 import com.chy.agents.core.agent.AgentStatus;
+import com.chy.agents.core.agent.context.ContextAssembler;
+import com.chy.agents.core.agent.context.ContextAssembly;
+import com.chy.agents.core.agent.context.ContextBudget;
+import com.chy.agents.core.agent.context.ContextItem;
+import com.chy.agents.core.chat.message.BaseMessage;
+import com.chy.agents.core.chat.message.CompactMessageLog;
+import com.chy.agents.core.chat.message.MessageDelta;
+import com.chy.agents.core.execution.AgentExecutor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.ChatClient;
 import org.springframework.ai.chat.client.advisor.Advisor;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.generation.StreamingChatGenerator;
-import org.springframework.ai.chat.memory.ChatMemory;
-import org.springframework.ai.chat.memory.InMemoryChatMemory;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 基于Spring AI的智能代理实现
@@ -30,6 +40,21 @@ import java.util.stream.Collectors;
 @Slf4j
 public class SpringAiAgent implements Agent {
     
+    /**
+     * 上下文参数中检索到的记忆（字符串列表，按相关度降序）
+     */
+    public static final String MEMORIES_CONTEXT_KEY = "memories";
+    
+    /**
+     * 检索到的记忆在提示中的前缀
+     */
+    private static final String MEMORY_PREFIX = "相关记忆:\n";
+    
+    /**
+     * 默认对话记忆保留的消息条数
+     */
+    private static final int DEFAULT_MEMORY_SIZE = 100;
+    
     private final String id;
     private final String name;
     private final String description;
@@ -40,16 +65,32 @@ public class SpringAiAgent implements Agent {
     private Memory memory;
     private final ChatClient chatClient;
     private final Map<String, Object> context = new ConcurrentHashMap<>();
-    private final ChatMemory chatMemory;
+    private AgentExecutor agentExecutor;
+    private final ContextAssembler contextAssembler;
     
     public SpringAiAgent(String id, String name, String description, AgentConfig config, ChatClient chatClient) {
+        this(id, name, description, config, chatClient, Tokenizers.forModel(config.getModelName()));
+    }
+    
+    /**
+     * 构造函数
+     *
+     * @param id 代理ID
+     * @param name 名称
+     * @param description 描述
+     * @param config 代理配置
+     * @param chatClient Spring AI聊天客户端
+     * @param tokenizer 计算上下文预算的分词器
+     */
+    public SpringAiAgent(String id, String name, String description, AgentConfig config, ChatClient chatClient,
+                         Tokenizer tokenizer) {
         this.id = id;
         this.name = name;
         this.description = description;
         this.config = config;
         this.chatClient = chatClient;
-        this.memory = new SpringChatMemory();
-        this.chatMemory = new InMemoryChatMemory();
+        this.memory = new CompactChatMemory(DEFAULT_MEMORY_SIZE);
+        this.contextAssembler = new ContextAssembler(tokenizer);
     }
     
     @Override
@@ -104,45 +145,26 @@ public class SpringAiAgent implements Agent {
             
             log.info("代理 [{}] 收到执行请求: {}", id, input);
             
-            // 准备消息列表
-            List<Message> messages = new ArrayList<>();
-            
-            // 添加系统提示词
-            if (config.getSystemPrompt() != null && !config.getSystemPrompt().isEmpty()) {
-                messages.add(new SystemMessage(config.getSystemPrompt()));
-            }
-            
-            // 添加记忆中的消息
-            if (memory != null) {
-                List<com.chy.agents.core.chat.message.Message> memoryMessages = memory.getAll();
-                for (com.chy.agents.core.chat.message.Message msg : memoryMessages) {
-                    messages.add(convertToSpringMessage(msg));
-                }
-            }
-            
-            // 添加当前用户输入
-            messages.add(new UserMessage(input));
-            
-            // 构建提示词
-            Prompt prompt = new Prompt(messages);
+            // 在token预算内组装上下文并构建提示词
+            ContextAssembly assembly = assembleContext(input, contextParams);
+            Prompt prompt = buildPrompt(assembly);
             
             // 调用模型
             org.springframework.ai.chat.ChatResponse response = chatClient.prompt(prompt)
                     .call();
             
+            String content = response.getResult().getOutput().getContent();
+            
             // 保存到记忆
-            if (memory != null) {
-                memory.add(new com.chy.agents.core.chat.message.BaseMessage(
-                        com.chy.agents.core.chat.message.Message.Role.USER, 
-                        input));
-                memory.add(new com.chy.agents.core.chat.message.BaseMessage(
-                        com.chy.agents.core.chat.message.Message.Role.ASSISTANT, 
-                        response.getResult().getOutput().getContent()));
-            }
+            remember(input, content);
             
-            String content = response.getResult().getOutput().getContent();
             log.info("代理 [{}] 生成响应: {}", id, content);
-            return AgentResponse.ofText(content);
+            return AgentResponse.builder()
+                    .content(content)
+                    .type(AgentResponse.ResponseType.TEXT)
+                    .status(AgentResponse.ExecutionStatus.SUCCESS)
+                    .addMetadata("context", assembly.toMetadata())
+                    .build();
             
         } catch (Exception e) {
             log.error("代理 [{}] 执行请求失败", id, e);
@@ -153,7 +175,35 @@ public class SpringAiAgent implements Agent {
     
     @Override
     public CompletableFuture<AgentResponse> executeAsync(String input, Map<String, Object> contextParams) {
-        return CompletableFuture.supplyAsync(() -> execute(input, contextParams));
+        AgentExecutor executor = agentExecutor != null ? agentExecutor : AgentExecutor.getDefault();
+        return executor.submitWithTimeout(config.getModelProvider(), () -> execute(input, contextParams));
+    }
+    
+    @Override
+    public Flux<MessageDelta> executeStream(String input, Map<String, Object> contextParams) {
+        return Flux.defer(() -> {
+            if (contextParams != null) {
+                context.putAll(contextParams);
+            }
+            log.info("代理 [{}] 收到流式执行请求: {}", id, input);
+            
+            // 片段到达即转发，完整文本只在结束时拼接一次用于写入记忆
+            StringBuilder fullContent = new StringBuilder();
+            AtomicInteger index = new AtomicInteger();
+            return chatClient.prompt(buildPrompt(assembleContext(input, contextParams)))
+                    .stream()
+                    .content()
+                    .filter(chunk -> chunk != null && !chunk.isEmpty())
+                    .doOnNext(fullContent::append)
+                    .map(chunk -> MessageDelta.of(chunk, index.getAndIncrement()))
+                    .concatWith(Mono.fromSupplier(() -> {
+                        remember(input, fullContent.toString());
+                        return MessageDelta.finish(index.get(), "stop");
+                    }));
+        }).doOnError(e -> {
+            log.error("代理 [{}] 流式执行请求失败", id, e);
+            status = AgentStatus.ERROR;
+        });
     }
     
     @Override
@@ -211,11 +261,6 @@ public class SpringAiAgent implements Agent {
             memory.clear();
         }
         status = AgentStatus.INITIALIZED;
-        
-        // 重置Spring AI的聊天记忆
-        if (chatMemory != null) {
-            chatMemory.clear();
-        }
     }
     
     @Override
@@ -239,69 +284,120 @@ public class SpringAiAgent implements Agent {
     }
     
     /**
-     * 将项目内部消息转换为Spring AI消息
+     * 设置异步执行器
+     *
+     * @param agentExecutor 异步执行器
+     */
+    public void setAgentExecutor(AgentExecutor agentExecutor) {
+        this.agentExecutor = agentExecutor;
+    }
+    
+    /**
+     * 在token预算内组装系统提示词、工具描述、检索到的记忆、历史消息和当前输入
+     * 预算为模型上下文窗口减去输出预留的maxTokens，丢弃或截断的条目记录在日志和响应元数据中
+     */
+    private ContextAssembly assembleContext(String input, Map<String, Object> contextParams) {
+        List<ContextItem> items = new ArrayList<>();
+        
+        if (config.getSystemPrompt() != null && !config.getSystemPrompt().isEmpty()) {
+            items.add(ContextItem.system(config.getSystemPrompt()));
+        }
+        
+        if (tools != null && !tools.isEmpty()) {
+            StringBuilder toolsInfo = new StringBuilder("可用工具:\n");
+            for (Tool tool : tools) {
+                toolsInfo.append("- ").append(tool.getName()).append(": ")
+                         .append(tool.getDescription()).append("\n");
+            }
+            items.add(ContextItem.tools(toolsInfo.toString()));
+        }
+        
+        Object memories = contextParams != null ? contextParams.get(MEMORIES_CONTEXT_KEY) : null;
+        if (memories instanceof List<?> retrieved) {
+            for (int i = 0; i < retrieved.size(); i++) {
+                // 前缀计入记忆条目的预算
+                items.add(ContextItem.memory(MEMORY_PREFIX + retrieved.get(i), i));
+            }
+        }
+        
+        if (memory != null) {
+            List<com.chy.agents.core.chat.message.Message> memoryMessages = memory.getAll();
+            for (int i = 0; i < memoryMessages.size(); i++) {
+                com.chy.agents.core.chat.message.Message msg = memoryMessages.get(i);
+                items.add(ContextItem.history(msg.getRole(), msg.getContent(), i));
+            }
+        }
+        
+        items.add(ContextItem.input(input));
+        
+        ContextAssembly assembly = contextAssembler.assemble(items, ContextBudget.of(config));
+        if (assembly.isTrimmed()) {
+            log.info("代理 [{}] 上下文超出预算 {}，丢弃 {} 条，截断 {} 条", id, assembly.budget(),
+                    assembly.dropped().size(), assembly.truncated().size());
+        }
+        return assembly;
+    }
+    
+    /**
+     * 根据组装后的上下文构建提示词
      */
-    private Message convertToSpringMessage(com.chy.agents.core.chat.message.Message message) {
-        return switch (message.getRole()) {
-            case USER -> new UserMessage(message.getContent());
-            case ASSISTANT -> new org.springframework.ai.chat.messages.AssistantMessage(message.getContent());
-            case SYSTEM -> new SystemMessage(message.getContent());
-            default -> new UserMessage(message.getContent());
-        };
+    private Prompt buildPrompt(ContextAssembly assembly) {
+        List<Message> messages = new ArrayList<>();
+        for (ContextItem item : assembly.included()) {
+            switch (item.kind()) {
+                case SYSTEM, TOOLS, MEMORY -> messages.add(new SystemMessage(item.content()));
+                case HISTORY -> messages.add(
+                        com.chy.agents.core.chat.message.Message.springAiMessage(item.role(), item.content()));
+                case INPUT -> messages.add(new UserMessage(item.content()));
+            }
+        }
+        return new Prompt(messages);
+    }
+    
+    /**
+     * 将一轮对话保存到记忆
+     */
+    private void remember(String input, String content) {
+        if (memory != null) {
+            memory.add(BaseMessage.userMessage(input));
+            memory.add(BaseMessage.assistantMessage(content));
+        }
     }
     
     /**
-     * Spring AI聊天记忆适配器
+     * 紧凑对话记忆
+     * 以角色字节加UTF-8内容保存对话，读取时才还原为消息对象，避免长期保留完整的消息对象图
      */
-    private class SpringChatMemory implements Memory {
+    private static class CompactChatMemory implements Memory {
+        private final CompactMessageLog log;
+        
+        CompactChatMemory(int maxSize) {
+            this.log = new CompactMessageLog(maxSize);
+        }
+        
         @Override
         public void add(com.chy.agents.core.chat.message.Message message) {
-            Message springMessage = convertToSpringMessage(message);
-            chatMemory.add(springMessage);
+            log.add(message);
         }
         
         @Override
         public List<com.chy.agents.core.chat.message.Message> get(int limit) {
-            return chatMemory.getMessages().stream()
-                    .limit(limit)
-                    .map(this::convertFromSpringMessage)
-                    .collect(Collectors.toList());
+            return log.toMessages(limit);
         }
         
         @Override
         public void clear() {
-            chatMemory.clear();
+            log.clear();
         }
         
         @Override
         public List<com.chy.agents.core.chat.message.Message> getAll() {
-            return chatMemory.getMessages().stream()
-                    .map(this::convertFromSpringMessage)
-                    .collect(Collectors.toList());
+            return log.toMessages(log.getMaxMessages());
         }
         
         @Override
         public int size() {
-            return chatMemory.getMessages().size();
-        }
-        
-        /**
-         * 将Spring AI消息转换为项目内部消息
-         */
-        private com.chy.agents.core.chat.message.Message convertFromSpringMessage(Message message) {
-            com.chy.agents.core.chat.message.Message.Role role;
-            
-            if (message instanceof UserMessage) {
-                role = com.chy.agents.core.chat.message.Message.Role.USER;
-            } else if (message instanceof org.springframework.ai.chat.messages.AssistantMessage) {
-                role = com.chy.agents.core.chat.message.Message.Role.ASSISTANT;
-            } else if (message instanceof SystemMessage) {
-                role = com.chy.agents.core.chat.message.Message.Role.SYSTEM;
-            } else {
-                role = com.chy.agents.core.chat.message.Message.Role.USER;
-            }
-            
-            return new com.chy.agents.core.chat.message.BaseMessage(role, message.getContent());
+            return log.size();
         }
     }
 }
\ No newline at end of file
@@ -1,8 +1,12 @@
 package com.chy.agents.core.chat;
 
 import com.chy.agents.core.chat.message.Message;
+import com.chy.agents.core.chat.message.MessageDelta;
 import com.chy.agents.core.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -30,11 +34,28 @@ public interface ChatClient {
     
     /**
      * 流式调用模型
+     * 阻塞直到流结束，返回合并后的完整消息。仅为兼容保留，新代码请使用{@link #streamDeltas(Prompt)}
      *
      * @param prompt 提示信息
      * @return 消息流
      */
-    List<Message> stream(Prompt prompt);
+    default List<Message> stream(Prompt prompt) {
+        Message message = MessageDelta.join(streamDeltas(prompt)).block();
+        return message != null ? List.of(message) : Collections.emptyList();
+    }
+    
+    /**
+     * 响应式流式调用模型
+     * 每个片段在到达时立即发出，不占用等待线程。
+     * 默认实现基于{@link #callAsync(Prompt)}，以单个片段返回完整结果，支持真流式的客户端应覆盖此方法。
+     *
+     * @param prompt 提示信息
+     * @return 消息增量流
+     */
+    default Flux<MessageDelta> streamDeltas(Prompt prompt) {
+        return Mono.fromFuture(() -> callAsync(prompt))
+                .flatMapMany(MessageDelta::fromMessage);
+    }
     
     /**
      * 获取模型配置
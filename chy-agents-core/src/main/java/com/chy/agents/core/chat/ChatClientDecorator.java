@@ -0,0 +1,18 @@
+package com.chy.agents.core.chat;
+
+/**
+ * 聊天客户端装饰器
+ * 供其他模块向路由器注册的客户端挂载额外处理（如语义缓存），
+ * 路由器在弹性策略之外、精确匹配缓存之内依次应用所有装饰器
+ */
+public interface ChatClientDecorator {
+
+    /**
+     * 装饰客户端
+     *
+     * @param provider 提供商名称
+     * @param client 原始客户端
+     * @return 装饰后的客户端，不需要装饰时返回原始客户端
+     */
+    ChatClient decorate(String provider, ChatClient client);
+}
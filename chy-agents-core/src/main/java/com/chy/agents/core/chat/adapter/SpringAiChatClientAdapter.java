@@ -3,16 +3,20 @@ package com.chy.agents.core.chat.adapter;
 import com.chy.agents.core.chat.ChatClient;
 import com.chy.agents.core.chat.message.BaseMessage;
 import com.chy.agents.core.chat.message.Message;
+import com.chy.agents.core.chat.message.MessageDelta;
 import com.chy.agents.core.chat.prompt.Prompt;
+import com.chy.agents.core.execution.AgentExecutor;
 import org.springframework.ai.chat.client.ChatResponse;
 import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.UserMessage;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -29,15 +33,25 @@ public class SpringAiChatClientAdapter implements ChatClient {
     private final String provider;
     private final String model;
     private final Map<String, Object> config;
+    private final AgentExecutor executor;
 
     public SpringAiChatClientAdapter(org.springframework.ai.chat.client.ChatClient springAiChatClient, 
                                     String provider, 
                                     String model, 
                                     Map<String, Object> config) {
+        this(springAiChatClient, provider, model, config, null);
+    }
+
+    public SpringAiChatClientAdapter(org.springframework.ai.chat.client.ChatClient springAiChatClient, 
+                                    String provider, 
+                                    String model, 
+                                    Map<String, Object> config,
+                                    AgentExecutor executor) {
         this.springAiChatClient = springAiChatClient;
         this.provider = provider;
         this.model = model;
         this.config = config != null ? config : new HashMap<>();
+        this.executor = executor;
     }
 
     @Override
@@ -55,7 +69,7 @@ public class SpringAiChatClientAdapter implements ChatClient {
     public CompletableFuture<Message> callAsync(Prompt prompt) {
         List<org.springframework.ai.chat.messages.Message> springMessages = prompt.toSpringAiMessages();
         
-        return CompletableFuture.supplyAsync((Supplier<Message>) () -> {
+        return executor().submit(provider, (Supplier<Message>) () -> {
             org.springframework.ai.chat.ChatResponse response = springAiChatClient.prompt()
                     .messages(springMessages)
                     .call();
@@ -64,23 +78,19 @@ public class SpringAiChatClientAdapter implements ChatClient {
     }
 
     @Override
-    public List<Message> stream(Prompt prompt) {
+    public Flux<MessageDelta> streamDeltas(Prompt prompt) {
         List<org.springframework.ai.chat.messages.Message> springMessages = prompt.toSpringAiMessages();
         
-        List<String> chunks = springAiChatClient.prompt()
-                .messages(springMessages)
-                .stream()
-                .content()
-                .collectList()
-                .block();
-        
-        List<Message> messages = new ArrayList<>();
-        if (chunks != null) {
-            String fullContent = String.join("", chunks);
-            messages.add(BaseMessage.assistantMessage(fullContent));
-        }
-        
-        return messages;
+        return Flux.defer(() -> {
+            AtomicInteger index = new AtomicInteger();
+            return springAiChatClient.prompt()
+                    .messages(springMessages)
+                    .stream()
+                    .content()
+                    .filter(chunk -> chunk != null && !chunk.isEmpty())
+                    .map(chunk -> MessageDelta.of(chunk, index.getAndIncrement()))
+                    .concatWith(Mono.fromSupplier(() -> MessageDelta.finish(index.get(), "stop")));
+        });
     }
 
     @Override
@@ -97,4 +107,11 @@ public class SpringAiChatClientAdapter implements ChatClient {
     public String getModel() {
         return this.model;
     }
+
+    /**
+     * 获取执行器，未注入时使用调用时的全局默认执行器
+     */
+    private AgentExecutor executor() {
+        return executor != null ? executor : AgentExecutor.getDefault();
+    }
 } 
\ No newline at end of file
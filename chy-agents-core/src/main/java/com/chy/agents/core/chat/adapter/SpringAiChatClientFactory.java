@@ -1,6 +1,7 @@
 package com.chy.agents.core.chat.adapter;
 
 import com.chy.agents.core.chat.ChatClient;
+import com.chy.agents.core.execution.AgentExecutor;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
@@ -16,6 +17,17 @@ import java.util.Map;
 @Component
 public class SpringAiChatClientFactory {
 
+    private final AgentExecutor agentExecutor;
+
+    /**
+     * 构造函数
+     *
+     * @param agentExecutor 适配器异步调用使用的执行器
+     */
+    public SpringAiChatClientFactory(AgentExecutor agentExecutor) {
+        this.agentExecutor = agentExecutor;
+    }
+
     /**
      * 创建适配器
      *
@@ -43,7 +55,7 @@ public class SpringAiChatClientFactory {
                                    String provider, 
                                    String model, 
                                    Map<String, Object> config) {
-        return new SpringAiChatClientAdapter(springAiChatClient, provider, model, config);
+        return new SpringAiChatClientAdapter(springAiChatClient, provider, model, config, agentExecutor);
     }
     
     /**
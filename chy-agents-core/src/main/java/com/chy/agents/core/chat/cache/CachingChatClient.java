@@ -0,0 +1,107 @@
+package com.chy.agents.core.chat.cache;
+
+import com.chy.agents.core.chat.ChatClient;
+import com.chy.agents.core.chat.message.BaseMessage;
+import com.chy.agents.core.chat.message.Message;
+import com.chy.agents.core.chat.message.MessageDelta;
+import com.chy.agents.core.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 带响应缓存的聊天客户端
+ * 命中时直接返回缓存的响应，流式调用以增量流的形式回放缓存内容；未命中时调用原始客户端并写入缓存。
+ * 空白响应和没有正常结束片段的流不写入缓存
+ */
+public class CachingChatClient implements ChatClient {
+
+    private final ChatClient delegate;
+    private final ResponseCache cache;
+
+    public CachingChatClient(ChatClient delegate, ResponseCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public Message call(Prompt prompt) {
+        if (cache.isBypass(prompt)) {
+            return delegate.call(prompt);
+        }
+        String key = cache.keyFor(delegate, prompt);
+        Optional<String> cached = cache.get(key);
+        if (cached.isPresent()) {
+            return BaseMessage.assistantMessage(cached.get());
+        }
+        Message message = delegate.call(prompt);
+        cache.put(key, message);
+        return message;
+    }
+
+    @Override
+    public CompletableFuture<Message> callAsync(Prompt prompt) {
+        if (cache.isBypass(prompt)) {
+            return delegate.callAsync(prompt);
+        }
+        String key = cache.keyFor(delegate, prompt);
+        Optional<String> cached = cache.get(key);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(BaseMessage.assistantMessage(cached.get()));
+        }
+        return delegate.callAsync(prompt)
+                .thenApply(message -> {
+                    cache.put(key, message);
+                    return message;
+                });
+    }
+
+    @Override
+    public Flux<MessageDelta> streamDeltas(Prompt prompt) {
+        return Flux.defer(() -> {
+            if (cache.isBypass(prompt)) {
+                return delegate.streamDeltas(prompt);
+            }
+            String key = cache.keyFor(delegate, prompt);
+            Optional<String> cached = cache.get(key);
+            if (cached.isPresent()) {
+                return MessageDelta.fromMessage(BaseMessage.assistantMessage(cached.get()));
+            }
+
+            // 只缓存以正常结束片段收尾的流，被取消、出错、截断或过滤的流不写入
+            StringBuilder content = new StringBuilder();
+            AtomicBoolean stopped = new AtomicBoolean();
+            return delegate.streamDeltas(prompt)
+                    .doOnNext(delta -> {
+                        if (delta.isFinished()) {
+                            stopped.set(MessageDelta.isSuccessfulFinish(delta.getFinishReason()));
+                        } else if (delta.getContent() != null) {
+                            content.append(delta.getContent());
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        if (stopped.get()) {
+                            cache.put(key, BaseMessage.assistantMessage(content.toString()));
+                        }
+                    });
+        });
+    }
+
+    @Override
+    public Map<String, Object> getConfig() {
+        return delegate.getConfig();
+    }
+
+    @Override
+    public String getProvider() {
+        return delegate.getProvider();
+    }
+
+    @Override
+    public String getModel() {
+        return delegate.getModel();
+    }
+}
@@ -0,0 +1,170 @@
+package com.chy.agents.core.chat.cache;
+
+import com.chy.agents.core.chat.ChatClient;
+import com.chy.agents.core.chat.message.Message;
+import com.chy.agents.core.chat.prompt.Prompt;
+import com.chy.agents.core.chat.prompt.PromptFingerprint;
+import com.chy.agents.storage.cache.CacheStorage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 精确匹配的模型响应缓存
+ * 以提示各字段和模型配置的规范化哈希为键，响应文本存放在{@link CacheStorage}中。
+ * 本地维护按访问顺序排列的键索引，超过容量时淘汰最久未使用的条目。
+ */
+@Slf4j
+public class ResponseCache {
+
+    /**
+     * 提示参数中的缓存绕过开关，值为true时本次请求不读也不写缓存
+     */
+    public static final String BYPASS_PARAM = "noCache";
+
+    private final CacheStorage storage;
+    private final ResponseCacheProperties properties;
+    private final LinkedHashMap<String, Boolean> index;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ResponseCache(CacheStorage storage, ResponseCacheProperties properties) {
+        this.storage = storage;
+        this.properties = properties;
+        this.index = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * 为客户端挂载响应缓存
+     *
+     * @param client 原始客户端
+     * @return 带缓存的客户端，未启用时返回原始客户端
+     */
+    public ChatClient decorate(ChatClient client) {
+        if (!properties.isEnabled() || client instanceof CachingChatClient) {
+            return client;
+        }
+        return new CachingChatClient(client, this);
+    }
+
+    /**
+     * 判断请求是否要求绕过缓存
+     *
+     * @param prompt 提示信息
+     * @return 是否绕过
+     */
+    public boolean isBypass(Prompt prompt) {
+        Map<String, Object> parameters = prompt.getParameters();
+        boolean bypass = parameters != null && Boolean.TRUE.equals(parameters.get(BYPASS_PARAM));
+        if (bypass) {
+            bypasses.increment();
+        }
+        return bypass;
+    }
+
+    /**
+     * 查询缓存
+     *
+     * @param key 缓存键
+     * @return 缓存的响应文本
+     */
+    public Optional<String> get(String key) {
+        Optional<String> cached;
+        try {
+            cached = storage.get(key, String.class);
+        } catch (RuntimeException e) {
+            log.warn("读取响应缓存失败: {}", e.getMessage());
+            cached = Optional.empty();
+        }
+
+        synchronized (index) {
+            if (cached.isPresent()) {
+                // 刷新访问顺序
+                index.put(key, Boolean.TRUE);
+            } else {
+                index.remove(key);
+            }
+        }
+        (cached.isPresent() ? hits : misses).increment();
+        return cached;
+    }
+
+    /**
+     * 写入缓存
+     * 空白响应不写入，避免一次异常或被过滤的响应在TTL内返回给所有相同的提示
+     *
+     * @param key 缓存键
+     * @param message 模型响应
+     */
+    public void put(String key, Message message) {
+        if (message == null || message.getContent() == null || message.getContent().isBlank()) {
+            return;
+        }
+        try {
+            storage.put(key, message.getContent(), properties.getTtlSeconds());
+            puts.increment();
+        } catch (RuntimeException e) {
+            log.warn("写入响应缓存失败: {}", e.getMessage());
+            return;
+        }
+
+        List<String> evicted = new ArrayList<>();
+        synchronized (index) {
+            index.put(key, Boolean.TRUE);
+            Iterator<String> iterator = index.keySet().iterator();
+            while (index.size() > properties.getMaxEntries() && iterator.hasNext()) {
+                evicted.add(iterator.next());
+                iterator.remove();
+            }
+        }
+        for (String evictedKey : evicted) {
+            storage.delete(evictedKey);
+            evictions.increment();
+        }
+    }
+
+    /**
+     * 计算缓存键
+     *
+     * @param client 客户端
+     * @param prompt 提示信息
+     * @return 缓存键
+     * @see PromptFingerprint
+     */
+    public String keyFor(ChatClient client, Prompt prompt) {
+        return properties.getKeyPrefix() + PromptFingerprint.of(client, prompt, Set.of(BYPASS_PARAM));
+    }
+
+    /**
+     * 获取缓存统计
+     *
+     * @return 统计映射
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        metrics.put("hits", hitCount);
+        metrics.put("misses", missCount);
+        metrics.put("bypasses", bypasses.sum());
+        metrics.put("puts", puts.sum());
+        metrics.put("evictions", evictions.sum());
+        metrics.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        synchronized (index) {
+            metrics.put("size", index.size());
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,32 @@
+package com.chy.agents.core.chat.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 模型响应缓存配置
+ */
+@Data
+@ConfigurationProperties(prefix = "chy.agents.cache.response")
+public class ResponseCacheProperties {
+
+    /**
+     * 是否启用响应缓存
+     */
+    private boolean enabled = false;
+
+    /**
+     * 缓存过期时间（秒）
+     */
+    private long ttlSeconds = 3600;
+
+    /**
+     * 最大缓存条目数，超出时淘汰最久未使用的条目
+     */
+    private int maxEntries = 10_000;
+
+    /**
+     * 缓存键前缀
+     */
+    private String keyPrefix = "chy:agents:response:";
+}
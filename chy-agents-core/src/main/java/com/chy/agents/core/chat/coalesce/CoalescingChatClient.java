@@ -0,0 +1,66 @@
+package com.chy.agents.core.chat.coalesce;
+
+import com.chy.agents.core.chat.ChatClient;
+import com.chy.agents.core.chat.message.Message;
+import com.chy.agents.core.chat.message.MessageDelta;
+import com.chy.agents.core.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 带请求合并的聊天客户端
+ * 并发的相同请求只向下游发起一次调用，流式调用共享同一个上游流
+ */
+public class CoalescingChatClient implements ChatClient {
+
+    private final ChatClient delegate;
+    private final RequestCoalescer coalescer;
+
+    public CoalescingChatClient(ChatClient delegate, RequestCoalescer coalescer) {
+        this.delegate = delegate;
+        this.coalescer = coalescer;
+    }
+
+    @Override
+    public Message call(Prompt prompt) {
+        if (coalescer.isBypass(prompt)) {
+            return delegate.call(prompt);
+        }
+        return coalescer.call(coalescer.keyFor(delegate, prompt), () -> delegate.call(prompt));
+    }
+
+    @Override
+    public CompletableFuture<Message> callAsync(Prompt prompt) {
+        if (coalescer.isBypass(prompt)) {
+            return delegate.callAsync(prompt);
+        }
+        return coalescer.callAsync(coalescer.keyFor(delegate, prompt), () -> delegate.callAsync(prompt));
+    }
+
+    @Override
+    public Flux<MessageDelta> streamDeltas(Prompt prompt) {
+        return Flux.defer(() -> {
+            if (coalescer.isBypass(prompt)) {
+                return delegate.streamDeltas(prompt);
+            }
+            return coalescer.stream(coalescer.keyFor(delegate, prompt), () -> delegate.streamDeltas(prompt));
+        });
+    }
+
+    @Override
+    public Map<String, Object> getConfig() {
+        return delegate.getConfig();
+    }
+
+    @Override
+    public String getProvider() {
+        return delegate.getProvider();
+    }
+
+    @Override
+    public String getModel() {
+        return delegate.getModel();
+    }
+}
@@ -0,0 +1,18 @@
+package com.chy.agents.core.chat.coalesce;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 请求合并配置
+ */
+@Data
+@ConfigurationProperties(prefix = "chy.agents.router.coalescing")
+public class CoalescingProperties {
+
+    /**
+     * 是否启用请求合并
+     * 启用后并发的相同请求共享同一次模型调用的结果，采样温度不为0时各请求不再获得独立的回答
+     */
+    private boolean enabled = false;
+}
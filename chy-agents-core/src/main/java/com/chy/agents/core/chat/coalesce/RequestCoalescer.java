@@ -0,0 +1,285 @@
+package com.chy.agents.core.chat.coalesce;
+
+import com.chy.agents.core.chat.ChatClient;
+import com.chy.agents.core.chat.cache.ResponseCache;
+import com.chy.agents.core.chat.message.Message;
+import com.chy.agents.core.chat.message.MessageDelta;
+import com.chy.agents.core.chat.prompt.Prompt;
+import com.chy.agents.core.chat.prompt.PromptFingerprint;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 请求合并器（single-flight）
+ * 以提示指纹为键登记进行中的调用，相同请求在调用完成前到达时直接共享该调用，
+ * 阻塞/异步调用共享同一个结果，流式调用共享同一个上游流并回放已到达的增量。
+ * 调用结束后立即移除登记，合并只发生在并发请求之间，不会缓存结果。
+ */
+public class RequestCoalescer {
+
+    /**
+     * 提示参数中的合并绕过开关，值为true时本次请求独立调用
+     */
+    public static final String BYPASS_PARAM = "noCoalesce";
+
+    private static final Set<String> IGNORED_PARAMETERS = Set.of(BYPASS_PARAM, ResponseCache.BYPASS_PARAM);
+
+    private final CoalescingProperties properties;
+    private final Map<String, CompletableFuture<Message>> inflightCalls = new ConcurrentHashMap<>();
+    private final Map<String, SharedStream> inflightStreams = new ConcurrentHashMap<>();
+
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public RequestCoalescer(CoalescingProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 为客户端挂载请求合并
+     *
+     * @param client 原始客户端
+     * @return 带请求合并的客户端，未启用时返回原始客户端
+     */
+    public ChatClient decorate(ChatClient client) {
+        if (!properties.isEnabled() || client instanceof CoalescingChatClient) {
+            return client;
+        }
+        return new CoalescingChatClient(client, this);
+    }
+
+    /**
+     * 判断请求是否要求绕过合并
+     *
+     * @param prompt 提示信息
+     * @return 是否绕过
+     */
+    public boolean isBypass(Prompt prompt) {
+        Map<String, Object> parameters = prompt.getParameters();
+        return parameters != null && Boolean.TRUE.equals(parameters.get(BYPASS_PARAM));
+    }
+
+    /**
+     * 计算合并键
+     *
+     * @param client 客户端
+     * @param prompt 提示信息
+     * @return 合并键
+     */
+    public String keyFor(ChatClient client, Prompt prompt) {
+        return PromptFingerprint.of(client, prompt, IGNORED_PARAMETERS);
+    }
+
+    /**
+     * 阻塞调用：首个请求在当前线程执行调用，其余相同请求等待其结果
+     *
+     * @param key 合并键
+     * @param call 实际调用
+     * @return 模型响应
+     */
+    public Message call(String key, Supplier<Message> call) {
+        CompletableFuture<Message> created = new CompletableFuture<>();
+        CompletableFuture<Message> existing = inflightCalls.putIfAbsent(key, created);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+
+        leaders.increment();
+        try {
+            Message message = call.get();
+            created.complete(message);
+            return message;
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflightCalls.remove(key, created);
+        }
+    }
+
+    /**
+     * 异步调用：相同请求共享同一个调用，各自获得独立的Future，取消自己的Future不影响其他请求
+     *
+     * @param key 合并键
+     * @param call 实际调用
+     * @return 模型响应的Future
+     */
+    public CompletableFuture<Message> callAsync(String key, Supplier<CompletableFuture<Message>> call) {
+        CompletableFuture<Message> created = new CompletableFuture<>();
+        CompletableFuture<Message> existing = inflightCalls.putIfAbsent(key, created);
+        if (existing != null) {
+            coalesced.increment();
+            return existing.copy();
+        }
+
+        leaders.increment();
+        CompletableFuture<Message> upstream;
+        try {
+            upstream = call.get();
+        } catch (RuntimeException e) {
+            upstream = CompletableFuture.failedFuture(e);
+        }
+        upstream.whenComplete((message, error) -> {
+            inflightCalls.remove(key, created);
+            if (error != null) {
+                created.completeExceptionally(error);
+            } else {
+                created.complete(message);
+            }
+        });
+        return created.copy();
+    }
+
+    /**
+     * 流式调用：相同请求订阅同一个上游流，后加入的订阅者先收到已到达的增量
+     * 所有订阅者都取消时上游流随之取消。共享流在上游结束或被取消的同时关闭，
+     * 之后到达的相同请求发起新的上游调用，而不是重新订阅已关闭的共享流
+     *
+     * @param key 合并键
+     * @param stream 实际的流式调用
+     * @return 共享的增量流
+     */
+    public Flux<MessageDelta> stream(String key, Supplier<Flux<MessageDelta>> stream) {
+        return Flux.defer(() -> {
+            while (true) {
+                SharedStream existing = inflightStreams.get(key);
+                if (existing != null) {
+                    if (existing.tryJoin()) {
+                        coalesced.increment();
+                        return existing.subscribe();
+                    }
+                    // 已关闭但尚未移除，替换为新的共享流
+                    inflightStreams.remove(key, existing);
+                    continue;
+                }
+
+                SharedStream created = new SharedStream(key);
+                created.tryJoin();
+                if (inflightStreams.putIfAbsent(key, created) != null) {
+                    continue;
+                }
+                leaders.increment();
+                created.connect(stream);
+                return created.subscribe();
+            }
+        });
+    }
+
+    /**
+     * 获取合并统计
+     *
+     * @return 统计映射
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        long leaderCount = leaders.sum();
+        long coalescedCount = coalesced.sum();
+        metrics.put("upstreamCalls", leaderCount);
+        metrics.put("coalesced", coalescedCount);
+        metrics.put("coalesceRate", leaderCount + coalescedCount == 0
+                ? 0.0 : (double) coalescedCount / (leaderCount + coalescedCount));
+        metrics.put("inflightCalls", inflightCalls.size());
+        metrics.put("inflightStreams", inflightStreams.size());
+        return metrics;
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        return e.getCause() instanceof RuntimeException cause ? cause : e;
+    }
+
+    /**
+     * 进行中的共享流
+     * 上游增量写入回放缓冲，订阅者计数和关闭状态在同一把锁下维护，
+     * 关闭后不再接受新的订阅者，因此同一个键不会在关闭窗口内被重复连接
+     */
+    private final class SharedStream {
+
+        private final String key;
+        private final Sinks.Many<MessageDelta> sink = Sinks.many().replay().all();
+
+        private int subscribers;
+        private boolean closed;
+        private Disposable upstream;
+
+        private SharedStream(String key) {
+            this.key = key;
+        }
+
+        private synchronized boolean tryJoin() {
+            if (closed) {
+                return false;
+            }
+            subscribers++;
+            return true;
+        }
+
+        private Flux<MessageDelta> subscribe() {
+            return sink.asFlux().doFinally(signal -> leave());
+        }
+
+        private void connect(Supplier<Flux<MessageDelta>> stream) {
+            Disposable subscription = Flux.defer(stream).subscribe(
+                    sink::tryEmitNext,
+                    error -> {
+                        close();
+                        sink.tryEmitError(error);
+                    },
+                    () -> {
+                        close();
+                        sink.tryEmitComplete();
+                    });
+            synchronized (this) {
+                if (!closed) {
+                    upstream = subscription;
+                    return;
+                }
+            }
+            subscription.dispose();
+        }
+
+        /**
+         * 上游结束时先关闭再发出终止信号，终止后到达的请求不会加入本流
+         */
+        private void close() {
+            synchronized (this) {
+                closed = true;
+                upstream = null;
+            }
+            inflightStreams.remove(key, this);
+        }
+
+        /**
+         * 最后一个订阅者离开时关闭并取消上游
+         */
+        private void leave() {
+            Disposable toCancel;
+            synchronized (this) {
+                if (--subscribers > 0 || closed) {
+                    return;
+                }
+                closed = true;
+                toCancel = upstream;
+                upstream = null;
+            }
+            inflightStreams.remove(key, this);
+            if (toCancel != null) {
+                toCancel.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.chy.agents.core.chat.message;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 紧凑消息日志
+ * 每条消息只保存一个角色字节和UTF-8编码的内容，内容连续存放在日志私有的字节区中，
+ * 不为每条消息保留String、元数据映射和媒体列表；只有在构建提示词时才按需还原为消息对象。
+ * 日志有界，超过容量时丢弃最旧的消息。所有操作在日志自身上同步。
+ */
+public final class CompactMessageLog {
+
+    /**
+     * 字节区初始大小
+     */
+    private static final int INITIAL_ARENA_BYTES = 512;
+
+    /**
+     * 索引初始槽位数
+     */
+    private static final int INITIAL_SLOTS = 8;
+
+    /**
+     * 每个槽位的索引开销（偏移、长度、角色）
+     */
+    private static final int SLOT_BYTES = 9;
+
+    /**
+     * 日志对象自身的估算开销
+     */
+    private static final int BASE_BYTES = 96;
+
+    private static final Message.Role[] ROLES = Message.Role.values();
+
+    private final int maxMessages;
+
+    /**
+     * 内容字节区，首次追加时分配；有效内容按追加顺序排列在[0, arenaEnd)内
+     */
+    private byte[] arena;
+    private int arenaEnd;
+    private int liveBytes;
+
+    /**
+     * 环形索引
+     */
+    private int[] offsets;
+    private int[] lengths;
+    private byte[] roles;
+    private int head;
+    private int count;
+
+    public CompactMessageLog(int maxMessages) {
+        if (maxMessages <= 0) {
+            throw new IllegalArgumentException("maxMessages must be positive: " + maxMessages);
+        }
+        this.maxMessages = maxMessages;
+    }
+
+    /**
+     * 追加消息
+     *
+     * @param role 角色
+     * @param content 内容
+     */
+    public synchronized void add(Message.Role role, String content) {
+        byte[] utf8 = content != null ? content.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        append((byte) role.ordinal(), utf8, 0, utf8.length);
+    }
+
+    /**
+     * 追加项目内部消息（不保留元数据）
+     *
+     * @param message 消息
+     */
+    public void add(Message message) {
+        add(message.getRole(), message.getContent());
+    }
+
+    /**
+     * 追加Spring AI消息（不保留元数据和媒体）
+     *
+     * @param message Spring AI消息
+     */
+    public void add(org.springframework.ai.chat.messages.Message message) {
+        add(Message.roleOf(message), message.getContent());
+    }
+
+    /**
+     * 批量追加Spring AI消息
+     *
+     * @param messages Spring AI消息
+     */
+    public synchronized void addAll(Collection<? extends org.springframework.ai.chat.messages.Message> messages) {
+        for (org.springframework.ai.chat.messages.Message message : messages) {
+            add(message);
+        }
+    }
+
+    /**
+     * 用一条消息替换最旧的count条消息（如用摘要替换早期对话），其余消息保持原样
+     * 至少替换一条，保证新消息和保留的消息都不会超出容量
+     *
+     * @param count 被替换的消息数，1到当前条数
+     * @param role 新消息的角色
+     * @param content 新消息的内容
+     */
+    public synchronized void replaceOldest(int count, Message.Role role, String content) {
+        if (count < 1 || count > this.count) {
+            throw new IndexOutOfBoundsException("Count " + count + " out of bounds for size " + this.count);
+        }
+        int kept = this.count - count;
+        byte[] keptRoles = new byte[kept];
+        byte[][] keptContents = new byte[kept][];
+        for (int i = 0; i < kept; i++) {
+            int slot = slot(count + i);
+            keptRoles[i] = roles[slot];
+            keptContents[i] = Arrays.copyOfRange(arena, offsets[slot], offsets[slot] + lengths[slot]);
+        }
+        clear();
+        add(role, content);
+        for (int i = 0; i < kept; i++) {
+            append(keptRoles[i], keptContents[i], 0, keptContents[i].length);
+        }
+    }
+
+    /**
+     * 获取第index条消息的角色（0为最旧）
+     */
+    public synchronized Message.Role role(int index) {
+        return ROLES[roles[slot(index)]];
+    }
+
+    /**
+     * 获取第index条消息的内容（0为最旧），每次调用都会解码出新的字符串
+     */
+    public synchronized String content(int index) {
+        int slot = slot(index);
+        return new String(arena, offsets[slot], lengths[slot], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 还原最近的消息为项目内部消息
+     *
+     * @param limit 条数限制
+     * @return 按时间先后排列的消息
+     */
+    public synchronized List<Message> toMessages(int limit) {
+        int n = Math.min(Math.max(limit, 0), count);
+        List<Message> result = new ArrayList<>(n);
+        for (int i = count - n; i < count; i++) {
+            result.add(BaseMessage.builder().role(role(i)).content(content(i)).build());
+        }
+        return result;
+    }
+
+    /**
+     * 还原最近的消息为Spring AI消息
+     *
+     * @param limit 条数限制
+     * @return 按时间先后排列的消息
+     */
+    public synchronized List<org.springframework.ai.chat.messages.Message> toSpringAiMessages(int limit) {
+        int n = Math.min(Math.max(limit, 0), count);
+        List<org.springframework.ai.chat.messages.Message> result = new ArrayList<>(n);
+        for (int i = count - n; i < count; i++) {
+            result.add(Message.springAiMessage(role(i), content(i)));
+        }
+        return result;
+    }
+
+    /**
+     * 清空日志并释放字节区
+     */
+    public synchronized void clear() {
+        arena = null;
+        offsets = null;
+        lengths = null;
+        roles = null;
+        arenaEnd = 0;
+        liveBytes = 0;
+        head = 0;
+        count = 0;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized boolean isEmpty() {
+        return count == 0;
+    }
+
+    public int getMaxMessages() {
+        return maxMessages;
+    }
+
+    /**
+     * 有效内容的UTF-8字节数
+     */
+    public synchronized long contentBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * 日志占用的估算堆内存字节数（含未使用的预留空间）
+     */
+    public synchronized long retainedBytes() {
+        long bytes = BASE_BYTES;
+        if (arena != null) {
+            bytes += arena.length;
+        }
+        if (offsets != null) {
+            bytes += (long) offsets.length * SLOT_BYTES;
+        }
+        return bytes;
+    }
+
+    private void append(byte role, byte[] utf8, int offset, int length) {
+        if (count == maxMessages) {
+            liveBytes -= lengths[head];
+            head = (head + 1) % offsets.length;
+            count--;
+        }
+        ensureSlots();
+        ensureArena(length);
+
+        int slot = (head + count) % offsets.length;
+        System.arraycopy(utf8, offset, arena, arenaEnd, length);
+        offsets[slot] = arenaEnd;
+        lengths[slot] = length;
+        roles[slot] = role;
+        arenaEnd += length;
+        liveBytes += length;
+        count++;
+    }
+
+    private int slot(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + count);
+        }
+        return (head + index) % offsets.length;
+    }
+
+    /**
+     * 保证索引还有空闲槽位，扩容时把环形索引展开到数组开头
+     */
+    private void ensureSlots() {
+        if (offsets == null) {
+            int capacity = Math.min(INITIAL_SLOTS, maxMessages);
+            offsets = new int[capacity];
+            lengths = new int[capacity];
+            roles = new byte[capacity];
+            head = 0;
+            return;
+        }
+        if (count < offsets.length) {
+            return;
+        }
+        int capacity = (int) Math.min((long) offsets.length * 2, maxMessages);
+        int[] newOffsets = new int[capacity];
+        int[] newLengths = new int[capacity];
+        byte[] newRoles = new byte[capacity];
+        for (int i = 0; i < count; i++) {
+            int slot = (head + i) % offsets.length;
+            newOffsets[i] = offsets[slot];
+            newLengths[i] = lengths[slot];
+            newRoles[i] = roles[slot];
+        }
+        offsets = newOffsets;
+        lengths = newLengths;
+        roles = newRoles;
+        head = 0;
+    }
+
+    /**
+     * 保证字节区末尾还有needed字节空间
+     * 被丢弃消息留下的空洞足够多时原地压实；空间不足或远大于有效内容时按有效内容的两倍重新分配（同时完成压实与扩缩容）
+     */
+    private void ensureArena(int needed) {
+        if (arena == null) {
+            arena = new byte[Math.max(INITIAL_ARENA_BYTES, needed)];
+            return;
+        }
+        if (arenaEnd + needed <= arena.length) {
+            return;
+        }
+        long required = (long) liveBytes + needed;
+        if (required > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Message log exceeds maximum arena size");
+        }
+        boolean reuse = required <= arena.length * 3L / 4 && arena.length <= Math.max(INITIAL_ARENA_BYTES, required * 4);
+        byte[] target = reuse
+                ? arena
+                : new byte[(int) Math.min(Math.max(INITIAL_ARENA_BYTES, required * 2), Integer.MAX_VALUE - 8)];
+        // 槽位按追加顺序存放在递增的偏移上，顺序前移不会覆盖尚未移动的内容
+        int position = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = (head + i) % offsets.length;
+            System.arraycopy(arena, offsets[slot], target, position, lengths[slot]);
+            offsets[slot] = position;
+            position += lengths[slot];
+        }
+        arena = target;
+        arenaEnd = position;
+    }
+}
@@ -44,11 +44,47 @@ public interface Message {
      * @return Spring AI消息
      */
     default org.springframework.ai.chat.messages.Message toSpringAiMessage() {
-        return switch (getRole()) {
-            case SYSTEM -> new org.springframework.ai.chat.messages.SystemMessage(getContent());
-            case USER -> new org.springframework.ai.chat.messages.UserMessage(getContent());
-            case ASSISTANT -> new org.springframework.ai.chat.messages.AssistantMessage(getContent());
-            case FUNCTION -> new org.springframework.ai.chat.messages.UserMessage(getContent()); // Spring AI暂无Function类型
+        return springAiMessage(getRole(), getContent());
+    }
+    
+    /**
+     * 按角色和内容创建Spring AI消息
+     * 
+     * @param role 角色
+     * @param content 内容
+     * @return Spring AI消息
+     */
+    static org.springframework.ai.chat.messages.Message springAiMessage(Role role, String content) {
+        return switch (role) {
+            case SYSTEM -> new org.springframework.ai.chat.messages.SystemMessage(content);
+            case USER -> new org.springframework.ai.chat.messages.UserMessage(content);
+            case ASSISTANT -> new org.springframework.ai.chat.messages.AssistantMessage(content);
+            case FUNCTION -> new org.springframework.ai.chat.messages.UserMessage(content); // Spring AI暂无Function类型
+        };
+    }
+    
+    /**
+     * 获取Spring AI消息对应的角色
+     * 
+     * @param message Spring AI消息
+     * @return 角色
+     */
+    static Role roleOf(org.springframework.ai.chat.messages.Message message) {
+        return roleOf(message.getMessageType());
+    }
+    
+    /**
+     * 获取Spring AI消息类型对应的角色
+     * 
+     * @param type Spring AI消息类型
+     * @return 角色
+     */
+    static Role roleOf(org.springframework.ai.chat.messages.MessageType type) {
+        return switch (type) {
+            case SYSTEM -> Role.SYSTEM;
+            case ASSISTANT -> Role.ASSISTANT;
+            case TOOL -> Role.FUNCTION;
+            default -> Role.USER;
         };
     }
     
@@ -0,0 +1,124 @@
+package com.chy.agents.core.chat.message;
+
+import lombok.Builder;
+import lombok.Data;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 流式消息增量
+ * 表示流式响应中的一个片段，只包含本次新增的内容
+ */
+@Data
+@Builder
+public class MessageDelta {
+
+    /**
+     * 正常结束的结束原因
+     */
+    public static final String STOP = "stop";
+
+    /**
+     * 本次新增的内容
+     */
+    private String content;
+
+    /**
+     * 消息角色
+     */
+    @Builder.Default
+    private Message.Role role = Message.Role.ASSISTANT;
+
+    /**
+     * 片段序号（从0开始）
+     */
+    private int index;
+
+    /**
+     * 是否为最后一个片段
+     */
+    private boolean finished;
+
+    /**
+     * 结束原因
+     */
+    private String finishReason;
+
+    /**
+     * 片段元数据
+     */
+    @Builder.Default
+    private Map<String, Object> metadata = new HashMap<>();
+
+    /**
+     * 创建内容片段
+     *
+     * @param content 新增内容
+     * @param index 片段序号
+     * @return 消息增量
+     */
+    public static MessageDelta of(String content, int index) {
+        return MessageDelta.builder()
+                .content(content)
+                .index(index)
+                .build();
+    }
+
+    /**
+     * 创建结束片段
+     *
+     * @param index 片段序号
+     * @param finishReason 结束原因
+     * @return 消息增量
+     */
+    public static MessageDelta finish(int index, String finishReason) {
+        return MessageDelta.builder()
+                .content("")
+                .index(index)
+                .finished(true)
+                .finishReason(finishReason)
+                .build();
+    }
+
+    /**
+     * 结束原因是否表示正常结束：为空或stop时是，length、content_filter等截断或过滤不是
+     *
+     * @param finishReason 结束原因
+     * @return 是否正常结束
+     */
+    public static boolean isSuccessfulFinish(String finishReason) {
+        return finishReason == null || STOP.equalsIgnoreCase(finishReason);
+    }
+
+    /**
+     * 将一条完整消息转换为增量流（内容片段 + 结束片段）
+     *
+     * @param message 完整消息
+     * @return 增量流
+     */
+    public static Flux<MessageDelta> fromMessage(Message message) {
+        return Flux.just(
+                MessageDelta.builder()
+                        .content(message.getContent())
+                        .role(message.getRole())
+                        .index(0)
+                        .build(),
+                finish(1, STOP));
+    }
+
+    /**
+     * 将增量流合并为一条完整消息，完整文本只在流结束时生成一次
+     *
+     * @param deltas 增量流
+     * @return 完整消息
+     */
+    public static Mono<Message> join(Flux<MessageDelta> deltas) {
+        return deltas
+                .filter(delta -> delta.getContent() != null && !delta.getContent().isEmpty())
+                .reduceWith(StringBuilder::new, (builder, delta) -> builder.append(delta.getContent()))
+                .map(builder -> (Message) BaseMessage.assistantMessage(builder.toString()));
+    }
+}
@@ -0,0 +1,87 @@
+package com.chy.agents.core.chat.prompt;
+
+import com.chy.agents.core.chat.ChatClient;
+import com.chy.agents.core.chat.message.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 提示指纹
+ * 对提供商、模型、温度以及提示的系统提示、历史消息、用户输入和参数做规范化编码后取SHA-256，
+ * 相同指纹的请求会得到等价的模型调用，供响应缓存和请求合并使用
+ */
+public final class PromptFingerprint {
+
+    private PromptFingerprint() {
+    }
+
+    /**
+     * 计算提示指纹
+     *
+     * @param client 客户端
+     * @param prompt 提示信息
+     * @param ignoredParameters 不参与计算的参数名（如缓存开关）
+     * @return 十六进制SHA-256
+     */
+    public static String of(ChatClient client, Prompt prompt, Set<String> ignoredParameters) {
+        StringBuilder canonical = new StringBuilder(256);
+        Map<String, Object> config = client.getConfig();
+        appendField(canonical, client.getProvider());
+        appendField(canonical, client.getModel());
+        appendField(canonical, config != null ? config.get("temperature") : null);
+        appendField(canonical, prompt.getSystemPrompt());
+
+        List<Message> history = prompt.getHistory();
+        int historySize = history != null ? history.size() : 0;
+        appendField(canonical, historySize);
+        for (int i = 0; i < historySize; i++) {
+            appendField(canonical, history.get(i).getRole());
+            appendField(canonical, history.get(i).getContent());
+        }
+
+        appendField(canonical, prompt.getUserInput());
+        appendField(canonical, canonicalParameters(prompt.getParameters(), ignoredParameters));
+
+        return sha256(canonical.toString());
+    }
+
+    /**
+     * 参数按键排序，排除忽略的参数
+     */
+    private static String canonicalParameters(Map<String, Object> parameters, Set<String> ignoredParameters) {
+        if (parameters == null || parameters.isEmpty()) {
+            return "";
+        }
+        Map<String, Object> sorted = new TreeMap<>();
+        parameters.forEach((key, value) -> {
+            if (!ignoredParameters.contains(key)) {
+                sorted.put(key, value instanceof Map<?, ?> map ? new TreeMap<>(map) : value);
+            }
+        });
+        return sorted.toString();
+    }
+
+    /**
+     * 以"长度:内容"编码字段，避免不同字段拼接后产生歧义
+     */
+    private static void appendField(StringBuilder builder, Object value) {
+        String text = value != null ? value.toString() : "";
+        builder.append(text.length()).append(':').append(text).append('|');
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.chy.agents.core.config;
+
+import com.chy.agents.core.router.adaptive.AdaptiveRoutingProperties;
+import com.chy.agents.core.router.adaptive.ProviderStatsRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 自适应路由配置
+ */
+@Configuration
+@EnableConfigurationProperties(AdaptiveRoutingProperties.class)
+public class AdaptiveRoutingConfig {
+
+    /**
+     * 创建提供商统计注册表
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ProviderStatsRegistry providerStatsRegistry(AdaptiveRoutingProperties properties) {
+        return new ProviderStatsRegistry(properties);
+    }
+}
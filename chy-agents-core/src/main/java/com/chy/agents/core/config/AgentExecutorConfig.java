@@ -0,0 +1,27 @@
+package com.chy.agents.core.config;
+
+import com.chy.agents.core.execution.AgentExecutor;
+import com.chy.agents.core.execution.AgentExecutorProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 代理执行器配置
+ */
+@Configuration
+@EnableConfigurationProperties(AgentExecutorProperties.class)
+public class AgentExecutorConfig {
+
+    /**
+     * 创建代理执行器，并注册为全局默认执行器
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public AgentExecutor agentExecutor(AgentExecutorProperties properties) {
+        AgentExecutor executor = new AgentExecutor(properties);
+        AgentExecutor.setDefault(executor);
+        return executor;
+    }
+}
@@ -0,0 +1,25 @@
+package com.chy.agents.core.config;
+
+import com.chy.agents.core.chat.coalesce.CoalescingProperties;
+import com.chy.agents.core.chat.coalesce.RequestCoalescer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 请求合并配置
+ */
+@Configuration
+@EnableConfigurationProperties(CoalescingProperties.class)
+public class CoalescingConfig {
+
+    /**
+     * 创建请求合并器
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public RequestCoalescer requestCoalescer(CoalescingProperties properties) {
+        return new RequestCoalescer(properties);
+    }
+}
@@ -0,0 +1,25 @@
+package com.chy.agents.core.config;
+
+import com.chy.agents.core.router.ratelimit.RateLimitProperties;
+import com.chy.agents.core.router.ratelimit.RateLimiterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 提供商限流配置
+ */
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig {
+
+    /**
+     * 创建限流器注册表
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public RateLimiterRegistry rateLimiterRegistry(RateLimitProperties properties) {
+        return new RateLimiterRegistry(properties);
+    }
+}
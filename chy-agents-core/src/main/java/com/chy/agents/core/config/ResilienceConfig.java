@@ -0,0 +1,30 @@
+package com.chy.agents.core.config;
+
+import com.chy.agents.common.config.ModelConfig;
+import com.chy.agents.core.router.adaptive.ProviderStatsRegistry;
+import com.chy.agents.core.router.resilience.ResilienceProperties;
+import com.chy.agents.core.router.resilience.ResilienceRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 路由弹性配置
+ */
+@Configuration
+@EnableConfigurationProperties(ResilienceProperties.class)
+public class ResilienceConfig {
+
+    /**
+     * 创建弹性策略注册表
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ResilienceRegistry resilienceRegistry(ResilienceProperties properties,
+                                                 ObjectProvider<ModelConfig> modelConfig,
+                                                 ObjectProvider<ProviderStatsRegistry> statsRegistry) {
+        return new ResilienceRegistry(properties, modelConfig.getIfAvailable(), statsRegistry.getIfAvailable());
+    }
+}
@@ -0,0 +1,31 @@
+package com.chy.agents.core.config;
+
+import com.chy.agents.core.chat.cache.ResponseCache;
+import com.chy.agents.core.chat.cache.ResponseCacheProperties;
+import com.chy.agents.storage.cache.CacheStorage;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 模型响应缓存配置
+ */
+@Configuration
+@ConditionalOnClass(CacheStorage.class)
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+public class ResponseCacheConfig {
+
+    /**
+     * 创建响应缓存，未配置缓存存储时使用内存实现
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ResponseCache responseCache(ObjectProvider<CacheStorage> cacheStorage,
+                                       ResponseCacheProperties properties) {
+        CacheStorage storage = cacheStorage.getIfAvailable(CacheStorage.InMemoryCacheStorage::new);
+        return new ResponseCache(storage, properties);
+    }
+}
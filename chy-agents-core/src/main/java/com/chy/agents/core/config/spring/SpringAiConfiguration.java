@@ -1,10 +1,14 @@
 package com.chy.agents.core.config.spring;
 
+import com.chy.agents.common.tokenizer.Tokenizer;
+import com.chy.agents.common.tokenizer.Tokenizers;
 import com.chy.agents.core.agent.Agent;
+import com.chy.agents.core.agent.AgentConfig;
 import com.chy.agents.core.agent.spring.SpringAiAgent;
 import com.chy.agents.core.chat.ChatClient;
 import com.chy.agents.core.chat.adapter.SpringAiChatClientAdapter;
 import com.chy.agents.core.chat.adapter.SpringAiChatClientFactory;
+import com.chy.agents.core.execution.AgentExecutor;
 import com.chy.agents.core.router.spring.SpringAiModelRouter;
 import com.chy.agents.core.tool.BaseTool;
 import com.chy.agents.core.tool.spring.SpringAiToolAdapter;
@@ -14,6 +18,7 @@ import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.memory.InMemoryChatMemory;
 import org.springframework.ai.chat.tool.Tool;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -42,8 +47,8 @@ public class SpringAiConfiguration {
      */
     @Bean
     @ConditionalOnMissingBean
-    public SpringAiChatClientFactory springAiChatClientFactory() {
-        return new SpringAiChatClientFactory();
+    public SpringAiChatClientFactory springAiChatClientFactory(AgentExecutor agentExecutor) {
+        return new SpringAiChatClientFactory(agentExecutor);
     }
     
     /**
@@ -119,16 +124,20 @@ public class SpringAiConfiguration {
     @ConditionalOnMissingBean(name = "assistantAgent")
     public Agent assistantAgent(
             @Autowired @Qualifier("openAiChatClient") org.springframework.ai.chat.client.ChatClient openAiClient,
-            List<Agent.Tool> defaultAgentTools) {
+            List<Agent.Tool> defaultAgentTools,
+            AgentExecutor agentExecutor,
+            ObjectProvider<Tokenizer> tokenizer) {
         
         // 使用Spring AI的ChatClient创建加强的Agent
+        AgentConfig config = new AgentConfig("default", "openai",
+                "你是一个有用的AI助手，可以回答问题并执行各种任务。");
         SpringAiAgent agent = new SpringAiAgent(
                 "assistant-1",
                 "智能助手",
                 "一个通用的AI助手，可以回答问题、执行任务",
-                new com.chy.agents.core.agent.AgentConfig("default", "openai",
-                        "你是一个有用的AI助手，可以回答问题并执行各种任务。"),
-                openAiClient
+                config,
+                openAiClient,
+                tokenizer.getIfAvailable(() -> Tokenizers.forModel(config.getModelName()))
         );
         
         // 设置能力和工具
@@ -137,6 +146,7 @@ public class SpringAiConfiguration {
         agent.addCapability("task-execution");
         
         agent.setTools(defaultAgentTools);
+        agent.setAgentExecutor(agentExecutor);
         agent.start();
         
         return agent;
@@ -0,0 +1,199 @@
+package com.chy.agents.core.execution;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 代理执行器
+ * 统一承载代理和模型客户端的异步调用，避免阻塞式的模型HTTP请求占用公共ForkJoinPool。
+ * 默认使用虚拟线程执行，每个模型提供商拥有独立的并发舱壁，慢提供商不会拖垮其他提供商。
+ */
+@Slf4j
+public class AgentExecutor implements AutoCloseable {
+
+    /**
+     * 未指定提供商时使用的舱壁名称
+     */
+    public static final String DEFAULT_PROVIDER = "default";
+
+    private static volatile AgentExecutor defaultInstance;
+
+    private final AgentExecutorProperties properties;
+    private final ExecutorService executorService;
+    private final boolean virtual;
+    private final Map<String, ProviderBulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * 使用默认配置创建执行器
+     */
+    public AgentExecutor() {
+        this(new AgentExecutorProperties());
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param properties 执行器配置
+     */
+    public AgentExecutor(AgentExecutorProperties properties) {
+        this.properties = properties;
+        ExecutorService virtualExecutor = properties.isVirtualThreads() ? createVirtualThreadExecutor() : null;
+        this.virtual = virtualExecutor != null;
+        this.executorService = virtualExecutor != null ? virtualExecutor : createPlatformExecutor();
+        log.info("代理执行器已创建，线程模型: {}", virtual ? "virtual" : "platform");
+    }
+
+    /**
+     * 获取全局默认执行器
+     * 供未通过Spring注入执行器的代理和客户端使用
+     *
+     * @return 默认执行器
+     */
+    public static AgentExecutor getDefault() {
+        AgentExecutor instance = defaultInstance;
+        if (instance == null) {
+            synchronized (AgentExecutor.class) {
+                instance = defaultInstance;
+                if (instance == null) {
+                    instance = new AgentExecutor();
+                    defaultInstance = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 设置全局默认执行器
+     *
+     * @param executor 执行器
+     */
+    public static void setDefault(AgentExecutor executor) {
+        defaultInstance = executor;
+    }
+
+    /**
+     * 在指定提供商的舱壁内异步执行任务
+     *
+     * @param provider 提供商名称
+     * @param task 任务
+     * @return 异步结果
+     */
+    public <T> CompletableFuture<T> submit(String provider, Supplier<T> task) {
+        return getBulkhead(provider).submit(task, executorService, properties.getRejectionPolicy());
+    }
+
+    /**
+     * 在指定提供商的舱壁内异步执行任务，并附加默认超时
+     *
+     * @param provider 提供商名称
+     * @param task 任务
+     * @return 异步结果
+     */
+    public <T> CompletableFuture<T> submitWithTimeout(String provider, Supplier<T> task) {
+        return submit(provider, task).orTimeout(properties.getDefaultTimeout(), TimeUnit.SECONDS);
+    }
+
+    /**
+     * 获取指定提供商的舱壁
+     *
+     * @param provider 提供商名称
+     * @return 舱壁
+     */
+    public ProviderBulkhead getBulkhead(String provider) {
+        String key = normalize(provider);
+        return bulkheads.computeIfAbsent(key, k -> new ProviderBulkhead(
+                k, properties.getMaxConcurrent(k), properties.getMaxQueuePerProvider()));
+    }
+
+    /**
+     * 获取执行器及所有舱壁的指标
+     *
+     * @return 指标映射
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("threadModel", virtual ? "virtual" : "platform");
+        Map<String, Object> providers = new HashMap<>();
+        bulkheads.forEach((provider, bulkhead) -> providers.put(provider, bulkhead.getMetrics()));
+        metrics.put("providers", providers);
+        return metrics;
+    }
+
+    /**
+     * 是否使用虚拟线程
+     *
+     * @return 是否使用虚拟线程
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * 获取异步执行默认超时时间（秒）
+     *
+     * @return 超时时间
+     */
+    public int getDefaultTimeout() {
+        return properties.getDefaultTimeout();
+    }
+
+    /**
+     * 关闭执行器
+     */
+    @Override
+    public void close() {
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(properties.getDefaultTimeout(), TimeUnit.SECONDS)) {
+                executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executorService.shutdownNow();
+        }
+        if (defaultInstance == this) {
+            defaultInstance = null;
+        }
+    }
+
+    private static String normalize(String provider) {
+        return provider == null || provider.isEmpty() ? DEFAULT_PROVIDER : provider.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 通过反射创建虚拟线程执行器，兼容仍以Java 17为编译目标的构建
+     */
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.info("当前运行时不支持虚拟线程，回退到平台线程池");
+            return null;
+        }
+    }
+
+    private static ExecutorService createPlatformExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "agent-exec-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // 并发上限由各提供商舱壁控制，这里不再额外限制线程数
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+}
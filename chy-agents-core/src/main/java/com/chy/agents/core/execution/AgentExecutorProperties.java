@@ -0,0 +1,62 @@
+package com.chy.agents.core.execution;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 代理执行器配置
+ */
+@Data
+@ConfigurationProperties(prefix = "chy.agents.executor")
+public class AgentExecutorProperties {
+
+    /**
+     * 是否优先使用虚拟线程（运行时不支持时自动回退到平台线程池）
+     */
+    private boolean virtualThreads = true;
+
+    /**
+     * 每个提供商的默认最大并发数
+     */
+    private int maxConcurrentPerProvider = 32;
+
+    /**
+     * 每个提供商的默认最大等待队列长度
+     */
+    private int maxQueuePerProvider = 256;
+
+    /**
+     * 按提供商覆盖的最大并发数（key: 提供商名称，不区分大小写）
+     */
+    private Map<String, Integer> providerConcurrency = new HashMap<>();
+
+    /**
+     * 舱壁已满时的拒绝策略
+     */
+    private RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+
+    /**
+     * 异步执行默认超时时间（秒）
+     */
+    private int defaultTimeout = 30;
+
+    /**
+     * 获取指定提供商的最大并发数
+     *
+     * @param provider 提供商名称，不区分大小写
+     * @return 最大并发数
+     */
+    public int getMaxConcurrent(String provider) {
+        Integer override = null;
+        for (Map.Entry<String, Integer> entry : providerConcurrency.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(provider)) {
+                override = entry.getValue();
+                break;
+            }
+        }
+        return override != null && override > 0 ? override : maxConcurrentPerProvider;
+    }
+}
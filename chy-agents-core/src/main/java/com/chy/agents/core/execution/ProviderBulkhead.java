@@ -0,0 +1,258 @@
+package com.chy.agents.core.execution;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 单个提供商的并发舱壁
+ * 限制同一提供商同时在途的请求数，超出部分进入有界等待队列，不阻塞任何线程。
+ * 返回的Future在任务执行期间被取消或以超时等异常完成时，执行线程会被中断
+ */
+public class ProviderBulkhead {
+
+    private final String provider;
+    private final int maxConcurrent;
+    private final int maxQueue;
+
+    // 当前正在执行的任务数
+    private final AtomicInteger active = new AtomicInteger();
+
+    // 当前排队等待的任务数
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    // 排队最长等待时间（毫秒）
+    private volatile long maxQueueWaitMillis;
+
+    /**
+     * 构造函数
+     *
+     * @param provider 提供商名称
+     * @param maxConcurrent 最大并发数
+     * @param maxQueue 最大等待队列长度
+     */
+    public ProviderBulkhead(String provider, int maxConcurrent, int maxQueue) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive");
+        }
+        this.provider = provider;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = Math.max(0, maxQueue);
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param task 任务
+     * @param executor 实际执行任务的线程池
+     * @param policy 舱壁已满时的拒绝策略
+     * @return 异步结果
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task, Executor executor, RejectionPolicy policy) {
+        submitted.increment();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long enqueuedAt = System.currentTimeMillis();
+        Runnable work = () -> {
+            recordQueueWait(System.currentTimeMillis() - enqueuedAt);
+            if (future.isDone()) {
+                // 排队期间已被取消或超时
+                return;
+            }
+            Execution execution = new Execution(Thread.currentThread());
+            // 执行期间被取消或超时时中断执行线程，让阻塞的调用尽快结束并释放舱壁槽位
+            future.whenComplete((result, error) -> execution.interrupt());
+            T value;
+            try {
+                value = task.get();
+            } catch (Throwable e) {
+                execution.finish();
+                failed.increment();
+                future.completeExceptionally(e);
+                return;
+            }
+            // 先结束中断窗口再完成Future，回调不会在被中断的线程上执行
+            execution.finish();
+            completed.increment();
+            future.complete(value);
+        };
+
+        if (tryAcquire()) {
+            dispatch(work, executor, future);
+            return future;
+        }
+
+        if (queued.incrementAndGet() <= maxQueue) {
+            queue.offer(new Pending(work, future));
+            // 入队期间可能刚好有任务结束，主动尝试出队
+            drain(executor);
+            return future;
+        }
+        queued.decrementAndGet();
+        rejected.increment();
+
+        if (policy == RejectionPolicy.CALLER_RUNS) {
+            work.run();
+            return future;
+        }
+        future.completeExceptionally(new RejectedExecutionException(
+                String.format("Bulkhead for provider [%s] is full (active=%d, queued=%d)",
+                        provider, active.get(), queued.get())));
+        return future;
+    }
+
+    /**
+     * 获取当前执行中的任务数
+     *
+     * @return 执行中的任务数
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    /**
+     * 获取当前排队中的任务数
+     *
+     * @return 排队中的任务数
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * 获取最大并发数
+     *
+     * @return 最大并发数
+     */
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * 获取最大等待队列长度
+     *
+     * @return 最大等待队列长度
+     */
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+
+    /**
+     * 获取舱壁指标
+     *
+     * @return 指标映射
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("provider", provider);
+        metrics.put("active", active.get());
+        metrics.put("queued", queued.get());
+        metrics.put("maxConcurrent", maxConcurrent);
+        metrics.put("maxQueue", maxQueue);
+        metrics.put("submitted", submitted.sum());
+        metrics.put("completed", completed.sum());
+        metrics.put("failed", failed.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("maxQueueWaitMillis", maxQueueWaitMillis);
+        return metrics;
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = active.get();
+            if (current >= maxConcurrent) {
+                return false;
+            }
+            if (active.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void release(Executor executor) {
+        active.decrementAndGet();
+        drain(executor);
+    }
+
+    private void drain(Executor executor) {
+        while (!queue.isEmpty() && tryAcquire()) {
+            Pending next = queue.poll();
+            if (next == null) {
+                // 被其他线程抢先出队，归还许可后重新检查
+                active.decrementAndGet();
+                continue;
+            }
+            queued.decrementAndGet();
+            dispatch(next.work(), executor, next.future());
+        }
+    }
+
+    private void dispatch(Runnable work, Executor executor, CompletableFuture<?> future) {
+        try {
+            executor.execute(() -> {
+                try {
+                    work.run();
+                } finally {
+                    release(executor);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            active.decrementAndGet();
+            rejected.increment();
+            future.completeExceptionally(e);
+        }
+    }
+
+    private void recordQueueWait(long waitMillis) {
+        if (waitMillis > maxQueueWaitMillis) {
+            maxQueueWaitMillis = waitMillis;
+        }
+    }
+
+    /**
+     * 执行中的任务，只在任务运行期间允许中断其线程
+     */
+    private static final class Execution {
+
+        private Thread thread;
+        private boolean interrupted;
+
+        private Execution(Thread thread) {
+            this.thread = thread;
+        }
+
+        private synchronized void interrupt() {
+            if (thread != null) {
+                interrupted = true;
+                thread.interrupt();
+            }
+        }
+
+        private synchronized void finish() {
+            thread = null;
+            if (interrupted) {
+                // 清除本舱壁设置的中断标记，避免影响线程池中的下一个任务
+                Thread.interrupted();
+            }
+        }
+    }
+
+    /**
+     * 排队中的任务
+     */
+    private record Pending(Runnable work, CompletableFuture<?> future) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.chy.agents.core.execution;
+
+/**
+ * 舱壁拒绝策略
+ * 当某个提供商的并发数和等待队列都已满时如何处理新任务
+ */
+public enum RejectionPolicy {
+
+    /**
+     * 直接拒绝，返回以RejectedExecutionException失败的Future
+     */
+    ABORT,
+
+    /**
+     * 在调用线程中同步执行（不占用舱壁许可），用于将压力反馈给调用方
+     */
+    CALLER_RUNS
+}
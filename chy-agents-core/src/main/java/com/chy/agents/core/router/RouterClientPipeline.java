@@ -0,0 +1,229 @@
+package com.chy.agents.core.router;
+
+import com.chy.agents.core.chat.ChatClient;
+import com.chy.agents.core.chat.ChatClientDecorator;
+import com.chy.agents.core.chat.cache.ResponseCache;
+import com.chy.agents.core.chat.coalesce.RequestCoalescer;
+import com.chy.agents.core.router.adaptive.ProviderStatsRegistry;
+import com.chy.agents.core.router.ratelimit.RateLimiterRegistry;
+import com.chy.agents.core.router.resilience.ResilienceRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * 路由器客户端管线
+ * 各路由器共用的客户端装饰和提供商选择逻辑：为注册的客户端挂载统计、限流、弹性策略、扩展装饰器、
+ * 请求合并和响应缓存，并根据熔断、限流和实时健康度判断提供商是否可用、从候选中选出最佳提供商。
+ * 本身不保存客户端，客户端表由各路由器维护。
+ */
+@Component
+public class RouterClientPipeline {
+
+    // 提供商实时统计，启用自适应路由时参与选择
+    @Autowired(required = false)
+    private ProviderStatsRegistry statsRegistry;
+
+    // 熔断、重试和对冲策略
+    @Autowired(required = false)
+    private ResilienceRegistry resilienceRegistry;
+
+    // 提供商RPM/TPM限流
+    @Autowired(required = false)
+    private RateLimiterRegistry rateLimiterRegistry;
+
+    // 精确匹配响应缓存
+    @Autowired(required = false)
+    private ResponseCache responseCache;
+
+    // 相同并发请求合并
+    @Autowired(required = false)
+    private RequestCoalescer requestCoalescer;
+
+    // 其他模块提供的客户端装饰器（如语义缓存）
+    @Autowired(required = false)
+    private List<ChatClientDecorator> clientDecorators = List.of();
+
+    /**
+     * 为客户端挂载调用统计、限流、弹性策略、请求合并和响应缓存
+     * 统计在最内层记录每次实际调用（不含排队时间），限流在其外，每次重试都重新申请配额，
+     * 弹性策略负责熔断、重试和对冲，其外是扩展装饰器（如语义缓存），
+     * 请求合并让缓存未命中的并发相同请求共享一次下游调用（含语义缓存的向量化），
+     * 精确匹配响应缓存在最外层，命中时不经过任何下游环节
+     *
+     * @param provider 提供商名称
+     * @param client 原始客户端
+     * @param hedgeTarget 对冲请求的目标，应取自其他提供商的{@link Decorated#resilient()}
+     * @return 装饰后的客户端
+     */
+    public Decorated decorate(String provider, ChatClient client, Supplier<ChatClient> hedgeTarget) {
+        ChatClient decorated = statsRegistry != null ? statsRegistry.instrument(provider, client) : client;
+        if (rateLimiterRegistry != null) {
+            decorated = rateLimiterRegistry.decorate(provider, decorated);
+        }
+        if (resilienceRegistry != null) {
+            decorated = resilienceRegistry.decorate(provider, decorated, hedgeTarget);
+        }
+        ChatClient resilient = decorated;
+        for (ChatClientDecorator decorator : clientDecorators) {
+            decorated = decorator.decorate(provider, decorated);
+        }
+        if (requestCoalescer != null) {
+            decorated = requestCoalescer.decorate(decorated);
+        }
+        if (responseCache != null) {
+            decorated = responseCache.decorate(decorated);
+        }
+        return new Decorated(decorated, resilient);
+    }
+
+    /**
+     * 选择对冲目标：备选提供商中最佳者的弹性层客户端
+     * 对冲请求不再经过备选提供商的响应缓存、请求合并和语义缓存，也不会再次对冲
+     *
+     * @param resilientClients 各提供商的弹性层客户端
+     * @param provider 发起对冲的提供商
+     * @param priorities 静态优先级
+     * @return 对冲目标，没有其他提供商时返回null
+     */
+    public ChatClient hedgeTarget(Map<String, ChatClient> resilientClients, String provider,
+                                  Map<String, Integer> priorities) {
+        return selectAvailable(resilientClients.keySet(), provider, priorities)
+                .map(resilientClients::get)
+                .orElse(null);
+    }
+
+    /**
+     * 清除提供商的统计、熔断和限流状态
+     *
+     * @param provider 提供商名称
+     */
+    public void remove(String provider) {
+        if (statsRegistry != null) {
+            statsRegistry.remove(provider);
+        }
+        if (resilienceRegistry != null) {
+            resilienceRegistry.remove(provider);
+        }
+        if (rateLimiterRegistry != null) {
+            rateLimiterRegistry.remove(provider);
+        }
+    }
+
+    /**
+     * 是否启用自适应路由
+     */
+    public boolean isAdaptive() {
+        return statsRegistry != null && statsRegistry.isEnabled();
+    }
+
+    /**
+     * 自适应模式下提供商是否已降级
+     *
+     * @param provider 提供商名称
+     * @param providers 全部提供商
+     * @return 是否已降级
+     */
+    public boolean isDegraded(String provider, Collection<String> providers) {
+        return isAdaptive() && statsRegistry.isDegraded(provider, providers);
+    }
+
+    /**
+     * 提供商是否可以立即接收请求：熔断器允许调用且限流器没有排队
+     *
+     * @param provider 提供商名称
+     * @return 是否可用
+     */
+    public boolean isAvailable(String provider) {
+        return (resilienceRegistry == null || resilienceRegistry.isAvailable(provider))
+                && (rateLimiterRegistry == null || !rateLimiterRegistry.isSaturated(provider));
+    }
+
+    /**
+     * 获取可接收流量的候选提供商，所有候选都已熔断或限流时返回全部候选
+     *
+     * @param providers 全部提供商
+     * @param excluded 排除的提供商，可为null
+     * @return 候选提供商
+     */
+    public List<String> availableProviders(Collection<String> providers, String excluded) {
+        List<String> candidates = providers.stream()
+                .filter(key -> !key.equals(excluded))
+                .toList();
+        List<String> available = candidates.stream()
+                .filter(this::isAvailable)
+                .toList();
+        return available.isEmpty() ? candidates : available;
+    }
+
+    /**
+     * 从候选中选出最佳提供商：自适应模式按健康度加权，否则按静态优先级
+     *
+     * @param candidates 候选提供商
+     * @param priorities 静态优先级（数值越大优先级越高）
+     * @return 最佳提供商
+     */
+    public Optional<String> selectFrom(List<String> candidates, Map<String, Integer> priorities) {
+        if (isAdaptive()) {
+            return statsRegistry.selectBest(candidates, priorities);
+        }
+        return candidates.stream()
+                .max(Comparator.comparingInt(key -> priorities.getOrDefault(key, 0)));
+    }
+
+    /**
+     * 从可接收流量的候选中选出最佳提供商
+     *
+     * @param providers 全部提供商
+     * @param excluded 排除的提供商，可为null
+     * @param priorities 静态优先级（数值越大优先级越高）
+     * @return 最佳提供商
+     */
+    public Optional<String> selectAvailable(Collection<String> providers, String excluded,
+                                            Map<String, Integer> priorities) {
+        return selectFrom(availableProviders(providers, excluded), priorities);
+    }
+
+    /**
+     * 获取各提供商的实时统计
+     */
+    public Map<String, Map<String, Object>> getProviderStats() {
+        return statsRegistry != null ? statsRegistry.snapshot() : Map.of();
+    }
+
+    /**
+     * 获取各提供商的熔断器状态
+     */
+    public Map<String, ?> getCircuitStates() {
+        return resilienceRegistry != null ? resilienceRegistry.getStates() : Map.of();
+    }
+
+    /**
+     * 获取各提供商的限流状态
+     */
+    public Map<String, Map<String, Object>> getRateLimitMetrics() {
+        return rateLimiterRegistry != null ? rateLimiterRegistry.getMetrics() : Map.of();
+    }
+
+    /**
+     * 获取请求合并统计
+     */
+    public Map<String, Object> getCoalescingMetrics() {
+        return requestCoalescer != null ? requestCoalescer.getMetrics() : Map.of();
+    }
+
+    /**
+     * 装饰结果
+     *
+     * @param client 完整装饰的客户端，供路由选择返回给调用方
+     * @param resilient 统计、限流和弹性层客户端，不含缓存和请求合并，供其他提供商对冲使用
+     */
+    public record Decorated(ChatClient client, ChatClient resilient) {
+    }
+}
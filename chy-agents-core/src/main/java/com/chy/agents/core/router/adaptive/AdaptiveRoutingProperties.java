@@ -0,0 +1,42 @@
+package com.chy.agents.core.router.adaptive;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 自适应路由配置
+ */
+@Data
+@ConfigurationProperties(prefix = "chy.agents.router.adaptive")
+public class AdaptiveRoutingProperties {
+
+    /**
+     * 是否启用自适应路由（关闭时统计仍会采集，但不参与选择）
+     */
+    private boolean enabled = false;
+
+    /**
+     * EWMA平滑系数（0-1，越大越敏感）
+     */
+    private double ewmaAlpha = 0.3;
+
+    /**
+     * 延迟分位数统计窗口（最近样本数）
+     */
+    private int windowSize = 256;
+
+    /**
+     * 错误率阈值，超过时视为降级
+     */
+    private double errorRateThreshold = 0.5;
+
+    /**
+     * 延迟降级倍数，EWMA延迟超过最快提供商的该倍数时视为降级
+     */
+    private double latencyDegradationFactor = 3.0;
+
+    /**
+     * 统计衰减半衰期（毫秒），长时间无流量的提供商会逐步恢复，以便重新探测
+     */
+    private long recoveryHalfLifeMillis = 10_000;
+}
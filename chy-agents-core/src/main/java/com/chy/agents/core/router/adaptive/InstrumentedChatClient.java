@@ -0,0 +1,125 @@
+package com.chy.agents.core.router.adaptive;
+
+import com.chy.agents.core.chat.ChatClient;
+import com.chy.agents.core.chat.message.Message;
+import com.chy.agents.core.chat.message.MessageDelta;
+import com.chy.agents.core.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 带统计的聊天客户端
+ * 装饰原始客户端，将每次调用的耗时、首字延迟和成败写入提供商统计。
+ * 流式调用只把首字延迟作为延迟样本，总时长单独记录，避免长输出拉高提供商的延迟统计
+ */
+public class InstrumentedChatClient implements ChatClient {
+
+    private final ChatClient delegate;
+    private final ProviderStats stats;
+
+    public InstrumentedChatClient(ChatClient delegate, ProviderStats stats) {
+        this.delegate = delegate;
+        this.stats = stats;
+    }
+
+    @Override
+    public Message call(Prompt prompt) {
+        long start = System.nanoTime();
+        try {
+            Message message = delegate.call(prompt);
+            stats.recordCall(elapsedMillis(start), true);
+            return message;
+        } catch (RuntimeException e) {
+            stats.recordCall(elapsedMillis(start), false);
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Message> callAsync(Prompt prompt) {
+        long start = System.nanoTime();
+        CompletableFuture<Message> call = delegate.callAsync(prompt);
+        CompletableFuture<Message> result = call.whenComplete((message, error) -> {
+            // 调用方主动取消（如对冲落败）不代表提供商故障
+            if (!(error instanceof CancellationException)) {
+                stats.recordCall(elapsedMillis(start), error == null);
+            }
+        });
+        // 返回的Future被取消或超时时传递给下游调用，使舱壁能够中断执行线程
+        result.whenComplete((message, error) -> {
+            if (error != null && !call.isDone()) {
+                call.completeExceptionally(error);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public List<Message> stream(Prompt prompt) {
+        long start = System.nanoTime();
+        try {
+            List<Message> messages = delegate.stream(prompt);
+            stats.recordStream(elapsedMillis(start), true);
+            return messages;
+        } catch (RuntimeException e) {
+            stats.recordStream(elapsedMillis(start), false);
+            throw e;
+        }
+    }
+
+    @Override
+    public Flux<MessageDelta> streamDeltas(Prompt prompt) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean firstToken = new AtomicBoolean();
+            return delegate.streamDeltas(prompt)
+                    .doOnNext(delta -> {
+                        if (!delta.isFinished() && firstToken.compareAndSet(false, true)) {
+                            stats.recordFirstToken(elapsedMillis(start));
+                        }
+                    })
+                    .doFinally(signal -> {
+                        switch (signal) {
+                            case ON_COMPLETE -> stats.recordStream(elapsedMillis(start), true);
+                            case ON_ERROR -> stats.recordStream(elapsedMillis(start), false);
+                            case CANCEL -> stats.recordCancelledStream();
+                            default -> {
+                            }
+                        }
+                    });
+        });
+    }
+
+    @Override
+    public Map<String, Object> getConfig() {
+        return delegate.getConfig();
+    }
+
+    @Override
+    public String getProvider() {
+        return delegate.getProvider();
+    }
+
+    @Override
+    public String getModel() {
+        return delegate.getModel();
+    }
+
+    /**
+     * 获取被装饰的原始客户端
+     *
+     * @return 原始客户端
+     */
+    public ChatClient getDelegate() {
+        return delegate;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
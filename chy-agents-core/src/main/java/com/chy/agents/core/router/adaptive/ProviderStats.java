@@ -0,0 +1,220 @@
+package com.chy.agents.core.router.adaptive;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 单个提供商的实时调用统计
+ * 维护EWMA延迟、EWMA首字延迟、EWMA错误率以及最近窗口内的延迟分位数。
+ * 流式调用的总时长取决于输出长度，单独记录，不进入延迟EWMA和分位数窗口
+ */
+public class ProviderStats {
+
+    private final String provider;
+    private final double alpha;
+    private final long[] window;
+
+    private double ewmaLatency = -1;
+    private double ewmaFirstToken = -1;
+    private double ewmaStreamDuration = -1;
+    private double ewmaErrorRate;
+
+    private long totalCalls;
+    private long totalErrors;
+    private long cancelledStreams;
+    private int consecutiveErrors;
+    private long lastUpdated;
+
+    private int windowPos;
+    private int windowCount;
+
+    // 排序后的窗口快照，按需重建
+    private long[] sorted = new long[0];
+    private boolean dirty;
+
+    /**
+     * 构造函数
+     *
+     * @param provider 提供商名称
+     * @param alpha EWMA平滑系数
+     * @param windowSize 分位数窗口大小
+     */
+    public ProviderStats(String provider, double alpha, int windowSize) {
+        this.provider = provider;
+        this.alpha = alpha;
+        this.window = new long[Math.max(1, windowSize)];
+    }
+
+    /**
+     * 记录一次调用结果
+     *
+     * @param latencyMillis 总耗时（毫秒）
+     * @param success 是否成功
+     */
+    public synchronized void recordCall(long latencyMillis, boolean success) {
+        totalCalls++;
+        lastUpdated = System.currentTimeMillis();
+
+        if (success) {
+            consecutiveErrors = 0;
+            ewmaLatency = ewmaLatency < 0 ? latencyMillis : ewma(ewmaLatency, latencyMillis);
+            window[windowPos] = latencyMillis;
+            windowPos = (windowPos + 1) % window.length;
+            windowCount = Math.min(windowCount + 1, window.length);
+            dirty = true;
+        } else {
+            totalErrors++;
+            consecutiveErrors++;
+        }
+        ewmaErrorRate = ewma(ewmaErrorRate, success ? 0.0 : 1.0);
+    }
+
+    /**
+     * 记录一次结束的流式调用
+     * 计入错误率，总时长只进入流时长EWMA
+     *
+     * @param durationMillis 流总时长（毫秒）
+     * @param success 是否成功
+     */
+    public synchronized void recordStream(long durationMillis, boolean success) {
+        totalCalls++;
+        lastUpdated = System.currentTimeMillis();
+
+        if (success) {
+            consecutiveErrors = 0;
+            ewmaStreamDuration = ewmaStreamDuration < 0 ? durationMillis : ewma(ewmaStreamDuration, durationMillis);
+        } else {
+            totalErrors++;
+            consecutiveErrors++;
+        }
+        ewmaErrorRate = ewma(ewmaErrorRate, success ? 0.0 : 1.0);
+    }
+
+    /**
+     * 记录一次被调用方取消的流式调用
+     * 取消不代表提供商故障，只计数，不影响错误率和延迟
+     */
+    public synchronized void recordCancelledStream() {
+        cancelledStreams++;
+        lastUpdated = System.currentTimeMillis();
+    }
+
+    /**
+     * 记录一次首字延迟
+     *
+     * @param firstTokenMillis 首字延迟（毫秒）
+     */
+    public synchronized void recordFirstToken(long firstTokenMillis) {
+        ewmaFirstToken = ewmaFirstToken < 0 ? firstTokenMillis : ewma(ewmaFirstToken, firstTokenMillis);
+    }
+
+    /**
+     * 获取EWMA延迟（毫秒），无样本时返回-1
+     *
+     * @return EWMA延迟
+     */
+    public synchronized double getEwmaLatency() {
+        return ewmaLatency;
+    }
+
+    /**
+     * 获取EWMA首字延迟（毫秒），无样本时返回-1
+     *
+     * @return EWMA首字延迟
+     */
+    public synchronized double getEwmaFirstToken() {
+        return ewmaFirstToken;
+    }
+
+    /**
+     * 获取EWMA流总时长（毫秒），无样本时返回-1
+     *
+     * @return EWMA流总时长
+     */
+    public synchronized double getEwmaStreamDuration() {
+        return ewmaStreamDuration;
+    }
+
+    /**
+     * 获取按时间衰减后的错误率
+     * 长时间没有新样本时错误率按半衰期衰减，使降级的提供商能够重新获得探测流量
+     *
+     * @param halfLifeMillis 半衰期（毫秒）
+     * @return 错误率（0-1）
+     */
+    public synchronized double getErrorRate(long halfLifeMillis) {
+        return ewmaErrorRate * freshness(halfLifeMillis);
+    }
+
+    /**
+     * 获取统计的新鲜度
+     * 最近刚更新时为1，随空闲时间按半衰期衰减到0；无样本时为0
+     *
+     * @param halfLifeMillis 半衰期（毫秒）
+     * @return 新鲜度（0-1）
+     */
+    public synchronized double freshness(long halfLifeMillis) {
+        if (totalCalls == 0) {
+            return 0.0;
+        }
+        if (halfLifeMillis <= 0) {
+            return 1.0;
+        }
+        long age = System.currentTimeMillis() - lastUpdated;
+        return Math.pow(0.5, (double) Math.max(0, age) / halfLifeMillis);
+    }
+
+    /**
+     * 获取最近窗口内的延迟分位数（毫秒），无样本时返回-1
+     *
+     * @param quantile 分位数（0-1）
+     * @return 延迟分位数
+     */
+    public synchronized long getLatencyPercentile(double quantile) {
+        if (windowCount == 0) {
+            return -1;
+        }
+        if (dirty) {
+            sorted = Arrays.copyOf(window, windowCount);
+            Arrays.sort(sorted);
+            dirty = false;
+        }
+        int idx = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(idx, sorted.length - 1))];
+    }
+
+    /**
+     * 获取连续失败次数
+     *
+     * @return 连续失败次数
+     */
+    public synchronized int getConsecutiveErrors() {
+        return consecutiveErrors;
+    }
+
+    /**
+     * 获取统计快照
+     *
+     * @param halfLifeMillis 错误率衰减半衰期（毫秒）
+     * @return 统计映射
+     */
+    public synchronized Map<String, Object> snapshot(long halfLifeMillis) {
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("provider", provider);
+        snapshot.put("ewmaLatencyMillis", ewmaLatency);
+        snapshot.put("ewmaFirstTokenMillis", ewmaFirstToken);
+        snapshot.put("ewmaStreamDurationMillis", ewmaStreamDuration);
+        snapshot.put("p99LatencyMillis", getLatencyPercentile(0.99));
+        snapshot.put("errorRate", getErrorRate(halfLifeMillis));
+        snapshot.put("totalCalls", totalCalls);
+        snapshot.put("totalErrors", totalErrors);
+        snapshot.put("cancelledStreams", cancelledStreams);
+        snapshot.put("consecutiveErrors", consecutiveErrors);
+        return snapshot;
+    }
+
+    private double ewma(double current, double sample) {
+        return alpha * sample + (1 - alpha) * current;
+    }
+}
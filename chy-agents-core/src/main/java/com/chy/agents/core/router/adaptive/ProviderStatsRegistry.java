@@ -0,0 +1,186 @@
+package com.chy.agents.core.router.adaptive;
+
+import com.chy.agents.core.chat.ChatClient;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 提供商统计注册表
+ * 汇总各提供商的实时调用统计，并据此计算健康度，供路由器选择和降级回退使用
+ */
+public class ProviderStatsRegistry {
+
+    /**
+     * 参与健康度计算的尾延迟分位数
+     */
+    private static final double TAIL_QUANTILE = 0.99;
+
+    private final AdaptiveRoutingProperties properties;
+    private final Map<String, ProviderStats> statsMap = new ConcurrentHashMap<>();
+
+    public ProviderStatsRegistry(AdaptiveRoutingProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 是否启用自适应路由
+     *
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 获取提供商统计，不存在时创建
+     *
+     * @param provider 提供商名称
+     * @return 提供商统计
+     */
+    public ProviderStats getStats(String provider) {
+        return statsMap.computeIfAbsent(provider,
+                key -> new ProviderStats(key, properties.getEwmaAlpha(), properties.getWindowSize()));
+    }
+
+    /**
+     * 包装客户端，使其调用结果写入该提供商的统计
+     *
+     * @param provider 提供商名称
+     * @param client 原始客户端
+     * @return 带统计的客户端
+     */
+    public ChatClient instrument(String provider, ChatClient client) {
+        if (client instanceof InstrumentedChatClient) {
+            return client;
+        }
+        return new InstrumentedChatClient(client, getStats(provider));
+    }
+
+    /**
+     * 计算提供商的健康度
+     * 健康度 = (1 - 错误率) × 延迟因子 × 首字因子。
+     * 延迟因子取EWMA延迟与P99延迟两个比值的几何平均，每个比值为候选中的最优值与本提供商之比；
+     * 首字因子为候选中最快EWMA首字延迟与本提供商之比。
+     * 统计随空闲时间衰减回中性值，无样本的提供商健康度为1。
+     *
+     * @param provider 提供商名称
+     * @param candidates 参与比较的候选提供商
+     * @return 健康度（0-1）
+     */
+    public double healthScore(String provider, Collection<String> candidates) {
+        ProviderStats stats = statsMap.get(provider);
+        if (stats == null) {
+            return 1.0;
+        }
+        long halfLife = properties.getRecoveryHalfLifeMillis();
+        double errorRate = stats.getErrorRate(halfLife);
+        double latency = Math.sqrt(relativeFactor(stats, candidates, halfLife, ProviderStats::getEwmaLatency)
+                * relativeFactor(stats, candidates, halfLife, ProviderStatsRegistry::tailLatency));
+        return (1.0 - errorRate) * latency
+                * relativeFactor(stats, candidates, halfLife, ProviderStats::getEwmaFirstToken);
+    }
+
+    /**
+     * 判断提供商是否处于降级状态
+     * 错误率超过阈值，或EWMA延迟、P99延迟、首字延迟任一超过候选最优值的降级倍数时视为降级
+     *
+     * @param provider 提供商名称
+     * @param candidates 参与比较的候选提供商
+     * @return 是否降级
+     */
+    public boolean isDegraded(String provider, Collection<String> candidates) {
+        ProviderStats stats = statsMap.get(provider);
+        if (stats == null) {
+            return false;
+        }
+        long halfLife = properties.getRecoveryHalfLifeMillis();
+        if (stats.getErrorRate(halfLife) > properties.getErrorRateThreshold()) {
+            return true;
+        }
+        double factor = properties.getLatencyDegradationFactor();
+        if (factor <= 0) {
+            return false;
+        }
+        double threshold = 1.0 / factor;
+        return relativeFactor(stats, candidates, halfLife, ProviderStats::getEwmaLatency) < threshold
+                || relativeFactor(stats, candidates, halfLife, ProviderStatsRegistry::tailLatency) < threshold
+                || relativeFactor(stats, candidates, halfLife, ProviderStats::getEwmaFirstToken) < threshold;
+    }
+
+    /**
+     * 按健康度和静态优先级选出最佳提供商
+     * 综合得分 = 健康度 × (1 + 0.5 × 优先级 / 最大优先级)
+     *
+     * @param candidates 候选提供商
+     * @param priorityMap 静态优先级
+     * @return 最佳提供商
+     */
+    public Optional<String> selectBest(Collection<String> candidates, Map<String, Integer> priorityMap) {
+        int maxPriority = candidates.stream()
+                .mapToInt(provider -> priorityMap.getOrDefault(provider, 0))
+                .max()
+                .orElse(0);
+
+        return candidates.stream()
+                .max(Comparator.comparingDouble(provider -> {
+                    double priorityFactor = maxPriority > 0
+                            ? 1.0 + 0.5 * priorityMap.getOrDefault(provider, 0) / maxPriority
+                            : 1.0;
+                    return healthScore(provider, candidates) * priorityFactor;
+                }));
+    }
+
+    /**
+     * 获取所有提供商的统计快照
+     *
+     * @return 提供商到统计的映射
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> snapshot = new ConcurrentHashMap<>();
+        statsMap.forEach((provider, stats) ->
+                snapshot.put(provider, stats.snapshot(properties.getRecoveryHalfLifeMillis())));
+        return snapshot;
+    }
+
+    /**
+     * 移除提供商统计
+     *
+     * @param provider 提供商名称
+     */
+    public void remove(String provider) {
+        statsMap.remove(provider);
+    }
+
+    /**
+     * 计算某项延迟指标的相对因子：候选中的最优值与本提供商之比，空闲越久越接近1
+     */
+    private double relativeFactor(ProviderStats stats, Collection<String> candidates, long halfLife,
+                                  ToDoubleFunction<ProviderStats> metric) {
+        double own = metric.applyAsDouble(stats);
+        if (own <= 0) {
+            return 1.0;
+        }
+        double best = candidates.stream()
+                .map(statsMap::get)
+                .filter(Objects::nonNull)
+                .mapToDouble(metric)
+                .filter(value -> value > 0)
+                .min()
+                .orElse(-1);
+        if (best <= 0) {
+            return 1.0;
+        }
+        double raw = Math.min(1.0, best / own);
+        return 1.0 - (1.0 - raw) * stats.freshness(halfLife);
+    }
+
+    private static double tailLatency(ProviderStats stats) {
+        return stats.getLatencyPercentile(TAIL_QUANTILE);
+    }
+}
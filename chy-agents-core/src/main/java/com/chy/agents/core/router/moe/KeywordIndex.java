@@ -0,0 +1,249 @@
+package com.chy.agents.core.router.moe;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 预编译的专长关键词倒排索引
+ * 专长配置变化时编译一次，保存 词元 → 专长短语 的倒排表、短语词元数、短语子串自动机和提供商优先级因子，
+ * 请求时遍历一次输入词元计算Jaccard相似度，再扫描一次输入找出完整出现的短语，即可完成所有提供商的打分。
+ * 打分结果与逐个调用{@link SimpleKeywordMoeStrategy#calculateMatchScore(String, String)}一致。
+ * 实例不可变，可在多线程间共享。
+ */
+final class KeywordIndex {
+
+    /**
+     * 完整短语命中的额外加分
+     */
+    private static final double PHRASE_BONUS = 0.3;
+
+    private static final int[] NO_POSTINGS = new int[0];
+
+    // 编译来源，用于判断索引是否过期
+    private final Map<String, List<String>> source;
+
+    private final String[] providers;
+    private final double[] priorityFactors;
+
+    // 按短语编号存储的信息
+    private final int[] phraseProvider;
+    private final String[] phraseText;
+    private final int[] phraseSize;
+
+    // 词元 → 包含该词元的短语编号
+    private final Map<String, int[]> postings;
+
+    // 短语子串匹配，中文等无空格文本只能通过它命中
+    private final PhraseMatcher phraseMatcher;
+
+    private KeywordIndex(Map<String, List<String>> source, String[] providers, double[] priorityFactors,
+                         int[] phraseProvider, String[] phraseText, int[] phraseSize,
+                         Map<String, int[]> postings, PhraseMatcher phraseMatcher) {
+        this.source = source;
+        this.providers = providers;
+        this.priorityFactors = priorityFactors;
+        this.phraseProvider = phraseProvider;
+        this.phraseText = phraseText;
+        this.phraseSize = phraseSize;
+        this.postings = postings;
+        this.phraseMatcher = phraseMatcher;
+    }
+
+    /**
+     * 编译专长配置
+     *
+     * @param expertiseMap 专家领域配置映射
+     * @param priorities 提供商优先级
+     * @return 倒排索引
+     */
+    static KeywordIndex compile(Map<String, List<String>> expertiseMap, Map<String, Integer> priorities) {
+        int maxPriority = priorities.values().stream()
+                .max(Integer::compare)
+                .orElse(100);
+
+        String[] providers = expertiseMap.keySet().toArray(new String[0]);
+        double[] priorityFactors = new double[providers.length];
+
+        List<Integer> phraseProviderList = new ArrayList<>();
+        List<String> phraseTextList = new ArrayList<>();
+        List<Integer> phraseSizeList = new ArrayList<>();
+        Map<String, List<Integer>> postingLists = new HashMap<>();
+
+        for (int p = 0; p < providers.length; p++) {
+            int priority = priorities.getOrDefault(providers[p], 0);
+            // 优先级因子：1.0 + 归一化的优先级加成（最高0.5）
+            priorityFactors[p] = maxPriority > 0 ? 1.0 + (0.5 * priority / maxPriority) : 1.0;
+
+            List<String> expertises = expertiseMap.get(providers[p]);
+            if (expertises == null) {
+                continue;
+            }
+            for (String expertise : expertises) {
+                if (expertise == null) {
+                    continue;
+                }
+                int phraseId = phraseTextList.size();
+                String normalized = normalize(expertise);
+                Set<String> tokens = tokenize(normalized);
+
+                phraseProviderList.add(p);
+                phraseTextList.add(normalized);
+                phraseSizeList.add(tokens.size());
+
+                for (String token : tokens) {
+                    postingLists.computeIfAbsent(token, key -> new ArrayList<>()).add(phraseId);
+                }
+            }
+        }
+
+        Map<String, int[]> postings = new HashMap<>(postingLists.size() * 2);
+        postingLists.forEach((token, ids) -> postings.put(token, toArray(ids)));
+
+        String[] phraseText = phraseTextList.toArray(new String[0]);
+        return new KeywordIndex(expertiseMap, providers, priorityFactors,
+                toArray(phraseProviderList), phraseText, toArray(phraseSizeList),
+                postings, PhraseMatcher.compile(phraseText));
+    }
+
+    /**
+     * 判断索引是否由指定的配置编译而来
+     *
+     * @param expertiseMap 专家领域配置映射
+     * @return 是否匹配
+     */
+    boolean isCompiledFrom(Map<String, List<String>> expertiseMap) {
+        return source == expertiseMap;
+    }
+
+    /**
+     * 选出得分最高的提供商
+     * 每个提供商的得分为其所有专长短语的最大匹配度乘以优先级因子
+     *
+     * @param input 用户输入内容
+     * @return 最佳提供商，没有任何匹配时返回null
+     */
+    String selectBest(String input) {
+        String normalizedInput = normalize(input);
+        Set<String> inputTokens = tokenize(normalizedInput);
+
+        // 单次遍历输入词元，累计每个短语的交集大小
+        int[] hits = new int[phraseText.length];
+        List<Integer> touched = new ArrayList<>();
+        for (String token : inputTokens) {
+            for (int phraseId : postings.getOrDefault(token, NO_POSTINGS)) {
+                if (hits[phraseId]++ == 0) {
+                    touched.add(phraseId);
+                }
+            }
+        }
+
+        // 单次扫描输入，标记作为子串完整出现的短语，不要求与输入共享词元
+        boolean[] contained = new boolean[phraseText.length];
+        phraseMatcher.forEachMatch(normalizedInput, phraseId -> {
+            if (!contained[phraseId]) {
+                contained[phraseId] = true;
+                if (hits[phraseId] == 0) {
+                    touched.add(phraseId);
+                }
+            }
+        });
+
+        double[] providerScores = new double[providers.length];
+        for (int phraseId : touched) {
+            int intersection = hits[phraseId];
+            int union = inputTokens.size() + phraseSize[phraseId] - intersection;
+            double jaccard = union > 0 ? (double) intersection / union : 0.0;
+            updateScore(providerScores, phraseId, jaccard + (contained[phraseId] ? PHRASE_BONUS : 0.0));
+        }
+
+        String best = null;
+        double bestScore = 0.0;
+        for (int p = 0; p < providers.length; p++) {
+            double finalScore = providerScores[p] * priorityFactors[p];
+            if (finalScore > bestScore) {
+                bestScore = finalScore;
+                best = providers[p];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 规范化文本（小写化、标点替换为空格、合并空白）
+     * 单次遍历完成，等价于两次正则替换
+     *
+     * @param text 输入文本
+     * @return 规范化后的文本
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase();
+        StringBuilder builder = new StringBuilder(lower.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (isSeparator(c)) {
+                pendingSpace = builder.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    builder.append(' ');
+                    pendingSpace = false;
+                }
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 将规范化文本分割为词元集合，过滤掉单字符词
+     *
+     * @param normalized 规范化后的文本
+     * @return 词元集合
+     */
+    static Set<String> tokenize(String normalized) {
+        if (normalized.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> tokens = new HashSet<>();
+        int start = 0;
+        for (int i = 0; i <= normalized.length(); i++) {
+            if (i == normalized.length() || normalized.charAt(i) == ' ') {
+                if (i - start > 1) {
+                    tokens.add(normalized.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return tokens;
+    }
+
+    private void updateScore(double[] providerScores, int phraseId, double score) {
+        int p = phraseProvider[phraseId];
+        providerScores[p] = Math.max(providerScores[p], Math.min(1.0, score));
+    }
+
+    /**
+     * ASCII标点和空白视为分隔符
+     */
+    private static boolean isSeparator(char c) {
+        if (c < 128) {
+            return Character.isWhitespace(c) || (c > ' ' && !Character.isLetterOrDigit(c));
+        }
+        return false;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+}
@@ -3,6 +3,7 @@ package com.chy.agents.core.router.moe;
 import com.chy.agents.core.agent.Agent;
 import com.chy.agents.core.chat.ChatClient;
 import com.chy.agents.core.router.ModelRouter;
+import com.chy.agents.core.router.RouterClientPipeline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,8 +27,11 @@ public class MoeModelRouter implements ModelRouter {
     // 存储所有可用的模型客户端
     private final Map<String, ChatClient> clientMap = new ConcurrentHashMap<>();
     
-    // 存储模型的专长领域配置
-    private final Map<String, List<String>> expertiseMap = new HashMap<>();
+    // 各提供商的弹性层客户端（不含缓存和请求合并），对冲请求发往这里
+    private final Map<String, ChatClient> resilientClients = new ConcurrentHashMap<>();
+    
+    // 存储模型的专长领域配置（写时复制的不可变快照，路由策略据此缓存编译结果）
+    private volatile Map<String, List<String>> expertiseMap = Map.of();
     
     // 存储模型的优先级
     private final Map<String, Integer> priorityMap = new HashMap<>();
@@ -35,6 +39,10 @@ public class MoeModelRouter implements ModelRouter {
     @Autowired
     private MoeRoutingStrategy routingStrategy;
     
+    // 客户端装饰、可用性判断和候选选择
+    @Autowired
+    private RouterClientPipeline clientPipeline;
+    
     /**
      * 根据提供商名称选择对应的ChatClient
      *
@@ -48,6 +56,10 @@ public class MoeModelRouter implements ModelRouter {
             logger.warn("未找到提供商 [{}] 的模型客户端，将使用默认模型", provider);
             return getDefaultClient();
         }
+        if (!clientPipeline.isAvailable(provider)) {
+            logger.warn("提供商 [{}] 熔断或限流排队中，切换到备选模型", provider);
+            return fallbackClient(provider);
+        }
         return client;
     }
     
@@ -61,6 +73,12 @@ public class MoeModelRouter implements ModelRouter {
     public ChatClient selectClientByInput(String input) {
         // 通过MoE路由策略选择最合适的模型
         String bestProvider = routingStrategy.selectBestExpert(input, expertiseMap);
+        
+        // 自适应模式下，专家已降级时切换到健康的备选模型
+        if (clientPipeline.isDegraded(bestProvider, clientMap.keySet())) {
+            logger.warn("提供商 [{}] 已降级，切换到备选模型", bestProvider);
+            return fallbackClient(bestProvider);
+        }
         return selectClient(bestProvider);
     }
     
@@ -72,13 +90,9 @@ public class MoeModelRouter implements ModelRouter {
      */
     @Override
     public ChatClient fallbackClient(String provider) {
-        // 根据优先级选择备选模型
-        return clientMap.entrySet().stream()
-                .filter(entry -> !entry.getKey().equals(provider))
-                .sorted((e1, e2) -> priorityMap.getOrDefault(e2.getKey(), 0)
-                        .compareTo(priorityMap.getOrDefault(e1.getKey(), 0)))
-                .map(Map.Entry::getValue)
-                .findFirst()
+        // 跳过熔断或限流排队中的提供商，按实时健康度（自适应模式）或优先级选择备选模型
+        return clientPipeline.selectAvailable(clientMap.keySet(), provider, priorityMap)
+                .map(clientMap::get)
                 .orElseGet(this::getDefaultClient);
     }
     
@@ -130,7 +144,10 @@ public class MoeModelRouter implements ModelRouter {
      */
     @Override
     public void registerClient(String provider, ChatClient client) {
-        clientMap.put(provider, client);
+        RouterClientPipeline.Decorated decorated = clientPipeline.decorate(provider, client,
+                () -> clientPipeline.hedgeTarget(resilientClients, provider, priorityMap));
+        resilientClients.put(provider, decorated.resilient());
+        clientMap.put(provider, decorated.client());
         logger.info("已注册提供商 [{}] 的模型客户端", provider);
     }
     
@@ -142,6 +159,8 @@ public class MoeModelRouter implements ModelRouter {
     @Override
     public void removeClient(String provider) {
         clientMap.remove(provider);
+        resilientClients.remove(provider);
+        clientPipeline.remove(provider);
         logger.info("已移除提供商 [{}] 的模型客户端", provider);
     }
     
@@ -151,8 +170,10 @@ public class MoeModelRouter implements ModelRouter {
      * @param provider 提供商名称
      * @param expertises 专长领域列表
      */
-    public void setExpertise(String provider, List<String> expertises) {
-        expertiseMap.put(provider, expertises);
+    public synchronized void setExpertise(String provider, List<String> expertises) {
+        Map<String, List<String>> updated = new HashMap<>(expertiseMap);
+        updated.put(provider, List.copyOf(expertises));
+        expertiseMap = Map.copyOf(updated);
     }
     
     /**
@@ -165,18 +186,46 @@ public class MoeModelRouter implements ModelRouter {
         priorityMap.put(provider, priority);
     }
     
+    /**
+     * 获取各提供商的实时统计
+     * 
+     * @return 提供商到统计的映射
+     */
+    public Map<String, Map<String, Object>> getProviderStats() {
+        return clientPipeline.getProviderStats();
+    }
+    
+    /**
+     * 获取各提供商的熔断器状态
+     */
+    public Map<String, ?> getCircuitStates() {
+        return clientPipeline.getCircuitStates();
+    }
+    
+    /**
+     * 获取各提供商的限流状态
+     */
+    public Map<String, Map<String, Object>> getRateLimitMetrics() {
+        return clientPipeline.getRateLimitMetrics();
+    }
+    
+    /**
+     * 获取请求合并统计
+     */
+    public Map<String, Object> getCoalescingMetrics() {
+        return clientPipeline.getCoalescingMetrics();
+    }
+    
     /**
      * 获取默认的模型客户端
      * 
      * @return 默认的ChatClient实例
      */
     private ChatClient getDefaultClient() {
-        // 返回优先级最高的客户端
-        return clientMap.entrySet().stream()
-                .sorted((e1, e2) -> priorityMap.getOrDefault(e2.getKey(), 0)
-                        .compareTo(priorityMap.getOrDefault(e1.getKey(), 0)))
-                .map(Map.Entry::getValue)
-                .findFirst()
+        // 返回可用提供商中得分最高的客户端
+        return clientPipeline.selectAvailable(clientMap.keySet(), null, priorityMap)
+                .map(clientMap::get)
                 .orElseThrow(() -> new IllegalStateException("没有可用的模型客户端"));
     }
-} 
\ No newline at end of file
+}
+
@@ -0,0 +1,137 @@
+package com.chy.agents.core.router.moe;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+/**
+ * 专长短语的子串匹配自动机（Aho-Corasick）
+ * 一次扫描输入即可找出所有作为子串出现的短语，不依赖空格分词，
+ * 因此没有空格的中文输入和嵌在长词中的短语同样可以命中。实例不可变，可在多线程间共享。
+ */
+final class PhraseMatcher {
+
+    // 每个状态按字符排序的转移表
+    private final char[][] keys;
+    private final int[][] targets;
+
+    // 失配链接，以及最近的带输出的失配祖先
+    private final int[] fail;
+    private final int[] outputLink;
+
+    // 在该状态结束的短语编号
+    private final int[][] outputs;
+
+    private PhraseMatcher(char[][] keys, int[][] targets, int[] fail, int[] outputLink, int[][] outputs) {
+        this.keys = keys;
+        this.targets = targets;
+        this.fail = fail;
+        this.outputLink = outputLink;
+        this.outputs = outputs;
+    }
+
+    /**
+     * 编译短语，空短语不参与匹配
+     *
+     * @param phrases 按短语编号排列的规范化短语
+     * @return 匹配自动机
+     */
+    static PhraseMatcher compile(String[] phrases) {
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> ends = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        ends.add(new ArrayList<>());
+
+        for (int id = 0; id < phrases.length; id++) {
+            String phrase = phrases[id];
+            if (phrase == null || phrase.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < phrase.length(); i++) {
+                Integer next = trie.get(state).get(phrase.charAt(i));
+                if (next == null) {
+                    next = trie.size();
+                    trie.get(state).put(phrase.charAt(i), next);
+                    trie.add(new TreeMap<>());
+                    ends.add(new ArrayList<>());
+                }
+                state = next;
+            }
+            ends.get(state).add(id);
+        }
+
+        int size = trie.size();
+        char[][] keys = new char[size][];
+        int[][] targets = new int[size][];
+        int[][] outputs = new int[size][];
+        for (int state = 0; state < size; state++) {
+            TreeMap<Character, Integer> children = trie.get(state);
+            keys[state] = new char[children.size()];
+            targets[state] = new int[children.size()];
+            int i = 0;
+            for (var entry : children.entrySet()) {
+                keys[state][i] = entry.getKey();
+                targets[state][i++] = entry.getValue();
+            }
+            outputs[state] = ends.get(state).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        // 按层次遍历计算失配链接
+        int[] fail = new int[size];
+        int[] outputLink = new int[size];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[0]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < keys[state].length; i++) {
+                int child = targets[state][i];
+                int f = fail[state];
+                int next = step(keys, targets, f, keys[state][i]);
+                while (next < 0 && f != 0) {
+                    f = fail[f];
+                    next = step(keys, targets, f, keys[state][i]);
+                }
+                fail[child] = next < 0 || next == child ? 0 : next;
+                outputLink[child] = outputs[fail[child]].length > 0 ? fail[child] : outputLink[fail[child]];
+                queue.add(child);
+            }
+        }
+        return new PhraseMatcher(keys, targets, fail, outputLink, outputs);
+    }
+
+    /**
+     * 扫描文本，对每次出现的短语回调其编号（同一短语出现多次时会回调多次）
+     *
+     * @param text 规范化后的文本
+     * @param consumer 短语编号回调
+     */
+    void forEachMatch(String text, IntConsumer consumer) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next = step(keys, targets, state, c);
+            while (next < 0 && state != 0) {
+                state = fail[state];
+                next = step(keys, targets, state, c);
+            }
+            state = Math.max(next, 0);
+            for (int s = outputs[state].length > 0 ? state : outputLink[state]; s != 0; s = outputLink[s]) {
+                for (int id : outputs[s]) {
+                    consumer.accept(id);
+                }
+            }
+        }
+    }
+
+    private static int step(char[][] keys, int[][] targets, int state, char c) {
+        int idx = Arrays.binarySearch(keys[state], c);
+        return idx >= 0 ? targets[state][idx] : -1;
+    }
+}
@@ -5,8 +5,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 简单关键词匹配的MoE路由策略实现
@@ -21,7 +21,13 @@ public class SimpleKeywordMoeStrategy implements MoeRoutingStrategy {
     private String defaultProvider = "openai";
     
     // 提供商优先级映射
-    private final Map<String, Integer> providerPriorities = new HashMap<>();
+    private final Map<String, Integer> providerPriorities = new ConcurrentHashMap<>();
+    
+    // 优先级版本，每次修改优先级时递增
+    private final AtomicLong priorityVersion = new AtomicLong();
+    
+    // 预编译的专长倒排索引，连同编译时的优先级版本
+    private volatile CompiledIndex index;
     
     /**
      * 构造函数，初始化默认优先级
@@ -37,6 +43,7 @@ public class SimpleKeywordMoeStrategy implements MoeRoutingStrategy {
     
     /**
      * 根据输入内容和专家领域配置，选择最合适的专家模型
+     * 索引按映射实例缓存，专长配置变更时应传入新的映射实例（路由器以写时复制方式维护）
      *
      * @param input 用户输入内容
      * @param expertiseMap 专家领域配置映射（key: 提供商名称，value: 专长领域列表）
@@ -54,34 +61,21 @@ public class SimpleKeywordMoeStrategy implements MoeRoutingStrategy {
             return defaultProvider;
         }
         
-        // 计算每个提供商的匹配得分
-        Map<String, Double> scores = new HashMap<>();
-        
-        for (Map.Entry<String, List<String>> entry : expertiseMap.entrySet()) {
-            String provider = entry.getKey();
-            List<String> expertises = entry.getValue();
-            
-            // 计算该提供商所有专长领域的最大匹配度
-            double maxScore = 0.0;
-            for (String expertise : expertises) {
-                double score = calculateMatchScore(input, expertise);
-                maxScore = Math.max(maxScore, score);
-            }
-            
-            // 考虑优先级因素进行权重调整
-            double priorityFactor = getPriorityFactor(provider);
-            double finalScore = maxScore * priorityFactor;
-            
-            scores.put(provider, finalScore);
-            logger.debug("提供商 [{}] 的匹配分数: {} (原始分数: {}, 优先级因子: {})", 
-                    provider, finalScore, maxScore, priorityFactor);
+        // 专长配置或优先级变化时重新编译倒排索引，请求路径只做单次词元遍历；
+        // 编译前读取版本，编译期间优先级被修改时写回的索引版本已过期，下次请求会重新编译
+        CompiledIndex current = index;
+        long version = priorityVersion.get();
+        if (current == null || current.version() != version || !current.index().isCompiledFrom(expertiseMap)) {
+            current = new CompiledIndex(KeywordIndex.compile(expertiseMap, providerPriorities), version);
+            index = current;
         }
         
-        // 找出得分最高的提供商
-        return scores.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse(defaultProvider);
+        String bestProvider = current.index().selectBest(input);
+        if (bestProvider == null) {
+            logger.debug("没有匹配的专长领域，使用默认提供商：{}", defaultProvider);
+            return defaultProvider;
+        }
+        return bestProvider;
     }
     
     /**
@@ -98,12 +92,12 @@ public class SimpleKeywordMoeStrategy implements MoeRoutingStrategy {
         }
         
         // 简化输入和领域字符串
-        String normalizedInput = normalizeText(input);
-        String normalizedDomain = normalizeText(domain);
+        String normalizedInput = KeywordIndex.normalize(input);
+        String normalizedDomain = KeywordIndex.normalize(domain);
         
         // 计算关键词匹配率
-        Set<String> inputWords = tokenize(normalizedInput);
-        Set<String> domainWords = tokenize(normalizedDomain);
+        Set<String> inputWords = KeywordIndex.tokenize(normalizedInput);
+        Set<String> domainWords = KeywordIndex.tokenize(normalizedDomain);
         
         // 计算交集大小
         Set<String> intersection = new HashSet<>(inputWords);
@@ -182,54 +176,10 @@ public class SimpleKeywordMoeStrategy implements MoeRoutingStrategy {
      */
     public void setProviderPriority(String provider, int priority) {
         providerPriorities.put(provider, priority);
+        // 优先级因子已编译进索引，使已编译的索引失效
+        priorityVersion.incrementAndGet();
     }
     
-    /**
-     * 根据提供商优先级计算权重因子
-     *
-     * @param provider 提供商名称
-     * @return 权重因子（1.0 + 归一化的优先级加成）
-     */
-    private double getPriorityFactor(String provider) {
-        int priority = providerPriorities.getOrDefault(provider, 0);
-        int maxPriority = providerPriorities.values().stream()
-                .max(Integer::compare)
-                .orElse(100);
-        
-        // 优先级因子：1.0 + 归一化的优先级加成（最高0.5）
-        return 1.0 + (0.5 * priority / maxPriority);
-    }
-    
-    /**
-     * 规范化文本（小写化、去除特殊字符）
-     *
-     * @param text 输入文本
-     * @return 规范化后的文本
-     */
-    private String normalizeText(String text) {
-        if (text == null) {
-            return "";
-        }
-        return text.toLowerCase()
-                .replaceAll("[\\p{Punct}&&[^\\p{IsAlphabetic}]]", " ")
-                .replaceAll("\\s+", " ")
-                .trim();
-    }
-    
-    /**
-     * 将文本分割为词元集合
-     *
-     * @param text 输入文本
-     * @return 词元集合
-     */
-    private Set<String> tokenize(String text) {
-        if (text == null || text.isEmpty()) {
-            return Collections.emptySet();
-        }
-        
-        // 简单的基于空格的分词
-        return Arrays.stream(text.split("\\s+"))
-                .filter(word -> word.length() > 1) // 过滤掉单字符词
-                .collect(Collectors.toSet());
+    private record CompiledIndex(KeywordIndex index, long version) {
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,180 @@
+package com.chy.agents.core.router.ratelimit;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个提供商模型的限流器
+ * 同时按每分钟请求数（RPM）和每分钟token数（TPM）两个令牌桶限流。
+ * 容量不足的请求按到达顺序排队，队首满足后才放行后续请求，保证公平；等待期间不占用线程。
+ */
+public class ProviderRateLimiter {
+
+    private final String name;
+    private final TokenBucket requestBucket;
+    private final TokenBucket tokenBucket;
+    private final int maxQueueSize;
+    private final long maxWaitMillis;
+    private final ScheduledExecutorService scheduler;
+
+    private final Deque<Waiter> queue = new ArrayDeque<>();
+    private ScheduledFuture<?> drainTask;
+
+    private final LongAdder granted = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * 构造函数
+     *
+     * @param name 限流器名称（提供商:模型）
+     * @param limit 限额
+     * @param maxQueueSize 最大排队数
+     * @param maxWaitMillis 最长等待时间（毫秒）
+     * @param scheduler 调度器，用于在容量恢复时唤醒排队请求
+     */
+    public ProviderRateLimiter(String name, RateLimitProperties.Limit limit, int maxQueueSize,
+                               long maxWaitMillis, ScheduledExecutorService scheduler) {
+        this.name = name;
+        this.requestBucket = new TokenBucket(limit.getRpm());
+        this.tokenBucket = new TokenBucket(limit.getTpm());
+        this.maxQueueSize = maxQueueSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 申请一次请求的配额
+     * 容量足够且无人排队时立即完成，否则排队等待；队列已满或等待超时时以
+     * {@link RejectedExecutionException}失败，不计入提供商故障
+     *
+     * @param tokens 本次请求预计消耗的token数
+     * @return 获得配额时完成的Future
+     */
+    public CompletableFuture<Void> acquire(long tokens) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        synchronized (this) {
+            long cost = tokenBucket.clamp(tokens);
+            if (queue.isEmpty() && tryConsume(cost)) {
+                granted.increment();
+                return CompletableFuture.completedFuture(null);
+            }
+            if (queue.size() >= maxQueueSize) {
+                rejected.increment();
+                return CompletableFuture.failedFuture(
+                        new RejectedExecutionException("限流器 [" + name + "] 排队已满"));
+            }
+            queue.addLast(new Waiter(cost, future));
+            queued.increment();
+            scheduleDrain();
+        }
+
+        ScheduledFuture<?> timeout = scheduler.schedule(() -> {
+            if (future.completeExceptionally(new RejectedExecutionException("限流器 [" + name + "] 排队超时"))) {
+                rejected.increment();
+            }
+        }, maxWaitMillis, TimeUnit.MILLISECONDS);
+        future.whenComplete((ignored, error) -> timeout.cancel(false));
+        return future;
+    }
+
+    /**
+     * 获取当前排队数
+     *
+     * @return 排队数
+     */
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * 是否已饱和：已有请求排队，或请求配额或token配额已耗尽
+     *
+     * @return 新请求是否需要等待
+     */
+    public synchronized boolean isSaturated() {
+        return !queue.isEmpty() || requestBucket.nanosUntil(1) > 0 || tokenBucket.available() <= 0;
+    }
+
+    /**
+     * 获取限流器统计
+     *
+     * @return 统计映射
+     */
+    public synchronized Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("queueDepth", queue.size());
+        metrics.put("availableRequests", requestBucket.isUnlimited() ? -1 : requestBucket.available());
+        metrics.put("availableTokens", tokenBucket.isUnlimited() ? -1 : tokenBucket.available());
+        metrics.put("granted", granted.sum());
+        metrics.put("queued", queued.sum());
+        metrics.put("rejected", rejected.sum());
+        return metrics;
+    }
+
+    private boolean tryConsume(long tokens) {
+        if (requestBucket.nanosUntil(1) > 0 || tokenBucket.nanosUntil(tokens) > 0) {
+            return false;
+        }
+        requestBucket.tryConsume(1);
+        tokenBucket.tryConsume(tokens);
+        return true;
+    }
+
+    /**
+     * 按顺序放行队首请求，直到容量不足
+     */
+    private void drain() {
+        List<CompletableFuture<Void>> ready = new ArrayList<>();
+        synchronized (this) {
+            drainTask = null;
+            while (!queue.isEmpty()) {
+                Waiter head = queue.peekFirst();
+                if (head.future().isDone()) {
+                    // 已超时的请求直接出队
+                    queue.pollFirst();
+                    continue;
+                }
+                if (!tryConsume(head.tokens())) {
+                    break;
+                }
+                queue.pollFirst();
+                ready.add(head.future());
+            }
+            if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+        // 在锁外完成，避免后续回调持有锁
+        for (CompletableFuture<Void> future : ready) {
+            if (future.complete(null)) {
+                granted.increment();
+            }
+        }
+    }
+
+    private void scheduleDrain() {
+        if (drainTask != null || queue.isEmpty()) {
+            return;
+        }
+        Waiter head = queue.peekFirst();
+        long waitNanos = Math.max(requestBucket.nanosUntil(1), tokenBucket.nanosUntil(head.tokens()));
+        drainTask = scheduler.schedule(this::drain, Math.max(waitNanos, 1_000_000L), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 排队中的请求
+     */
+    private record Waiter(long tokens, CompletableFuture<Void> future) {
+    }
+}
@@ -0,0 +1,88 @@
+package com.chy.agents.core.router.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 提供商限流配置
+ * 限额按"提供商:模型"或"提供商"查找，均未配置时使用默认限额，限额为0表示不限制
+ */
+@Data
+@ConfigurationProperties(prefix = "chy.agents.router.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * 是否启用客户端限流
+     */
+    private boolean enabled = false;
+
+    /**
+     * 默认每分钟请求数
+     */
+    private int defaultRpm = 0;
+
+    /**
+     * 默认每分钟token数
+     */
+    private int defaultTpm = 0;
+
+    /**
+     * 按提供商或"提供商:模型"配置的限额
+     */
+    private Map<String, Limit> limits = new HashMap<>();
+
+    /**
+     * 每个限流器的最大排队请求数
+     */
+    private int maxQueueSize = 256;
+
+    /**
+     * 最长排队等待时间（毫秒）
+     */
+    private long maxWaitMillis = 30_000;
+
+    /**
+     * 提示和客户端都未指定max_tokens时预留的输出token数
+     */
+    private int defaultMaxTokens = 2048;
+
+    /**
+     * 获取指定提供商和模型的限额
+     *
+     * @param provider 提供商名称
+     * @param model 模型名称
+     * @return 限额
+     */
+    public Limit getLimit(String provider, String model) {
+        Limit limit = limits.get(provider + ":" + model);
+        if (limit == null) {
+            limit = limits.get(provider);
+        }
+        if (limit == null) {
+            limit = new Limit();
+            limit.setRpm(defaultRpm);
+            limit.setTpm(defaultTpm);
+        }
+        return limit;
+    }
+
+    /**
+     * 限额
+     */
+    @Data
+    public static class Limit {
+
+        /**
+         * 每分钟请求数
+         */
+        private int rpm;
+
+        /**
+         * 每分钟token数
+         */
+        private int tpm;
+    }
+}
@@ -0,0 +1,129 @@
+package com.chy.agents.core.router.ratelimit;
+
+import com.chy.agents.common.utils.TokenUtils;
+import com.chy.agents.core.chat.ChatClient;
+import com.chy.agents.core.chat.message.Message;
+import com.chy.agents.core.chat.message.MessageDelta;
+import com.chy.agents.core.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 带限流的聊天客户端
+ * 每次调用前按"提示token估算 + max_tokens"向提供商模型的限流器申请配额，配额不足时异步排队
+ */
+public class RateLimitedChatClient implements ChatClient {
+
+    private final String provider;
+    private final ChatClient delegate;
+    private final RateLimiterRegistry registry;
+    private final int defaultMaxTokens;
+
+    public RateLimitedChatClient(String provider, ChatClient delegate, RateLimiterRegistry registry,
+                                 int defaultMaxTokens) {
+        this.provider = provider;
+        this.delegate = delegate;
+        this.registry = registry;
+        this.defaultMaxTokens = defaultMaxTokens;
+    }
+
+    @Override
+    public Message call(Prompt prompt) {
+        try {
+            acquire(prompt).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+        return delegate.call(prompt);
+    }
+
+    @Override
+    public CompletableFuture<Message> callAsync(Prompt prompt) {
+        return acquire(prompt).thenCompose(ignored -> delegate.callAsync(prompt));
+    }
+
+    @Override
+    public Flux<MessageDelta> streamDeltas(Prompt prompt) {
+        return Mono.fromFuture(() -> acquire(prompt))
+                .thenMany(Flux.defer(() -> delegate.streamDeltas(prompt)));
+    }
+
+    @Override
+    public Map<String, Object> getConfig() {
+        return delegate.getConfig();
+    }
+
+    @Override
+    public String getProvider() {
+        return delegate.getProvider();
+    }
+
+    @Override
+    public String getModel() {
+        return delegate.getModel();
+    }
+
+    /**
+     * 申请本次请求的配额，不发出调用
+     * 供需要把排队时间和调用时间分开计算的上层（如超时控制）使用，获得配额后调用{@link #getDelegate()}
+     *
+     * @param prompt 提示信息
+     * @return 获得配额时完成的Future，排队已满或等待超时时以RejectedExecutionException失败
+     */
+    public CompletableFuture<Void> acquire(Prompt prompt) {
+        return registry.acquire(provider, delegate.getModel(), estimateTokens(prompt));
+    }
+
+    /**
+     * 获取被限流的客户端
+     *
+     * @return 原始客户端
+     */
+    public ChatClient getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * 估算本次请求消耗的token数：输入token估算加上输出上限
+     */
+    private long estimateTokens(Prompt prompt) {
+        List<String> texts = new ArrayList<>();
+        texts.add(prompt.getSystemPrompt());
+        texts.add(prompt.getUserInput());
+        if (prompt.getHistory() != null) {
+            for (Message message : prompt.getHistory()) {
+                texts.add(message.getContent());
+            }
+        }
+        long tokens = TokenUtils.estimateTokenCount(texts, delegate.getModel());
+        return tokens + resolveMaxTokens(prompt);
+    }
+
+    /**
+     * 依次从提示参数、客户端配置中读取max_tokens，均未指定时使用默认值
+     */
+    private int resolveMaxTokens(Prompt prompt) {
+        Integer maxTokens = readInt(prompt.getParameters());
+        if (maxTokens == null) {
+            maxTokens = readInt(delegate.getConfig());
+        }
+        return maxTokens != null ? maxTokens : defaultMaxTokens;
+    }
+
+    private static Integer readInt(Map<String, Object> values) {
+        if (values == null) {
+            return null;
+        }
+        Object value = values.containsKey("maxTokens") ? values.get("maxTokens") : values.get("max_tokens");
+        return value instanceof Number number ? number.intValue() : null;
+    }
+}
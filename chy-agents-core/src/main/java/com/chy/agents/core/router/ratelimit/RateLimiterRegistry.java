@@ -0,0 +1,119 @@
+package com.chy.agents.core.router.ratelimit;
+
+import com.chy.agents.core.chat.ChatClient;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * 限流器注册表
+ * 按提供商和模型维护限流器，并向路由器暴露排队状态，使其可以把请求分流到其他提供商而不是等待
+ */
+public class RateLimiterRegistry implements AutoCloseable {
+
+    private final RateLimitProperties properties;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Map<String, ProviderRateLimiter>> limiters = new ConcurrentHashMap<>();
+
+    public RateLimiterRegistry(RateLimitProperties properties) {
+        this.properties = properties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chy-rate-limiter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 为客户端挂载限流
+     *
+     * @param provider 提供商名称
+     * @param client 原始客户端
+     * @return 带限流的客户端，未启用时返回原始客户端
+     */
+    public ChatClient decorate(String provider, ChatClient client) {
+        if (!properties.isEnabled() || client instanceof RateLimitedChatClient) {
+            return client;
+        }
+        return new RateLimitedChatClient(provider, client, this, properties.getDefaultMaxTokens());
+    }
+
+    /**
+     * 申请配额
+     *
+     * @param provider 提供商名称
+     * @param model 模型名称
+     * @param tokens 预计消耗的token数
+     * @return 获得配额时完成的Future
+     */
+    public CompletableFuture<Void> acquire(String provider, String model, long tokens) {
+        return getLimiter(provider, model).acquire(tokens);
+    }
+
+    /**
+     * 获取限流器，不存在时创建
+     *
+     * @param provider 提供商名称
+     * @param model 模型名称
+     * @return 限流器
+     */
+    public ProviderRateLimiter getLimiter(String provider, String model) {
+        String modelKey = model != null ? model : "";
+        return limiters.computeIfAbsent(provider, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(modelKey, key -> new ProviderRateLimiter(provider + ":" + key,
+                        properties.getLimit(provider, key), properties.getMaxQueueSize(),
+                        properties.getMaxWaitMillis(), scheduler));
+    }
+
+    /**
+     * 提供商是否已饱和（任一模型的限流器有排队或配额耗尽）
+     *
+     * @param provider 提供商名称
+     * @return 新请求是否需要等待
+     */
+    public boolean isSaturated(String provider) {
+        Map<String, ProviderRateLimiter> models = limiters.get(provider);
+        return models != null && models.values().stream().anyMatch(ProviderRateLimiter::isSaturated);
+    }
+
+    /**
+     * 获取提供商当前排队数
+     *
+     * @param provider 提供商名称
+     * @return 排队数
+     */
+    public int getQueueDepth(String provider) {
+        Map<String, ProviderRateLimiter> models = limiters.get(provider);
+        return models == null ? 0 : models.values().stream().mapToInt(ProviderRateLimiter::getQueueDepth).sum();
+    }
+
+    /**
+     * 获取所有限流器统计
+     *
+     * @return "提供商:模型"到统计的映射
+     */
+    public Map<String, Map<String, Object>> getMetrics() {
+        Map<String, Map<String, Object>> metrics = new HashMap<>();
+        limiters.forEach((provider, models) -> models.forEach((model, limiter) ->
+                metrics.put(provider + ":" + model, limiter.getMetrics())));
+        return metrics;
+    }
+
+    /**
+     * 移除提供商的限流器
+     *
+     * @param provider 提供商名称
+     */
+    public void remove(String provider) {
+        limiters.remove(provider);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,85 @@
+package com.chy.agents.core.router.ratelimit;
+
+/**
+ * 令牌桶
+ * 容量为每分钟限额，按纳秒连续补充。非线程安全，由{@link ProviderRateLimiter}在锁内使用。
+ */
+class TokenBucket {
+
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+
+    private final long capacity;
+    private final double refillPerNano;
+    private double available;
+    private long lastRefill;
+
+    /**
+     * 构造函数
+     *
+     * @param perMinute 每分钟限额，0表示不限制
+     */
+    TokenBucket(long perMinute) {
+        this.capacity = perMinute;
+        this.refillPerNano = (double) perMinute / NANOS_PER_MINUTE;
+        this.available = perMinute;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * 是否不限制
+     */
+    boolean isUnlimited() {
+        return capacity <= 0;
+    }
+
+    /**
+     * 将请求数量限制在桶容量内，避免超大请求永远无法满足
+     */
+    long clamp(long amount) {
+        return isUnlimited() ? amount : Math.min(amount, capacity);
+    }
+
+    /**
+     * 尝试消耗指定数量
+     */
+    boolean tryConsume(long amount) {
+        if (isUnlimited()) {
+            return true;
+        }
+        refill();
+        if (available >= amount) {
+            available -= amount;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 距离可以消耗指定数量还需等待的纳秒数
+     */
+    long nanosUntil(long amount) {
+        if (isUnlimited()) {
+            return 0;
+        }
+        refill();
+        double missing = amount - available;
+        return missing <= 0 ? 0 : (long) Math.ceil(missing / refillPerNano);
+    }
+
+    /**
+     * 当前可用数量
+     */
+    long available() {
+        if (isUnlimited()) {
+            return Long.MAX_VALUE;
+        }
+        refill();
+        return (long) available;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        available = Math.min(capacity, available + (now - lastRefill) * refillPerNano);
+        lastRefill = now;
+    }
+}
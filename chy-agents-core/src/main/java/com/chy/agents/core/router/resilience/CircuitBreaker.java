@@ -0,0 +1,145 @@
+package com.chy.agents.core.router.resilience;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 基于计数滑动窗口的熔断器
+ * 关闭状态下统计最近调用的失败率，超过阈值时打开；打开一段时间后进入半开状态，
+ * 放行少量探测请求，全部成功则关闭，任一失败则重新打开。
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final ResilienceProperties properties;
+    private final boolean[] outcomes;
+
+    private State state = State.CLOSED;
+    private int position;
+    private int count;
+    private int failures;
+    private long openedAt;
+    private int halfOpenInFlight;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(String name, ResilienceProperties properties) {
+        this.name = name;
+        this.properties = properties;
+        this.outcomes = new boolean[Math.max(1, properties.getSlidingWindowSize())];
+    }
+
+    /**
+     * 尝试获取调用许可
+     *
+     * @return 是否允许调用
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < properties.getOpenDurationMillis()) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight >= properties.getHalfOpenPermits()) {
+                return false;
+            }
+            halfOpenInFlight++;
+        }
+        return true;
+    }
+
+    /**
+     * 判断当前是否可以接收流量（不占用许可）
+     *
+     * @return 是否可用
+     */
+    public synchronized boolean isCallPermitted() {
+        return state != State.OPEN || System.currentTimeMillis() - openedAt >= properties.getOpenDurationMillis();
+    }
+
+    /**
+     * 记录一次成功调用
+     */
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+            if (++halfOpenSuccesses >= properties.getHalfOpenPermits()) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        record(false);
+    }
+
+    /**
+     * 记录一次失败调用
+     */
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && count >= properties.getMinimumCalls()
+                && (double) failures / count >= properties.getFailureRateThreshold()) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    /**
+     * 释放许可但不计入统计（如本地排队拒绝、调用被取消）
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+        }
+    }
+
+    /**
+     * 获取当前状态
+     *
+     * @return 熔断器状态
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (count == outcomes.length) {
+            if (outcomes[position]) {
+                failures--;
+            }
+        } else {
+            count++;
+        }
+        outcomes[position] = failure;
+        if (failure) {
+            failures++;
+        }
+        position = (position + 1) % outcomes.length;
+    }
+
+    private void transitionTo(State newState) {
+        log.info("熔断器 [{}] 状态变更: {} -> {}", name, state, newState);
+        state = newState;
+        halfOpenInFlight = 0;
+        halfOpenSuccesses = 0;
+        if (newState == State.OPEN) {
+            openedAt = System.currentTimeMillis();
+        } else if (newState == State.CLOSED) {
+            position = 0;
+            count = 0;
+            failures = 0;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.chy.agents.core.router.resilience;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 路由弹性配置（熔断、重试、对冲请求）
+ * 重试次数和单次超时沿用{@code spring.ai.max-retries}和{@code spring.ai.timeout}
+ */
+@Data
+@ConfigurationProperties(prefix = "chy.agents.router.resilience")
+public class ResilienceProperties {
+
+    /**
+     * 是否启用弹性层
+     */
+    private boolean enabled = true;
+
+    /**
+     * 熔断统计窗口（最近调用次数）
+     */
+    private int slidingWindowSize = 20;
+
+    /**
+     * 计算失败率所需的最少调用次数
+     */
+    private int minimumCalls = 10;
+
+    /**
+     * 失败率阈值，达到时熔断器打开
+     */
+    private double failureRateThreshold = 0.5;
+
+    /**
+     * 熔断器打开后的等待时间（毫秒），之后进入半开状态放行探测请求
+     */
+    private long openDurationMillis = 30_000;
+
+    /**
+     * 半开状态允许的探测请求数
+     */
+    private int halfOpenPermits = 1;
+
+    /**
+     * 重试退避基础时间（毫秒）
+     */
+    private long backoffBaseMillis = 200;
+
+    /**
+     * 重试退避最大时间（毫秒）
+     */
+    private long backoffMaxMillis = 5_000;
+
+    /**
+     * 是否启用对冲请求
+     */
+    private boolean hedgingEnabled = false;
+
+    /**
+     * 对冲延迟使用的延迟分位数
+     */
+    private double hedgeQuantile = 0.95;
+
+    /**
+     * 对冲延迟下限（毫秒）
+     */
+    private long hedgeMinDelayMillis = 50;
+}
@@ -0,0 +1,94 @@
+package com.chy.agents.core.router.resilience;
+
+import com.chy.agents.common.config.ModelConfig;
+import com.chy.agents.core.chat.ChatClient;
+import com.chy.agents.core.router.adaptive.ProviderStatsRegistry;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 弹性策略注册表
+ * 为每个提供商维护熔断器，并为路由器中注册的客户端挂载熔断、重试和对冲策略
+ */
+public class ResilienceRegistry {
+
+    private final ResilienceProperties properties;
+    private final ModelConfig modelConfig;
+    private final ProviderStatsRegistry statsRegistry;
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param properties 弹性配置
+     * @param modelConfig 模型配置（提供重试次数和超时）
+     * @param statsRegistry 提供商统计，为null时不进行对冲
+     */
+    public ResilienceRegistry(ResilienceProperties properties, ModelConfig modelConfig,
+                              ProviderStatsRegistry statsRegistry) {
+        this.properties = properties;
+        this.modelConfig = modelConfig != null ? modelConfig : new ModelConfig();
+        this.statsRegistry = statsRegistry;
+    }
+
+    /**
+     * 为客户端挂载弹性策略
+     *
+     * @param provider 提供商名称
+     * @param client 原始客户端
+     * @param hedgeTarget 对冲请求的目标客户端
+     * @return 带弹性策略的客户端，未启用时返回原始客户端
+     */
+    public ChatClient decorate(String provider, ChatClient client, Supplier<ChatClient> hedgeTarget) {
+        if (!properties.isEnabled() || client instanceof ResilientChatClient) {
+            return client;
+        }
+        return new ResilientChatClient(provider, client, getCircuitBreaker(provider), properties,
+                modelConfig.getMaxRetries(), modelConfig.getTimeout(),
+                statsRegistry != null ? statsRegistry.getStats(provider) : null, hedgeTarget);
+    }
+
+    /**
+     * 获取提供商的熔断器，不存在时创建
+     *
+     * @param provider 提供商名称
+     * @return 熔断器
+     */
+    public CircuitBreaker getCircuitBreaker(String provider) {
+        return circuitBreakers.computeIfAbsent(provider, key -> new CircuitBreaker(key, properties));
+    }
+
+    /**
+     * 判断提供商当前是否可以接收流量
+     *
+     * @param provider 提供商名称
+     * @return 熔断器未打开时返回true
+     */
+    public boolean isAvailable(String provider) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(provider);
+        return circuitBreaker == null || circuitBreaker.isCallPermitted();
+    }
+
+    /**
+     * 获取所有熔断器状态
+     *
+     * @return 提供商到熔断器状态的映射
+     */
+    public Map<String, CircuitBreaker.State> getStates() {
+        Map<String, CircuitBreaker.State> states = new HashMap<>();
+        circuitBreakers.forEach((provider, circuitBreaker) -> states.put(provider, circuitBreaker.getState()));
+        return states;
+    }
+
+    /**
+     * 移除提供商的熔断器
+     *
+     * @param provider 提供商名称
+     */
+    public void remove(String provider) {
+        circuitBreakers.remove(provider);
+    }
+}
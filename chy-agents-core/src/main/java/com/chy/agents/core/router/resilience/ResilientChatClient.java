@@ -0,0 +1,316 @@
+package com.chy.agents.core.router.resilience;
+
+import com.chy.agents.common.exception.AgentException;
+import com.chy.agents.core.chat.ChatClient;
+import com.chy.agents.core.chat.message.Message;
+import com.chy.agents.core.chat.message.MessageDelta;
+import com.chy.agents.core.chat.prompt.Prompt;
+import com.chy.agents.core.router.adaptive.ProviderStats;
+import com.chy.agents.core.router.ratelimit.RateLimitedChatClient;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 带弹性策略的聊天客户端
+ * 装饰原始客户端，提供熔断、带抖动的指数退避重试，以及可选的对冲请求：
+ * 主请求超过该提供商的延迟分位数仍未返回时，向备选提供商发出第二个请求，先成功者胜出。
+ * 下游是限流客户端时，单次调用超时从获得限流配额后开始计算，本地排队时间不会变成超时；
+ * 限流或舱壁拒绝（{@link RejectedExecutionException}）不计入熔断统计，也不重试。
+ */
+@Slf4j
+public class ResilientChatClient implements ChatClient {
+
+    private final String provider;
+    private final ChatClient delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final ResilienceProperties properties;
+    private final int maxRetries;
+    private final Duration timeout;
+    private final ProviderStats stats;
+    private final Supplier<ChatClient> hedgeTarget;
+
+    /**
+     * 构造函数
+     *
+     * @param provider 提供商名称
+     * @param delegate 原始客户端
+     * @param circuitBreaker 熔断器
+     * @param properties 弹性配置
+     * @param maxRetries 最大重试次数
+     * @param timeout 单次调用超时
+     * @param stats 提供商统计，为null时不进行对冲
+     * @param hedgeTarget 对冲请求的目标客户端
+     */
+    public ResilientChatClient(String provider, ChatClient delegate, CircuitBreaker circuitBreaker,
+                               ResilienceProperties properties, int maxRetries, Duration timeout,
+                               ProviderStats stats, Supplier<ChatClient> hedgeTarget) {
+        this.provider = provider;
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.properties = properties;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.timeout = timeout;
+        this.stats = stats;
+        this.hedgeTarget = hedgeTarget;
+    }
+
+    @Override
+    public Message call(Prompt prompt) {
+        try {
+            return callAsync(prompt).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AgentException(AgentException.ErrorCode.MODEL_ERROR, "模型调用被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new AgentException(AgentException.ErrorCode.MODEL_ERROR, "模型调用失败", cause);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Message> callAsync(Prompt prompt) {
+        CompletableFuture<Message> primary = callWithRetry(prompt);
+        long hedgeDelay = hedgeDelayMillis();
+        return hedgeDelay >= 0 ? hedge(prompt, primary, hedgeDelay) : primary;
+    }
+
+    /**
+     * 带熔断和重试的异步调用（不发出对冲请求）
+     *
+     * @param prompt 提示信息
+     * @return 异步响应
+     */
+    public CompletableFuture<Message> callWithRetry(Prompt prompt) {
+        CompletableFuture<Message> result = new CompletableFuture<>();
+        attempt(prompt, 0, result);
+        return result;
+    }
+
+    /**
+     * 流式调用
+     * 只在尚未发出任何片段时重试，已输出部分内容后的失败直接传递给调用方
+     */
+    @Override
+    public Flux<MessageDelta> streamDeltas(Prompt prompt) {
+        return Flux.defer(() -> {
+            AtomicBoolean emitted = new AtomicBoolean();
+            return Flux.defer(() -> {
+                        if (!circuitBreaker.tryAcquire()) {
+                            return Flux.error(circuitOpen());
+                        }
+                        return timedStream(prompt)
+                                .doOnNext(delta -> emitted.set(true))
+                                .doOnComplete(circuitBreaker::onSuccess)
+                                .doOnCancel(circuitBreaker::onIgnored)
+                                .doOnError(this::recordFailure);
+                    })
+                    .retryWhen(Retry.backoff(maxRetries, Duration.ofMillis(properties.getBackoffBaseMillis()))
+                            .maxBackoff(Duration.ofMillis(properties.getBackoffMaxMillis()))
+                            .jitter(0.5)
+                            .filter(error -> !emitted.get() && isRetryable(error))
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+        });
+    }
+
+    @Override
+    public Map<String, Object> getConfig() {
+        return delegate.getConfig();
+    }
+
+    @Override
+    public String getProvider() {
+        return delegate.getProvider();
+    }
+
+    @Override
+    public String getModel() {
+        return delegate.getModel();
+    }
+
+    /**
+     * 获取熔断器
+     *
+     * @return 熔断器
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    private void attempt(Prompt prompt, int attempt, CompletableFuture<Message> result) {
+        // 对冲请求胜出后结果已被取消，不再继续重试
+        if (result.isDone()) {
+            return;
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            result.completeExceptionally(circuitOpen());
+            return;
+        }
+
+        timedCall(prompt, result)
+                .whenComplete((message, error) -> {
+                    if (error == null) {
+                        circuitBreaker.onSuccess();
+                        result.complete(message);
+                        return;
+                    }
+
+                    Throwable cause = unwrap(error);
+                    recordFailure(cause);
+                    if (attempt < maxRetries && isRetryable(cause) && !result.isDone()) {
+                        long delay = backoffMillis(attempt);
+                        log.warn("提供商 [{}] 第{}次调用失败，{}ms后重试: {}", provider, attempt + 1, delay, cause.getMessage());
+                        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                                .execute(() -> attempt(prompt, attempt + 1, result));
+                    } else {
+                        result.completeExceptionally(cause);
+                    }
+                });
+    }
+
+    /**
+     * 单次调用，超时只覆盖下游调用本身，不含限流排队
+     * 超时直接作用于下游返回的Future，舱壁据此中断执行线程并释放槽位，后续重试不会叠加在仍在执行的调用上；
+     * 最终结果已确定（如对冲请求胜出）时取消仍在执行的调用
+     */
+    private CompletableFuture<Message> timedCall(Prompt prompt, CompletableFuture<Message> result) {
+        if (delegate instanceof RateLimitedChatClient limited) {
+            return limited.acquire(prompt)
+                    .thenCompose(ignored -> startCall(limited.getDelegate(), prompt, result));
+        }
+        return startCall(delegate, prompt, result);
+    }
+
+    private CompletableFuture<Message> startCall(ChatClient client, Prompt prompt, CompletableFuture<Message> result) {
+        if (result.isDone()) {
+            return CompletableFuture.failedFuture(new CancellationException("调用结果已确定"));
+        }
+        CompletableFuture<Message> call = callDelegate(client, prompt)
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        result.whenComplete((message, error) -> call.cancel(true));
+        return call;
+    }
+
+    /**
+     * 单次流式调用，超时只覆盖下游调用本身，不含限流排队
+     */
+    private Flux<MessageDelta> timedStream(Prompt prompt) {
+        if (delegate instanceof RateLimitedChatClient limited) {
+            return Mono.fromFuture(() -> limited.acquire(prompt))
+                    .thenMany(Flux.defer(() -> limited.getDelegate().streamDeltas(prompt).timeout(timeout)));
+        }
+        return delegate.streamDeltas(prompt).timeout(timeout);
+    }
+
+    private static CompletableFuture<Message> callDelegate(ChatClient client, Prompt prompt) {
+        try {
+            return client.callAsync(prompt);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private CompletableFuture<Message> hedge(Prompt prompt, CompletableFuture<Message> primary, long delayMillis) {
+        CompletableFuture<Message> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        CompletableFuture<CompletableFuture<Message>> hedged = new CompletableFuture<>();
+
+        primary.whenComplete((message, error) -> settle(result, pending, message, error));
+
+        CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS).execute(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            ChatClient target = hedgeTarget != null ? hedgeTarget.get() : null;
+            if (target == null || target == this) {
+                return;
+            }
+            log.debug("提供商 [{}] 超过{}ms未响应，向 [{}] 发出对冲请求", provider, delayMillis, target.getProvider());
+            pending.incrementAndGet();
+            CompletableFuture<Message> secondary = target instanceof ResilientChatClient resilient
+                    ? resilient.callWithRetry(prompt)
+                    : target.callAsync(prompt);
+            hedged.complete(secondary);
+            secondary.whenComplete((message, error) -> settle(result, pending, message, error));
+        });
+
+        // 先完成者胜出，取消另一个请求
+        result.whenComplete((message, error) -> {
+            primary.cancel(false);
+            hedged.thenAccept(secondary -> secondary.cancel(false));
+        });
+        return result;
+    }
+
+    private void settle(CompletableFuture<Message> result, AtomicInteger pending, Message message, Throwable error) {
+        if (error == null) {
+            result.complete(message);
+        } else if (pending.decrementAndGet() == 0) {
+            result.completeExceptionally(unwrap(error));
+        }
+    }
+
+    private long hedgeDelayMillis() {
+        if (!properties.isHedgingEnabled() || stats == null || hedgeTarget == null) {
+            return -1;
+        }
+        long percentile = stats.getLatencyPercentile(properties.getHedgeQuantile());
+        return percentile < 0 ? -1 : Math.max(percentile, properties.getHedgeMinDelayMillis());
+    }
+
+    /**
+     * 带抖动的指数退避：上限的一半固定，另一半随机
+     */
+    private long backoffMillis(int attempt) {
+        long cap = Math.min(properties.getBackoffMaxMillis(),
+                properties.getBackoffBaseMillis() << Math.min(attempt, 20));
+        long half = Math.max(1, cap / 2);
+        return half + ThreadLocalRandom.current().nextLong(half);
+    }
+
+    private void recordFailure(Throwable error) {
+        // 本地排队拒绝和取消不代表提供商故障，不计入熔断统计
+        if (error instanceof RejectedExecutionException || error instanceof CancellationException) {
+            circuitBreaker.onIgnored();
+        } else {
+            circuitBreaker.onFailure();
+        }
+    }
+
+    private boolean isRetryable(Throwable error) {
+        // 本地排队已满或等待超时，立即重试只会再次排队，交给调用方或路由器分流
+        if (error instanceof RejectedExecutionException) {
+            return false;
+        }
+        if (error instanceof AgentException agentException) {
+            AgentException.ErrorCode code = agentException.getErrorCode();
+            return code != AgentException.ErrorCode.RESOURCE_ERROR && code != AgentException.ErrorCode.INVALID_INPUT;
+        }
+        return !(error instanceof IllegalArgumentException || error instanceof CancellationException);
+    }
+
+    private AgentException circuitOpen() {
+        return new AgentException(AgentException.ErrorCode.RESOURCE_ERROR, "提供商 [" + provider + "] 熔断器已打开");
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
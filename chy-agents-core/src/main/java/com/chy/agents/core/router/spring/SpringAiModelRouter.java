@@ -4,6 +4,7 @@ import com.chy.agents.core.agent.Agent;
 import com.chy.agents.core.chat.ChatClient;
 import com.chy.agents.core.chat.adapter.SpringAiChatClientAdapter;
 import com.chy.agents.core.router.ModelRouter;
+import com.chy.agents.core.router.RouterClientPipeline;
 import com.chy.agents.core.router.moe.MoeRoutingStrategy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient.MetadataMode;
@@ -34,8 +35,11 @@ public class SpringAiModelRouter implements ModelRouter {
     // 存储适配后的项目ChatClient
     private final Map<String, ChatClient> adaptedClients = new ConcurrentHashMap<>();
     
-    // 存储模型的专长领域配置
-    private final Map<String, List<String>> expertiseMap = new HashMap<>();
+    // 各提供商的弹性层客户端（不含缓存和请求合并），对冲请求发往这里
+    private final Map<String, ChatClient> resilientClients = new ConcurrentHashMap<>();
+    
+    // 存储模型的专长领域配置（写时复制的不可变快照，路由策略据此缓存编译结果）
+    private volatile Map<String, List<String>> expertiseMap = Map.of();
     
     // 存储模型的优先级
     private final Map<String, Integer> priorityMap = new HashMap<>();
@@ -46,6 +50,10 @@ public class SpringAiModelRouter implements ModelRouter {
     @Autowired(required = false)
     private MoeRoutingStrategy routingStrategy;
     
+    // 客户端装饰、可用性判断和候选选择
+    @Autowired
+    private RouterClientPipeline clientPipeline;
+    
     public SpringAiModelRouter(Function<org.springframework.ai.chat.client.ChatClient, ChatClient> adapterFactory) {
         this.adapterFactory = adapterFactory;
     }
@@ -60,7 +68,7 @@ public class SpringAiModelRouter implements ModelRouter {
         springAiClients.put(provider, client);
         // 自动创建适配的客户端
         ChatClient adaptedClient = adapterFactory.apply(client);
-        adaptedClients.put(provider, adaptedClient);
+        register(provider, adaptedClient);
         log.info("已注册Spring AI提供商 [{}] 的模型客户端", provider);
     }
     
@@ -71,6 +79,10 @@ public class SpringAiModelRouter implements ModelRouter {
             log.warn("未找到提供商 [{}] 的模型客户端，将使用默认模型", provider);
             return getDefaultClient();
         }
+        if (!clientPipeline.isAvailable(provider)) {
+            log.warn("提供商 [{}] 熔断或限流排队中，切换到备选模型", provider);
+            return fallbackClient(provider);
+        }
         return client;
     }
     
@@ -79,6 +91,12 @@ public class SpringAiModelRouter implements ModelRouter {
         if (routingStrategy != null) {
             // 使用MoE路由策略
             String bestProvider = routingStrategy.selectBestExpert(input, expertiseMap);
+            
+            // 自适应模式下，专家已降级时切换到健康的备选模型
+            if (clientPipeline.isDegraded(bestProvider, adaptedClients.keySet())) {
+                log.warn("提供商 [{}] 已降级，切换到备选模型", bestProvider);
+                return fallbackClient(bestProvider);
+            }
             return selectClient(bestProvider);
         } else {
             // 如果没有策略，返回默认
@@ -88,13 +106,9 @@ public class SpringAiModelRouter implements ModelRouter {
     
     @Override
     public ChatClient fallbackClient(String provider) {
-        // 根据优先级选择备选模型
-        return adaptedClients.entrySet().stream()
-                .filter(entry -> !entry.getKey().equals(provider))
-                .sorted((e1, e2) -> priorityMap.getOrDefault(e2.getKey(), 0)
-                        .compareTo(priorityMap.getOrDefault(e1.getKey(), 0)))
-                .map(Map.Entry::getValue)
-                .findFirst()
+        // 跳过熔断或限流排队中的提供商，按实时健康度（自适应模式）或优先级选择备选模型
+        return clientPipeline.selectAvailable(adaptedClients.keySet(), provider, priorityMap)
+                .map(adaptedClients::get)
                 .orElseGet(this::getDefaultClient);
     }
     
@@ -113,8 +127,15 @@ public class SpringAiModelRouter implements ModelRouter {
                     findBestModelsForRequirement(requirement);
             
             if (!filteredClients.isEmpty()) {
-                String bestProvider = filteredClients.keySet().iterator().next();
-                return adaptedClients.get(bestProvider);
+                List<String> candidates = filteredClients.keySet().stream()
+                        .filter(clientPipeline::isAvailable)
+                        .toList();
+                if (!candidates.isEmpty()) {
+                    String bestProvider = clientPipeline.isAdaptive()
+                            ? clientPipeline.selectFrom(candidates, priorityMap).orElseThrow()
+                            : candidates.get(0);
+                    return adaptedClients.get(bestProvider);
+                }
             }
         }
         
@@ -172,22 +193,26 @@ public class SpringAiModelRouter implements ModelRouter {
     
     @Override
     public void registerClient(String provider, ChatClient client) {
-        adaptedClients.put(provider, client);
+        register(provider, client);
         log.info("已注册提供商 [{}] 的适配模型客户端", provider);
     }
     
     @Override
     public void removeClient(String provider) {
         adaptedClients.remove(provider);
+        resilientClients.remove(provider);
         springAiClients.remove(provider);
+        clientPipeline.remove(provider);
         log.info("已移除提供商 [{}] 的模型客户端", provider);
     }
     
     /**
      * 设置模型的专长领域
      */
-    public void setExpertise(String provider, List<String> expertises) {
-        expertiseMap.put(provider, expertises);
+    public synchronized void setExpertise(String provider, List<String> expertises) {
+        Map<String, List<String>> updated = new HashMap<>(expertiseMap);
+        updated.put(provider, List.copyOf(expertises));
+        expertiseMap = Map.copyOf(updated);
     }
     
     /**
@@ -197,16 +222,52 @@ public class SpringAiModelRouter implements ModelRouter {
         priorityMap.put(provider, priority);
     }
     
+    /**
+     * 获取各提供商的实时统计
+     */
+    public Map<String, Map<String, Object>> getProviderStats() {
+        return clientPipeline.getProviderStats();
+    }
+    
+    /**
+     * 获取各提供商的熔断器状态
+     */
+    public Map<String, ?> getCircuitStates() {
+        return clientPipeline.getCircuitStates();
+    }
+    
+    /**
+     * 获取各提供商的限流状态
+     */
+    public Map<String, Map<String, Object>> getRateLimitMetrics() {
+        return clientPipeline.getRateLimitMetrics();
+    }
+    
+    /**
+     * 获取请求合并统计
+     */
+    public Map<String, Object> getCoalescingMetrics() {
+        return clientPipeline.getCoalescingMetrics();
+    }
+    
+    /**
+     * 装饰并登记客户端
+     */
+    private void register(String provider, ChatClient client) {
+        RouterClientPipeline.Decorated decorated = clientPipeline.decorate(provider, client,
+                () -> clientPipeline.hedgeTarget(resilientClients, provider, priorityMap));
+        resilientClients.put(provider, decorated.resilient());
+        adaptedClients.put(provider, decorated.client());
+    }
+    
     /**
      * 获取默认的模型客户端
      */
     private ChatClient getDefaultClient() {
-        // 返回优先级最高的客户端
-        return adaptedClients.entrySet().stream()
-                .sorted((e1, e2) -> priorityMap.getOrDefault(e2.getKey(), 0)
-                        .compareTo(priorityMap.getOrDefault(e1.getKey(), 0)))
-                .map(Map.Entry::getValue)
-                .findFirst()
+        // 返回可用提供商中得分最高的客户端
+        return clientPipeline.selectAvailable(adaptedClients.keySet(), null, priorityMap)
+                .map(adaptedClients::get)
                 .orElseThrow(() -> new IllegalStateException("没有可用的模型客户端"));
     }
-}
\ No newline at end of file
+}
+
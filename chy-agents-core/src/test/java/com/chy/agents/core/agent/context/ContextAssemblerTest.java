@@ -0,0 +1,144 @@
+package com.chy.agents.core.agent.context;
+
+import com.chy.agents.common.tokenizer.Tokenizer;
+import com.chy.agents.core.agent.AgentConfig;
+import com.chy.agents.core.chat.message.Message;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContextAssemblerTest {
+
+    private static final int OVERHEAD = ContextAssembler.MESSAGE_OVERHEAD_TOKENS;
+
+    /**
+     * 每个字符一个token
+     */
+    private static final Tokenizer CHARACTERS = new Tokenizer() {
+        @Override
+        public String getName() {
+            return "characters";
+        }
+
+        @Override
+        public int countTokens(String text) {
+            return text == null ? 0 : text.length();
+        }
+
+        @Override
+        public String truncate(String text, int maxTokens) {
+            return text.length() <= maxTokens ? text : text.substring(0, maxTokens);
+        }
+    };
+
+    private final ContextAssembler assembler = new ContextAssembler(CHARACTERS);
+
+    @Test
+    void packsByPriorityAndKeepsInputOrder() {
+        ContextItem system = ContextItem.system("s".repeat(10));
+        ContextItem tools = ContextItem.tools("t".repeat(10));
+        ContextItem memory = ContextItem.memory("m".repeat(10), 0);
+        ContextItem oldest = ContextItem.history(Message.Role.USER, "a".repeat(10), 0);
+        ContextItem older = ContextItem.history(Message.Role.ASSISTANT, "b".repeat(10), 1);
+        ContextItem newest = ContextItem.history(Message.Role.USER, "c".repeat(10), 2);
+        ContextItem input = ContextItem.input("i".repeat(10));
+
+        // 输入、系统提示、工具、最近两条历史恰好装满，最早的历史和优先级最低的记忆被丢弃
+        ContextAssembly assembly = assembler.assemble(
+                List.of(system, tools, memory, oldest, older, newest, input), 5 * (10 + OVERHEAD));
+
+        assertEquals(List.of(system, tools, older, newest, input), assembly.included());
+        assertEquals(List.of(oldest, memory), assembly.dropped());
+        assertTrue(assembly.truncated().isEmpty());
+        assertEquals(assembly.budget(), assembly.usedTokens());
+        assertEquals(List.of(older, newest), assembly.included(ContextItem.Kind.HISTORY));
+    }
+
+    @Test
+    void dropsOlderHistoryOnceOneMessageDoesNotFit() {
+        ContextItem system = ContextItem.system("s".repeat(10));
+        ContextItem small = ContextItem.history(Message.Role.USER, "x", 0);
+        ContextItem large = ContextItem.history(Message.Role.ASSISTANT, "y".repeat(40), 1);
+        ContextItem memory = ContextItem.memory("m", 0);
+        ContextItem input = ContextItem.input("i".repeat(10));
+
+        ContextAssembly assembly = assembler.assemble(List.of(system, small, large, memory, input),
+                2 * (10 + OVERHEAD) + 20);
+
+        // 更早的短消息放得下也不装入，历史保持连续；记忆不受影响
+        assertEquals(List.of(system, memory, input), assembly.included());
+        assertEquals(List.of(large, small), assembly.dropped());
+        assertTrue(assembly.isTrimmed());
+    }
+
+    @Test
+    void truncatesOptionalItemOnlyWithEnoughRoom() {
+        ContextItem system = ContextItem.system("s".repeat(10));
+        ContextItem tools = ContextItem.tools("t".repeat(100));
+        ContextItem input = ContextItem.input("i".repeat(10));
+        int required = 2 * (10 + OVERHEAD);
+
+        ContextAssembly fits = assembler.assemble(List.of(system, tools, input), required + OVERHEAD + 32);
+        assertEquals("t".repeat(32), fits.included(ContextItem.Kind.TOOLS).get(0).content());
+        assertEquals(List.of(tools), fits.truncated());
+        assertEquals(fits.budget(), fits.usedTokens());
+
+        ContextAssembly tooSmall = assembler.assemble(List.of(system, tools, input), required + OVERHEAD + 31);
+        assertTrue(tooSmall.included(ContextItem.Kind.TOOLS).isEmpty());
+        assertEquals(List.of(tools), tooSmall.dropped());
+        assertTrue(tooSmall.truncated().isEmpty());
+    }
+
+    @Test
+    void truncatesSystemPromptLargerThanBudget() {
+        ContextItem system = ContextItem.system("s".repeat(100));
+        ContextItem history = ContextItem.history(Message.Role.USER, "h", 0);
+        ContextItem input = ContextItem.input("i".repeat(10));
+
+        ContextAssembly assembly = assembler.assemble(List.of(system, history, input), 50);
+
+        // 当前输入先装入，系统提示截断到剩余预算
+        assertEquals("s".repeat(50 - 2 * OVERHEAD - 10),
+                assembly.included(ContextItem.Kind.SYSTEM).get(0).content());
+        assertEquals(input, assembly.included(ContextItem.Kind.INPUT).get(0));
+        assertEquals(List.of(history), assembly.dropped());
+        assertEquals(50, assembly.usedTokens());
+    }
+
+    @Test
+    void keepsRequiredItemsWhenBudgetCannotHoldThem() {
+        ContextItem system = ContextItem.system("s".repeat(100));
+        ContextItem input = ContextItem.input("i".repeat(10));
+
+        ContextAssembly assembly = assembler.assemble(List.of(system, input), OVERHEAD + 2);
+
+        assertEquals(2, assembly.included().size());
+        assertEquals("ii", assembly.included(ContextItem.Kind.INPUT).get(0).content());
+        assertEquals("", assembly.included(ContextItem.Kind.SYSTEM).get(0).content());
+        assertTrue(assembly.usedTokens() > assembly.budget());
+        assertEquals(List.of(input, system), assembly.truncated());
+    }
+
+    @Test
+    void reservesOutputTokens() {
+        assertEquals(8192 - 2048, ContextBudget.of(8192, 2048));
+        assertEquals(8192, ContextBudget.of(8192, -1));
+        // 输出预留不小于窗口时退化为窗口的一半
+        assertEquals(4096, ContextBudget.of(8192, 8192));
+
+        AgentConfig config = new AgentConfig();
+        config.setModelName("gpt-4o-mini");
+        config.setMaxTokens(4000);
+        assertEquals(128_000 - 4000, ContextBudget.of(config));
+
+        config.setParameter(ContextBudget.CONTEXT_WINDOW_PARAM, 16_000);
+        assertEquals(12_000, ContextBudget.of(config));
+
+        AgentConfig unknown = new AgentConfig();
+        assertEquals(ContextBudget.DEFAULT_CONTEXT_WINDOW - unknown.getMaxTokens(), ContextBudget.of(unknown));
+        assertEquals(32_768, ContextBudget.contextWindow("GPT-4-32K-0613"));
+    }
+}
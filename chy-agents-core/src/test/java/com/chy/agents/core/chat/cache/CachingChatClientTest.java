@@ -0,0 +1,126 @@
+package com.chy.agents.core.chat.cache;
+
+import com.chy.agents.core.chat.ChatClient;
+import com.chy.agents.core.chat.message.BaseMessage;
+import com.chy.agents.core.chat.message.Message;
+import com.chy.agents.core.chat.message.MessageDelta;
+import com.chy.agents.core.chat.prompt.Prompt;
+import com.chy.agents.storage.cache.CacheStorage;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CachingChatClientTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void servesRepeatedPromptFromCache() {
+        ChatClient client = caching(new FakeClient(() -> "答案", Flux::empty));
+
+        assertEquals("答案", client.call(Prompt.of("q")).getContent());
+        assertEquals("答案", client.callAsync(Prompt.of("q")).join().getContent());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void doesNotCacheBlankResponses() {
+        ChatClient client = caching(new FakeClient(() -> "  ", Flux::empty));
+
+        client.call(Prompt.of("q"));
+        client.callAsync(Prompt.of("q")).join();
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void cachesStreamThatStopped() {
+        ChatClient client = caching(new FakeClient(() -> "unused",
+                () -> Flux.just(MessageDelta.of("你", 0), MessageDelta.of("好", 1), MessageDelta.finish(2, "stop"))));
+
+        client.streamDeltas(Prompt.of("q")).blockLast();
+        String replayed = MessageDelta.join(client.streamDeltas(Prompt.of("q"))).block().getContent();
+
+        assertEquals("你好", replayed);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void doesNotCacheTruncatedOrUnfinishedStreams() {
+        ChatClient truncated = caching(new FakeClient(() -> "unused",
+                () -> Flux.just(MessageDelta.of("partial", 0), MessageDelta.finish(1, "length"))));
+        truncated.streamDeltas(Prompt.of("q")).blockLast();
+        truncated.streamDeltas(Prompt.of("q")).blockLast();
+        assertEquals(2, calls.get());
+
+        calls.set(0);
+        ChatClient unfinished = caching(new FakeClient(() -> "unused",
+                () -> Flux.just(MessageDelta.of("partial", 0))));
+        unfinished.streamDeltas(Prompt.of("q")).blockLast();
+        unfinished.streamDeltas(Prompt.of("q")).blockLast();
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void doesNotCacheEmptyStream() {
+        ChatClient client = caching(new FakeClient(() -> "unused", () -> Flux.just(MessageDelta.finish(0, "stop"))));
+
+        client.streamDeltas(Prompt.of("q")).blockLast();
+        client.streamDeltas(Prompt.of("q")).blockLast();
+        assertEquals(2, calls.get());
+    }
+
+    private static ChatClient caching(ChatClient delegate) {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setEnabled(true);
+        return new ResponseCache(new CacheStorage.InMemoryCacheStorage(), properties).decorate(delegate);
+    }
+
+    private class FakeClient implements ChatClient {
+
+        private final Supplier<String> content;
+        private final Supplier<Flux<MessageDelta>> deltas;
+
+        private FakeClient(Supplier<String> content, Supplier<Flux<MessageDelta>> deltas) {
+            this.content = content;
+            this.deltas = deltas;
+        }
+
+        @Override
+        public Message call(Prompt prompt) {
+            calls.incrementAndGet();
+            return BaseMessage.assistantMessage(content.get());
+        }
+
+        @Override
+        public CompletableFuture<Message> callAsync(Prompt prompt) {
+            return CompletableFuture.completedFuture(call(prompt));
+        }
+
+        @Override
+        public Flux<MessageDelta> streamDeltas(Prompt prompt) {
+            calls.incrementAndGet();
+            return deltas.get();
+        }
+
+        @Override
+        public Map<String, Object> getConfig() {
+            return Map.of();
+        }
+
+        @Override
+        public String getProvider() {
+            return "test";
+        }
+
+        @Override
+        public String getModel() {
+            return "test";
+        }
+    }
+}
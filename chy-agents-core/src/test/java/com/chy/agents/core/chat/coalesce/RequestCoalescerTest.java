@@ -0,0 +1,189 @@
+package com.chy.agents.core.chat.coalesce;
+
+import com.chy.agents.core.chat.message.BaseMessage;
+import com.chy.agents.core.chat.message.Message;
+import com.chy.agents.core.chat.message.MessageDelta;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestCoalescerTest {
+
+    private final RequestCoalescer coalescer = new RequestCoalescer(new CoalescingProperties());
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    @Test
+    void followersShareLeaderAsyncCall() {
+        CompletableFuture<Message> upstream = new CompletableFuture<>();
+
+        CompletableFuture<Message> leader = coalescer.callAsync("k", () -> count(upstream));
+        CompletableFuture<Message> follower = coalescer.callAsync("k", () -> count(upstream));
+        Message message = BaseMessage.assistantMessage("ok");
+        upstream.complete(message);
+
+        assertSame(message, leader.join());
+        assertSame(message, follower.join());
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(0, coalescer.getMetrics().get("inflightCalls"));
+    }
+
+    @Test
+    void cancellingOneFollowerDoesNotAffectOthers() {
+        CompletableFuture<Message> upstream = new CompletableFuture<>();
+        CompletableFuture<Message> leader = coalescer.callAsync("k", () -> count(upstream));
+        CompletableFuture<Message> follower = coalescer.callAsync("k", () -> count(upstream));
+
+        leader.cancel(true);
+        upstream.complete(BaseMessage.assistantMessage("ok"));
+
+        assertEquals("ok", follower.join().getContent());
+        assertFalse(upstream.isCancelled());
+    }
+
+    @Test
+    void asyncFailureReachesAllCallersAndIsNotRetained() {
+        CompletableFuture<Message> upstream = new CompletableFuture<>();
+        CompletableFuture<Message> leader = coalescer.callAsync("k", () -> count(upstream));
+        CompletableFuture<Message> follower = coalescer.callAsync("k", () -> count(upstream));
+
+        upstream.completeExceptionally(new IllegalStateException("boom"));
+
+        CompletionException error = assertThrows(CompletionException.class, follower::join);
+        assertEquals("boom", error.getCause().getMessage());
+        assertTrue(leader.isCompletedExceptionally());
+        coalescer.callAsync("k", () -> count(CompletableFuture.completedFuture(BaseMessage.assistantMessage("x"))));
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void blockingFollowerWaitsForLeader() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Message> leader = executor.submit(() -> coalescer.call("k", () -> {
+                upstreamCalls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return BaseMessage.assistantMessage("ok");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<Message> follower = executor.submit(() -> coalescer.call("k", () -> {
+                upstreamCalls.incrementAndGet();
+                return BaseMessage.assistantMessage("other");
+            }));
+            waitForCoalesced(1);
+            release.countDown();
+
+            assertEquals("ok", leader.get(5, TimeUnit.SECONDS).getContent());
+            assertEquals("ok", follower.get(5, TimeUnit.SECONDS).getContent());
+            assertEquals(1, upstreamCalls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void lateStreamSubscriberReplaysEarlierDeltas() {
+        Sinks.Many<MessageDelta> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        List<String> first = new CopyOnWriteArrayList<>();
+        List<String> second = new CopyOnWriteArrayList<>();
+
+        coalescer.stream("k", () -> count(upstream.asFlux())).subscribe(delta -> first.add(delta.getContent()));
+        upstream.tryEmitNext(MessageDelta.of("a", 0));
+        coalescer.stream("k", () -> count(Flux.empty())).subscribe(delta -> second.add(delta.getContent()));
+        upstream.tryEmitNext(MessageDelta.of("b", 1));
+        upstream.tryEmitComplete();
+
+        assertEquals(List.of("a", "b"), first);
+        assertEquals(List.of("a", "b"), second);
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(0, coalescer.getMetrics().get("inflightStreams"));
+    }
+
+    @Test
+    void streamErrorReachesAllSubscribers() {
+        Sinks.Many<MessageDelta> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        AtomicReference<Throwable> first = new AtomicReference<>();
+        AtomicReference<Throwable> second = new AtomicReference<>();
+
+        coalescer.stream("k", () -> count(upstream.asFlux())).subscribe(delta -> { }, first::set);
+        coalescer.stream("k", () -> count(upstream.asFlux())).subscribe(delta -> { }, second::set);
+        upstream.tryEmitError(new IllegalStateException("boom"));
+
+        assertEquals("boom", first.get().getMessage());
+        assertSame(first.get(), second.get());
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void cancellingAllSubscribersCancelsUpstreamAndNextRequestStartsFresh() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Flux<MessageDelta> never = Flux.<MessageDelta>never().doOnCancel(() -> cancelled.set(true));
+
+        Disposable first = coalescer.stream("k", () -> count(never)).subscribe();
+        Disposable second = coalescer.stream("k", () -> count(never)).subscribe();
+        first.dispose();
+        assertFalse(cancelled.get());
+        second.dispose();
+        assertTrue(cancelled.get());
+
+        // 关闭的共享流不会被重新连接，新请求发起独立的上游调用
+        List<String> received = coalescer.stream("k",
+                () -> count(Flux.just(MessageDelta.of("fresh", 0)))).map(MessageDelta::getContent).collectList().block();
+        assertEquals(List.of("fresh"), received);
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void completedStreamIsNotReplayedToLaterRequests() {
+        coalescer.stream("k", () -> count(Flux.just(MessageDelta.of("one", 0)))).blockLast();
+        List<String> received = coalescer.stream("k",
+                () -> count(Flux.just(MessageDelta.of("two", 0)))).map(MessageDelta::getContent).collectList().block();
+
+        assertEquals(List.of("two"), received);
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    private <T> T count(T upstream) {
+        upstreamCalls.incrementAndGet();
+        return upstream;
+    }
+
+    private void waitForCoalesced(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while ((long) coalescer.getMetrics().get("coalesced") < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        // 计数先于等待发生，留出进入join的时间
+        Thread.sleep(20);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.chy.agents.core.chat.message;
+
+import com.chy.agents.core.chat.message.Message.Role;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactMessageLogTest {
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new CompactMessageLog(0));
+    }
+
+    @Test
+    void storesRolesAndContent() {
+        CompactMessageLog log = new CompactMessageLog(10);
+        log.add(Role.SYSTEM, "系统提示");
+        log.add(Role.USER, "你好 😀");
+        log.add(Role.ASSISTANT, null);
+        log.add(Role.FUNCTION, "result");
+
+        assertEquals(4, log.size());
+        assertEquals(Role.USER, log.role(1));
+        assertEquals("你好 😀", log.content(1));
+        assertEquals("", log.content(2));
+        assertEquals(Role.FUNCTION, log.role(3));
+        assertEquals("系统提示".getBytes(StandardCharsets.UTF_8).length
+                + "你好 😀".getBytes(StandardCharsets.UTF_8).length + "result".length(), log.contentBytes());
+        assertThrows(IndexOutOfBoundsException.class, () -> log.content(4));
+    }
+
+    @Test
+    void convertsSpringAiMessages() {
+        CompactMessageLog log = new CompactMessageLog(10);
+        log.addAll(List.of(new SystemMessage("s"), new UserMessage("u"), new AssistantMessage("a")));
+
+        assertEquals(List.of(Role.SYSTEM, Role.USER, Role.ASSISTANT),
+                log.toMessages(10).stream().map(Message::getRole).toList());
+        List<org.springframework.ai.chat.messages.Message> restored = log.toSpringAiMessages(2);
+        assertEquals(List.of(MessageType.USER, MessageType.ASSISTANT),
+                restored.stream().map(org.springframework.ai.chat.messages.Message::getMessageType).toList());
+        assertEquals(List.of("u", "a"),
+                restored.stream().map(org.springframework.ai.chat.messages.Message::getContent).toList());
+    }
+
+    @Test
+    void dropsOldestBeyondCapacity() {
+        CompactMessageLog log = new CompactMessageLog(3);
+        for (int i = 0; i < 10; i++) {
+            log.add(Role.USER, "m" + i);
+        }
+        assertEquals(3, log.size());
+        assertEquals(List.of("m7", "m8", "m9"), contents(log));
+        assertEquals(6, log.contentBytes());
+    }
+
+    @Test
+    void replacesOldestMessages() {
+        CompactMessageLog log = new CompactMessageLog(5);
+        for (int i = 0; i < 5; i++) {
+            log.add(i % 2 == 0 ? Role.USER : Role.ASSISTANT, "m" + i);
+        }
+        log.replaceOldest(3, Role.SYSTEM, "summary");
+
+        assertEquals(List.of("summary", "m3", "m4"), contents(log));
+        assertEquals(Role.SYSTEM, log.role(0));
+        assertEquals(Role.ASSISTANT, log.role(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> log.replaceOldest(4, Role.SYSTEM, "x"));
+    }
+
+    @Test
+    void replacingNothingAtCapacityIsRejected() {
+        CompactMessageLog log = new CompactMessageLog(3);
+        for (int i = 0; i < 3; i++) {
+            log.add(Role.USER, "m" + i);
+        }
+
+        // 替换0条时新消息会在追加保留消息的过程中被挤出
+        assertThrows(IndexOutOfBoundsException.class, () -> log.replaceOldest(0, Role.SYSTEM, "summary"));
+        assertEquals(List.of("m0", "m1", "m2"), contents(log));
+
+        log.replaceOldest(1, Role.SYSTEM, "summary");
+        assertEquals(List.of("summary", "m1", "m2"), contents(log));
+        assertEquals(Role.SYSTEM, log.role(0));
+    }
+
+    @Test
+    void clearReleasesArena() {
+        CompactMessageLog log = new CompactMessageLog(5);
+        long empty = log.retainedBytes();
+        log.add(Role.USER, "x".repeat(4096));
+        assertTrue(log.retainedBytes() > empty + 4096);
+        log.clear();
+        assertTrue(log.isEmpty());
+        assertEquals(empty, log.retainedBytes());
+        assertEquals(0, log.contentBytes());
+    }
+
+    @Test
+    void matchesReferenceUnderChurn() {
+        Random random = new Random(11);
+        int capacity = 16;
+        CompactMessageLog log = new CompactMessageLog(capacity);
+        Deque<String> reference = new ArrayDeque<>();
+        for (int round = 0; round < 5_000; round++) {
+            String content = "中".repeat(random.nextInt(200)) + round;
+            log.add(Role.USER, content);
+            reference.addLast(content);
+            if (reference.size() > capacity) {
+                reference.removeFirst();
+            }
+            if (round % 97 == 0) {
+                assertEquals(new ArrayList<>(reference), contents(log));
+            }
+        }
+        assertEquals(new ArrayList<>(reference), contents(log));
+        long live = reference.stream().mapToLong(text -> text.getBytes(StandardCharsets.UTF_8).length).sum();
+        assertEquals(live, log.contentBytes());
+        // 字节区随有效内容收缩，不会保留历史峰值
+        assertTrue(log.retainedBytes() <= live * 4 + 1024, "arena not reclaimed: " + log.retainedBytes());
+    }
+
+    private static List<String> contents(CompactMessageLog log) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < log.size(); i++) {
+            result.add(log.content(i));
+        }
+        return result;
+    }
+}
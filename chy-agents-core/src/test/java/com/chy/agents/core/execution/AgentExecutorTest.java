@@ -0,0 +1,113 @@
+package com.chy.agents.core.execution;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.chy.agents.core.execution.ProviderBulkheadTest.waitUntil;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AgentExecutorTest {
+
+    private final AgentExecutorProperties properties = new AgentExecutorProperties();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private AgentExecutor executor;
+
+    AgentExecutorTest() {
+        properties.setVirtualThreads(false);
+        properties.setMaxConcurrentPerProvider(1);
+        properties.setMaxQueuePerProvider(0);
+        properties.setDefaultTimeout(1);
+    }
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    @Test
+    void saturatedProviderDoesNotBlockOthers() throws Exception {
+        executor = new AgentExecutor(properties);
+        CompletableFuture<String> slow = executor.submit("slow", this::blocked);
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> executor.submit("slow", () -> "overflow").get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+        assertEquals("fast", executor.submit("fast", () -> "fast").get(5, TimeUnit.SECONDS));
+        assertFalse(slow.isDone());
+
+        release.countDown();
+        assertEquals("slow", slow.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void resolvesBulkheadsCaseInsensitivelyWithOverrides() {
+        properties.getProviderConcurrency().put("OpenAI", 3);
+        executor = new AgentExecutor(properties);
+
+        assertSame(executor.getBulkhead("openai"), executor.getBulkhead("OPENAI"));
+        assertEquals(3, executor.getBulkhead("openai").getMaxConcurrent());
+        assertEquals(1, executor.getBulkhead("qwen").getMaxConcurrent());
+        assertSame(executor.getBulkhead(AgentExecutor.DEFAULT_PROVIDER), executor.getBulkhead(null));
+    }
+
+    @Test
+    void timeoutFailsFutureAndFreesTheSlot() throws Exception {
+        executor = new AgentExecutor(properties);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        CompletableFuture<String> future = executor.submitWithTimeout("slow", () -> {
+            try {
+                Thread.sleep(10_000);
+                return "late";
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw new IllegalStateException(e);
+            }
+        });
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        waitUntil(() -> executor.getBulkhead("slow").getActiveCount() == 0);
+        assertEquals("next", executor.submitWithTimeout("slow", () -> "next").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reportsMetricsPerProvider() throws Exception {
+        executor = new AgentExecutor(properties);
+        executor.submit("a", () -> "a").get(5, TimeUnit.SECONDS);
+        executor.submit("b", () -> "b").get(5, TimeUnit.SECONDS);
+
+        Map<String, Object> providers = (Map<String, Object>) executor.getMetrics().get("providers");
+
+        assertEquals("platform", executor.getMetrics().get("threadModel"));
+        assertEquals(2, providers.size());
+        assertEquals(1L, ((Map<String, Object>) providers.get("a")).get("completed"));
+    }
+
+    private String blocked() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "slow";
+    }
+}
@@ -0,0 +1,148 @@
+package com.chy.agents.core.execution;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProviderBulkheadTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void queuesThenRejectsWhenSaturated() throws Exception {
+        ProviderBulkhead bulkhead = new ProviderBulkhead("test", 1, 1);
+
+        CompletableFuture<String> running = bulkhead.submit(blocked("first"), executor, RejectionPolicy.ABORT);
+        CompletableFuture<String> queued = bulkhead.submit(() -> "second", executor, RejectionPolicy.ABORT);
+        CompletableFuture<String> rejected = bulkhead.submit(() -> "third", executor, RejectionPolicy.ABORT);
+
+        ExecutionException error = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+        assertEquals(1, bulkhead.getActiveCount());
+        assertEquals(1, bulkhead.getQueueDepth());
+        assertFalse(queued.isDone());
+
+        release.countDown();
+        assertEquals("first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("second", queued.get(5, TimeUnit.SECONDS));
+        waitUntil(() -> bulkhead.getActiveCount() == 0);
+        assertEquals(0, bulkhead.getQueueDepth());
+        assertEquals(1L, bulkhead.getMetrics().get("rejected"));
+        assertEquals(2L, bulkhead.getMetrics().get("completed"));
+    }
+
+    @Test
+    void runsOnCallerWhenSaturatedWithCallerRuns() throws Exception {
+        ProviderBulkhead bulkhead = new ProviderBulkhead("test", 1, 0);
+        bulkhead.submit(blocked("first"), executor, RejectionPolicy.CALLER_RUNS);
+
+        CompletableFuture<Thread> overflow = bulkhead.submit(Thread::currentThread, executor,
+                RejectionPolicy.CALLER_RUNS);
+
+        assertTrue(overflow.isDone());
+        assertEquals(Thread.currentThread(), overflow.get());
+        assertEquals(1, bulkhead.getActiveCount());
+    }
+
+    @Test
+    void skipsQueuedTaskCancelledBeforeItRuns() throws Exception {
+        ProviderBulkhead bulkhead = new ProviderBulkhead("test", 1, 1);
+        AtomicBoolean ran = new AtomicBoolean();
+        CompletableFuture<String> running = bulkhead.submit(blocked("first"), executor, RejectionPolicy.ABORT);
+        CompletableFuture<Boolean> queued = bulkhead.submit(() -> ran.getAndSet(true), executor,
+                RejectionPolicy.ABORT);
+
+        queued.cancel(true);
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        waitUntil(() -> bulkhead.getActiveCount() == 0);
+
+        assertFalse(ran.get());
+        assertEquals("next", bulkhead.submit(() -> "next", executor, RejectionPolicy.ABORT).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void interruptsTaskWhenFutureTimesOut() throws Exception {
+        ProviderBulkhead bulkhead = new ProviderBulkhead("test", 1, 0);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        CompletableFuture<String> future = bulkhead.submit(() -> {
+            try {
+                Thread.sleep(10_000);
+                return "late";
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw new IllegalStateException(e);
+            }
+        }, executor, RejectionPolicy.ABORT).orTimeout(50, TimeUnit.MILLISECONDS);
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        // 超时后槽位释放，后续任务不受中断标记影响
+        waitUntil(() -> bulkhead.getActiveCount() == 0);
+        assertFalse(bulkhead.submit(() -> Thread.currentThread().isInterrupted(), executor, RejectionPolicy.ABORT)
+                .get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failsTaskWhenExecutorRejects() {
+        ExecutorService closed = Executors.newSingleThreadExecutor();
+        closed.shutdown();
+        ProviderBulkhead bulkhead = new ProviderBulkhead("test", 1, 0);
+
+        CompletableFuture<String> future = bulkhead.submit(() -> "never", closed, RejectionPolicy.ABORT);
+
+        ExecutionException error = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+        assertEquals(0, bulkhead.getActiveCount());
+    }
+
+    @Test
+    void requiresPositiveConcurrency() {
+        assertThrows(IllegalArgumentException.class, () -> new ProviderBulkhead("test", 0, 1));
+    }
+
+    private <T> Supplier<T> blocked(T value) {
+        return () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return value;
+        };
+    }
+
+    static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,127 @@
+package com.chy.agents.core.router.adaptive;
+
+import com.chy.agents.core.chat.ChatClient;
+import com.chy.agents.core.chat.message.BaseMessage;
+import com.chy.agents.core.chat.message.Message;
+import com.chy.agents.core.chat.message.MessageDelta;
+import com.chy.agents.core.chat.prompt.Prompt;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProviderStatsRegistryTest {
+
+    private static final List<String> CANDIDATES = List.of("fast", "slow");
+
+    private final ProviderStatsRegistry registry = new ProviderStatsRegistry(properties());
+
+    @Test
+    void streamDurationDoesNotEnterLatencyWindow() {
+        ChatClient client = registry.instrument("fast", new DeltaClient(Flux.just(
+                MessageDelta.of("a", 0), MessageDelta.finish(1, "stop")).delayElements(Duration.ofMillis(20))));
+
+        client.streamDeltas(Prompt.of("hi")).blockLast();
+
+        ProviderStats stats = registry.getStats("fast");
+        assertEquals(-1, stats.getEwmaLatency());
+        assertEquals(-1, stats.getLatencyPercentile(0.99));
+        assertTrue(stats.getEwmaFirstToken() >= 0);
+        assertTrue(stats.getEwmaStreamDuration() >= stats.getEwmaFirstToken());
+    }
+
+    @Test
+    void recordsCancelledStreamsWithoutCountingErrors() {
+        ChatClient client = registry.instrument("fast", new DeltaClient(Flux.never()));
+
+        client.streamDeltas(Prompt.of("hi")).take(Duration.ofMillis(10)).blockLast();
+
+        Map<String, Object> snapshot = registry.snapshot().get("fast");
+        assertEquals(1L, snapshot.get("cancelledStreams"));
+        assertEquals(0L, snapshot.get("totalErrors"));
+        assertEquals(0.0, registry.getStats("fast").getErrorRate(0));
+    }
+
+    @Test
+    void slowFirstTokenDegradesProvider() {
+        registry.getStats("fast").recordFirstToken(100);
+        registry.getStats("slow").recordFirstToken(1_000);
+        registry.getStats("fast").recordStream(2_000, true);
+        registry.getStats("slow").recordStream(2_000, true);
+
+        assertTrue(registry.healthScore("slow", CANDIDATES) < registry.healthScore("fast", CANDIDATES));
+        assertTrue(registry.isDegraded("slow", CANDIDATES));
+        assertFalse(registry.isDegraded("fast", CANDIDATES));
+        assertEquals("fast", registry.selectBest(CANDIDATES, Map.of()).orElseThrow());
+    }
+
+    @Test
+    void tailLatencyDegradesProvider() {
+        ProviderStats fast = registry.getStats("fast");
+        ProviderStats slow = registry.getStats("slow");
+        for (int i = 0; i < 60; i++) {
+            fast.recordCall(100, true);
+        }
+        for (int i = 0; i < 50; i++) {
+            slow.recordCall(100, true);
+        }
+        // 一个长尾样本很快从EWMA中衰减，但决定了P99
+        slow.recordCall(2_000, true);
+        for (int i = 0; i < 10; i++) {
+            slow.recordCall(100, true);
+        }
+
+        assertTrue(slow.getEwmaLatency() < 150);
+        assertTrue(registry.isDegraded("slow", CANDIDATES));
+        assertTrue(registry.healthScore("slow", CANDIDATES) < registry.healthScore("fast", CANDIDATES));
+    }
+
+    private static AdaptiveRoutingProperties properties() {
+        AdaptiveRoutingProperties properties = new AdaptiveRoutingProperties();
+        properties.setEnabled(true);
+        properties.setWindowSize(128);
+        // 测试中不按空闲时间衰减
+        properties.setRecoveryHalfLifeMillis(0);
+        return properties;
+    }
+
+    private record DeltaClient(Flux<MessageDelta> deltas) implements ChatClient {
+
+        @Override
+        public Message call(Prompt prompt) {
+            return BaseMessage.assistantMessage("ok");
+        }
+
+        @Override
+        public CompletableFuture<Message> callAsync(Prompt prompt) {
+            return CompletableFuture.completedFuture(call(prompt));
+        }
+
+        @Override
+        public Flux<MessageDelta> streamDeltas(Prompt prompt) {
+            return deltas;
+        }
+
+        @Override
+        public Map<String, Object> getConfig() {
+            return Map.of();
+        }
+
+        @Override
+        public String getProvider() {
+            return "test";
+        }
+
+        @Override
+        public String getModel() {
+            return "test";
+        }
+    }
+}
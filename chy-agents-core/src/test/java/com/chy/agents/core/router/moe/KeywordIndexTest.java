@@ -0,0 +1,117 @@
+package com.chy.agents.core.router.moe;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class KeywordIndexTest {
+
+    private static final Map<String, Integer> PRIORITIES = Map.of("openai", 90, "alibaba", 80, "deepseek", 70);
+
+    private final SimpleKeywordMoeStrategy strategy = new SimpleKeywordMoeStrategy();
+
+    @Test
+    void matchesCjkPhraseWithoutSpaces() {
+        Map<String, List<String>> expertise = new LinkedHashMap<>();
+        expertise.put("openai", List.of("creative writing"));
+        expertise.put("deepseek", List.of("代码", "数学推理"));
+
+        KeywordIndex index = KeywordIndex.compile(expertise, PRIORITIES);
+
+        assertEquals("deepseek", index.selectBest("帮我写代码"));
+        assertEquals("deepseek", index.selectBest("这道数学推理题怎么做？"));
+        assertEquals(0.3, strategy.calculateMatchScore("帮我写代码", "代码"), 1e-9);
+    }
+
+    @Test
+    void matchesPhraseEmbeddedInLongerWord() {
+        Map<String, List<String>> expertise = new LinkedHashMap<>();
+        expertise.put("openai", List.of("script"));
+        expertise.put("alibaba", List.of("translation"));
+
+        KeywordIndex index = KeywordIndex.compile(expertise, PRIORITIES);
+
+        assertEquals("openai", index.selectBest("fix my typescript build"));
+        assertNull(index.selectBest("nothing relevant here"));
+    }
+
+    @Test
+    void agreesWithPerPhraseScoring() {
+        String[] vocabulary = {"代码", "编程", "数学", "推理", "翻译", "写作", "code", "coding", "math",
+                "reasoning", "translate", "story", "帮我", "一下", "python", "java"};
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            Map<String, List<String>> expertise = new LinkedHashMap<>();
+            for (String provider : PRIORITIES.keySet()) {
+                expertise.put(provider, List.of(phrase(random, vocabulary), phrase(random, vocabulary)));
+            }
+            KeywordIndex index = KeywordIndex.compile(expertise, PRIORITIES);
+
+            String input = phrase(random, vocabulary) + phrase(random, vocabulary) + " " + phrase(random, vocabulary);
+            assertEquals(bruteForce(input, expertise), index.selectBest(input), input + " / " + expertise);
+        }
+    }
+
+    @Test
+    void priorityChangeRecompilesCachedIndex() throws InterruptedException {
+        Map<String, List<String>> expertise = new LinkedHashMap<>();
+        expertise.put("openai", List.of("代码"));
+        expertise.put("deepseek", List.of("代码"));
+        assertEquals("openai", strategy.selectBestExpert("帮我写代码", expertise));
+
+        // 路由线程持续编译和写回索引，期间修改的优先级不能被过期索引覆盖
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread router = new Thread(() -> {
+            while (running.get()) {
+                strategy.selectBestExpert("帮我写代码", expertise);
+            }
+        });
+        router.start();
+        for (int i = 0; i < 1000; i++) {
+            strategy.setProviderPriority("deepseek", i % 2 == 0 ? 200 : 10);
+        }
+        strategy.setProviderPriority("deepseek", 200);
+        running.set(false);
+        router.join();
+
+        assertEquals("deepseek", strategy.selectBestExpert("帮我写代码", expertise));
+    }
+
+    /**
+     * 按原始逻辑逐个短语打分选出提供商
+     */
+    private String bruteForce(String input, Map<String, List<String>> expertise) {
+        int maxPriority = PRIORITIES.values().stream().max(Integer::compare).orElse(100);
+        String best = null;
+        double bestScore = 0.0;
+        for (Map.Entry<String, List<String>> entry : expertise.entrySet()) {
+            double score = 0.0;
+            for (String domain : entry.getValue()) {
+                score = Math.max(score, strategy.calculateMatchScore(input, domain));
+            }
+            score *= 1.0 + 0.5 * PRIORITIES.getOrDefault(entry.getKey(), 0) / maxPriority;
+            if (score > bestScore) {
+                bestScore = score;
+                best = entry.getKey();
+            }
+        }
+        return best;
+    }
+
+    private static String phrase(Random random, String[] vocabulary) {
+        StringBuilder builder = new StringBuilder(vocabulary[random.nextInt(vocabulary.length)]);
+        if (random.nextBoolean()) {
+            // 中文词直接拼接，英文词用空格分隔
+            String next = vocabulary[random.nextInt(vocabulary.length)];
+            builder.append(Character.isLetter(next.charAt(0)) && next.charAt(0) < 128 ? " " : "").append(next);
+        }
+        return builder.toString();
+    }
+}
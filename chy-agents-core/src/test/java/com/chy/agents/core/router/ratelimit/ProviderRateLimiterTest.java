@@ -0,0 +1,105 @@
+package com.chy.agents.core.router.ratelimit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProviderRateLimiterTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void grantsWithinRequestLimitAndQueuesTheRest() {
+        ProviderRateLimiter limiter = limiter(2, 0, 10, 30_000);
+
+        assertTrue(limiter.acquire(1).isDone());
+        assertTrue(limiter.acquire(1).isDone());
+        CompletableFuture<Void> third = limiter.acquire(1);
+
+        assertFalse(third.isDone());
+        assertEquals(1, limiter.getQueueDepth());
+        assertTrue(limiter.isSaturated());
+    }
+
+    @Test
+    void releasesQueuedRequestsInArrivalOrderAsTokensRefill() throws Exception {
+        // 每秒补充10个token
+        ProviderRateLimiter limiter = limiter(0, 600, 10, 30_000);
+        assertTrue(limiter.acquire(600).isDone());
+
+        CompletableFuture<Void> large = limiter.acquire(5);
+        CompletableFuture<Void> small = limiter.acquire(1);
+
+        small.get(5, TimeUnit.SECONDS);
+        // 队首未满足前不会放行后到的小请求
+        assertTrue(large.isDone());
+        assertEquals(0, limiter.getQueueDepth());
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() {
+        ProviderRateLimiter limiter = limiter(1, 0, 1, 30_000);
+        limiter.acquire(1);
+        CompletableFuture<Void> queued = limiter.acquire(1);
+
+        CompletableFuture<Void> rejected = limiter.acquire(1);
+
+        assertFalse(queued.isDone());
+        ExecutionException error = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+        assertEquals(1L, limiter.getMetrics().get("rejected"));
+    }
+
+    @Test
+    void rejectsAfterMaxWait() {
+        ProviderRateLimiter limiter = limiter(0, 600, 10, 50);
+        limiter.acquire(600);
+
+        CompletableFuture<Void> waiting = limiter.acquire(600);
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+    }
+
+    @Test
+    void clampsRequestsLargerThanCapacity() {
+        ProviderRateLimiter limiter = limiter(0, 600, 10, 30_000);
+
+        assertTrue(limiter.acquire(100_000).isDone());
+        assertFalse(limiter.acquire(1).isDone());
+    }
+
+    @Test
+    void unlimitedWhenLimitsAreZero() {
+        ProviderRateLimiter limiter = limiter(0, 0, 0, 30_000);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(limiter.acquire(1_000_000).isDone());
+        }
+        assertFalse(limiter.isSaturated());
+    }
+
+    private ProviderRateLimiter limiter(int rpm, int tpm, int maxQueue, long maxWaitMillis) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setRpm(rpm);
+        limit.setTpm(tpm);
+        return new ProviderRateLimiter("test:model", limit, maxQueue, maxWaitMillis, scheduler);
+    }
+}
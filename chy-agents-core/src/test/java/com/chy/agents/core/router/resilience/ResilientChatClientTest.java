@@ -0,0 +1,173 @@
+package com.chy.agents.core.router.resilience;
+
+import com.chy.agents.common.exception.AgentException;
+import com.chy.agents.core.chat.ChatClient;
+import com.chy.agents.core.chat.message.BaseMessage;
+import com.chy.agents.core.chat.message.Message;
+import com.chy.agents.core.chat.prompt.Prompt;
+import com.chy.agents.core.execution.ProviderBulkhead;
+import com.chy.agents.core.execution.RejectionPolicy;
+import com.chy.agents.core.router.adaptive.InstrumentedChatClient;
+import com.chy.agents.core.router.adaptive.ProviderStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResilientChatClientTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ProviderBulkhead bulkhead = new ProviderBulkhead("test", 1, 10);
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger interrupted = new AtomicInteger();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void timeoutInterruptsCallAndReleasesSlotBeforeRetry() throws Exception {
+        ProviderStats stats = new ProviderStats("test", 0.3, 16);
+        ChatClient client = resilient(new InstrumentedChatClient(new BulkheadClient(this::hang), stats),
+                properties(), 1, Duration.ofMillis(100));
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> client.callAsync(Prompt.of("hi")).get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        // 舱壁只有一个槽位，重试能够执行说明超时的调用已释放槽位
+        assertEquals(2, calls.get());
+        await(() -> bulkhead.getActiveCount() == 0 && interrupted.get() == 2);
+        await(() -> Long.valueOf(2).equals(stats.snapshot(0).get("totalErrors")));
+    }
+
+    @Test
+    void cancellingResultInterruptsInFlightCall() throws Exception {
+        ResilientChatClient client = resilient(new InstrumentedChatClient(new BulkheadClient(this::hang),
+                new ProviderStats("test", 0.3, 16)), properties(), 0, Duration.ofSeconds(30));
+
+        CompletableFuture<Message> result = client.callWithRetry(Prompt.of("hi"));
+        await(() -> calls.get() == 1);
+        result.cancel(true);
+
+        await(() -> bulkhead.getActiveCount() == 0 && interrupted.get() == 1);
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitBreaker().getState());
+    }
+
+    @Test
+    void retriesTransientFailures() {
+        ChatClient client = resilient(new BulkheadClient(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new IllegalStateException("boom");
+            }
+            return BaseMessage.assistantMessage("ok");
+        }), properties(), 2, Duration.ofSeconds(5));
+
+        assertEquals("ok", client.call(Prompt.of("hi")).getContent());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void openCircuitRejectsWithoutCallingProvider() {
+        ResilienceProperties properties = properties();
+        properties.setMinimumCalls(2);
+        properties.setSlidingWindowSize(2);
+        ResilientChatClient client = resilient(new BulkheadClient(() -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }), properties, 0, Duration.ofSeconds(5));
+
+        assertThrows(IllegalStateException.class, () -> client.call(Prompt.of("a")));
+        assertThrows(IllegalStateException.class, () -> client.call(Prompt.of("b")));
+        AgentException open = assertThrows(AgentException.class, () -> client.call(Prompt.of("c")));
+
+        assertEquals(AgentException.ErrorCode.RESOURCE_ERROR, open.getErrorCode());
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitBreaker().getState());
+        assertEquals(2, calls.get());
+    }
+
+    private Message hang() {
+        calls.incrementAndGet();
+        try {
+            Thread.sleep(10_000);
+        } catch (InterruptedException e) {
+            interrupted.incrementAndGet();
+            throw new IllegalStateException("interrupted", e);
+        }
+        return BaseMessage.assistantMessage("late");
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static ResilienceProperties properties() {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.setBackoffBaseMillis(1);
+        properties.setBackoffMaxMillis(5);
+        return properties;
+    }
+
+    private static ResilientChatClient resilient(ChatClient delegate, ResilienceProperties properties,
+                                                 int maxRetries, Duration timeout) {
+        return new ResilientChatClient("test", delegate, new CircuitBreaker("test", properties), properties,
+                maxRetries, timeout, null, null);
+    }
+
+    /**
+     * 像模型客户端一样在提供商舱壁中执行调用
+     */
+    private class BulkheadClient implements ChatClient {
+
+        private final Supplier<Message> task;
+
+        private BulkheadClient(Supplier<Message> task) {
+            this.task = task;
+        }
+
+        @Override
+        public Message call(Prompt prompt) {
+            return task.get();
+        }
+
+        @Override
+        public CompletableFuture<Message> callAsync(Prompt prompt) {
+            return bulkhead.submit(task, executor, RejectionPolicy.ABORT);
+        }
+
+        @Override
+        public Map<String, Object> getConfig() {
+            return Map.of();
+        }
+
+        @Override
+        public String getProvider() {
+            return "test";
+        }
+
+        @Override
+        public String getModel() {
+            return "test";
+        }
+    }
+}
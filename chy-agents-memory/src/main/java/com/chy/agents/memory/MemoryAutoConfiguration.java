@@ -1,12 +1,17 @@
 package com.chy.agents.memory;
 
 import com.chy.agents.memory.longterm.LongTermMemory;
+import com.chy.agents.memory.longterm.LongTermMemoryProperties;
 import com.chy.agents.memory.shortterm.ShortTermMemory;
+import com.chy.agents.memory.tiered.TieredMemoryProperties;
+import com.chy.agents.memory.tiered.TieredMemoryStore;
 import org.springframework.ai.embedding.EmbeddingClient;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 
@@ -15,6 +20,7 @@ import org.springframework.context.annotation.ComponentScan;
  * 用于自动配置记忆相关的组件
  */
 @AutoConfiguration
+@EnableConfigurationProperties({LongTermMemoryProperties.class, TieredMemoryProperties.class})
 @ComponentScan(basePackageClasses = {Memory.class})
 public class MemoryAutoConfiguration {
 
@@ -29,12 +35,24 @@ public class MemoryAutoConfiguration {
     
     /**
      * 配置长期记忆
-     * 需要依赖VectorStore和EmbeddingClient
+     * 需要依赖VectorStore和EmbeddingClient，关闭时写完尚未持久化的记忆
      */
-    @Bean
+    @Bean(destroyMethod = "close")
     @ConditionalOnBean({VectorStore.class, EmbeddingClient.class})
     @ConditionalOnMissingBean
-    public LongTermMemory longTermMemory(VectorStore vectorStore, EmbeddingClient embeddingClient) {
-        return new LongTermMemory(vectorStore, embeddingClient);
+    public LongTermMemory longTermMemory(VectorStore vectorStore, EmbeddingClient embeddingClient,
+                                         LongTermMemoryProperties properties) {
+        return new LongTermMemory(vectorStore, embeddingClient, properties);
+    }
+    
+    /**
+     * 配置分层记忆注册表
+     * 最近消息保留在堆内，较早消息移入内存映射的段文件
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "chy.agents.memory.tiered", name = "enabled", havingValue = "true")
+    @ConditionalOnMissingBean
+    public TieredMemoryStore tieredMemoryStore(TieredMemoryProperties properties) {
+        return new TieredMemoryStore(properties);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+package com.chy.agents.memory.longterm;
+
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 长期记忆混合排序
+ * 按相似度、时间衰减（指数半衰）和重要性的加权和为候选打分，取得分最高的若干条
+ */
+public class HybridMemoryRanker {
+
+    private final LongTermMemoryProperties.Retrieval properties;
+
+    public HybridMemoryRanker(LongTermMemoryProperties.Retrieval properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 为候选打分并排序
+     *
+     * @param candidates 候选
+     * @param limit 返回条数
+     * @param now 当前时间（毫秒）
+     * @param toMessage 文档到消息的转换
+     * @return 按得分降序排列的结果
+     */
+    public List<MemoryHit> rank(MemoryCandidates candidates, int limit, long now,
+                                Function<Document, Message> toMessage) {
+        int n = candidates.size();
+        if (n == 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        double[] similarities = candidates.similarities();
+        long[] timestamps = candidates.timestamps();
+        double[] importances = candidates.importances();
+        double[] recencies = new double[n];
+        double[] scores = new double[n];
+
+        // 半衰期换算为每毫秒的衰减率：recency = exp(-lambda * age)
+        double halfLifeMillis = Math.max(1.0, properties.getRecencyHalfLifeHours() * 3_600_000.0);
+        double lambda = Math.log(2) / halfLifeMillis;
+        double ws = properties.getSimilarityWeight();
+        double wr = properties.getRecencyWeight();
+        double wi = properties.getImportanceWeight();
+        for (int i = 0; i < n; i++) {
+            long age = timestamps[i] > 0 ? Math.max(0L, now - timestamps[i]) : Long.MAX_VALUE;
+            recencies[i] = age == Long.MAX_VALUE ? 0.0 : Math.exp(-lambda * age);
+            scores[i] = ws * similarities[i] + wr * recencies[i] + wi * importances[i];
+        }
+
+        int[] top = topIndices(scores, Math.min(limit, n), properties.getMinScore());
+        List<MemoryHit> hits = new ArrayList<>(top.length);
+        for (int index : top) {
+            Document document = candidates.document(index);
+            hits.add(new MemoryHit(document.getId(), toMessage.apply(document), scores[index],
+                    similarities[index], recencies[index], importances[index]));
+        }
+        return hits;
+    }
+
+    /**
+     * 选出得分最高的k个下标（得分相同时保留检索顺序），k远小于候选数，插入选择即可
+     */
+    private static int[] topIndices(double[] scores, int k, double minScore) {
+        int[] top = new int[k];
+        int size = 0;
+        for (int i = 0; i < scores.length; i++) {
+            double score = scores[i];
+            if (score < minScore || (size == k && score <= scores[top[k - 1]])) {
+                continue;
+            }
+            int position = size < k ? size++ : k - 1;
+            while (position > 0 && scores[top[position - 1]] < score) {
+                top[position] = top[position - 1];
+                position--;
+            }
+            top[position] = i;
+        }
+        return size == k ? top : Arrays.copyOf(top, size);
+    }
+}
@@ -1,35 +1,86 @@
 package com.chy.agents.memory.longterm;
 
+import com.chy.agents.core.chat.message.Message.Role;
 import com.chy.agents.memory.Memory;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.messages.Message;
-import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.document.Document;
 import org.springframework.ai.embedding.EmbeddingClient;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Component;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
  * 长期记忆实现
- * 用于存储和检索历史对话中的重要信息
+ * 用于存储和检索历史对话中的重要信息。
+ * 默认异步写入：消息进入有界队列后立即返回，由后台线程按批向量化并写入向量存储，对话延迟不包含记忆写入。
+ * 检索时过取候选，按相似度、时间衰减和重要性重新打分，可按会话、代理等元数据过滤。
+ * 在Spring中由{@link com.chy.agents.memory.MemoryAutoConfiguration}按配置创建。
  */
-@Component
-public class LongTermMemory implements Memory {
+@Slf4j
+public class LongTermMemory implements Memory, AutoCloseable {
+
+    /**
+     * 元数据：会话ID
+     */
+    public static final String SESSION_ID_KEY = "sessionId";
+
+    /**
+     * 元数据：代理ID
+     */
+    public static final String AGENT_ID_KEY = "agentId";
+
+    /**
+     * 元数据：重要性（0-1）
+     */
+    public static final String IMPORTANCE_KEY = "importance";
+
+    /**
+     * 元数据：消息类型
+     */
+    public static final String MESSAGE_TYPE_KEY = "messageType";
+
+    /**
+     * 元数据：写入时间（毫秒）
+     */
+    public static final String TIMESTAMP_KEY = "timestamp";
 
     private final VectorStore vectorStore;
     private final EmbeddingClient embeddingClient;
+    private final WriteBehindWriter<Document> writer;
+    private final LongTermMemoryProperties.Retrieval retrieval;
+    private final HybridMemoryRanker ranker;
+    private final MemoryCandidateCache candidateCache;
 
-    @Autowired(required = false)
+    /**
+     * 使用默认配置创建
+     *
+     * @param vectorStore 向量存储
+     * @param embeddingClient 嵌入客户端
+     */
     public LongTermMemory(VectorStore vectorStore, EmbeddingClient embeddingClient) {
+        this(vectorStore, embeddingClient, new LongTermMemoryProperties());
+    }
+
+    public LongTermMemory(VectorStore vectorStore, EmbeddingClient embeddingClient,
+                          LongTermMemoryProperties properties) {
         this.vectorStore = vectorStore;
         this.embeddingClient = embeddingClient;
+        this.retrieval = properties.getRetrieval();
+        this.ranker = new HybridMemoryRanker(retrieval);
+        this.candidateCache = new MemoryCandidateCache(retrieval.getCandidateCacheSize(),
+                retrieval.getCandidateCacheTtlMillis());
+        this.writer = vectorStore != null && properties.getWriteBehind().isEnabled()
+                ? new WriteBehindWriter<>("chy-memory-writer", properties.getWriteBehind(), this::store)
+                : null;
     }
 
     /**
@@ -59,13 +110,55 @@ public class LongTermMemory implements Memory {
         
         // 添加消息类型到元数据
         Map<String, Object> enhancedMetadata = new HashMap<>(metadata);
-        enhancedMetadata.put("messageType", message.getMessageType().toString());
-        enhancedMetadata.put("timestamp", System.currentTimeMillis());
+        enhancedMetadata.put(MESSAGE_TYPE_KEY, message.getMessageType().getValue());
+        enhancedMetadata.putIfAbsent(TIMESTAMP_KEY, System.currentTimeMillis());
+        Document document = new Document(id, content, enhancedMetadata);
         
+        if (writer != null) {
+            writer.submit(document);
+            return;
+        }
         try {
-            vectorStore.add(List.of(content), List.of(id), List.of(enhancedMetadata));
+            store(List.of(document));
         } catch (Exception e) {
-            e.printStackTrace();
+            log.warn("长期记忆写入失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 批量写入向量存储，写入后使相关的候选缓存失效
+     */
+    private void store(List<Document> documents) {
+        vectorStore.add(documents);
+        candidateCache.invalidate(documents);
+    }
+
+    /**
+     * 等待已提交的消息全部写入
+     *
+     * @param timeoutMillis 最长等待时间（毫秒）
+     * @return 是否在超时前写完
+     */
+    public boolean flush(long timeoutMillis) {
+        return writer == null || writer.flush(timeoutMillis);
+    }
+
+    /**
+     * 获取写入统计
+     *
+     * @return 统计映射，同步写入时为空
+     */
+    public Map<String, Object> getWriteMetrics() {
+        return writer != null ? writer.getMetrics() : new HashMap<>();
+    }
+
+    /**
+     * 关闭时写完队列中剩余的消息
+     */
+    @Override
+    public void close() {
+        if (writer != null) {
+            writer.close();
         }
     }
 
@@ -91,28 +184,121 @@ public class LongTermMemory implements Memory {
      */
     @Override
     public List<Message> search(String query, int limit) {
-        if (vectorStore == null || embeddingClient == null) {
+        return search(query, limit, Map.of());
+    }
+
+    /**
+     * 根据查询获取满足过滤条件的相关记忆
+     *
+     * @param query 查询内容
+     * @param limit 结果数量限制
+     * @param filter 元数据过滤条件（如{@link #SESSION_ID_KEY}、{@link #AGENT_ID_KEY}），按值相等匹配
+     * @return 按综合得分降序排列的消息
+     */
+    public List<Message> search(String query, int limit, Map<String, Object> filter) {
+        List<Message> messages = new ArrayList<>();
+        for (MemoryHit hit : searchScored(query, limit, filter)) {
+            messages.add(hit.message());
+        }
+        return messages;
+    }
+
+    /**
+     * 混合检索：过取向量近邻候选，按相似度、时间衰减和重要性重新打分
+     *
+     * @param query 查询内容
+     * @param limit 结果数量限制
+     * @param filter 元数据过滤条件，按值相等匹配
+     * @return 按综合得分降序排列的检索结果
+     */
+    public List<MemoryHit> searchScored(String query, int limit, Map<String, Object> filter) {
+        if (vectorStore == null || embeddingClient == null || query == null || limit <= 0) {
             return new ArrayList<>();
         }
         
+        Map<String, Object> conditions = new HashMap<>();
+        if (filter != null) {
+            filter.forEach((key, value) -> {
+                if (value != null) {
+                    conditions.put(key, value);
+                }
+            });
+        }
+        int topK = (int) Math.min((long) limit * Math.max(1, retrieval.getOverFetchFactor()),
+                Math.max(limit, retrieval.getMaxCandidates()));
+        
         try {
-            SearchRequest request = SearchRequest.builder()
-                .query(query)
-                .topK(limit)
-                .build();
-                
-            return vectorStore.similaritySearch(request).stream()
-                .map(document -> new UserMessage(
-                    document.getContent(), 
-                    document.getMetadata().getOrDefault("messageType", "user").toString()
-                ))
-                .collect(Collectors.toList());
+            MemoryCandidates candidates = candidateCache.get(conditions, query, topK);
+            if (candidates == null) {
+                List<Document> results = search(query, topK, conditions);
+                candidates = toCandidates(results, conditions);
+                // 以过滤前的结果数判断是否取尽，二次过滤掉的文档不代表没有更多匹配
+                candidateCache.put(conditions, query, candidates, results.size() < topK);
+            }
+            return ranker.rank(candidates, limit, System.currentTimeMillis(), LongTermMemory::toMessage);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.warn("长期记忆检索失败: {}", e.getMessage());
             return new ArrayList<>();
         }
     }
 
+    private List<Document> search(String query, int topK, Map<String, Object> conditions) {
+        SearchRequest.Builder request = SearchRequest.builder()
+            .query(query)
+            .topK(topK);
+        Filter.Expression expression = filterExpression(conditions);
+        if (expression != null) {
+            request.filterExpression(expression);
+        }
+        List<Document> results = vectorStore.similaritySearch(request.build());
+        return results != null ? results : List.of();
+    }
+
+    private MemoryCandidates toCandidates(List<Document> results, Map<String, Object> conditions) {
+        List<Document> documents = new ArrayList<>();
+        for (Document document : results) {
+            // 不支持元数据过滤的向量存储会忽略过滤表达式，这里再校验一次
+            if (MemoryCandidateCache.matches(conditions, document.getMetadata())) {
+                documents.add(document);
+            }
+        }
+        return MemoryCandidates.of(documents, retrieval.getDefaultImportance());
+    }
+
+    private static Filter.Expression filterExpression(Map<String, Object> conditions) {
+        FilterExpressionBuilder builder = new FilterExpressionBuilder();
+        FilterExpressionBuilder.Op op = null;
+        for (Map.Entry<String, Object> condition : conditions.entrySet()) {
+            FilterExpressionBuilder.Op eq = builder.eq(condition.getKey(), condition.getValue());
+            op = op == null ? eq : builder.and(op, eq);
+        }
+        return op != null ? op.build() : null;
+    }
+
+    /**
+     * 按存储的消息类型还原消息
+     */
+    private static Message toMessage(Document document) {
+        Role role = com.chy.agents.core.chat.message.Message.roleOf(
+                messageType(document.getMetadata().get(MESSAGE_TYPE_KEY)));
+        return com.chy.agents.core.chat.message.Message.springAiMessage(role, document.getContent());
+    }
+
+    /**
+     * 解析消息类型，兼容按枚举名称存储的旧数据
+     */
+    private static MessageType messageType(Object value) {
+        if (value != null) {
+            String text = value.toString();
+            for (MessageType type : MessageType.values()) {
+                if (type.getValue().equalsIgnoreCase(text) || type.name().equalsIgnoreCase(text)) {
+                    return type;
+                }
+            }
+        }
+        return MessageType.USER;
+    }
+
     /**
      * 清空记忆
      * 长期记忆不支持清空操作
@@ -134,8 +320,9 @@ public class LongTermMemory implements Memory {
         
         try {
             vectorStore.delete(List.of(id));
+            candidateCache.clear();
         } catch (Exception e) {
-            e.printStackTrace();
+            log.warn("长期记忆删除失败: {}", e.getMessage());
         }
     }
 } 
\ No newline at end of file
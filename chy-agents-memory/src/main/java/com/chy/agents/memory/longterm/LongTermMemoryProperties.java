@@ -0,0 +1,127 @@
+package com.chy.agents.memory.longterm;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 长期记忆配置
+ */
+@Data
+@ConfigurationProperties(prefix = "chy.agents.memory.long-term")
+public class LongTermMemoryProperties {
+
+    /**
+     * 写入配置
+     */
+    private WriteBehind writeBehind = new WriteBehind();
+
+    /**
+     * 检索配置
+     */
+    private Retrieval retrieval = new Retrieval();
+
+    /**
+     * 异步批量写入配置
+     */
+    @Data
+    public static class WriteBehind {
+
+        /**
+         * 是否启用异步写入，关闭时在调用线程上同步写入
+         */
+        private boolean enabled = true;
+
+        /**
+         * 待写入队列容量
+         */
+        private int queueCapacity = 10_000;
+
+        /**
+         * 单批最大文档数
+         */
+        private int batchSize = 64;
+
+        /**
+         * 攒批的最长等待时间（毫秒），从批中第一条消息入队开始计算
+         */
+        private long flushIntervalMillis = 500;
+
+        /**
+         * 队列已满时调用方的最长等待时间（毫秒），超时后丢弃该消息
+         */
+        private long offerTimeoutMillis = 50;
+
+        /**
+         * 写入失败后的最大重试次数
+         */
+        private int maxRetries = 3;
+
+        /**
+         * 首次重试的退避时间（毫秒），之后每次翻倍
+         */
+        private long retryBackoffMillis = 200;
+
+        /**
+         * 关闭时等待剩余消息写完的最长时间（毫秒）
+         */
+        private long shutdownTimeoutMillis = 30_000;
+    }
+
+    /**
+     * 混合检索配置
+     * 最终得分 = 相似度权重 * 相似度 + 时间权重 * 时间衰减 + 重要性权重 * 重要性
+     */
+    @Data
+    public static class Retrieval {
+
+        /**
+         * 候选过取倍数，向量检索取 limit * overFetchFactor 条候选后重新打分
+         */
+        private int overFetchFactor = 4;
+
+        /**
+         * 单次检索的最大候选数
+         */
+        private int maxCandidates = 200;
+
+        /**
+         * 相似度权重
+         */
+        private double similarityWeight = 0.6;
+
+        /**
+         * 时间衰减权重
+         */
+        private double recencyWeight = 0.25;
+
+        /**
+         * 重要性权重
+         */
+        private double importanceWeight = 0.15;
+
+        /**
+         * 时间衰减半衰期（小时）
+         */
+        private double recencyHalfLifeHours = 72;
+
+        /**
+         * 未指定重要性的记忆的默认重要性（0-1）
+         */
+        private double defaultImportance = 0.5;
+
+        /**
+         * 最低得分，低于该得分的记忆不返回
+         */
+        private double minScore = 0.0;
+
+        /**
+         * 候选缓存的最大条目数（按过滤条件和查询缓存），0表示不缓存
+         */
+        private int candidateCacheSize = 256;
+
+        /**
+         * 候选缓存的有效期（毫秒）
+         */
+        private long candidateCacheTtlMillis = 30_000;
+    }
+}
@@ -0,0 +1,138 @@
+package com.chy.agents.memory.longterm;
+
+import org.springframework.ai.document.Document;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * 长期记忆候选缓存
+ * 按过滤条件（会话、代理）和查询缓存向量检索的候选，同一会话内重复或追问式的检索无需再次向量化和访问向量存储。
+ * 候选只缓存原始相似度等字段，时间衰减在每次检索时重新计算；新记忆写入后，过滤条件与之匹配的缓存立即失效。
+ */
+public class MemoryCandidateCache {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public MemoryCandidateCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 获取缓存的候选
+     *
+     * @param filter 过滤条件
+     * @param query 查询内容
+     * @param minCandidates 需要的最少候选数
+     * @return 候选，未命中、已过期或候选不足时返回null
+     */
+    public MemoryCandidates get(Map<String, Object> filter, String query, int minCandidates) {
+        if (maxEntries <= 0) {
+            return null;
+        }
+        String key = key(filter, query);
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - entry.fetchedAt > ttlMillis) {
+                entries.remove(key);
+                return null;
+            }
+            // 上次检索已取尽全部匹配时，候选数少于需要也是完整结果
+            return entry.candidates.size() >= minCandidates || entry.exhausted ? entry.candidates : null;
+        }
+    }
+
+    /**
+     * 缓存候选
+     *
+     * @param filter 过滤条件
+     * @param query 查询内容
+     * @param candidates 候选
+     * @param exhausted 向量检索返回的结果（过滤前）是否少于请求数，即已取尽全部匹配
+     */
+    public void put(Map<String, Object> filter, String query, MemoryCandidates candidates, boolean exhausted) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key(filter, query), new Entry(Map.copyOf(filter), candidates, exhausted,
+                    System.currentTimeMillis()));
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 新文档写入后使可能包含它的缓存失效
+     *
+     * @param documents 已写入的文档
+     */
+    public void invalidate(List<Document> documents) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        synchronized (entries) {
+            entries.values().removeIf(entry -> documents.stream()
+                    .anyMatch(document -> matches(entry.filter, document.getMetadata())));
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * 元数据是否满足过滤条件
+     */
+    static boolean matches(Map<String, Object> filter, Map<String, Object> metadata) {
+        for (Map.Entry<String, Object> condition : filter.entrySet()) {
+            Object value = metadata.get(condition.getKey());
+            if (value == null || !Objects.equals(value.toString(), String.valueOf(condition.getValue()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String key(Map<String, Object> filter, String query) {
+        StringBuilder key = new StringBuilder();
+        new TreeMap<>(filter).forEach((name, value) -> key.append(name).append('=').append(value).append('\u0001'));
+        return key.append('\u0002').append(query).toString();
+    }
+
+    /**
+     * 缓存条目
+     *
+     * @param filter 过滤条件
+     * @param candidates 候选
+     * @param exhausted 是否已取尽全部匹配
+     * @param fetchedAt 检索时间
+     */
+    private record Entry(Map<String, Object> filter, MemoryCandidates candidates, boolean exhausted,
+                         long fetchedAt) {
+    }
+}
@@ -0,0 +1,111 @@
+package com.chy.agents.memory.longterm;
+
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 向量检索得到的候选记忆
+ * 以并列数组保存打分所需的字段，重新打分时只做一次顺序遍历，不再访问元数据映射
+ */
+public final class MemoryCandidates {
+
+    private final Document[] documents;
+    private final double[] similarities;
+    private final long[] timestamps;
+    private final double[] importances;
+
+    private MemoryCandidates(Document[] documents, double[] similarities, long[] timestamps, double[] importances) {
+        this.documents = documents;
+        this.similarities = similarities;
+        this.timestamps = timestamps;
+        this.importances = importances;
+    }
+
+    /**
+     * 从向量检索结果提取候选
+     *
+     * @param documents 检索结果（按相似度降序）
+     * @param defaultImportance 未记录重要性时的默认值
+     * @return 候选
+     */
+    public static MemoryCandidates of(List<Document> documents, double defaultImportance) {
+        int n = documents.size();
+        Document[] docs = documents.toArray(new Document[0]);
+        double[] similarities = new double[n];
+        long[] timestamps = new long[n];
+        double[] importances = new double[n];
+        for (int i = 0; i < n; i++) {
+            Map<String, Object> metadata = docs[i].getMetadata();
+            similarities[i] = similarity(docs[i]);
+            timestamps[i] = toLong(metadata.get(LongTermMemory.TIMESTAMP_KEY), 0L);
+            importances[i] = clamp(toDouble(metadata.get(LongTermMemory.IMPORTANCE_KEY), defaultImportance));
+        }
+        return new MemoryCandidates(docs, similarities, timestamps, importances);
+    }
+
+    public int size() {
+        return documents.length;
+    }
+
+    public Document document(int index) {
+        return documents[index];
+    }
+
+    double[] similarities() {
+        return similarities;
+    }
+
+    long[] timestamps() {
+        return timestamps;
+    }
+
+    double[] importances() {
+        return importances;
+    }
+
+    /**
+     * 向量存储返回的相似度；没有得分时由距离换算
+     */
+    private static double similarity(Document document) {
+        Double score = document.getScore();
+        if (score != null) {
+            return clamp(score);
+        }
+        Object distance = document.getMetadata().get("distance");
+        return distance != null ? clamp(1.0 - toDouble(distance, 1.0)) : 0.0;
+    }
+
+    private static double clamp(double value) {
+        return Double.isNaN(value) ? 0.0 : Math.max(0.0, Math.min(1.0, value));
+    }
+
+    private static long toLong(Object value, long defaultValue) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value != null) {
+            try {
+                return Long.parseLong(value.toString());
+            } catch (NumberFormatException ignored) {
+                // 使用默认值
+            }
+        }
+        return defaultValue;
+    }
+
+    private static double toDouble(Object value, double defaultValue) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value != null) {
+            try {
+                return Double.parseDouble(value.toString());
+            } catch (NumberFormatException ignored) {
+                // 使用默认值
+            }
+        }
+        return defaultValue;
+    }
+}
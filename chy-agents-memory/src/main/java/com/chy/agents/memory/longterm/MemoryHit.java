@@ -0,0 +1,17 @@
+package com.chy.agents.memory.longterm;
+
+import org.springframework.ai.chat.messages.Message;
+
+/**
+ * 长期记忆检索结果
+ *
+ * @param id 记忆ID
+ * @param message 按存储的消息类型还原的消息
+ * @param score 综合得分
+ * @param similarity 相似度
+ * @param recency 时间衰减（1为刚写入）
+ * @param importance 重要性
+ */
+public record MemoryHit(String id, Message message, double score, double similarity,
+                        double recency, double importance) {
+}
@@ -0,0 +1,240 @@
+package com.chy.agents.memory.longterm;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 异步批量写入器
+ * 调用方把条目放入有界队列后立即返回；后台线程按批大小或等待时间攒批，批量交给写入函数，失败时指数退避重试。
+ * 队列已满时调用方最多等待配置的时间，超时后丢弃条目（背压不会无限拖慢调用方）。
+ * 关闭时不再接受新条目，并在超时时间内写完队列中剩余的条目。
+ *
+ * @param <T> 条目类型
+ */
+@Slf4j
+public class WriteBehindWriter<T> implements AutoCloseable {
+
+    /**
+     * 空闲时轮询队列的间隔，用于及时发现关闭
+     */
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final String name;
+    private final Consumer<List<T>> sink;
+    private final LongTermMemoryProperties.WriteBehind properties;
+    private final BlockingQueue<T> queue;
+    private final Thread worker;
+    private volatile boolean closed;
+
+    /**
+     * 已入队与已处理（写入成功或最终失败）的条目数，用于实现flush
+     */
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicInteger flushWaiters = new AtomicInteger();
+    private final Object progress = new Object();
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    public WriteBehindWriter(String name, LongTermMemoryProperties.WriteBehind properties, Consumer<List<T>> sink) {
+        this.name = name;
+        this.properties = properties;
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 提交条目
+     *
+     * @param item 条目
+     * @return 是否已入队，已关闭或队列持续已满时返回false
+     */
+    public boolean submit(T item) {
+        if (closed) {
+            rejected.increment();
+            return false;
+        }
+        try {
+            if (queue.offer(item, properties.getOfferTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                accepted.incrementAndGet();
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejected.increment();
+        log.warn("写入队列 [{}] 已满，丢弃一条记录", name);
+        return false;
+    }
+
+    /**
+     * 等待此前提交的条目全部处理完毕
+     *
+     * @param timeoutMillis 最长等待时间（毫秒）
+     * @return 是否在超时前处理完毕
+     */
+    public boolean flush(long timeoutMillis) {
+        long target = accepted.get();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        flushWaiters.incrementAndGet();
+        try {
+            synchronized (progress) {
+                while (processed.get() < target) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    progress.wait(remaining);
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            flushWaiters.decrementAndGet();
+        }
+    }
+
+    /**
+     * 获取待写入的条目数
+     */
+    public int getPending() {
+        return queue.size();
+    }
+
+    /**
+     * 获取写入统计
+     *
+     * @return 统计映射
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("pending", queue.size());
+        metrics.put("written", written.sum());
+        metrics.put("failed", failed.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("batches", batches.sum());
+        metrics.put("retries", retries.sum());
+        return metrics;
+    }
+
+    /**
+     * 关闭写入器，在超时时间内写完剩余条目
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            worker.join(properties.getShutdownTimeoutMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            log.warn("写入队列 [{}] 关闭超时，{} 条记录未写入", name, queue.size());
+            worker.interrupt();
+        }
+    }
+
+    private void run() {
+        List<T> batch = new ArrayList<>(properties.getBatchSize());
+        while (true) {
+            try {
+                T first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed && queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+            } catch (InterruptedException e) {
+                // 只有关闭超时才会中断，放弃剩余条目
+                Thread.currentThread().interrupt();
+                return;
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * 攒批：达到批大小、等待超时、有flush等待或正在关闭时结束
+     */
+    private void collect(List<T> batch) throws InterruptedException {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMillis());
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            if (batch.size() >= batchSize || closed || flushWaiters.get() > 0) {
+                return;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            T next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<T> batch) {
+        int size = batch.size();
+        try {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    sink.accept(List.copyOf(batch));
+                    written.add(size);
+                    batches.increment();
+                    return;
+                } catch (RuntimeException e) {
+                    if (attempt >= properties.getMaxRetries()) {
+                        failed.add(size);
+                        log.error("写入队列 [{}] 批量写入失败，放弃 {} 条记录: {}", name, size, e.getMessage());
+                        return;
+                    }
+                    retries.increment();
+                    long backoff = properties.getRetryBackoffMillis() << Math.min(attempt, 16);
+                    log.warn("写入队列 [{}] 批量写入失败，{} 毫秒后重试: {}", name, backoff, e.getMessage());
+                    try {
+                        Thread.sleep(backoff);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        failed.add(size);
+                        return;
+                    }
+                }
+            }
+        } finally {
+            processed.addAndGet(size);
+            synchronized (progress) {
+                progress.notifyAll();
+            }
+        }
+    }
+}
@@ -1,22 +1,23 @@
 package com.chy.agents.memory.shortterm;
 
+import com.chy.agents.common.utils.RingBuffer;
+import com.chy.agents.core.agent.Agent;
 import com.chy.agents.memory.Memory;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * 短期记忆实现
- * 用于在对话过程中保存最近的对话消息
+ * 用于在对话过程中保存最近的对话消息，同时可直接作为代理记忆使用。
+ * 消息存放在无锁环形缓冲区中，追加不复制已有消息，读取最近消息不加锁。
  */
 @Component
-public class ShortTermMemory implements Memory {
+public class ShortTermMemory implements Memory, Agent.Memory {
 
-    private final List<Message> messages = new CopyOnWriteArrayList<>();
+    private final RingBuffer<Message> messages;
     private final int maxSize;
 
     public ShortTermMemory() {
@@ -25,6 +26,7 @@ public class ShortTermMemory implements Memory {
 
     public ShortTermMemory(int maxSize) {
         this.maxSize = maxSize;
+        this.messages = new RingBuffer<>(maxSize);
     }
 
     /**
@@ -34,11 +36,8 @@ public class ShortTermMemory implements Memory {
      */
     @Override
     public void add(Message message) {
+        // 超过最大大小时最旧的消息被覆盖
         messages.add(message);
-        // 如果超过最大大小，删除最旧的消息
-        if (messages.size() > maxSize) {
-            messages.remove(0);
-        }
     }
 
     /**
@@ -62,11 +61,7 @@ public class ShortTermMemory implements Memory {
      */
     @Override
     public List<Message> get(int limit) {
-        int size = messages.size();
-        if (size <= limit) {
-            return new ArrayList<>(messages);
-        }
-        return new ArrayList<>(messages.subList(size - limit, size));
+        return messages.last(limit);
     }
 
     /**
@@ -97,6 +92,6 @@ public class ShortTermMemory implements Memory {
      * @return 消息列表
      */
     public List<Message> getMessages() {
-        return new ArrayList<>(messages);
+        return messages.toList();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,403 @@
+package com.chy.agents.memory.tiered;
+
+import com.chy.agents.common.utils.MappedBuffers;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 内存映射的分段追加日志
+ * 记录按序号追加到固定大小的段文件中，段文件整体映射到内存，堆上只保留每条记录在段内的偏移（每条4字节），
+ * 按序号读取单条记录时直接定位，无需反序列化整个历史。超出保留范围的整段文件在压缩时删除。
+ * <p>
+ * 段文件名为段内第一条记录的序号；记录格式：[int 记录体长度][byte 角色][long 时间][UTF-8内容]，
+ * 长度为0表示段内数据结束（新映射的文件内容全为0）。启动时扫描段文件重建偏移索引，不完整的尾部记录被忽略。
+ * 保留范围的下界保存在映射的{@value #FLOOR_FILE}文件中（8字节），重启后已逻辑删除的记录不会重新出现。
+ * 段文件删除或日志关闭时立即释放映射，不等待垃圾回收。
+ */
+@Slf4j
+public class MappedSegmentLog implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final String FLOOR_FILE = "floor";
+
+    /**
+     * 记录头长度：长度、角色、时间
+     */
+    private static final int HEADER_BYTES = 4 + 1 + 8;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final List<Segment> segments = new ArrayList<>();
+    private long nextSequence;
+    private MappedByteBuffer floorBuffer;
+
+    /**
+     * 保留范围的下界，小于该序号的记录视为已删除
+     */
+    private long floorSequence;
+
+    public MappedSegmentLog(Path directory, int segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        try {
+            Files.createDirectories(directory);
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open segment log " + directory, e);
+        }
+    }
+
+    /**
+     * 追加记录
+     *
+     * @param role 角色
+     * @param timestamp 时间（毫秒）
+     * @param content 内容
+     * @return 记录序号
+     */
+    public synchronized long append(byte role, long timestamp, String content) {
+        byte[] utf8 = content != null ? content.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int recordBytes = HEADER_BYTES + utf8.length;
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        // 段尾需留出4字节的结束标记
+        if (segment == null || segment.position + recordBytes + 4 > segment.buffer.capacity()) {
+            segment = newSegment(nextSequence, recordBytes + 4);
+        }
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = segment.position;
+        buffer.put(offset + 4, role);
+        buffer.putLong(offset + 5, timestamp);
+        buffer.put(offset + HEADER_BYTES, utf8);
+        // 最后写入长度，读取方看到长度时记录体已完整
+        buffer.putInt(offset, recordBytes - 4);
+        segment.addOffset(offset);
+        segment.position = offset + recordBytes;
+        return nextSequence++;
+    }
+
+    /**
+     * 读取记录
+     *
+     * @param sequence 序号
+     * @return 记录，超出保留范围时返回null
+     */
+    public synchronized Record read(long sequence) {
+        if (sequence < floorSequence || sequence >= nextSequence) {
+            return null;
+        }
+        Segment segment = segmentOf(sequence);
+        return segment != null ? decode(segment, segment.offset(sequence)) : null;
+    }
+
+    /**
+     * 从新到旧查找内容包含指定文本的记录
+     * 直接在映射的字节上按UTF-8匹配，不解码不匹配的记录
+     *
+     * @param text 查找的文本
+     * @param limit 最多返回条数
+     * @param beforeSequence 只查找小于该序号的记录
+     * @return 从新到旧排列的匹配记录
+     */
+    public synchronized List<Record> searchBackward(String text, int limit, long beforeSequence) {
+        List<Record> result = new ArrayList<>();
+        byte[] needle = text.getBytes(StandardCharsets.UTF_8);
+        long end = Math.min(beforeSequence, nextSequence);
+        for (int s = segments.size() - 1; s >= 0 && result.size() < limit; s--) {
+            Segment segment = segments.get(s);
+            long first = Math.max(segment.firstSequence, floorSequence);
+            long last = Math.min(segment.firstSequence + segment.count, end);
+            for (long sequence = last - 1; sequence >= first && result.size() < limit; sequence--) {
+                int offset = segment.offset(sequence);
+                int length = segment.buffer.getInt(offset) - (HEADER_BYTES - 4);
+                if (contains(segment.buffer, offset + HEADER_BYTES, length, needle)) {
+                    result.add(decode(segment, offset));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 删除小于指定序号的记录（逻辑删除，整段失效后在压缩时删除文件）
+     *
+     * @param sequence 新的保留下界
+     */
+    public synchronized void retainFrom(long sequence) {
+        long floor = Math.max(floorSequence, Math.min(sequence, nextSequence));
+        if (floor != floorSequence) {
+            setFloor(floor);
+        }
+    }
+
+    /**
+     * 压缩：删除所有记录都已超出保留范围的段文件
+     *
+     * @return 删除的段数
+     */
+    public synchronized int compact() {
+        int removed = 0;
+        while (!segments.isEmpty()) {
+            Segment oldest = segments.get(0);
+            boolean active = segments.size() == 1;
+            if (oldest.firstSequence + oldest.count > floorSequence || active) {
+                break;
+            }
+            segments.remove(0);
+            deleteSegment(oldest);
+            removed++;
+        }
+        return removed;
+    }
+
+    /**
+     * 清空日志并删除所有段文件，序号继续递增
+     */
+    public synchronized void clear() {
+        segments.forEach(this::deleteSegment);
+        segments.clear();
+        setFloor(nextSequence);
+    }
+
+    public synchronized long getFirstSequence() {
+        return floorSequence;
+    }
+
+    public synchronized long getNextSequence() {
+        return nextSequence;
+    }
+
+    public synchronized long size() {
+        return nextSequence - floorSequence;
+    }
+
+    /**
+     * 段文件数
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * 段文件占用的磁盘字节数
+     */
+    public synchronized long getMappedBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.buffer.capacity();
+        }
+        return bytes;
+    }
+
+    /**
+     * 将映射写回磁盘并释放映射
+     */
+    @Override
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+            MappedBuffers.unmap(segment.buffer);
+        }
+        segments.clear();
+        if (floorBuffer != null) {
+            floorBuffer.force();
+            MappedBuffers.unmap(floorBuffer);
+            floorBuffer = null;
+        }
+    }
+
+    private void open() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        for (Path file : files) {
+            long firstSequence = Long.parseLong(file.getFileName().toString().replace(SEGMENT_SUFFIX, ""));
+            if (!segments.isEmpty() && firstSequence != nextSequence) {
+                // 序号不连续（如中间段被手工删除），之前的段不再可读
+                log.warn("段日志 [{}] 序号不连续，忽略 {} 之前的记录", directory, firstSequence);
+                segments.forEach(this::deleteSegment);
+                segments.clear();
+            }
+            Segment segment = map(file, firstSequence, (int) Files.size(file));
+            scan(segment);
+            segments.add(segment);
+            nextSequence = firstSequence + segment.count;
+        }
+        floorBuffer = mapFloor();
+        long persistedFloor = floorBuffer.getLong(0);
+        if (segments.isEmpty()) {
+            // 清空后没有段文件，序号从保存的下界继续
+            nextSequence = Math.max(nextSequence, persistedFloor);
+        }
+        long first = segments.isEmpty() ? nextSequence : segments.get(0).firstSequence;
+        floorSequence = Math.min(Math.max(first, persistedFloor), nextSequence);
+    }
+
+    private MappedByteBuffer mapFloor() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory.resolve(FLOOR_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+        }
+    }
+
+    /**
+     * 更新保留下界，写入映射的下界文件（只是一次内存写入，由操作系统回写）
+     */
+    private void setFloor(long floor) {
+        floorSequence = floor;
+        if (floorBuffer == null) {
+            try {
+                floorBuffer = mapFloor();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map segment log floor " + directory, e);
+            }
+        }
+        floorBuffer.putLong(0, floor);
+    }
+
+    /**
+     * 扫描段内记录重建偏移索引，遇到结束标记或不完整的记录时停止
+     */
+    private static void scan(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        while (position + HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length < HEADER_BYTES - 4 || position + 4 + length > buffer.capacity()) {
+                break;
+            }
+            segment.addOffset(position);
+            position += 4 + length;
+        }
+        segment.position = position;
+    }
+
+    private Segment newSegment(long firstSequence, int minBytes) {
+        Path file = directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX));
+        try {
+            Segment segment = map(file, firstSequence, Math.max(segmentBytes, minBytes));
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create segment " + file, e);
+        }
+    }
+
+    private static Segment map(Path file, long firstSequence, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // 映射在通道关闭后仍然有效
+            return new Segment(file, firstSequence, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    /**
+     * 释放段的映射并删除文件，调用方需保证之后不再访问该段
+     */
+    private void deleteSegment(Segment segment) {
+        MappedBuffers.unmap(segment.buffer);
+        try {
+            Files.deleteIfExists(segment.file);
+        } catch (IOException e) {
+            log.warn("删除段文件 [{}] 失败: {}", segment.file, e.getMessage());
+        }
+    }
+
+    private Segment segmentOf(long sequence) {
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Segment segment = segments.get(mid);
+            if (sequence < segment.firstSequence) {
+                high = mid - 1;
+            } else if (sequence >= segment.firstSequence + segment.count) {
+                low = mid + 1;
+            } else {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    private static Record decode(Segment segment, int offset) {
+        MappedByteBuffer buffer = segment.buffer;
+        int length = buffer.getInt(offset) - (HEADER_BYTES - 4);
+        byte[] content = new byte[length];
+        buffer.get(offset + HEADER_BYTES, content);
+        return new Record(buffer.get(offset + 4), buffer.getLong(offset + 5),
+                new String(content, StandardCharsets.UTF_8));
+    }
+
+    private static boolean contains(MappedByteBuffer buffer, int start, int length, byte[] needle) {
+        if (needle.length == 0) {
+            return true;
+        }
+        int last = start + length - needle.length;
+        outer:
+        for (int i = start; i <= last; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (buffer.get(i + j) != needle[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 日志记录
+     *
+     * @param role 角色
+     * @param timestamp 时间（毫秒）
+     * @param content 内容
+     */
+    public record Record(byte role, long timestamp, String content) {
+    }
+
+    /**
+     * 段文件
+     */
+    private static final class Segment {
+        private final Path file;
+        private final long firstSequence;
+        private final MappedByteBuffer buffer;
+        private int[] offsets = new int[64];
+        private int count;
+        private int position;
+
+        private Segment(Path file, long firstSequence, MappedByteBuffer buffer) {
+            this.file = file;
+            this.firstSequence = firstSequence;
+            this.buffer = buffer;
+        }
+
+        private void addOffset(int offset) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = offset;
+        }
+
+        private int offset(long sequence) {
+            return offsets[(int) (sequence - firstSequence)];
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.chy.agents.memory.tiered;
+
+import com.chy.agents.core.agent.Agent;
+import com.chy.agents.core.chat.message.CompactMessageLog;
+import com.chy.agents.memory.Memory;
+import org.springframework.ai.chat.messages.Message;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分层记忆
+ * 最近的消息保存在堆内的紧凑环形日志中（热层），被挤出的较早消息追加到内存映射的分段日志（温层），
+ * 堆内存只与热层容量有关。读取最近消息时热层不够再按序号从温层补足，无需反序列化整个历史；
+ * 搜索在温层的映射字节上直接匹配。
+ */
+public class TieredMemory implements Memory, Agent.Memory, AutoCloseable {
+
+    private static final com.chy.agents.core.chat.message.Message.Role[] ROLES =
+            com.chy.agents.core.chat.message.Message.Role.values();
+
+    private final CompactMessageLog hot;
+    private final MappedSegmentLog warm;
+    private final long maxWarmMessages;
+
+    public TieredMemory(Path directory, TieredMemoryProperties properties) {
+        this.hot = new CompactMessageLog(Math.max(1, properties.getHotCapacity()));
+        this.warm = new MappedSegmentLog(directory, properties.getSegmentBytes());
+        this.maxWarmMessages = properties.getMaxWarmMessages();
+    }
+
+    /**
+     * 添加消息，热层已满时最早的消息移入温层
+     *
+     * @param message 消息对象
+     */
+    @Override
+    public synchronized void add(Message message) {
+        if (hot.size() == hot.getMaxMessages()) {
+            warm.append((byte) hot.role(0).ordinal(), System.currentTimeMillis(), hot.content(0));
+            warm.retainFrom(warm.getNextSequence() - maxWarmMessages);
+        }
+        hot.add(message);
+    }
+
+    /**
+     * 添加消息及其元数据，分层记忆忽略元数据
+     *
+     * @param message 消息对象
+     * @param metadata 相关元数据
+     */
+    @Override
+    public void add(Message message, Map<String, Object> metadata) {
+        add(message);
+    }
+
+    /**
+     * 获取最近的消息，热层不足时从温层补足
+     *
+     * @param limit 消息数量
+     * @return 从旧到新排列的消息
+     */
+    @Override
+    public synchronized List<Message> get(int limit) {
+        List<Message> recent = hot.toSpringAiMessages(limit);
+        int missing = limit - recent.size();
+        if (missing <= 0) {
+            return recent;
+        }
+        long next = warm.getNextSequence();
+        long from = Math.max(warm.getFirstSequence(), next - missing);
+        List<Message> result = new ArrayList<>((int) (next - from) + recent.size());
+        for (long sequence = from; sequence < next; sequence++) {
+            MappedSegmentLog.Record record = warm.read(sequence);
+            if (record != null) {
+                result.add(toMessage(record));
+            }
+        }
+        result.addAll(recent);
+        return result;
+    }
+
+    /**
+     * 查找内容包含查询文本的消息，先查热层再查温层
+     *
+     * @param query 查询内容
+     * @param limit 结果数量限制
+     * @return 从新到旧排列的匹配消息
+     */
+    @Override
+    public synchronized List<Message> search(String query, int limit) {
+        if (query == null || query.isEmpty()) {
+            return get(limit);
+        }
+        List<Message> result = new ArrayList<>();
+        for (int i = hot.size() - 1; i >= 0 && result.size() < limit; i--) {
+            String content = hot.content(i);
+            if (content.contains(query)) {
+                result.add(com.chy.agents.core.chat.message.Message.springAiMessage(hot.role(i), content));
+            }
+        }
+        if (result.size() < limit) {
+            for (MappedSegmentLog.Record record : warm.searchBackward(query, limit - result.size(),
+                    warm.getNextSequence())) {
+                result.add(toMessage(record));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 清空记忆并删除段文件
+     */
+    @Override
+    public synchronized void clear() {
+        hot.clear();
+        warm.clear();
+    }
+
+    /**
+     * 获取所有保留的消息（包括温层）
+     *
+     * @return 从旧到新排列的消息
+     */
+    public List<Message> getMessages() {
+        return Collections.unmodifiableList(get((int) Math.min(Integer.MAX_VALUE, size())));
+    }
+
+    /**
+     * 保留的消息总数
+     */
+    public synchronized long size() {
+        return hot.size() + warm.size();
+    }
+
+    /**
+     * 压缩温层：删除已超出保留范围的段文件
+     *
+     * @return 删除的段数
+     */
+    public int compact() {
+        return warm.compact();
+    }
+
+    /**
+     * 热层占用的估算堆内存字节数
+     */
+    public long getHeapBytes() {
+        return hot.retainedBytes();
+    }
+
+    /**
+     * 温层段文件占用的字节数
+     */
+    public long getMappedBytes() {
+        return warm.getMappedBytes();
+    }
+
+    /**
+     * 关闭时热层消息也写入温层，重启后可从温层恢复
+     */
+    @Override
+    public synchronized void close() {
+        for (int i = 0; i < hot.size(); i++) {
+            warm.append((byte) hot.role(i).ordinal(), System.currentTimeMillis(), hot.content(i));
+        }
+        hot.clear();
+        warm.close();
+    }
+
+    private static Message toMessage(MappedSegmentLog.Record record) {
+        int role = record.role();
+        return com.chy.agents.core.chat.message.Message.springAiMessage(
+                role >= 0 && role < ROLES.length ? ROLES[role] : ROLES[1], record.content());
+    }
+}
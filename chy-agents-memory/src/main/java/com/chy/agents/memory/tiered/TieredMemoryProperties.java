@@ -0,0 +1,42 @@
+package com.chy.agents.memory.tiered;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 分层记忆配置
+ */
+@Data
+@ConfigurationProperties(prefix = "chy.agents.memory.tiered")
+public class TieredMemoryProperties {
+
+    /**
+     * 是否启用分层记忆
+     */
+    private boolean enabled = false;
+
+    /**
+     * 段文件根目录，每个代理或会话一个子目录
+     */
+    private String directory = "./data/memory";
+
+    /**
+     * 堆内热层保留的最近消息数
+     */
+    private int hotCapacity = 50;
+
+    /**
+     * 单个段文件大小（字节）
+     */
+    private int segmentBytes = 4 * 1024 * 1024;
+
+    /**
+     * 温层（映射文件）保留的最大消息数，超出的较早消息在压缩时删除
+     */
+    private long maxWarmMessages = 100_000;
+
+    /**
+     * 后台压缩间隔（秒）
+     */
+    private long compactionIntervalSeconds = 300;
+}
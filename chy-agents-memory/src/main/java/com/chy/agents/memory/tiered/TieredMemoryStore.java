@@ -0,0 +1,128 @@
+package com.chy.agents.memory.tiered;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分层记忆注册表
+ * 按代理或会话ID创建并复用分层记忆，由一个后台线程定期压缩所有记忆的温层
+ */
+@Slf4j
+public class TieredMemoryStore implements AutoCloseable {
+
+    /**
+     * 直接编码为目录名的ID最大字节数，十六进制编码后不超过文件名长度限制（255）
+     */
+    private static final int MAX_ENCODED_ID_BYTES = 120;
+
+    /**
+     * 摘要目录名的前缀，不是十六进制字符，不会与编码的目录名冲突
+     */
+    private static final String HASHED_PREFIX = "h-";
+
+    private final TieredMemoryProperties properties;
+    private final Path root;
+    private final Map<String, TieredMemory> memories = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService compactor;
+
+    public TieredMemoryStore(TieredMemoryProperties properties) {
+        this.properties = properties;
+        this.root = Path.of(properties.getDirectory());
+        this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chy-memory-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, properties.getCompactionIntervalSeconds());
+        compactor.scheduleWithFixedDelay(this::compactAll, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 获取代理或会话的分层记忆，不存在时创建（已有段文件时从中恢复）
+     *
+     * @param ownerId 代理或会话ID
+     * @return 分层记忆
+     */
+    public TieredMemory forOwner(String ownerId) {
+        return memories.computeIfAbsent(ownerId, id -> new TieredMemory(root.resolve(directoryName(id)), properties));
+    }
+
+    /**
+     * 关闭并移除记忆（段文件保留）
+     *
+     * @param ownerId 代理或会话ID
+     */
+    public void release(String ownerId) {
+        TieredMemory memory = memories.remove(ownerId);
+        if (memory != null) {
+            memory.close();
+        }
+    }
+
+    /**
+     * 获取统计信息
+     *
+     * @return 统计映射
+     */
+    public Map<String, Object> getMetrics() {
+        long heapBytes = 0;
+        long mappedBytes = 0;
+        for (TieredMemory memory : memories.values()) {
+            heapBytes += memory.getHeapBytes();
+            mappedBytes += memory.getMappedBytes();
+        }
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("memories", memories.size());
+        metrics.put("heapBytes", heapBytes);
+        metrics.put("mappedBytes", mappedBytes);
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        compactor.shutdownNow();
+        memories.values().forEach(TieredMemory::close);
+        memories.clear();
+    }
+
+    private void compactAll() {
+        for (Map.Entry<String, TieredMemory> entry : memories.entrySet()) {
+            try {
+                int removed = entry.getValue().compact();
+                if (removed > 0) {
+                    log.debug("记忆 [{}] 删除了 {} 个过期段文件", entry.getKey(), removed);
+                }
+            } catch (RuntimeException e) {
+                log.warn("压缩记忆 [{}] 失败: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * ID转换为安全且唯一的目录名
+     * 使用UTF-8字节的十六进制编码，不同ID不会映射到同一目录，也不会出现"."、".."或路径分隔符；
+     * 空ID和过长的ID（编码后超出常见文件名长度限制）使用SHA-256摘要
+     */
+    static String directoryName(String ownerId) {
+        byte[] utf8 = ownerId.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length > 0 && utf8.length <= MAX_ENCODED_ID_BYTES) {
+            return HexFormat.of().formatHex(utf8);
+        }
+        try {
+            return HASHED_PREFIX + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(utf8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
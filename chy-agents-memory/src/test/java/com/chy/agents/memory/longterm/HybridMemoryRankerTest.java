@@ -0,0 +1,104 @@
+package com.chy.agents.memory.longterm;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HybridMemoryRankerTest {
+
+    private static final long NOW = 1_000_000_000_000L;
+    private static final long HOUR = 3_600_000L;
+
+    private final LongTermMemoryProperties.Retrieval properties = new LongTermMemoryProperties.Retrieval();
+
+    @Test
+    void scoresWeightedSumOfSimilarityRecencyAndImportance() {
+        properties.setRecencyHalfLifeHours(10);
+        MemoryCandidates candidates = candidates(document("a", 0.2, NOW - 10 * HOUR, 0.4));
+
+        MemoryHit hit = rank(candidates, 5).get(0);
+
+        assertEquals(0.8, hit.similarity(), 1e-9);
+        assertEquals(0.5, hit.recency(), 1e-9);
+        assertEquals(0.4, hit.importance(), 1e-9);
+        assertEquals(0.6 * 0.8 + 0.25 * 0.5 + 0.15 * 0.4, hit.score(), 1e-9);
+        assertEquals("a", hit.id());
+        assertEquals("a", hit.message().getContent());
+    }
+
+    @Test
+    void missingTimestampHasNoRecencyAndMissingImportanceUsesDefault() {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("distance", 0.0);
+
+        MemoryHit hit = rank(MemoryCandidates.of(List.of(new Document("a", "a", metadata)), 0.3), 1).get(0);
+
+        assertEquals(0.0, hit.recency());
+        assertEquals(0.3, hit.importance(), 1e-9);
+    }
+
+    @Test
+    void recentMemoryOutranksSlightlyMoreSimilarStaleOne() {
+        MemoryCandidates candidates = candidates(
+                document("stale", 0.10, NOW - 30 * 24 * HOUR, 0.5),
+                document("fresh", 0.15, NOW, 0.5));
+
+        assertEquals(List.of("fresh", "stale"), ids(rank(candidates, 2)));
+    }
+
+    @Test
+    void keepsTopKInScoreOrderAndRetrievalOrderOnTies() {
+        List<Document> documents = new ArrayList<>();
+        double[] distances = {0.5, 0.1, 0.9, 0.3, 0.1, 0.7, 0.2};
+        for (int i = 0; i < distances.length; i++) {
+            documents.add(document("d" + i, distances[i], NOW, 0.5));
+        }
+        MemoryCandidates candidates = candidates(documents.toArray(new Document[0]));
+
+        assertEquals(List.of("d1", "d4", "d6"), ids(rank(candidates, 3)));
+        assertEquals(List.of("d1", "d4", "d6", "d3", "d0", "d5", "d2"), ids(rank(candidates, 100)));
+        assertTrue(rank(candidates, 0).isEmpty());
+    }
+
+    @Test
+    void dropsCandidatesBelowMinScore() {
+        properties.setRecencyWeight(0.0);
+        properties.setImportanceWeight(0.0);
+        properties.setSimilarityWeight(1.0);
+        properties.setMinScore(0.5);
+        MemoryCandidates candidates = candidates(
+                document("low", 0.8, NOW, 0.5),
+                document("high", 0.2, NOW, 0.5));
+
+        assertEquals(List.of("high"), ids(rank(candidates, 5)));
+    }
+
+    private List<MemoryHit> rank(MemoryCandidates candidates, int limit) {
+        return new HybridMemoryRanker(properties).rank(candidates, limit, NOW,
+                document -> new UserMessage(document.getContent()));
+    }
+
+    private static MemoryCandidates candidates(Document... documents) {
+        return MemoryCandidates.of(List.of(documents), 0.5);
+    }
+
+    static Document document(String id, double distance, long timestamp, double importance) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("distance", distance);
+        metadata.put(LongTermMemory.TIMESTAMP_KEY, timestamp);
+        metadata.put(LongTermMemory.IMPORTANCE_KEY, importance);
+        return new Document(id, id, metadata);
+    }
+
+    private static List<String> ids(List<MemoryHit> hits) {
+        return hits.stream().map(MemoryHit::id).toList();
+    }
+}
@@ -0,0 +1,93 @@
+package com.chy.agents.memory.longterm;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MemoryCandidateCacheTest {
+
+    private static final Map<String, Object> SESSION_A = Map.of("sessionId", "a");
+    private static final Map<String, Object> SESSION_B = Map.of("sessionId", "b");
+
+    @Test
+    void servesCachedCandidatesForSameFilterAndQuery() {
+        MemoryCandidateCache cache = new MemoryCandidateCache(16, 60_000);
+        MemoryCandidates candidates = candidates(3);
+
+        cache.put(SESSION_A, "q", candidates, false);
+
+        assertSame(candidates, cache.get(Map.of("sessionId", "a"), "q", 3));
+        assertNull(cache.get(SESSION_A, "other", 3));
+        assertNull(cache.get(SESSION_B, "q", 3));
+    }
+
+    @Test
+    void shortResultIsCompleteOnlyWhenSearchWasExhausted() {
+        MemoryCandidateCache cache = new MemoryCandidateCache(16, 60_000);
+
+        // 向量存储返回了满额结果但大部分被二次过滤掉，不能当作完整结果
+        cache.put(SESSION_A, "filtered", candidates(1), false);
+        cache.put(SESSION_A, "exhausted", candidates(1), true);
+
+        assertNull(cache.get(SESSION_A, "filtered", 4));
+        assertEquals(1, cache.get(SESSION_A, "filtered", 1).size());
+        assertEquals(1, cache.get(SESSION_A, "exhausted", 4).size());
+    }
+
+    @Test
+    void invalidatesEntriesMatchingWrittenDocuments() {
+        MemoryCandidateCache cache = new MemoryCandidateCache(16, 60_000);
+        cache.put(SESSION_A, "q", candidates(1), true);
+        cache.put(SESSION_B, "q", candidates(1), true);
+        cache.put(Map.of(), "q", candidates(1), true);
+
+        cache.invalidate(List.of(new Document("new", "new", Map.of("sessionId", "a"))));
+
+        assertNull(cache.get(SESSION_A, "q", 1));
+        assertNull(cache.get(Map.of(), "q", 1));
+        assertEquals(1, cache.get(SESSION_B, "q", 1).size());
+    }
+
+    @Test
+    void expiresAndEvictsLeastRecentlyUsed() throws InterruptedException {
+        MemoryCandidateCache expiring = new MemoryCandidateCache(16, 10);
+        expiring.put(SESSION_A, "q", candidates(1), true);
+        Thread.sleep(30);
+        assertNull(expiring.get(SESSION_A, "q", 1));
+
+        MemoryCandidateCache bounded = new MemoryCandidateCache(2, 60_000);
+        bounded.put(SESSION_A, "q1", candidates(1), true);
+        bounded.put(SESSION_A, "q2", candidates(1), true);
+        bounded.get(SESSION_A, "q1", 1);
+        bounded.put(SESSION_A, "q3", candidates(1), true);
+
+        assertEquals(2, bounded.size());
+        assertNull(bounded.get(SESSION_A, "q2", 1));
+        assertNotNull(bounded.get(SESSION_A, "q1", 1));
+        assertNotNull(bounded.get(SESSION_A, "q3", 1));
+    }
+
+    @Test
+    void matchesFilterAgainstMetadataAsStrings() {
+        assertTrue(MemoryCandidateCache.matches(Map.of("agentId", 7), Map.of("agentId", "7", "x", 1)));
+        assertFalse(MemoryCandidateCache.matches(Map.of("agentId", 7), Map.of("x", 1)));
+        assertTrue(MemoryCandidateCache.matches(Map.of(), Map.of()));
+    }
+
+    private static MemoryCandidates candidates(int n) {
+        Document[] documents = new Document[n];
+        for (int i = 0; i < n; i++) {
+            documents[i] = HybridMemoryRankerTest.document("d" + i, 0.1 * i, System.currentTimeMillis(), 0.5);
+        }
+        return MemoryCandidates.of(List.of(documents), 0.5);
+    }
+}
@@ -0,0 +1,122 @@
+package com.chy.agents.memory.longterm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteBehindWriterTest {
+
+    @Test
+    void writesInBatchesAndFlushes() {
+        List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+        LongTermMemoryProperties.WriteBehind properties = properties();
+        properties.setBatchSize(4);
+        try (WriteBehindWriter<Integer> writer = new WriteBehindWriter<>("test-writer", properties, batches::add)) {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(writer.submit(i));
+            }
+            assertTrue(writer.flush(5_000));
+
+            assertEquals(IntStream.range(0, 10).boxed().toList(),
+                    batches.stream().flatMap(List::stream).toList());
+            assertTrue(batches.stream().allMatch(batch -> batch.size() <= 4));
+            assertEquals(10L, writer.getMetrics().get("written"));
+            assertEquals(0, writer.getPending());
+        }
+    }
+
+    @Test
+    void retriesFailedBatches() {
+        AtomicInteger attempts = new AtomicInteger();
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        LongTermMemoryProperties.WriteBehind properties = properties();
+        try (WriteBehindWriter<Integer> writer = new WriteBehindWriter<>("test-writer", properties, batch -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw new IllegalStateException("store unavailable");
+            }
+            written.addAll(batch);
+        })) {
+            writer.submit(1);
+            assertTrue(writer.flush(5_000));
+
+            assertEquals(List.of(1), written);
+            assertEquals(2L, writer.getMetrics().get("retries"));
+            assertEquals(0L, writer.getMetrics().get("failed"));
+        }
+    }
+
+    @Test
+    void givesUpAfterMaxRetries() {
+        LongTermMemoryProperties.WriteBehind properties = properties();
+        properties.setMaxRetries(1);
+        try (WriteBehindWriter<Integer> writer = new WriteBehindWriter<>("test-writer", properties, batch -> {
+            throw new IllegalStateException("store unavailable");
+        })) {
+            writer.submit(1);
+            writer.submit(2);
+            assertTrue(writer.flush(5_000));
+
+            assertEquals(2L, writer.getMetrics().get("failed"));
+            assertEquals(0L, writer.getMetrics().get("written"));
+        }
+    }
+
+    @Test
+    void rejectsWhenQueueStaysFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        LongTermMemoryProperties.WriteBehind properties = properties();
+        properties.setQueueCapacity(1);
+        properties.setBatchSize(1);
+        properties.setOfferTimeoutMillis(10);
+        try (WriteBehindWriter<Integer> writer = new WriteBehindWriter<>("test-writer", properties, batch -> {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        })) {
+            assertTrue(writer.submit(1));
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+            // 后台线程阻塞在第一批，第二条占满队列，第三条等待超时后被丢弃
+            assertTrue(writer.submit(2));
+            assertFalse(writer.submit(3));
+            assertEquals(1L, writer.getMetrics().get("rejected"));
+            release.countDown();
+            assertTrue(writer.flush(5_000));
+        }
+    }
+
+    @Test
+    void drainsQueueOnCloseAndRejectsAfterwards() {
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        LongTermMemoryProperties.WriteBehind properties = properties();
+        WriteBehindWriter<Integer> writer = new WriteBehindWriter<>("test-writer", properties, written::addAll);
+        for (int i = 0; i < 5; i++) {
+            writer.submit(i);
+        }
+        writer.close();
+
+        assertEquals(List.of(0, 1, 2, 3, 4), written);
+        assertFalse(writer.submit(5));
+    }
+
+    private static LongTermMemoryProperties.WriteBehind properties() {
+        LongTermMemoryProperties.WriteBehind properties = new LongTermMemoryProperties.WriteBehind();
+        properties.setFlushIntervalMillis(20);
+        properties.setRetryBackoffMillis(1);
+        properties.setShutdownTimeoutMillis(5_000);
+        return properties;
+    }
+}
@@ -0,0 +1,150 @@
+package com.chy.agents.memory.tiered;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedSegmentLogTest {
+
+    private static final int SEGMENT_BYTES = 256;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendsAndReadsBySequence() {
+        try (MappedSegmentLog log = new MappedSegmentLog(dir, SEGMENT_BYTES)) {
+            assertEquals(0, log.append((byte) 1, 100L, "hello"));
+            assertEquals(1, log.append((byte) 2, 200L, "你好"));
+            assertEquals(2, log.append((byte) 1, 300L, null));
+
+            MappedSegmentLog.Record record = log.read(1);
+            assertEquals(2, record.role());
+            assertEquals(200L, record.timestamp());
+            assertEquals("你好", record.content());
+            assertEquals("", log.read(2).content());
+            assertNull(log.read(3));
+            assertEquals(3, log.size());
+        }
+    }
+
+    @Test
+    void rollsOverSegmentsAndRecoversAfterReopen() {
+        try (MappedSegmentLog log = new MappedSegmentLog(dir, SEGMENT_BYTES)) {
+            for (int i = 0; i < 100; i++) {
+                log.append((byte) 0, i, "message " + i);
+            }
+            assertTrue(log.getSegmentCount() > 1);
+            // 超过段大小的记录单独占用一个更大的段
+            log.append((byte) 0, 100, "x".repeat(SEGMENT_BYTES * 2));
+        }
+        try (MappedSegmentLog log = new MappedSegmentLog(dir, SEGMENT_BYTES)) {
+            assertEquals(101, log.getNextSequence());
+            assertEquals("message 42", log.read(42).content());
+            assertEquals(SEGMENT_BYTES * 2, log.read(100).content().length());
+            assertEquals(101, log.append((byte) 0, 101, "after reopen"));
+        }
+    }
+
+    @Test
+    void persistsRetainedRangeAcrossReopen() {
+        try (MappedSegmentLog log = new MappedSegmentLog(dir, SEGMENT_BYTES)) {
+            for (int i = 0; i < 50; i++) {
+                log.append((byte) 0, i, "message " + i);
+            }
+            log.retainFrom(30);
+            log.retainFrom(10);
+            assertEquals(30, log.getFirstSequence());
+            assertNull(log.read(29));
+        }
+        try (MappedSegmentLog log = new MappedSegmentLog(dir, SEGMENT_BYTES)) {
+            assertEquals(30, log.getFirstSequence());
+            assertEquals(20, log.size());
+            assertNull(log.read(29));
+            assertEquals("message 30", log.read(30).content());
+        }
+    }
+
+    @Test
+    void compactDeletesSegmentsBelowTheFloor() throws Exception {
+        try (MappedSegmentLog log = new MappedSegmentLog(dir, SEGMENT_BYTES)) {
+            for (int i = 0; i < 100; i++) {
+                log.append((byte) 0, i, "message " + i);
+            }
+            int before = segmentFiles();
+            log.retainFrom(90);
+            int removed = log.compact();
+
+            assertTrue(removed > 0);
+            assertEquals(before - removed, segmentFiles());
+            assertEquals(log.getSegmentCount(), segmentFiles());
+            assertEquals("message 95", log.read(95).content());
+        }
+    }
+
+    @Test
+    void clearSurvivesReopen() throws Exception {
+        try (MappedSegmentLog log = new MappedSegmentLog(dir, SEGMENT_BYTES)) {
+            for (int i = 0; i < 10; i++) {
+                log.append((byte) 0, i, "message " + i);
+            }
+            log.clear();
+            assertEquals(0, segmentFiles());
+        }
+        try (MappedSegmentLog log = new MappedSegmentLog(dir, SEGMENT_BYTES)) {
+            assertEquals(0, log.size());
+            assertNull(log.read(5));
+            assertEquals(10, log.append((byte) 0, 10, "after clear"));
+            assertEquals("after clear", log.read(10).content());
+        }
+    }
+
+    @Test
+    void searchesNewestFirstWithinRetainedRange() {
+        try (MappedSegmentLog log = new MappedSegmentLog(dir, SEGMENT_BYTES)) {
+            for (int i = 0; i < 40; i++) {
+                log.append((byte) 0, i, (i % 10 == 0 ? "北京天气 " : "other ") + i);
+            }
+            log.retainFrom(5);
+
+            List<MappedSegmentLog.Record> found = log.searchBackward("北京", 10, Long.MAX_VALUE);
+            assertEquals(List.of("北京天气 30", "北京天气 20", "北京天气 10"),
+                    found.stream().map(MappedSegmentLog.Record::content).toList());
+            assertEquals(List.of("北京天气 20"),
+                    log.searchBackward("北京", 1, 30).stream().map(MappedSegmentLog.Record::content).toList());
+        }
+    }
+
+    @Test
+    void releasesMappingsOnClose() throws Exception {
+        Path maps = Path.of("/proc/self/maps");
+        if (!Files.isReadable(maps)) {
+            return;
+        }
+        for (int round = 0; round < 3; round++) {
+            try (MappedSegmentLog log = new MappedSegmentLog(dir, SEGMENT_BYTES)) {
+                for (int i = 0; i < 20; i++) {
+                    log.append((byte) 0, i, "message " + i);
+                }
+            }
+        }
+        String directory = dir.toRealPath().toString();
+        try (Stream<String> lines = Files.lines(maps)) {
+            assertEquals(0, lines.filter(line -> line.contains(directory)).count());
+        }
+    }
+
+    private int segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return (int) files.filter(file -> file.toString().endsWith(".seg")).count();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.chy.agents.memory.tiered;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TieredMemoryStoreTest {
+
+    @Test
+    void directoryNamesAreUniqueAndSafe() {
+        List<String> ids = List.of("a/b", "a_b", "a b", ".", "..", "", "会话-1", "会话-2", "x".repeat(120),
+                "x".repeat(121), "x".repeat(500), "x".repeat(501));
+        Set<String> names = new HashSet<>();
+        for (String id : ids) {
+            String name = TieredMemoryStore.directoryName(id);
+            assertTrue(name.matches("[0-9a-fh-]+"), name);
+            assertTrue(name.length() <= 255, name);
+            names.add(name);
+        }
+        assertEquals(ids.size(), names.size());
+        assertEquals(TieredMemoryStore.directoryName("会话-1"), TieredMemoryStore.directoryName("会话-1"));
+    }
+}
@@ -1,19 +1,21 @@
 package com.chy.agents.model.alibaba.client;
 
+import com.chy.agents.common.exception.AgentException;
 import com.chy.agents.core.chat.ChatClient;
 import com.chy.agents.core.chat.message.BaseMessage;
 import com.chy.agents.core.chat.message.Message;
+import com.chy.agents.core.chat.message.MessageDelta;
 import com.chy.agents.core.chat.prompt.Prompt;
+import com.chy.agents.core.execution.AgentExecutor;
 import com.chy.agents.model.alibaba.config.AlibabaConfig;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Flux;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
 
 /**
  * 阿里云通义客户端适配器
@@ -24,9 +26,15 @@ public class AlibabaChatClient implements ChatClient {
     private final RestTemplate restTemplate;
     private final AlibabaConfig config;
     private final Map<String, String> headers;
+    private final AgentExecutor executor;
     
     public AlibabaChatClient(AlibabaConfig config) {
+        this(config, null);
+    }
+    
+    public AlibabaChatClient(AlibabaConfig config, AgentExecutor executor) {
         this.config = config;
+        this.executor = executor;
         this.restTemplate = new RestTemplate();
         this.headers = new HashMap<>();
         
@@ -59,6 +67,10 @@ public class AlibabaChatClient implements ChatClient {
             }
             
             throw new RuntimeException("Invalid response from Alibaba model");
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            // 服务端限流单独区分，便于上层重试和分流
+            log.warn("Alibaba model rate limited: {}", e.getMessage());
+            throw new AgentException(AgentException.ErrorCode.API_ERROR, "Alibaba model rate limited (429)", e);
         } catch (Exception e) {
             log.error("Failed to call Alibaba model", e);
             throw new RuntimeException("Failed to call Alibaba model", e);
@@ -67,48 +79,19 @@ public class AlibabaChatClient implements ChatClient {
     
     @Override
     public CompletableFuture<Message> callAsync(Prompt prompt) {
-        return CompletableFuture.supplyAsync(() -> call(prompt));
+        return executor().submit(getProvider(), () -> call(prompt));
     }
     
     @Override
-    public List<Message> stream(Prompt prompt) {
-        try {
-            Map<String, Object> requestBody = buildRequestBody(prompt);
-            requestBody.put("stream", true);
-            
-            CountDownLatch completionLatch = new CountDownLatch(1);
-            List<Message> messages = new CopyOnWriteArrayList<>(); // 使用线程安全列表
-            
-            Consumer<Message> messageHandler = messages::add;
-            Consumer<Throwable> errorHandler = error -> {
-                log.error("Streaming error", error);
-                completionLatch.countDown();
-            };
-            Runnable completionHandler = completionLatch::countDown;
-            
-            AlibabaStreamHandler streamHandler = new AlibabaStreamHandler(config.getEndpoint(), headers)
-                .onMessage(messageHandler)
-                .onError(errorHandler)
-                .onComplete(completionHandler);
-            
-            streamHandler.stream(requestBody);
-            
-            try {
-                // 设置适当的超时时间，避免无限等待
-                if (!completionLatch.await(config.getTimeout(), TimeUnit.SECONDS)) {
-                    log.warn("Streaming timed out after {} seconds", config.getTimeout());
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.error("Streaming interrupted", e);
-            }
-            
-            // 返回空列表而不是null，以符合接口规范
-            return messages.isEmpty() ? Collections.emptyList() : new ArrayList<>(messages);
-        } catch (Exception e) {
-            log.error("Failed to stream from Alibaba model", e);
-            throw new RuntimeException("Failed to stream from Alibaba model", e);
-        }
+    public Flux<MessageDelta> streamDeltas(Prompt prompt) {
+        Map<String, Object> requestBody = buildRequestBody(prompt);
+        requestBody.put("stream", true);
+        // 要求服务端只返回增量文本，避免每个事件都重复传输已生成的内容
+        requestBody.put("incremental_output", true);
+        
+        return new AlibabaStreamHandler(config.getEndpoint(), headers, Duration.ofSeconds(config.getTimeout()))
+            .streamDeltas(requestBody)
+            .doOnError(error -> log.error("Failed to stream from Alibaba model", error));
     }
     
     @Override
@@ -116,7 +99,8 @@ public class AlibabaChatClient implements ChatClient {
         return Map.of(
             "provider", getProvider(),
             "model", getModel(),
-            "endpoint", config.getEndpoint()
+            "endpoint", config.getEndpoint(),
+            "maxTokens", config.getMaxTokens()
         );
     }
     
@@ -179,4 +163,11 @@ public class AlibabaChatClient implements ChatClient {
         headers.forEach(httpHeaders::add);
         return new org.springframework.http.HttpEntity<>(body, httpHeaders);
     }
+
+    /**
+     * 获取执行器，未注入时使用调用时的全局默认执行器
+     */
+    private AgentExecutor executor() {
+        return executor != null ? executor : AgentExecutor.getDefault();
+    }
 } 
\ No newline at end of file
@@ -2,126 +2,149 @@ package com.chy.agents.model.alibaba.client;
 
 import com.chy.agents.core.chat.message.BaseMessage;
 import com.chy.agents.core.chat.message.Message;
+import com.chy.agents.core.chat.message.MessageDelta;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 /**
  * 阿里云通义流式处理器
+ * 底层WebClient按端点共享连接池；流式过程中只传递增量，完整文本仅在结束时生成一次
  */
 @Slf4j
 public class AlibabaStreamHandler {
-    
+
     private final WebClient webClient;
     private final Map<String, String> headers;
+    private final Duration timeout;
     private final List<Message> messages;
-    private final AtomicReference<StringBuilder> currentMessage;
     private Consumer<Message> onMessage;
     private Consumer<Throwable> onError;
     private Runnable onComplete;
-    
-    public AlibabaStreamHandler(String endpoint, Map<String, String> headers) {
-        this.webClient = WebClient.builder()
-            .baseUrl(endpoint)
-            .defaultHeaders(httpHeaders -> headers.forEach(httpHeaders::add))
-            .build();
+
+    /**
+     * @param endpoint 请求端点
+     * @param headers 请求头
+     * @param timeout 两个SSE事件之间允许的最长间隔，取自模型配置
+     */
+    public AlibabaStreamHandler(String endpoint, Map<String, String> headers, Duration timeout) {
+        this.webClient = AlibabaWebClients.forEndpoint(endpoint);
         this.headers = headers;
+        this.timeout = timeout;
         this.messages = new CopyOnWriteArrayList<>();
-        this.currentMessage = new AtomicReference<>(new StringBuilder());
     }
-    
+
+    /**
+     * 设置增量消息回调，每次回调的消息内容只包含本次新增的文本
+     *
+     * @param onMessage 增量消息回调
+     * @return 当前处理器
+     */
     public AlibabaStreamHandler onMessage(Consumer<Message> onMessage) {
         this.onMessage = onMessage;
         return this;
     }
-    
+
     public AlibabaStreamHandler onError(Consumer<Throwable> onError) {
         this.onError = onError;
         return this;
     }
-    
+
     public AlibabaStreamHandler onComplete(Runnable onComplete) {
         this.onComplete = onComplete;
         return this;
     }
-    
+
+    /**
+     * 回调式流式请求
+     * 返回的列表在流结束时写入完整消息
+     *
+     * @param requestBody 请求体
+     * @return 消息列表
+     */
     public List<Message> stream(Map<String, Object> requestBody) {
         messages.clear();
-        currentMessage.set(new StringBuilder());
-        
-        webClient.post()
-            .contentType(MediaType.APPLICATION_JSON)
-            .bodyValue(requestBody)
-            .retrieve()
-            .bodyToFlux(ServerSentEvent.class)
-            .timeout(Duration.ofSeconds(60))
-            .doOnNext(this::handleEvent)
-            .doOnError(this::handleError)
-            .doOnComplete(this::handleComplete)
-            .onErrorResume(e -> {
-                handleError(e);
-                return Mono.empty();
-            })
-            .subscribe();
-        
+        StringBuilder fullContent = new StringBuilder();
+
+        streamDeltas(requestBody)
+            .filter(delta -> !delta.isFinished())
+            .subscribe(
+                delta -> {
+                    fullContent.append(delta.getContent());
+                    if (onMessage != null) {
+                        onMessage.accept(BaseMessage.assistantMessage(delta.getContent()));
+                    }
+                },
+                this::handleError,
+                () -> {
+                    messages.add(BaseMessage.assistantMessage(fullContent.toString()));
+                    handleComplete();
+                });
+
         return messages;
     }
-    
-    private void handleEvent(ServerSentEvent<?> event) {
-        try {
-            if (event.data() != null) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> data = (Map<String, Object>) event.data();
-                
-                if (data.containsKey("output")) {
-                    Map<String, Object> output = (Map<String, Object>) data.get("output");
-                    String text = (String) output.get("text");
-                    
-                    // 处理增量内容
-                    if (text != null) {
-                        StringBuilder current = currentMessage.get();
-                        current.append(text);
-                        
-                        Message message = BaseMessage.assistantMessage(current.toString());
-                        
-                        // 使用线程安全方式更新消息列表
-                        synchronized (messages) {
-                            messages.clear();
-                            messages.add(message);
-                        }
-                        
-                        if (onMessage != null) {
-                            onMessage.accept(message);
-                        }
+
+    /**
+     * 响应式流式请求，每个SSE事件的增量内容到达即发出
+     *
+     * @param requestBody 请求体
+     * @return 消息增量流
+     */
+    public Flux<MessageDelta> streamDeltas(Map<String, Object> requestBody) {
+        return Flux.defer(() -> {
+            AtomicInteger index = new AtomicInteger();
+            return webClient.post()
+                .headers(httpHeaders -> headers.forEach(httpHeaders::add))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(requestBody)
+                .retrieve()
+                .bodyToFlux(ServerSentEvent.class)
+                .timeout(timeout)
+                .<MessageDelta>handle((event, sink) -> {
+                    String text = extractText(event);
+                    if (text != null && !text.isEmpty()) {
+                        sink.next(MessageDelta.of(text, index.getAndIncrement()));
                     }
-                }
-            }
-        } catch (Exception e) {
-            log.error("Failed to handle streaming event", e);
-            handleError(e);
+                })
+                .concatWith(Mono.fromSupplier(() -> MessageDelta.finish(index.get(), "stop")));
+        });
+    }
+
+    /**
+     * 提取SSE事件中的文本内容
+     *
+     * @param event SSE事件
+     * @return 文本内容，没有时返回null
+     */
+    private String extractText(ServerSentEvent<?> event) {
+        if (event.data() instanceof Map<?, ?> data && data.get("output") instanceof Map<?, ?> output) {
+            Object text = output.get("text");
+            return text != null ? text.toString() : null;
         }
+        return null;
     }
-    
+
     private void handleError(Throwable error) {
         log.error("Streaming error", error);
         if (onError != null) {
             onError.accept(error);
         }
     }
-    
+
     private void handleComplete() {
         log.debug("Streaming completed");
         if (onComplete != null) {
             onComplete.run();
         }
     }
-} 
\ No newline at end of file
+}
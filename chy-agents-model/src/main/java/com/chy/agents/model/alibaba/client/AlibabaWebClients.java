@@ -0,0 +1,64 @@
+package com.chy.agents.model.alibaba.client;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 阿里云通义共享WebClient
+ * 每个端点复用同一个WebClient及连接池，避免每次流式请求都重新建立连接和TLS握手
+ */
+final class AlibabaWebClients {
+
+    /**
+     * 所有端点共享的连接池
+     */
+    private static final ConnectionProvider CONNECTION_PROVIDER = ConnectionProvider.builder("alibaba-stream")
+            .maxConnections(500)
+            .pendingAcquireMaxCount(2000)
+            .pendingAcquireTimeout(Duration.ofSeconds(30))
+            .maxIdleTime(Duration.ofSeconds(60))
+            .maxLifeTime(Duration.ofMinutes(10))
+            .evictInBackground(Duration.ofSeconds(60))
+            .build();
+
+    private static final Map<String, WebClient> CLIENTS = new ConcurrentHashMap<>();
+
+    private AlibabaWebClients() {
+        // 防止实例化
+    }
+
+    /**
+     * 获取指定端点的共享WebClient
+     *
+     * @param endpoint 端点URL
+     * @return WebClient
+     */
+    static WebClient forEndpoint(String endpoint) {
+        return CLIENTS.computeIfAbsent(endpoint, AlibabaWebClients::create);
+    }
+
+    private static WebClient create(String endpoint) {
+        HttpClient httpClient = HttpClient.create(CONNECTION_PROVIDER)
+                .keepAlive(true)
+                .compress(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10_000);
+
+        // HTTPS端点通过ALPN协商HTTP/2，不支持时回落到HTTP/1.1
+        if (endpoint.startsWith("https")) {
+            httpClient = httpClient.secure().protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        return WebClient.builder()
+                .baseUrl(endpoint)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
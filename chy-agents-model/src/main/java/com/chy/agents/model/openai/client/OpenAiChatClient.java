@@ -3,22 +3,22 @@ package com.chy.agents.model.openai.client;
 import com.chy.agents.core.chat.ChatClient;
 import com.chy.agents.core.chat.message.BaseMessage;
 import com.chy.agents.core.chat.message.Message;
+import com.chy.agents.core.chat.message.MessageDelta;
 import com.chy.agents.core.chat.prompt.Prompt;
+import com.chy.agents.core.execution.AgentExecutor;
 import com.chy.agents.model.openai.config.OpenAiConfig;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.ChatResponse;
 import org.springframework.ai.openai.OpenAiChatOptions;
 import org.springframework.ai.openai.api.OpenAiApi;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * OpenAI客户端适配器
@@ -28,10 +28,16 @@ public class OpenAiChatClient implements ChatClient {
     
     private final OpenAiApi openAiApi;
     private final OpenAiConfig config;
+    private final AgentExecutor executor;
     
     public OpenAiChatClient(OpenAiApi openAiApi, OpenAiConfig config) {
+        this(openAiApi, config, null);
+    }
+    
+    public OpenAiChatClient(OpenAiApi openAiApi, OpenAiConfig config, AgentExecutor executor) {
         this.openAiApi = openAiApi;
         this.config = config;
+        this.executor = executor;
     }
     
     @Override
@@ -55,53 +61,25 @@ public class OpenAiChatClient implements ChatClient {
     
     @Override
     public CompletableFuture<Message> callAsync(Prompt prompt) {
-        return CompletableFuture.supplyAsync(() -> call(prompt));
+        return executor().submit(getProvider(), () -> call(prompt));
     }
     
     @Override
-    public List<Message> stream(Prompt prompt) {
-        try {
-            OpenAiChatOptions options = buildChatOptions().withStream(true);
-            List<org.springframework.ai.chat.messages.Message> messages = prompt.toSpringAiMessages();
-            
-            CountDownLatch completionLatch = new CountDownLatch(1);
-            List<Message> resultMessages = new CopyOnWriteArrayList<>();
-            StringBuilder contentBuilder = new StringBuilder();
-            
-            // 使用Spring AI的流式API
-            openAiApi.streamingChatCompletion(messages, options).subscribe(
-                chunk -> {
-                    // 处理流式响应块
-                    String content = chunk.getResult().getOutput().getContent();
-                    if (content != null && !content.isEmpty()) {
-                        contentBuilder.append(content);
-                        Message message = BaseMessage.assistantMessage(contentBuilder.toString());
-                        synchronized (resultMessages) {
-                            resultMessages.clear();
-                            resultMessages.add(message);
-                        }
-                    }
-                },
-                error -> {
-                    log.error("Streaming error", error);
-                    completionLatch.countDown();
-                },
-                () -> {
-                    log.debug("Streaming completed");
-                    completionLatch.countDown();
-                }
-            );
-            
-            // 等待流式处理完成或超时
-            if (!completionLatch.await(config.getTimeout(), TimeUnit.SECONDS)) {
-                log.warn("Streaming timed out after {} seconds", config.getTimeout());
-            }
-            
-            return resultMessages.isEmpty() ? Collections.emptyList() : new ArrayList<>(resultMessages);
-        } catch (Exception e) {
-            log.error("Failed to stream from OpenAI model", e);
-            throw new RuntimeException("Failed to stream from OpenAI model", e);
-        }
+    public Flux<MessageDelta> streamDeltas(Prompt prompt) {
+        OpenAiChatOptions options = buildChatOptions().withStream(true);
+        List<org.springframework.ai.chat.messages.Message> messages = prompt.toSpringAiMessages();
+        
+        return Flux.defer(() -> {
+            AtomicInteger index = new AtomicInteger();
+            // 使用Spring AI的流式API，每个片段到达即发出
+            return openAiApi.streamingChatCompletion(messages, options)
+                    .map(chunk -> chunk.getResult().getOutput().getContent())
+                    .filter(content -> content != null && !content.isEmpty())
+                    .map(content -> MessageDelta.of(content, index.getAndIncrement()))
+                    .concatWith(Mono.fromSupplier(() -> MessageDelta.finish(index.get(), "stop")));
+        })
+        .timeout(Duration.ofSeconds(config.getTimeout()))
+        .doOnError(error -> log.error("Failed to stream from OpenAI model", error));
     }
     
     @Override
@@ -132,4 +110,11 @@ public class OpenAiChatClient implements ChatClient {
             .withMaxTokens(config.getMaxTokens())
             .build();
     }
+
+    /**
+     * 获取执行器，未注入时使用调用时的全局默认执行器
+     */
+    private AgentExecutor executor() {
+        return executor != null ? executor : AgentExecutor.getDefault();
+    }
 } 
\ No newline at end of file
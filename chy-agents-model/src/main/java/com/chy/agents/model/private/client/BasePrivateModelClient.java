@@ -2,14 +2,16 @@ package com.chy.agents.model.private.client;
 
 import com.chy.agents.core.chat.message.BaseMessage;
 import com.chy.agents.core.chat.message.Message;
+import com.chy.agents.core.chat.message.MessageDelta;
 import com.chy.agents.core.chat.prompt.Prompt;
+import com.chy.agents.core.execution.AgentExecutor;
 import com.chy.agents.model.private.config.PrivateModelConfig;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -21,26 +23,34 @@ public abstract class BasePrivateModelClient implements PrivateModelClient {
     
     protected final PrivateModelConfig config;
     
+    protected final AgentExecutor executor;
+    
     @Getter
     @Setter
     protected String modelPath;
     
     public BasePrivateModelClient(PrivateModelConfig config) {
+        this(config, null);
+    }
+    
+    public BasePrivateModelClient(PrivateModelConfig config, AgentExecutor executor) {
         this.config = config;
+        this.executor = executor;
     }
     
     @Override
     public CompletableFuture<Message> callAsync(Prompt prompt) {
-        return CompletableFuture.supplyAsync(() -> call(prompt));
+        return executor().submit(getProvider(), () -> call(prompt));
     }
     
     @Override
-    public List<Message> stream(Prompt prompt) {
+    public Flux<MessageDelta> streamDeltas(Prompt prompt) {
         if (!supportsStreaming()) {
-            log.warn("Streaming not supported by this model client. Falling back to sync call.");
-            return Collections.singletonList(call(prompt));
+            log.debug("Streaming not supported by this model client. Falling back to async call.");
+            return Mono.fromFuture(() -> callAsync(prompt))
+                .flatMapMany(MessageDelta::fromMessage);
         }
-        return doStream(prompt);
+        return doStreamDeltas(prompt);
     }
     
     @Override
@@ -75,7 +85,14 @@ public abstract class BasePrivateModelClient implements PrivateModelClient {
      * 执行流式处理，由子类实现
      *
      * @param prompt 提示
-     * @return 消息列表
+     * @return 消息增量流
      */
-    protected abstract List<Message> doStream(Prompt prompt);
+    protected abstract Flux<MessageDelta> doStreamDeltas(Prompt prompt);
+
+    /**
+     * 获取执行器，未注入时使用调用时的全局默认执行器
+     */
+    protected AgentExecutor executor() {
+        return executor != null ? executor : AgentExecutor.getDefault();
+    }
 } 
\ No newline at end of file
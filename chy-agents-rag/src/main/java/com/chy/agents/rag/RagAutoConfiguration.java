@@ -2,17 +2,33 @@ package com.chy.agents.rag;
 
 import org.springframework.ai.embedding.EmbeddingClient;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
 
+import com.chy.agents.rag.cache.SemanticCache;
+import com.chy.agents.rag.cache.SemanticCacheProperties;
+import com.chy.agents.common.tokenizer.Tokenizer;
+import com.chy.agents.common.tokenizer.Tokenizers;
+import com.chy.agents.core.execution.AgentExecutor;
+import com.chy.agents.rag.chunk.ChunkingProperties;
 import com.chy.agents.rag.chunk.TextChunker;
 import com.chy.agents.rag.chunk.SimpleTextChunker;
+import com.chy.agents.rag.chunk.TokenAwareTextChunker;
+import com.chy.agents.rag.ingest.IngestionPipeline;
+import com.chy.agents.rag.ingest.IngestionProperties;
 import com.chy.agents.rag.service.DocumentService;
 import com.chy.agents.rag.service.RagService;
+import com.chy.agents.rag.embeddings.EmbeddingBatchingProperties;
+import com.chy.agents.rag.embeddings.EmbeddingCache;
+import com.chy.agents.rag.embeddings.EmbeddingCacheProperties;
 import com.chy.agents.rag.embeddings.EmbeddingService;
 import com.chy.agents.rag.vector.VectorStoreService;
 
@@ -22,27 +38,50 @@ import com.chy.agents.rag.vector.VectorStoreService;
  */
 @AutoConfiguration
 @ComponentScan(basePackages = "com.chy.agents.rag")
+@EnableConfigurationProperties({SemanticCacheProperties.class, IngestionProperties.class, ChunkingProperties.class,
+        EmbeddingCacheProperties.class, EmbeddingBatchingProperties.class})
 public class RagAutoConfiguration {
 
     /**
      * 配置文本分块器
+     * 默认按token预算分块，可以通过配置切换为按字符数分块
      */
     @Bean
     @ConditionalOnMissingBean
-    public TextChunker textChunker() {
-        // 默认使用简单分块器，可以通过配置切换为其他实现
-        return new SimpleTextChunker(500, 100);
+    public TextChunker textChunker(ChunkingProperties properties, ObjectProvider<Tokenizer> tokenizer) {
+        if ("simple".equalsIgnoreCase(properties.getStrategy())) {
+            return new SimpleTextChunker(properties.getChunkSize(), properties.getChunkOverlap());
+        }
+        return new TokenAwareTextChunker(tokenizer.getIfAvailable(Tokenizers::getDefault),
+                properties.getMaxTokens(), properties.getOverlapTokens());
     }
     
+    /**
+     * 配置向量缓存
+     * 未启用时为空操作；未配置模型标识时使用配置的嵌入模型，更换嵌入模型后不会命中旧向量
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public EmbeddingCache embeddingCache(EmbeddingCacheProperties properties, Environment environment) {
+        if (!StringUtils.hasText(properties.getModel())) {
+            properties.setModel(environment.getProperty(EmbeddingCacheProperties.EMBEDDING_MODEL_PROPERTY,
+                    EmbeddingCacheProperties.DEFAULT_MODEL));
+        }
+        return new EmbeddingCache(properties);
+    }
+
     /**
      * 配置嵌入服务
      * 需要依赖EmbeddingClient
      */
-    @Bean
+    @Bean(destroyMethod = "close")
     @ConditionalOnBean(EmbeddingClient.class)
     @ConditionalOnMissingBean
-    public EmbeddingService embeddingService(EmbeddingClient embeddingClient) {
-        return new EmbeddingService(embeddingClient);
+    public EmbeddingService embeddingService(EmbeddingClient embeddingClient, EmbeddingCache embeddingCache,
+                                             EmbeddingBatchingProperties batchingProperties,
+                                             ObjectProvider<AgentExecutor> agentExecutor) {
+        return new EmbeddingService(embeddingClient, embeddingCache, batchingProperties,
+                agentExecutor.getIfAvailable(AgentExecutor::getDefault));
     }
     
     /**
@@ -56,17 +95,43 @@ public class RagAutoConfiguration {
         return new VectorStoreService(vectorStore);
     }
     
+    /**
+     * 配置导入流水线
+     * 需要依赖分块、嵌入和向量存储服务
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnBean({TextChunker.class, EmbeddingService.class, VectorStoreService.class})
+    @ConditionalOnMissingBean
+    public IngestionPipeline ingestionPipeline(
+            TextChunker textChunker,
+            EmbeddingService embeddingService,
+            VectorStoreService vectorStoreService,
+            IngestionProperties properties) {
+        return new IngestionPipeline(textChunker, embeddingService, vectorStoreService, properties);
+    }
+
     /**
      * 配置RAG服务
      * 需要依赖各个组件
      */
     @Bean
-    @ConditionalOnBean({TextChunker.class, EmbeddingService.class, VectorStoreService.class})
+    @ConditionalOnBean({VectorStoreService.class, IngestionPipeline.class})
     @ConditionalOnMissingBean
     public RagService ragService(
-            TextChunker textChunker,
-            EmbeddingService embeddingService,
-            VectorStoreService vectorStoreService) {
-        return new RagService(textChunker, embeddingService, vectorStoreService);
+            VectorStoreService vectorStoreService,
+            IngestionPipeline ingestionPipeline) {
+        return new RagService(vectorStoreService, ingestionPipeline);
+    }
+    
+    /**
+     * 配置语义响应缓存
+     * 需要依赖EmbeddingService，作为客户端装饰器挂载到路由器
+     */
+    @Bean
+    @ConditionalOnBean(EmbeddingService.class)
+    @ConditionalOnMissingBean
+    public SemanticCache semanticCache(EmbeddingService embeddingService, SemanticCacheProperties properties,
+                                       ObjectProvider<AgentExecutor> agentExecutor) {
+        return new SemanticCache(embeddingService, properties, agentExecutor.getIfAvailable(AgentExecutor::getDefault));
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,315 @@
+package com.chy.agents.rag.cache;
+
+import com.chy.agents.core.chat.ChatClient;
+import com.chy.agents.core.chat.ChatClientDecorator;
+import com.chy.agents.core.chat.cache.ResponseCache;
+import com.chy.agents.core.chat.message.Message;
+import com.chy.agents.core.chat.prompt.Prompt;
+import com.chy.agents.core.execution.AgentExecutor;
+import com.chy.agents.rag.embeddings.EmbeddingService;
+import com.chy.agents.rag.embeddings.EmbeddingVector;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 语义响应缓存
+ * 使用{@link EmbeddingService}对用户输入向量化，在进程内的小型向量索引中查找近邻，
+ * 相似度达到阈值时直接返回已存储的回答。索引按作用域（提供商、模型、系统提示、历史消息）隔离，
+ * 不同代理或不同对话上下文之间不会互相命中。
+ */
+@Slf4j
+public class SemanticCache implements ChatClientDecorator {
+
+    /**
+     * 提示参数中的路由名，用于选择路由级相似度阈值
+     */
+    public static final String ROUTE_PARAM = "cacheRoute";
+
+    private final EmbeddingService embeddingService;
+    private final SemanticCacheProperties properties;
+    private final AgentExecutor agentExecutor;
+    private final LinkedHashMap<String, Scope> scopes = new LinkedHashMap<>(16, 0.75f, true);
+    private final Deque<SemanticCacheHit> auditTrail = new ArrayDeque<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public SemanticCache(EmbeddingService embeddingService, SemanticCacheProperties properties,
+                         AgentExecutor agentExecutor) {
+        this.embeddingService = embeddingService;
+        this.properties = properties;
+        this.agentExecutor = agentExecutor;
+    }
+
+    @Override
+    public ChatClient decorate(String provider, ChatClient client) {
+        if (!properties.isEnabled() || client instanceof SemanticCachingChatClient) {
+            return client;
+        }
+        return new SemanticCachingChatClient(client, this, agentExecutor);
+    }
+
+    /**
+     * 查找语义相近的已缓存回答
+     * 向量化失败时视为未命中，不影响正常调用
+     *
+     * @param client 客户端
+     * @param prompt 提示信息
+     * @return 查找结果，不适用语义缓存时返回null
+     */
+    public Lookup lookup(ChatClient client, Prompt prompt) {
+        if (isBypass(prompt) || prompt.getUserInput() == null || prompt.getUserInput().isBlank()) {
+            return null;
+        }
+
+        EmbeddingVector vector;
+        try {
+            vector = embeddingService.embedText(prompt.getUserInput()).normalized();
+        } catch (RuntimeException e) {
+            errors.increment();
+            log.warn("语义缓存向量化失败，跳过缓存: {}", e.getMessage());
+            return null;
+        }
+
+        String route = route(prompt);
+        String scopeKey = scopeKey(client, prompt);
+        Scope scope;
+        synchronized (scopes) {
+            scope = scopes.get(scopeKey);
+        }
+
+        Match match = scope != null
+                ? scope.search(vector, properties.getThreshold(route), properties.getTtlSeconds() * 1000)
+                : null;
+        if (match == null) {
+            misses.increment();
+            return new Lookup(route, scopeKey, prompt.getUserInput(), vector, null);
+        }
+
+        hits.increment();
+        audit(new SemanticCacheHit(Instant.now(), route, scopeKey, prompt.getUserInput(),
+                match.entry().query, match.similarity()));
+        return new Lookup(route, scopeKey, prompt.getUserInput(), vector, match.entry().answer);
+    }
+
+    /**
+     * 存储回答
+     *
+     * @param lookup 查找结果（复用其中的向量，避免重复向量化）
+     * @param message 模型响应
+     */
+    public void store(Lookup lookup, Message message) {
+        if (lookup == null || message == null || message.getContent() == null || message.getContent().isBlank()) {
+            return;
+        }
+        Scope scope;
+        synchronized (scopes) {
+            scope = scopes.computeIfAbsent(lookup.scope(), key -> new Scope());
+            Iterator<Map.Entry<String, Scope>> iterator = scopes.entrySet().iterator();
+            while (scopes.size() > properties.getMaxScopes() && iterator.hasNext()) {
+                Map.Entry<String, Scope> eldest = iterator.next();
+                if (eldest.getValue() != scope) {
+                    evictions.add(eldest.getValue().size());
+                    iterator.remove();
+                }
+            }
+        }
+        if (scope.add(new Entry(lookup.query(), lookup.vector(), message.getContent()),
+                properties.getMaxEntriesPerScope())) {
+            evictions.increment();
+        }
+        stores.increment();
+    }
+
+    /**
+     * 获取命中审计记录（按时间先后）
+     *
+     * @return 审计记录
+     */
+    public List<SemanticCacheHit> getAuditTrail() {
+        synchronized (auditTrail) {
+            return new ArrayList<>(auditTrail);
+        }
+    }
+
+    /**
+     * 获取缓存统计
+     *
+     * @return 统计映射
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        metrics.put("hits", hitCount);
+        metrics.put("misses", missCount);
+        metrics.put("stores", stores.sum());
+        metrics.put("evictions", evictions.sum());
+        metrics.put("errors", errors.sum());
+        metrics.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        synchronized (scopes) {
+            metrics.put("scopes", scopes.size());
+        }
+        return metrics;
+    }
+
+    private boolean isBypass(Prompt prompt) {
+        Map<String, Object> parameters = prompt.getParameters();
+        return parameters != null && Boolean.TRUE.equals(parameters.get(ResponseCache.BYPASS_PARAM));
+    }
+
+    private String route(Prompt prompt) {
+        Map<String, Object> parameters = prompt.getParameters();
+        Object route = parameters != null ? parameters.get(ROUTE_PARAM) : null;
+        return route != null ? route.toString() : null;
+    }
+
+    private void audit(SemanticCacheHit hit) {
+        log.info("语义缓存命中 route={} similarity={} query=\"{}\" matched=\"{}\"",
+                hit.route(), String.format("%.4f", hit.similarity()), hit.query(), hit.matchedQuery());
+        synchronized (auditTrail) {
+            auditTrail.addLast(hit);
+            while (auditTrail.size() > properties.getAuditSize()) {
+                auditTrail.pollFirst();
+            }
+        }
+    }
+
+    /**
+     * 作用域键：提供商、模型、系统提示和历史消息的SHA-256
+     */
+    private static String scopeKey(ChatClient client, Prompt prompt) {
+        StringBuilder canonical = new StringBuilder(128);
+        canonical.append(client.getProvider()).append('|')
+                .append(client.getModel()).append('|')
+                .append(prompt.getSystemPrompt()).append('|');
+        if (prompt.getHistory() != null) {
+            for (Message message : prompt.getHistory()) {
+                String content = message.getContent() != null ? message.getContent() : "";
+                canonical.append(message.getRole()).append(':').append(content.length()).append(':')
+                        .append(content).append('|');
+            }
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 查找结果
+     *
+     * @param route 路由名
+     * @param scope 作用域键
+     * @param query 用户输入
+     * @param vector 用户输入的单位向量
+     * @param answer 命中的回答，未命中时为null
+     */
+    public record Lookup(String route, String scope, String query, EmbeddingVector vector, String answer) {
+
+        /**
+         * 是否命中
+         */
+        public boolean isHit() {
+            return answer != null;
+        }
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static final class Entry {
+        private final String query;
+        private final EmbeddingVector vector;
+        private final String answer;
+        private final long createdAt = System.currentTimeMillis();
+        private long lastAccess = createdAt;
+
+        private Entry(String query, EmbeddingVector vector, String answer) {
+            this.query = query;
+            this.vector = vector;
+            this.answer = answer;
+        }
+    }
+
+    /**
+     * 近邻匹配结果
+     */
+    private record Match(Entry entry, double similarity) {
+    }
+
+    /**
+     * 单个作用域内的向量索引，条目较少时线性扫描即可
+     */
+    private static final class Scope {
+        private final List<Entry> entries = new ArrayList<>();
+
+        synchronized Match search(EmbeddingVector vector, double threshold, long ttlMillis) {
+            long now = System.currentTimeMillis();
+            entries.removeIf(entry -> now - entry.createdAt > ttlMillis);
+
+            Entry best = null;
+            double bestSimilarity = threshold;
+            for (Entry entry : entries) {
+                if (entry.vector.dimensions() != vector.dimensions()) {
+                    continue;
+                }
+                // 两者都是单位向量，点积即余弦相似度
+                double similarity = entry.vector.dot(vector);
+                if (similarity >= bestSimilarity) {
+                    bestSimilarity = similarity;
+                    best = entry;
+                }
+            }
+            if (best == null) {
+                return null;
+            }
+            best.lastAccess = now;
+            return new Match(best, bestSimilarity);
+        }
+
+        /**
+         * 添加条目，超过容量时淘汰最久未访问的条目
+         *
+         * @return 是否发生淘汰
+         */
+        synchronized boolean add(Entry entry, int maxEntries) {
+            boolean evicted = false;
+            if (entries.size() >= maxEntries && !entries.isEmpty()) {
+                Entry eldest = entries.get(0);
+                for (Entry candidate : entries) {
+                    if (candidate.lastAccess < eldest.lastAccess) {
+                        eldest = candidate;
+                    }
+                }
+                entries.remove(eldest);
+                evicted = true;
+            }
+            entries.add(entry);
+            return evicted;
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.chy.agents.rag.cache;
+
+import java.time.Instant;
+
+/**
+ * 语义缓存命中审计记录
+ *
+ * @param time 命中时间
+ * @param route 路由名
+ * @param scope 作用域
+ * @param query 本次请求的用户输入
+ * @param matchedQuery 命中条目的原始用户输入
+ * @param similarity 余弦相似度
+ */
+public record SemanticCacheHit(Instant time, String route, String scope, String query,
+                               String matchedQuery, double similarity) {
+}
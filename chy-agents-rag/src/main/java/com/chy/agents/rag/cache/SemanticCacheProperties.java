@@ -0,0 +1,63 @@
+package com.chy.agents.rag.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 语义响应缓存配置
+ */
+@Data
+@ConfigurationProperties(prefix = "chy.agents.cache.semantic")
+public class SemanticCacheProperties {
+
+    /**
+     * 是否启用语义缓存
+     */
+    private boolean enabled = false;
+
+    /**
+     * 默认相似度阈值（余弦相似度，0-1）
+     */
+    private double similarityThreshold = 0.92;
+
+    /**
+     * 按路由配置的相似度阈值，路由名通过提示参数{@code cacheRoute}指定
+     */
+    private Map<String, Double> routeThresholds = new HashMap<>();
+
+    /**
+     * 缓存条目过期时间（秒）
+     */
+    private long ttlSeconds = 86_400;
+
+    /**
+     * 每个作用域（提供商、模型、系统提示、历史）的最大条目数
+     */
+    private int maxEntriesPerScope = 1_000;
+
+    /**
+     * 最大作用域数，超出时淘汰最久未使用的作用域
+     */
+    private int maxScopes = 256;
+
+    /**
+     * 命中审计记录保留条数
+     */
+    private int auditSize = 1_000;
+
+    /**
+     * 获取路由的相似度阈值
+     *
+     * @param route 路由名，可以为null
+     * @return 相似度阈值
+     */
+    public double getThreshold(String route) {
+        if (route == null) {
+            return similarityThreshold;
+        }
+        return routeThresholds.getOrDefault(route, similarityThreshold);
+    }
+}
@@ -0,0 +1,115 @@
+package com.chy.agents.rag.cache;
+
+import com.chy.agents.core.chat.ChatClient;
+import com.chy.agents.core.chat.message.BaseMessage;
+import com.chy.agents.core.chat.message.Message;
+import com.chy.agents.core.chat.message.MessageDelta;
+import com.chy.agents.core.chat.prompt.Prompt;
+import com.chy.agents.core.execution.AgentExecutor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 带语义缓存的聊天客户端
+ * 语义相近的问题直接返回已存储的回答，流式调用以增量流回放；未命中时调用原始客户端并存储回答
+ */
+public class SemanticCachingChatClient implements ChatClient {
+
+    /**
+     * 异步向量化使用的执行器舱壁名称
+     */
+    private static final String EMBEDDING_BULKHEAD = "embedding";
+
+    private final ChatClient delegate;
+    private final SemanticCache cache;
+    private final AgentExecutor agentExecutor;
+
+    public SemanticCachingChatClient(ChatClient delegate, SemanticCache cache, AgentExecutor agentExecutor) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.agentExecutor = agentExecutor;
+    }
+
+    @Override
+    public Message call(Prompt prompt) {
+        SemanticCache.Lookup lookup = cache.lookup(delegate, prompt);
+        if (lookup != null && lookup.isHit()) {
+            return BaseMessage.assistantMessage(lookup.answer());
+        }
+        Message message = delegate.call(prompt);
+        cache.store(lookup, message);
+        return message;
+    }
+
+    @Override
+    public CompletableFuture<Message> callAsync(Prompt prompt) {
+        return lookupAsync(prompt)
+                .thenCompose(lookup -> {
+                    if (lookup.isPresent() && lookup.get().isHit()) {
+                        return CompletableFuture.completedFuture(
+                                (Message) BaseMessage.assistantMessage(lookup.get().answer()));
+                    }
+                    return delegate.callAsync(prompt)
+                            .thenApply(message -> {
+                                cache.store(lookup.orElse(null), message);
+                                return message;
+                            });
+                });
+    }
+
+    @Override
+    public Flux<MessageDelta> streamDeltas(Prompt prompt) {
+        return Mono.fromFuture(() -> lookupAsync(prompt))
+                .flatMapMany(lookup -> {
+                    if (lookup.isPresent() && lookup.get().isHit()) {
+                        return MessageDelta.fromMessage(BaseMessage.assistantMessage(lookup.get().answer()));
+                    }
+                    // 只存储以正常结束片段收尾的流，被取消、出错、截断或过滤的流不存储
+                    StringBuilder content = new StringBuilder();
+                    AtomicBoolean stopped = new AtomicBoolean();
+                    return delegate.streamDeltas(prompt)
+                            .doOnNext(delta -> {
+                                if (delta.isFinished()) {
+                                    stopped.set(MessageDelta.isSuccessfulFinish(delta.getFinishReason()));
+                                } else if (delta.getContent() != null) {
+                                    content.append(delta.getContent());
+                                }
+                            })
+                            .doOnComplete(() -> {
+                                if (stopped.get()) {
+                                    cache.store(lookup.orElse(null), BaseMessage.assistantMessage(content.toString()));
+                                }
+                            });
+                });
+    }
+
+    /**
+     * 在向量化舱壁内查找缓存，向量化是阻塞调用，同步、异步和流式调用共用同一舱壁；
+     * 舱壁已满或超时时按不适用缓存处理，直接调用原始客户端
+     */
+    private CompletableFuture<Optional<SemanticCache.Lookup>> lookupAsync(Prompt prompt) {
+        return agentExecutor
+                .submitWithTimeout(EMBEDDING_BULKHEAD, () -> Optional.ofNullable(cache.lookup(delegate, prompt)))
+                .exceptionally(error -> Optional.empty());
+    }
+
+    @Override
+    public Map<String, Object> getConfig() {
+        return delegate.getConfig();
+    }
+
+    @Override
+    public String getProvider() {
+        return delegate.getProvider();
+    }
+
+    @Override
+    public String getModel() {
+        return delegate.getModel();
+    }
+}
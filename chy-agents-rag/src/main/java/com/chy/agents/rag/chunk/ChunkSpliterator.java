@@ -0,0 +1,86 @@
+package com.chy.agents.rag.chunk;
+
+import com.chy.agents.rag.chunk.TextChunker.DocumentChunk;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 流式分块的拆分器
+ * 每次从读取器读取固定大小的缓冲送入增量分块器，取出已产生的分块；下游不取时不读取，内存与文档大小无关
+ */
+final class ChunkSpliterator extends Spliterators.AbstractSpliterator<DocumentChunk> {
+
+    private static final int READ_BUFFER_CHARS = 8192;
+
+    private final Reader reader;
+    private final String documentId;
+    private final String documentTitle;
+    private final Deque<String> pending = new ArrayDeque<>();
+    private final IncrementalChunker chunker;
+    private final char[] buffer = new char[READ_BUFFER_CHARS];
+    private boolean exhausted;
+    private int index;
+
+    private ChunkSpliterator(Reader reader, String documentId, String documentTitle,
+                             Function<Consumer<String>, IncrementalChunker> chunkerFactory) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.reader = reader;
+        this.documentId = documentId;
+        this.documentTitle = documentTitle;
+        this.chunker = chunkerFactory.apply(pending::add);
+    }
+
+    /**
+     * 创建分块流，流关闭时关闭读取器
+     *
+     * @param reader 文本读取器
+     * @param documentId 文档ID
+     * @param documentTitle 文档标题
+     * @param chunkerFactory 按输出回调创建增量分块器
+     * @return 分块流
+     */
+    static Stream<DocumentChunk> stream(Reader reader, String documentId, String documentTitle,
+                                        Function<Consumer<String>, IncrementalChunker> chunkerFactory) {
+        return StreamSupport.stream(new ChunkSpliterator(reader, documentId, documentTitle, chunkerFactory), false)
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super DocumentChunk> action) {
+        try {
+            while (pending.isEmpty() && !exhausted) {
+                int read = reader.read(buffer);
+                if (read < 0) {
+                    chunker.finish();
+                    exhausted = true;
+                } else {
+                    chunker.accept(buffer, 0, read);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String content = pending.poll();
+        if (content == null) {
+            return false;
+        }
+        action.accept(new DocumentChunk(content, documentId, documentTitle, index++));
+        return true;
+    }
+}
@@ -0,0 +1,37 @@
+package com.chy.agents.rag.chunk;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 文本分块配置
+ */
+@Data
+@ConfigurationProperties(prefix = "chy.agents.rag.chunking")
+public class ChunkingProperties {
+
+    /**
+     * 分块策略：token按token预算装入句子，simple按字符数分块
+     */
+    private String strategy = "token";
+
+    /**
+     * 每块最大token数（token策略）
+     */
+    private int maxTokens = 384;
+
+    /**
+     * 相邻块最大重叠token数（token策略）
+     */
+    private int overlapTokens = 32;
+
+    /**
+     * 块大小（字符数，simple策略）
+     */
+    private int chunkSize = 500;
+
+    /**
+     * 块重叠大小（字符数，simple策略）
+     */
+    private int chunkOverlap = 100;
+}
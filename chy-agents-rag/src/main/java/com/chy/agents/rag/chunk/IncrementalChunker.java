@@ -0,0 +1,22 @@
+package com.chy.agents.rag.chunk;
+
+/**
+ * 增量分块器
+ * 分块按输入顺序产生，交给创建时传入的输出回调
+ */
+interface IncrementalChunker {
+
+    /**
+     * 接收一段输入
+     *
+     * @param buffer 字符缓冲
+     * @param offset 起始位置
+     * @param length 长度
+     */
+    void accept(char[] buffer, int offset, int length);
+
+    /**
+     * 输入结束，输出剩余内容
+     */
+    void finish();
+}
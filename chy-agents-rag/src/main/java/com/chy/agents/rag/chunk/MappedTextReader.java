@@ -0,0 +1,145 @@
+package com.chy.agents.rag.chunk;
+
+import com.chy.agents.common.utils.MappedBuffers;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 基于内存映射的文本读取器
+ * 按区域映射文件并增量解码，文件内容不复制到堆上；区域末尾被截断的多字节字符在下一个区域中完整解码，
+ * 因此可以读取超过2GB的文件。切换区域和关闭时立即释放映射，无需等待垃圾回收。无法解码的字节替换为替换字符。
+ */
+public class MappedTextReader extends Reader {
+
+    /**
+     * 默认映射区域大小
+     */
+    public static final int DEFAULT_REGION_BYTES = 64 * 1024 * 1024;
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final FileChannel channel;
+    private final long size;
+    private final int regionBytes;
+    private final CharsetDecoder decoder;
+
+    /**
+     * 单字符读取时多解码出的字符（代理对的低位）
+     */
+    private final CharBuffer spill = CharBuffer.allocate(2).flip();
+
+    private MappedByteBuffer region;
+    private long regionStart;
+    private boolean endOfInput;
+    private boolean finished;
+
+    public MappedTextReader(Path path) throws IOException {
+        this(path, StandardCharsets.UTF_8, DEFAULT_REGION_BYTES);
+    }
+
+    public MappedTextReader(Path path, Charset charset, int regionBytes) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.regionBytes = Math.max(4096, regionBytes);
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (spill.hasRemaining()) {
+            buffer[offset] = spill.get();
+            return 1;
+        }
+        if (length < 2) {
+            // 输出空间不足以容纳代理对时先解码到内部缓冲
+            spill.clear();
+            int count = decode(spill);
+            spill.flip();
+            if (count < 0) {
+                return -1;
+            }
+            buffer[offset] = spill.get();
+            return 1;
+        }
+        return decode(CharBuffer.wrap(buffer, offset, length));
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        spill.limit(0);
+        MappedBuffers.unmap(region);
+        region = null;
+        channel.close();
+    }
+
+    /**
+     * 解码到输出缓冲，至少解码一个字符
+     *
+     * @return 解码的字符数，已读完时返回-1
+     */
+    private int decode(CharBuffer out) throws IOException {
+        int start = out.position();
+        while (out.position() == start && !finished) {
+            if (endOfInput) {
+                CoderResult result = decoder.decode(region != null ? region : EMPTY, out, true);
+                if (result.isOverflow()) {
+                    break;
+                }
+                if (decoder.flush(out).isOverflow()) {
+                    break;
+                }
+                finished = true;
+                break;
+            }
+            if (region == null || !region.hasRemaining()) {
+                long next = region == null ? 0 : regionStart + region.limit();
+                if (next >= size) {
+                    endOfInput = true;
+                    continue;
+                }
+                map(next);
+            }
+            CoderResult result = decoder.decode(region, out, false);
+            if (result.isUnderflow() && region.hasRemaining()) {
+                // 区域末尾是不完整的字符：文件已到末尾时按结尾处理，否则从该字符处重新映射
+                long next = regionStart + region.position();
+                if (regionStart + region.limit() >= size) {
+                    endOfInput = true;
+                } else {
+                    map(next);
+                }
+            }
+        }
+        int count = out.position() - start;
+        return count == 0 && finished ? -1 : count;
+    }
+
+    /**
+     * 映射从position开始的区域并立即释放上一个区域，同一时刻只占用一个映射
+     */
+    private void map(long position) throws IOException {
+        long length = Math.min(regionBytes, size - position);
+        MappedByteBuffer previous = region;
+        region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        regionStart = position;
+        MappedBuffers.unmap(previous);
+    }
+}
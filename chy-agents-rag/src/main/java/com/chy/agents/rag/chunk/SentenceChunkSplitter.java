@@ -0,0 +1,89 @@
+package com.chy.agents.rag.chunk;
+
+import java.util.function.Consumer;
+
+/**
+ * 增量句子分块器
+ * 逐字符接收文本，用{@link SentenceSegmenter}切分句子（识别中日文和西文句末标点），按字符数把句子累积到块大小后输出，
+ * 超过块大小的句子按块大小和重叠切出窗口。不保留整篇文本和句子数组：内存只有当前块和当前句子，
+ * 句子缓冲的长度有界，输入分几次送入不影响结果。块保留句子之间的原文空白，首尾空白去除，空白块不输出。
+ */
+final class SentenceChunkSplitter implements IncrementalChunker {
+
+    /**
+     * 句子缓冲上限与块大小的比例，更长的句子先在分句标点或空白处切开
+     */
+    private static final int MAX_SENTENCE_CHUNKS = 4;
+
+    private final int chunkSize;
+    private final int step;
+    private final Consumer<String> output;
+    private final SentenceSegmenter segmenter;
+
+    private final StringBuilder current = new StringBuilder();
+
+    SentenceChunkSplitter(int chunkSize, int chunkOverlap, Consumer<String> output) {
+        this.chunkSize = Math.max(1, chunkSize);
+        this.step = Math.max(1, this.chunkSize - chunkOverlap);
+        this.output = output;
+        this.segmenter = new SentenceSegmenter(
+                (int) Math.min(Integer.MAX_VALUE, (long) this.chunkSize * MAX_SENTENCE_CHUNKS), this::addSentence);
+    }
+
+    @Override
+    public void accept(char[] buffer, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            segmenter.accept(buffer[i]);
+        }
+    }
+
+    void accept(char c) {
+        segmenter.accept(c);
+    }
+
+    @Override
+    public void finish() {
+        segmenter.finish();
+        emitCurrent();
+    }
+
+    private void addSentence(String sentence) {
+        if (current.length() + sentence.length() > chunkSize) {
+            emitCurrent();
+        }
+        if (sentence.length() <= chunkSize) {
+            current.append(sentence);
+            return;
+        }
+        String text = sentence.strip();
+        int start = 0;
+        while (start < text.length()) {
+            int end = Math.min(start + chunkSize, text.length());
+            // 窗口的首尾都不落在代理对中间
+            if (end < text.length() && Character.isHighSurrogate(text.charAt(end - 1)) && end - start > 1) {
+                end--;
+            }
+            emit(text.substring(start, end));
+            if (end == text.length()) {
+                break;
+            }
+            int next = start + step;
+            if (Character.isLowSurrogate(text.charAt(next))) {
+                next = next - 1 > start ? next - 1 : next + 1;
+            }
+            start = next;
+        }
+    }
+
+    private void emitCurrent() {
+        emit(current.toString());
+        current.setLength(0);
+    }
+
+    private void emit(String chunk) {
+        String content = chunk.strip();
+        if (!content.isEmpty()) {
+            output.accept(content);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.chy.agents.rag.chunk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 增量句子切分器
+ * 逐字符单遍扫描，按预先计算的字符类别表判断句子边界，不使用正则：
+ * <ul>
+ *   <li>中日文句末标点（。！？…等）之后即为边界，紧随的句末标点、右引号、右括号和空白归入当前句；</li>
+ *   <li>西文句末标点（.!?）之后必须是空白才是边界，因此小数、缩写中的点和网址不会被切开；</li>
+ *   <li>换行总是边界。</li>
+ * </ul>
+ * 输出的句子保留原文（含句末空白），依次拼接即为原文。句子超过长度上限时在最后一个分句标点（，、；：,;:）
+ * 或空白处切开，没有时直接切开，因此缓冲的长度有界。
+ */
+public final class SentenceSegmenter {
+
+    private static final byte OTHER = 0;
+    private static final byte WHITESPACE = 1;
+    private static final byte NEWLINE = 2;
+    private static final byte LATIN_TERMINAL = 3;
+    private static final byte CJK_TERMINAL = 4;
+    private static final byte CLOSING = 5;
+    private static final byte CLAUSE = 6;
+
+    /**
+     * 基本多文种平面的字符类别
+     */
+    private static final byte[] CLASSES = new byte[Character.MAX_VALUE + 1];
+
+    static {
+        mark(WHITESPACE, " \t\u000B\f\r\u00A0\u3000");
+        mark(NEWLINE, "\n\u0085\u2028\u2029");
+        mark(LATIN_TERMINAL, ".!?");
+        mark(CJK_TERMINAL, "。！？｡…‼⁇⁈⁉︒﹒﹖﹗");
+        mark(CLOSING, "\"')]}”’」』）】》〉〕〗〙〛］｝＂＇");
+        mark(CLAUSE, "，、；：,;:﹐﹑﹔﹕､");
+    }
+
+    /**
+     * 边界状态：尚未遇到句末标点
+     */
+    private static final int TEXT = 0;
+
+    /**
+     * 遇到西文句末标点，后面是空白才构成边界
+     */
+    private static final int LATIN_END = 1;
+
+    /**
+     * 已确定边界，吸收空白后在下一个正文字符前切开
+     */
+    private static final int BOUNDARY = 2;
+
+    private final int maxSentenceChars;
+    private final Consumer<String> output;
+    private final StringBuilder sentence = new StringBuilder();
+    private int state = TEXT;
+
+    /**
+     * 最后一个可切开位置（分句标点或空白之后），用于超长句子
+     */
+    private int lastBreak = -1;
+
+    SentenceSegmenter(int maxSentenceChars, Consumer<String> output) {
+        this.maxSentenceChars = Math.max(16, maxSentenceChars);
+        this.output = output;
+    }
+
+    /**
+     * 切分完整文本
+     *
+     * @param text 文本
+     * @return 句子列表
+     */
+    public static List<String> split(String text) {
+        List<String> sentences = new ArrayList<>();
+        SentenceSegmenter segmenter = new SentenceSegmenter(Integer.MAX_VALUE, sentences::add);
+        for (int i = 0; i < text.length(); i++) {
+            segmenter.accept(text.charAt(i));
+        }
+        segmenter.finish();
+        return sentences;
+    }
+
+    void accept(char c) {
+        byte type = CLASSES[c];
+        switch (state) {
+            case LATIN_END -> {
+                if (type == WHITESPACE || type == NEWLINE) {
+                    state = BOUNDARY;
+                } else if (type != LATIN_TERMINAL && type != CJK_TERMINAL && type != CLOSING) {
+                    state = TEXT;
+                }
+            }
+            case BOUNDARY -> {
+                if (type != WHITESPACE && type != NEWLINE && type != CLOSING
+                        && type != LATIN_TERMINAL && type != CJK_TERMINAL) {
+                    emit();
+                    state = TEXT;
+                }
+            }
+            default -> {
+            }
+        }
+        sentence.append(c);
+        if (state == TEXT) {
+            switch (type) {
+                case CJK_TERMINAL, NEWLINE -> state = BOUNDARY;
+                case LATIN_TERMINAL -> state = LATIN_END;
+                case CLAUSE, WHITESPACE -> lastBreak = sentence.length();
+                default -> {
+                }
+            }
+        }
+        if (sentence.length() >= maxSentenceChars) {
+            if (state == TEXT) {
+                cutLongSentence();
+            } else {
+                emit();
+            }
+        }
+    }
+
+    /**
+     * 输入结束，输出剩余内容
+     */
+    void finish() {
+        if (!sentence.isEmpty()) {
+            emit();
+        }
+        state = TEXT;
+    }
+
+    private void cutLongSentence() {
+        int cut = lastBreak > 0 ? lastBreak : sentence.length();
+        // 避免切在代理对中间
+        if (cut > 1 && Character.isHighSurrogate(sentence.charAt(cut - 1))) {
+            cut--;
+        }
+        output.accept(sentence.substring(0, cut));
+        sentence.delete(0, cut);
+        lastBreak = -1;
+    }
+
+    private void emit() {
+        // 边界处恰好达到长度上限时句子已输出，之后遇到正文字符不再输出空句子
+        if (!sentence.isEmpty()) {
+            output.accept(sentence.toString());
+            sentence.setLength(0);
+        }
+        lastBreak = -1;
+    }
+
+    /**
+     * 是否可以在该字符之后切开超长句子（分句标点或空白）
+     */
+    static boolean isBreak(char c) {
+        byte type = CLASSES[c];
+        return type == CLAUSE || type == WHITESPACE || type == NEWLINE;
+    }
+
+    private static void mark(byte type, String chars) {
+        for (int i = 0; i < chars.length(); i++) {
+            CLASSES[chars.charAt(i)] = type;
+        }
+    }
+}
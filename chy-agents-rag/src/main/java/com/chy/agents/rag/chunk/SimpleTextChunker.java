@@ -1,18 +1,18 @@
 package com.chy.agents.rag.chunk;
 
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * 简单文本分块实现
- * 基于固定大小和重叠区域的分块策略
+ * 基于固定大小和重叠区域的分块策略：按句子（识别中日文和西文句末标点）累积到块大小，超长句子按块大小和重叠切分
  */
 public class SimpleTextChunker implements TextChunker {
 
     private final int chunkSize;
     private final int chunkOverlap;
-    private final Pattern splitPattern;
     
     /**
      * 构造函数
@@ -23,7 +23,6 @@ public class SimpleTextChunker implements TextChunker {
     public SimpleTextChunker(int chunkSize, int chunkOverlap) {
         this.chunkSize = chunkSize;
         this.chunkOverlap = chunkOverlap;
-        this.splitPattern = Pattern.compile("(?<=\\.)\\s+|(?<=\\n)");
     }
     
     @Override
@@ -33,47 +32,24 @@ public class SimpleTextChunker implements TextChunker {
         }
         
         List<String> chunks = new ArrayList<>();
-        
-        // 先按句子或段落分割
-        String[] sentences = splitPattern.split(text);
-        StringBuilder currentChunk = new StringBuilder();
-        
-        for (String sentence : sentences) {
-            // 如果当前句子加上现有内容小于块大小，直接添加
-            if (currentChunk.length() + sentence.length() <= chunkSize) {
-                currentChunk.append(sentence);
-                currentChunk.append(" ");
-            } else {
-                // 如果当前块不为空，添加到结果列表
-                if (currentChunk.length() > 0) {
-                    chunks.add(currentChunk.toString().trim());
-                }
-                
-                // 对于超长句子，需要进一步分割
-                if (sentence.length() > chunkSize) {
-                    int start = 0;
-                    while (start < sentence.length()) {
-                        int end = Math.min(start + chunkSize, sentence.length());
-                        chunks.add(sentence.substring(start, end));
-                        start += chunkSize - chunkOverlap;
-                    }
-                    currentChunk = new StringBuilder();
-                } else {
-                    // 开始新的块
-                    currentChunk = new StringBuilder(sentence);
-                    currentChunk.append(" ");
-                }
-            }
+        SentenceChunkSplitter splitter = new SentenceChunkSplitter(chunkSize, chunkOverlap, chunks::add);
+        for (int i = 0; i < text.length(); i++) {
+            splitter.accept(text.charAt(i));
         }
-        
-        // 添加最后一个块
-        if (currentChunk.length() > 0) {
-            chunks.add(currentChunk.toString().trim());
-        }
-        
+        splitter.finish();
         return chunks;
     }
     
+    /**
+     * 流式分块
+     * 每次读取固定大小的缓冲送入增量分块器，内存与文档大小无关；块之间的重叠跨越读取缓冲的边界
+     */
+    @Override
+    public Stream<DocumentChunk> chunkStream(Reader reader, String documentId, String documentTitle) {
+        return ChunkSpliterator.stream(reader, documentId, documentTitle,
+                output -> new SentenceChunkSplitter(chunkSize, chunkOverlap, output));
+    }
+    
     @Override
     public List<DocumentChunk> chunkWithMetadata(String text, String documentId, String documentTitle) {
         List<String> chunks = chunk(text);
@@ -1,6 +1,16 @@
 package com.chy.agents.rag.chunk;
 
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * 文本分块接口
@@ -24,6 +34,69 @@ public interface TextChunker {
      * @return 分块后的文本和元数据列表
      */
     List<DocumentChunk> chunkWithMetadata(String text, String documentId, String documentTitle);
+
+    /**
+     * 流式分块
+     * 默认实现读取全部内容后分块，支持增量分块的实现应覆盖此方法；返回的流关闭时关闭读取器
+     * 
+     * @param reader 文本读取器
+     * @param documentId 文档ID
+     * @param documentTitle 文档标题
+     * @return 按顺序惰性产生的分块
+     */
+    default Stream<DocumentChunk> chunkStream(Reader reader, String documentId, String documentTitle) {
+        try (reader) {
+            StringBuilder text = new StringBuilder();
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                text.append(buffer, 0, read);
+            }
+            return chunkWithMetadata(text.toString(), documentId, documentTitle).stream();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 流式分块（UTF-8输入流）
+     * 
+     * @param input 输入流
+     * @param documentId 文档ID
+     * @param documentTitle 文档标题
+     * @return 按顺序惰性产生的分块
+     */
+    default Stream<DocumentChunk> chunkStream(InputStream input, String documentId, String documentTitle) {
+        return chunkStream(new InputStreamReader(input, StandardCharsets.UTF_8), documentId, documentTitle);
+    }
+
+    /**
+     * 流式分块（UTF-8文件，按内存映射读取）
+     * 
+     * @param file 文件路径
+     * @param documentId 文档ID
+     * @param documentTitle 文档标题
+     * @return 按顺序惰性产生的分块，使用后需关闭
+     */
+    default Stream<DocumentChunk> chunkStream(Path file, String documentId, String documentTitle) {
+        try {
+            return chunkStream(new MappedTextReader(file), documentId, documentTitle);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open " + file, e);
+        }
+    }
+
+    /**
+     * 流式分块（UTF-8文件），按订阅方的请求逐块产生，完成或取消时关闭文件
+     * 
+     * @param file 文件路径
+     * @param documentId 文档ID
+     * @param documentTitle 文档标题
+     * @return 分块流
+     */
+    default Flux<DocumentChunk> chunkFlux(Path file, String documentId, String documentTitle) {
+        return Flux.fromStream(() -> chunkStream(file, documentId, documentTitle));
+    }
     
     /**
      * 文档分块结果
@@ -0,0 +1,187 @@
+package com.chy.agents.rag.chunk;
+
+import com.chy.agents.common.tokenizer.Tokenizer;
+
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 按token预算分块
+ * 用{@link SentenceSegmenter}单遍切分句子（识别中日文和西文句末标点），按真实token数把句子装入块，
+ * 直到再加一句就会超过预算；相邻块之间重叠不超过重叠预算的完整句子。超过预算的句子先在分句标点或空白处、
+ * 再按token截断切开。块的token数按句子token数之和计算，与整块重新计数可能有几个token的出入。
+ */
+public class TokenAwareTextChunker implements TextChunker {
+
+    /**
+     * 句子缓冲上限与token预算的比例，超长的句子提前切开，缓冲长度有界
+     */
+    private static final int MAX_SENTENCE_CHARS_PER_TOKEN = 8;
+
+    private final Tokenizer tokenizer;
+    private final int maxTokens;
+    private final int overlapTokens;
+
+    /**
+     * 构造函数
+     * 
+     * @param tokenizer 分词器
+     * @param maxTokens 每块最大token数
+     * @param overlapTokens 相邻块最大重叠token数
+     */
+    public TokenAwareTextChunker(Tokenizer tokenizer, int maxTokens, int overlapTokens) {
+        this.tokenizer = tokenizer;
+        this.maxTokens = Math.max(1, maxTokens);
+        this.overlapTokens = Math.max(0, Math.min(overlapTokens, this.maxTokens / 2));
+    }
+
+    @Override
+    public List<String> chunk(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        
+        List<String> chunks = new ArrayList<>();
+        Packer packer = new Packer(chunks::add);
+        for (int i = 0; i < text.length(); i++) {
+            packer.segmenter.accept(text.charAt(i));
+        }
+        packer.finish();
+        return chunks;
+    }
+
+    @Override
+    public List<DocumentChunk> chunkWithMetadata(String text, String documentId, String documentTitle) {
+        List<String> chunks = chunk(text);
+        List<DocumentChunk> documentChunks = new ArrayList<>(chunks.size());
+        
+        for (int i = 0; i < chunks.size(); i++) {
+            documentChunks.add(new DocumentChunk(chunks.get(i), documentId, documentTitle, i));
+        }
+        
+        return documentChunks;
+    }
+
+    @Override
+    public Stream<DocumentChunk> chunkStream(Reader reader, String documentId, String documentTitle) {
+        return ChunkSpliterator.stream(reader, documentId, documentTitle, Packer::new);
+    }
+
+    /**
+     * 把句子装入块
+     */
+    private final class Packer implements IncrementalChunker {
+
+        private final Consumer<String> output;
+        private final SentenceSegmenter segmenter;
+        private final Deque<Piece> pieces = new ArrayDeque<>();
+        private int tokens;
+
+        /**
+         * 上次输出之后新加入的句子数，只有重叠部分时不输出
+         */
+        private int fresh;
+
+        private Packer(Consumer<String> output) {
+            this.output = output;
+            this.segmenter = new SentenceSegmenter(
+                    (int) Math.min(Integer.MAX_VALUE, (long) maxTokens * MAX_SENTENCE_CHARS_PER_TOKEN),
+                    this::addSentence);
+        }
+
+        @Override
+        public void accept(char[] buffer, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                segmenter.accept(buffer[i]);
+            }
+        }
+
+        @Override
+        public void finish() {
+            segmenter.finish();
+            emit();
+            pieces.clear();
+            tokens = 0;
+        }
+
+        private void addSentence(String sentence) {
+            if (sentence.isBlank()) {
+                return;
+            }
+            int count = tokenizer.countTokens(sentence);
+            if (count <= maxTokens) {
+                add(sentence, count);
+                return;
+            }
+            String rest = sentence;
+            while (!rest.isEmpty()) {
+                String head = tokenizer.truncate(rest, maxTokens);
+                if (head.length() < rest.length()) {
+                    int cut = lastBreak(head);
+                    if (cut > head.length() / 2) {
+                        head = head.substring(0, cut);
+                    }
+                    if (head.isEmpty()) {
+                        head = rest.substring(0, Character.charCount(rest.codePointAt(0)));
+                    }
+                }
+                add(head, tokenizer.countTokens(head));
+                rest = rest.substring(head.length());
+            }
+        }
+
+        private void add(String text, int count) {
+            if (tokens + count > maxTokens && fresh > 0) {
+                emit();
+                // 保留末尾不超过重叠预算的句子
+                while (!pieces.isEmpty() && tokens > overlapTokens) {
+                    tokens -= pieces.removeFirst().tokens();
+                }
+            }
+            while (!pieces.isEmpty() && tokens + count > maxTokens) {
+                tokens -= pieces.removeFirst().tokens();
+            }
+            pieces.addLast(new Piece(text, count));
+            tokens += count;
+            fresh++;
+        }
+
+        private void emit() {
+            if (fresh == 0) {
+                return;
+            }
+            StringBuilder chunk = new StringBuilder();
+            for (Piece piece : pieces) {
+                chunk.append(piece.text());
+            }
+            String content = chunk.toString().strip();
+            if (!content.isEmpty()) {
+                output.accept(content);
+            }
+            fresh = 0;
+        }
+
+        private static int lastBreak(String text) {
+            for (int i = text.length() - 1; i > 0; i--) {
+                if (SentenceSegmenter.isBreak(text.charAt(i - 1))) {
+                    return i;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * 块中的句子
+     *
+     * @param text 原文
+     * @param tokens token数
+     */
+    private record Piece(String text, int tokens) {
+    }
+}
@@ -0,0 +1,245 @@
+package com.chy.agents.rag.embeddings;
+
+import com.chy.agents.core.execution.AgentExecutor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 向量化请求合并器
+ * 并发的单条向量化请求先进入队列，收集线程从第一个请求到达起最多等待设定的时间或凑满一批，
+ * 合并为一次批量请求（同一批内相同文本只发送一次），在执行器舱壁中执行后把结果分发回各个调用方。
+ * 提供商按请求次数限流，合并后同样的配额可以处理更多文本；单个请求增加的延迟不超过最长等待时间。
+ * <p>
+ * 批次带执行器默认超时提交到独立的舱壁，舱壁拒绝、超时或向量化失败时整批以异常结束，
+ * 收集线程不会被批次阻塞（执行器的拒绝策略为CALLER_RUNS时除外），调用方的等待因此有界。
+ * 队列已满或合并器已关闭时请求直接单独发送；关闭时尚未发出的请求交还调用方单独发送。
+ */
+@Slf4j
+public class EmbeddingBatcher implements AutoCloseable {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final Function<List<String>, List<EmbeddingVector>> upstream;
+    private final String provider;
+    private final String bulkhead;
+    private final AgentExecutor agentExecutor;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final long shutdownTimeoutMillis;
+    private final BlockingQueue<Request> queue;
+    private final Thread collector;
+    private volatile boolean running = true;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedTexts = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * 构造函数
+     *
+     * @param upstream 批量向量化（不经过合并器）
+     * @param provider 嵌入提供商名称，用于选择该提供商的批量大小和等待时间
+     * @param properties 合并配置
+     * @param agentExecutor 发送批次的执行器
+     */
+    public EmbeddingBatcher(Function<List<String>, List<EmbeddingVector>> upstream, String provider,
+                            EmbeddingBatchingProperties properties, AgentExecutor agentExecutor) {
+        this.upstream = upstream;
+        this.provider = provider;
+        this.bulkhead = properties.getBulkhead();
+        this.agentExecutor = agentExecutor;
+        this.maxBatchSize = Math.max(1, properties.getMaxBatchSize(provider));
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(properties.getMaxDelayMillis(provider));
+        this.shutdownTimeoutMillis = Math.max(0, properties.getShutdownTimeoutMillis());
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getMaxPending()));
+        this.collector = new Thread(this::collect, "chy-embedding-batcher-" + provider);
+        this.collector.setDaemon(true);
+        this.collector.start();
+    }
+
+    /**
+     * 向量化单条文本，等待所在批次完成
+     *
+     * @param text 文本
+     * @return 向量
+     */
+    public EmbeddingVector embed(String text) {
+        requests.increment();
+        if (!running) {
+            return sendAlone(text);
+        }
+        Request request = new Request(text, System.nanoTime(), new CompletableFuture<>());
+        if (!queue.offer(request)) {
+            return sendAlone(text);
+        }
+        // 入队与关闭并发：收集线程可能已经退出，仍在队列中的请求由调用方取回
+        if (!running && queue.remove(request)) {
+            return sendAlone(text);
+        }
+        EmbeddingVector vector;
+        try {
+            vector = request.future().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        // 关闭时未发出的请求以null结束
+        return vector != null ? vector : sendAlone(text);
+    }
+
+    /**
+     * 获取合并统计
+     *
+     * @return 统计映射
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        long batchCount = batches.sum();
+        metrics.put("provider", provider);
+        metrics.put("bulkhead", bulkhead);
+        metrics.put("requests", requests.sum());
+        metrics.put("batches", batchCount);
+        metrics.put("avgBatchSize", batchCount > 0 ? (double) batchedTexts.sum() / batchCount : 0.0);
+        metrics.put("coalesced", coalesced.sum());
+        metrics.put("bypassed", bypassed.sum());
+        metrics.put("failures", failures.sum());
+        metrics.put("pending", queue.size());
+        return metrics;
+    }
+
+    /**
+     * 关闭合并器
+     * 收集线程把已入队的请求组批发出后退出，超时仍未退出时中断；之后仍在队列中的请求交还调用方单独发送
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            collector.join(shutdownTimeoutMillis);
+            if (collector.isAlive()) {
+                collector.interrupt();
+                collector.join(shutdownTimeoutMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Request> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        returnToCallers(remaining);
+    }
+
+    private void collect() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Request first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.enqueuedAt() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    long wait = deadline - System.nanoTime();
+                    if (wait <= 0) {
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                        break;
+                    }
+                    Request next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                dispatch(List.copyOf(batch));
+            } catch (InterruptedException e) {
+                // 关闭超时被中断，已取出但未发出的请求交还调用方
+                returnToCallers(batch);
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.warn("向量化请求合并异常: {}", e.getMessage());
+                fail(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 在执行器舱壁中发送批次，舱壁拒绝或超时时整批以异常结束
+     */
+    private void dispatch(List<Request> batch) {
+        agentExecutor
+                .submitWithTimeout(bulkhead, () -> {
+                    send(batch);
+                    return null;
+                })
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        fail(batch, error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error);
+                    }
+                });
+    }
+
+    private void send(List<Request> batch) {
+        Map<String, List<Request>> byText = new LinkedHashMap<>();
+        for (Request request : batch) {
+            byText.computeIfAbsent(request.text(), text -> new ArrayList<>(1)).add(request);
+        }
+        List<String> texts = new ArrayList<>(byText.keySet());
+        batches.increment();
+        batchedTexts.add(texts.size());
+        coalesced.add(batch.size() - texts.size());
+        List<EmbeddingVector> vectors = upstream.apply(texts);
+        if (vectors.size() != texts.size()) {
+            throw new IllegalStateException("向量数量与文本数量不一致: " + vectors.size() + " != " + texts.size());
+        }
+        for (int i = 0; i < texts.size(); i++) {
+            for (Request request : byText.get(texts.get(i))) {
+                request.future().complete(vectors.get(i));
+            }
+        }
+    }
+
+    private EmbeddingVector sendAlone(String text) {
+        bypassed.increment();
+        return upstream.apply(List.of(text)).get(0);
+    }
+
+    private void fail(List<Request> batch, Throwable error) {
+        failures.increment();
+        batch.forEach(request -> request.future().completeExceptionally(error));
+    }
+
+    private static void returnToCallers(List<Request> requests) {
+        requests.forEach(request -> request.future().complete(null));
+    }
+
+    /**
+     * 等待合并的请求
+     *
+     * @param text 文本
+     * @param enqueuedAt 入队时间（纳秒）
+     * @param future 结果，合并器关闭时未发出的请求以null结束
+     */
+    private record Request(String text, long enqueuedAt, CompletableFuture<EmbeddingVector> future) {
+    }
+}
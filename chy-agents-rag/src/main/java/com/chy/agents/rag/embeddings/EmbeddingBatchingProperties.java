@@ -0,0 +1,82 @@
+package com.chy.agents.rag.embeddings;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 向量化请求合并配置
+ */
+@Data
+@ConfigurationProperties(prefix = "chy.agents.rag.embedding-batching")
+public class EmbeddingBatchingProperties {
+
+    /**
+     * 是否合并并发的单条向量化请求
+     */
+    private boolean enabled = true;
+
+    /**
+     * 嵌入提供商名称，用于按提供商覆盖批量大小和等待时间；为空时由嵌入客户端推断（如OpenAiEmbeddingClient为openai）
+     */
+    private String provider;
+
+    /**
+     * 发送批次的执行器舱壁名称，与对话请求的提供商舱壁分开
+     */
+    private String bulkhead = "embedding-batch";
+
+    /**
+     * 默认每批最多合并的文本数
+     */
+    private int maxBatchSize = 32;
+
+    /**
+     * 默认最长等待时间（毫秒），从批次中第一个请求到达时起算
+     */
+    private long maxDelayMillis = 5;
+
+    /**
+     * 等待合并的请求数上限，超出时直接单独请求
+     */
+    private int maxPending = 10_000;
+
+    /**
+     * 关闭时等待收集线程发出已入队请求的最长时间（毫秒）
+     */
+    private long shutdownTimeoutMillis = 5_000;
+
+    /**
+     * 按提供商覆盖每批最多合并的文本数
+     */
+    private Map<String, Integer> providerBatchSize = new HashMap<>();
+
+    /**
+     * 按提供商覆盖最长等待时间（毫秒）
+     */
+    private Map<String, Long> providerDelayMillis = new HashMap<>();
+
+    /**
+     * 获取提供商的每批最多文本数
+     *
+     * @param provider 提供商名称
+     * @return 每批最多文本数
+     */
+    public int getMaxBatchSize(String provider) {
+        Integer override = providerBatchSize.get(provider);
+        return override != null && override > 0 ? override : maxBatchSize;
+    }
+
+    /**
+     * 获取提供商的最长等待时间
+     *
+     * @param provider 提供商名称
+     * @return 最长等待时间（毫秒）
+     */
+    public long getMaxDelayMillis(String provider) {
+        Long override = providerDelayMillis.get(provider);
+        return override != null && override >= 0 ? override : maxDelayMillis;
+    }
+}
@@ -0,0 +1,198 @@
+package com.chy.agents.rag.embeddings;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 向量缓存
+ * 按内容寻址：键为模型标识加规范化文本（NFC、去首尾空白、连续空白合并）的SHA-256前128位，
+ * 样板分块、重复查询和重新导入的文档只需向量化一次。堆内层按LRU保留向量（float[]）；
+ * 可选的持久化层为内存映射文件，堆内未命中时查找，命中后提升到堆内，重启后仍可命中。
+ */
+public class EmbeddingCache implements AutoCloseable {
+
+    private final EmbeddingCacheProperties properties;
+    private final String model;
+    private final LinkedHashMap<Key, EmbeddingVector> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final MappedEmbeddingStore store;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder persistentHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public EmbeddingCache(EmbeddingCacheProperties properties) {
+        this.properties = properties;
+        this.model = properties.getModel() != null && !properties.getModel().isBlank()
+                ? properties.getModel() : EmbeddingCacheProperties.DEFAULT_MODEL;
+        EmbeddingCacheProperties.Persistent persistent = properties.getPersistent();
+        this.store = properties.isEnabled() && persistent.isEnabled()
+                ? new MappedEmbeddingStore(Path.of(persistent.getFile()), persistent.getMaxBytes(), model)
+                : null;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 计算文本的缓存键
+     *
+     * @param text 文本
+     * @return 缓存键
+     */
+    public Key key(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            ByteBuffer hash = ByteBuffer.wrap(digest.digest(normalize(text).getBytes(StandardCharsets.UTF_8)));
+            return new Key(hash.getLong(), hash.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 查找向量
+     *
+     * @param key 缓存键
+     * @return 向量，未命中时返回null
+     */
+    public EmbeddingVector get(Key key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        synchronized (entries) {
+            EmbeddingVector vector = entries.get(key);
+            if (vector != null) {
+                hits.increment();
+                return vector;
+            }
+        }
+        float[] stored = store != null ? store.get(key) : null;
+        if (stored == null) {
+            misses.increment();
+            return null;
+        }
+        persistentHits.increment();
+        // 持久层返回从映射区域复制出的新数组，直接包装，不再复制第二次
+        EmbeddingVector vector = EmbeddingVector.wrap(stored);
+        putHeap(key, vector);
+        return vector;
+    }
+
+    /**
+     * 批量查找向量
+     *
+     * @param keys 缓存键
+     * @return 与键一一对应的向量，未命中的位置为null
+     */
+    public List<EmbeddingVector> getAll(List<Key> keys) {
+        List<EmbeddingVector> vectors = new ArrayList<>(keys.size());
+        for (Key key : keys) {
+            vectors.add(get(key));
+        }
+        return vectors;
+    }
+
+    /**
+     * 缓存向量
+     *
+     * @param key 缓存键
+     * @param vector 向量
+     */
+    public void put(Key key, EmbeddingVector vector) {
+        if (!isEnabled() || vector == null) {
+            return;
+        }
+        putHeap(key, vector);
+        if (store != null) {
+            store.put(key, vector.array());
+        }
+    }
+
+    /**
+     * 获取缓存统计
+     *
+     * @return 统计映射
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        long hitCount = hits.sum() + persistentHits.sum();
+        long total = hitCount + misses.sum();
+        metrics.put("enabled", isEnabled());
+        metrics.put("hits", hits.sum());
+        metrics.put("persistentHits", persistentHits.sum());
+        metrics.put("misses", misses.sum());
+        metrics.put("hitRate", total > 0 ? (double) hitCount / total : 0.0);
+        metrics.put("evictions", evictions.sum());
+        synchronized (entries) {
+            metrics.put("entries", entries.size());
+        }
+        if (store != null) {
+            metrics.put("persistentEntries", store.size());
+            metrics.put("persistentBytes", store.getUsedBytes());
+        }
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    private void putHeap(Key key, EmbeddingVector vector) {
+        synchronized (entries) {
+            entries.put(key, vector);
+            while (entries.size() > Math.max(0, properties.getMaxEntries())) {
+                Key eldest = entries.keySet().iterator().next();
+                entries.remove(eldest);
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * 规范化文本：NFC、去首尾空白、连续空白合并为一个空格
+     */
+    static String normalize(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC).strip();
+        StringBuilder builder = new StringBuilder(normalized.length());
+        boolean space = false;
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            if (space) {
+                builder.append(' ');
+                space = false;
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 缓存键：模型和规范化文本的SHA-256前128位
+     *
+     * @param high 高64位
+     * @param low 低64位
+     */
+    public record Key(long high, long low) {
+    }
+}
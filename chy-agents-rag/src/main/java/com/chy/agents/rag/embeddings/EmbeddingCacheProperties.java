@@ -0,0 +1,62 @@
+package com.chy.agents.rag.embeddings;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 向量缓存配置
+ */
+@Data
+@ConfigurationProperties(prefix = "chy.agents.rag.embedding-cache")
+public class EmbeddingCacheProperties {
+
+    /**
+     * 配置的嵌入模型
+     */
+    public static final String EMBEDDING_MODEL_PROPERTY = "spring.ai.openai.embedding-model";
+
+    /**
+     * 未配置嵌入模型时的模型标识
+     */
+    public static final String DEFAULT_MODEL = "default";
+
+    /**
+     * 是否启用向量缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 嵌入模型标识，作为缓存键的一部分并记录在持久化文件头中，避免命中其他模型的向量。
+     * 为空时由自动配置取{@value #EMBEDDING_MODEL_PROPERTY}，仍为空时使用{@value #DEFAULT_MODEL}
+     */
+    private String model;
+
+    /**
+     * 堆内缓存的最大向量数
+     */
+    private int maxEntries = 50_000;
+
+    /**
+     * 持久化层配置
+     */
+    private Persistent persistent = new Persistent();
+
+    @Data
+    public static class Persistent {
+
+        /**
+         * 是否启用内存映射文件持久化，重启后仍可命中
+         */
+        private boolean enabled = false;
+
+        /**
+         * 缓存文件路径
+         */
+        private String file = "./data/embedding-cache.bin";
+
+        /**
+         * 缓存文件最大字节数（不超过2GB），写满后只读
+         */
+        private int maxBytes = 256 * 1024 * 1024;
+    }
+}
@@ -1,28 +1,67 @@
 package com.chy.agents.rag.embeddings;
 
+import com.chy.agents.core.execution.AgentExecutor;
 import org.springframework.ai.embedding.EmbeddingClient;
 import org.springframework.ai.embedding.EmbeddingResponse;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * 嵌入服务
- * 负责文本向量化处理
+ * 负责文本向量化处理，向量以{@link EmbeddingVector}（float[]）表示，只在调用嵌入客户端处与List&lt;Double&gt;转换；
+ * 启用向量缓存时先按内容查找缓存，只把未命中的文本（同一批内去重后）发送给嵌入提供商；
+ * 启用请求合并时，并发的单条向量化请求由{@link EmbeddingBatcher}合并为批量请求
  */
 @Service
-public class EmbeddingService {
+public class EmbeddingService implements AutoCloseable {
 
     private final EmbeddingClient embeddingClient;
+    private final EmbeddingCache embeddingCache;
+    private final EmbeddingBatcher embeddingBatcher;
 
     /**
      * 构造函数
      * 
      * @param embeddingClient Spring AI的嵌入客户端
+     * @param embeddingCache 向量缓存
+     * @param batchingProperties 请求合并配置，为null或未启用时不合并
+     * @param agentExecutor 发送合并批次的执行器
      */
-    public EmbeddingService(EmbeddingClient embeddingClient) {
+    public EmbeddingService(EmbeddingClient embeddingClient, EmbeddingCache embeddingCache,
+                            EmbeddingBatchingProperties batchingProperties, AgentExecutor agentExecutor) {
         this.embeddingClient = embeddingClient;
+        this.embeddingCache = embeddingCache;
+        this.embeddingBatcher = batchingProperties != null && batchingProperties.isEnabled()
+            ? new EmbeddingBatcher(this::fetch, providerName(batchingProperties, embeddingClient), batchingProperties,
+                agentExecutor)
+            : null;
+    }
+
+    /**
+     * 嵌入提供商名称：优先使用配置，否则由嵌入客户端类名推断（去掉EmbeddingClient/EmbeddingModel后缀并转为小写）
+     */
+    static String providerName(EmbeddingBatchingProperties properties, Object embeddingClient) {
+        String configured = properties.getProvider();
+        if (configured != null && !configured.isBlank()) {
+            return configured;
+        }
+        String name = embeddingClient != null ? embeddingClient.getClass().getSimpleName() : "";
+        int proxy = name.indexOf("$$");
+        if (proxy >= 0) {
+            name = name.substring(0, proxy);
+        }
+        for (String suffix : new String[]{"EmbeddingClient", "EmbeddingModel"}) {
+            if (name.endsWith(suffix) && name.length() > suffix.length()) {
+                name = name.substring(0, name.length() - suffix.length());
+                break;
+            }
+        }
+        return name.isEmpty() ? AgentExecutor.DEFAULT_PROVIDER : name.toLowerCase(Locale.ROOT);
     }
 
     /**
@@ -31,17 +70,22 @@ public class EmbeddingService {
      * @param text 待向量化文本
      * @return 向量表示
      */
-    public List<Double> embedText(String text) {
+    public EmbeddingVector embedText(String text) {
         if (text == null || text.isEmpty()) {
             throw new IllegalArgumentException("文本不能为空");
         }
+        if (!cacheEnabled()) {
+            return fetchSingle(text);
+        }
         
-        try {
-            EmbeddingResponse response = embeddingClient.embed(text);
-            return response.getResult().getOutput().get(0).getEmbedding();
-        } catch (Exception e) {
-            throw new RuntimeException("向量化处理失败: " + e.getMessage(), e);
+        EmbeddingCache.Key key = embeddingCache.key(text);
+        EmbeddingVector cached = embeddingCache.get(key);
+        if (cached != null) {
+            return cached;
         }
+        EmbeddingVector embedding = fetchSingle(text);
+        embeddingCache.put(key, embedding);
+        return embedding;
     }
 
     /**
@@ -50,18 +94,103 @@ public class EmbeddingService {
      * @param texts 待向量化文本列表
      * @return 向量表示列表
      */
-    public List<List<Double>> embedTexts(List<String> texts) {
+    public List<EmbeddingVector> embedTexts(List<String> texts) {
         if (texts == null || texts.isEmpty()) {
             return new ArrayList<>();
         }
+        if (!cacheEnabled()) {
+            return fetch(texts);
+        }
+        
+        List<EmbeddingVector> embeddings = new ArrayList<>(texts.size());
+        // 未命中的键到其在结果中的位置，同一批内相同的文本只请求一次
+        Map<EmbeddingCache.Key, List<Integer>> misses = new LinkedHashMap<>();
+        List<String> missTexts = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            EmbeddingCache.Key key = embeddingCache.key(texts.get(i));
+            List<Integer> positions = misses.get(key);
+            EmbeddingVector cached = positions == null ? embeddingCache.get(key) : null;
+            if (cached != null) {
+                embeddings.add(cached);
+                continue;
+            }
+            if (positions == null) {
+                positions = new ArrayList<>(1);
+                misses.put(key, positions);
+                missTexts.add(texts.get(i));
+            }
+            positions.add(i);
+            embeddings.add(null);
+        }
+        if (missTexts.isEmpty()) {
+            return embeddings;
+        }
         
+        List<EmbeddingVector> fetched = fetch(missTexts);
+        if (fetched.size() != missTexts.size()) {
+            throw new RuntimeException("批量向量化处理失败: 返回" + fetched.size() + "个向量，请求" + missTexts.size() + "个");
+        }
+        int index = 0;
+        for (Map.Entry<EmbeddingCache.Key, List<Integer>> miss : misses.entrySet()) {
+            EmbeddingVector embedding = fetched.get(index++);
+            embeddingCache.put(miss.getKey(), embedding);
+            for (int position : miss.getValue()) {
+                embeddings.set(position, embedding);
+            }
+        }
+        return embeddings;
+    }
+
+    /**
+     * 获取向量缓存统计
+     * 
+     * @return 统计映射
+     */
+    public Map<String, Object> getCacheMetrics() {
+        return embeddingCache != null ? embeddingCache.getMetrics() : Map.of("enabled", false);
+    }
+
+    /**
+     * 获取请求合并统计
+     * 
+     * @return 统计映射
+     */
+    public Map<String, Object> getBatchingMetrics() {
+        return embeddingBatcher != null ? embeddingBatcher.getMetrics() : Map.of("enabled", false);
+    }
+
+    @Override
+    public void close() {
+        if (embeddingBatcher != null) {
+            embeddingBatcher.close();
+        }
+    }
+
+    private boolean cacheEnabled() {
+        return embeddingCache != null && embeddingCache.isEnabled();
+    }
+
+    private EmbeddingVector fetchSingle(String text) {
+        return embeddingBatcher != null ? embeddingBatcher.embed(text) : fetch(text);
+    }
+
+    private EmbeddingVector fetch(String text) {
+        try {
+            EmbeddingResponse response = embeddingClient.embed(text);
+            return EmbeddingVector.of(response.getResult().getOutput().get(0).getEmbedding());
+        } catch (Exception e) {
+            throw new RuntimeException("向量化处理失败: " + e.getMessage(), e);
+        }
+    }
+
+    private List<EmbeddingVector> fetch(List<String> texts) {
         try {
             EmbeddingResponse response = embeddingClient.embed(texts);
             return response.getResult().getOutput().stream()
-                .map(output -> output.getEmbedding())
+                .map(output -> EmbeddingVector.of(output.getEmbedding()))
                 .toList();
         } catch (Exception e) {
             throw new RuntimeException("批量向量化处理失败: " + e.getMessage(), e);
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,180 @@
+package com.chy.agents.rag.embeddings;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * 向量
+ * 以float[]保存分量（1536维约6KB，List&lt;Double&gt;约24KB），创建后不可修改。
+ * 与Spring AI之间只在边界处转换：{@link #of(List)}从提供商返回的List&lt;Double&gt;创建，
+ * {@link #asList()}以不复制的只读视图交给需要List&lt;Double&gt;的接口。
+ */
+public final class EmbeddingVector {
+
+    private final float[] values;
+    private final boolean normalized;
+
+    private EmbeddingVector(float[] values, boolean normalized) {
+        this.values = values;
+        this.normalized = normalized;
+    }
+
+    /**
+     * 从float数组创建，复制数组
+     *
+     * @param values 分量
+     * @return 向量
+     */
+    public static EmbeddingVector of(float[] values) {
+        return new EmbeddingVector(values.clone(), false);
+    }
+
+    /**
+     * 从List&lt;Double&gt;创建（Spring AI边界）
+     *
+     * @param values 分量
+     * @return 向量
+     */
+    public static EmbeddingVector of(List<Double> values) {
+        float[] array = new float[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i).floatValue();
+        }
+        return new EmbeddingVector(array, false);
+    }
+
+    /**
+     * 直接使用数组创建，不复制，调用方之后不能再修改数组
+     */
+    static EmbeddingVector wrap(float[] values) {
+        return new EmbeddingVector(values, false);
+    }
+
+    public int dimensions() {
+        return values.length;
+    }
+
+    public float get(int index) {
+        return values[index];
+    }
+
+    /**
+     * 是否已归一化为单位向量
+     */
+    public boolean isNormalized() {
+        return normalized;
+    }
+
+    /**
+     * 单位向量，之后的余弦相似度即为点积；已归一化时返回自身
+     *
+     * @return 单位向量
+     */
+    public EmbeddingVector normalized() {
+        if (normalized) {
+            return this;
+        }
+        double norm = Math.sqrt(dot(values, values));
+        if (norm == 0) {
+            return new EmbeddingVector(values, true);
+        }
+        float[] unit = new float[values.length];
+        float scale = (float) (1.0 / norm);
+        for (int i = 0; i < unit.length; i++) {
+            unit[i] = values[i] * scale;
+        }
+        return new EmbeddingVector(unit, true);
+    }
+
+    /**
+     * 点积，维度不同时抛出异常
+     *
+     * @param other 另一个向量
+     * @return 点积
+     */
+    public double dot(EmbeddingVector other) {
+        if (other.values.length != values.length) {
+            throw new IllegalArgumentException("维度不一致: " + values.length + " != " + other.values.length);
+        }
+        return dot(values, other.values);
+    }
+
+    /**
+     * 余弦相似度
+     *
+     * @param other 另一个向量
+     * @return 余弦相似度
+     */
+    public double cosine(EmbeddingVector other) {
+        if (normalized && other.normalized) {
+            return dot(other);
+        }
+        double norms = Math.sqrt(dot(values, values) * dot(other.values, other.values));
+        return norms == 0 ? 0.0 : dot(other) / norms;
+    }
+
+    /**
+     * 复制分量
+     */
+    public float[] toArray() {
+        return values.clone();
+    }
+
+    /**
+     * 分量数组本身，只读
+     */
+    float[] array() {
+        return values;
+    }
+
+    /**
+     * 不复制的只读List&lt;Double&gt;视图（Spring AI边界），按需装箱
+     */
+    public List<Double> asList() {
+        return new DoubleView(values);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof EmbeddingVector other && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return "EmbeddingVector[" + values.length + "]";
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static final class DoubleView extends AbstractList<Double> implements RandomAccess {
+
+        private final float[] values;
+
+        private DoubleView(float[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Double get(int index) {
+            return (double) values[index];
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+}
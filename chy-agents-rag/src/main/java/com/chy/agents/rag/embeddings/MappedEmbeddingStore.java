@@ -0,0 +1,216 @@
+package com.chy.agents.rag.embeddings;
+
+import com.chy.agents.common.utils.MappedBuffers;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * 内存映射的向量文件
+ * 追加写入，整个文件映射到内存，堆上只保留键到记录偏移的索引，读取时直接从映射区域复制向量。
+ * <p>
+ * 文件头：[int 魔数][int 版本][int 维度][int 保留][long 模型摘要高位][long 模型摘要低位]，
+ * 打开时模型摘要或版本不一致（如更换了嵌入模型）则清空文件，维度在第一次写入时记录，之后只接受相同维度的向量。
+ * 记录格式：[int 维度][int CRC32C][long 键高位][long 键低位][float × 维度]，维度为0表示数据结束。
+ * 启动时扫描文件重建索引，遇到校验和不符的记录即停止，该记录及之后的内容被后续写入覆盖。
+ * <p>
+ * 写入只是对映射内存的写入，由操作系统回写，关闭时才强制落盘。进程崩溃不丢数据；断电时已写入的页面可能只有一部分落盘，
+ * 且顺序不确定（先写记录体、最后写维度并不能保证落盘顺序），因此依靠每条记录的校验和识别不完整的记录，
+ * 断电可能丢失最近写入的部分记录，但不会读到错误的向量。文件写满后不再追加。
+ */
+@Slf4j
+public class MappedEmbeddingStore implements Closeable {
+
+    private static final int MAGIC = 0x43485945;
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 4 + 4 + 4 + 4 + 8 + 8;
+    private static final int DIMENSIONS_OFFSET = 8;
+    private static final int MODEL_OFFSET = 16;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final Map<EmbeddingCache.Key, Integer> index = new HashMap<>();
+    private final CRC32C crc = new CRC32C();
+    private int dimensions;
+    private int position;
+    private boolean closed;
+
+    /**
+     * @param file 缓存文件
+     * @param maxBytes 文件最大字节数
+     * @param model 嵌入模型标识，与文件中记录的不一致时清空文件
+     */
+    public MappedEmbeddingStore(Path file, int maxBytes, String model) {
+        this.file = file;
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                // 映射在通道关闭后仍然有效
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        Math.max(FILE_HEADER_BYTES + HEADER_BYTES * 2, maxBytes));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open embedding cache " + file, e);
+        }
+        ByteBuffer fingerprint = ByteBuffer.wrap(fingerprint(model));
+        long modelHigh = fingerprint.getLong();
+        long modelLow = fingerprint.getLong();
+        if (buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION
+                && buffer.getLong(MODEL_OFFSET) == modelHigh && buffer.getLong(MODEL_OFFSET + 8) == modelLow) {
+            dimensions = buffer.getInt(DIMENSIONS_OFFSET);
+            scan();
+        } else {
+            if (buffer.getInt(0) != 0) {
+                log.info("向量缓存文件 [{}] 的格式或嵌入模型已变化，清空重建", file);
+            }
+            reset(modelHigh, modelLow);
+        }
+    }
+
+    /**
+     * 读取向量，从映射区域复制到新的堆数组
+     *
+     * @param key 缓存键
+     * @return 向量副本，不存在时返回null
+     */
+    public synchronized float[] get(EmbeddingCache.Key key) {
+        Integer offset = closed ? null : index.get(key);
+        if (offset == null) {
+            return null;
+        }
+        float[] vector = new float[buffer.getInt(offset)];
+        buffer.slice(offset + HEADER_BYTES, vector.length * Float.BYTES).asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    /**
+     * 追加向量，已存在、维度与文件不一致或文件已满时忽略
+     *
+     * @param key 缓存键
+     * @param vector 向量
+     * @return 是否写入
+     */
+    public synchronized boolean put(EmbeddingCache.Key key, float[] vector) {
+        int recordBytes = HEADER_BYTES + vector.length * Float.BYTES;
+        // 记录之后留出4字节的结束标记
+        if (closed || vector.length == 0 || (dimensions != 0 && vector.length != dimensions)
+                || index.containsKey(key) || position + recordBytes + 4 > buffer.capacity()) {
+            return false;
+        }
+        if (dimensions == 0) {
+            dimensions = vector.length;
+            buffer.putInt(DIMENSIONS_OFFSET, dimensions);
+        }
+        int offset = position;
+        buffer.putLong(offset + 8, key.high());
+        buffer.putLong(offset + 16, key.low());
+        buffer.slice(offset + HEADER_BYTES, vector.length * Float.BYTES).asFloatBuffer().put(vector);
+        buffer.putInt(offset + 4, checksum(offset, vector.length));
+        // 清空后的文件中之后可能还有旧记录，先写结束标记
+        buffer.putInt(offset + recordBytes, 0);
+        buffer.putInt(offset, vector.length);
+        index.put(key, offset);
+        position = offset + recordBytes;
+        return true;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * 向量维度，尚未写入时为0
+     */
+    public synchronized int getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * 已使用的字节数
+     */
+    public synchronized long getUsedBytes() {
+        return position;
+    }
+
+    /**
+     * 落盘并释放映射，之后的读取返回null、写入被忽略
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buffer.force();
+        index.clear();
+        MappedBuffers.unmap(buffer);
+    }
+
+    private void scan() {
+        int offset = FILE_HEADER_BYTES;
+        while (offset + HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            long end = offset + HEADER_BYTES + (long) length * Float.BYTES;
+            if (length != dimensions || length <= 0 || end > buffer.capacity()) {
+                break;
+            }
+            if (buffer.getInt(offset + 4) != checksum(offset, length)) {
+                log.warn("向量缓存文件 [{}] 在偏移 {} 处的记录校验失败，忽略之后的内容", file, offset);
+                break;
+            }
+            index.put(new EmbeddingCache.Key(buffer.getLong(offset + 8), buffer.getLong(offset + 16)), offset);
+            offset = (int) end;
+        }
+        position = offset;
+        if (!index.isEmpty()) {
+            log.info("已加载向量缓存文件 [{}]，共{}条", file, index.size());
+        }
+    }
+
+    private void reset(long modelHigh, long modelLow) {
+        buffer.putInt(FILE_HEADER_BYTES, 0);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(DIMENSIONS_OFFSET, 0);
+        buffer.putInt(12, 0);
+        buffer.putLong(MODEL_OFFSET, modelHigh);
+        buffer.putLong(MODEL_OFFSET + 8, modelLow);
+        dimensions = 0;
+        position = FILE_HEADER_BYTES;
+    }
+
+    /**
+     * 键和向量的CRC32C
+     */
+    private int checksum(int offset, int length) {
+        crc.reset();
+        crc.update(buffer.slice(offset + 8, 16 + length * Float.BYTES));
+        return (int) crc.getValue();
+    }
+
+    private static byte[] fingerprint(String model) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(String.valueOf(model).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.chy.agents.rag.embeddings;
 
+import com.chy.agents.rag.chunk.SentenceSegmenter;
 import org.springframework.ai.document.Document;
 import org.springframework.stereotype.Component;
 import java.util.List;
@@ -21,8 +22,8 @@ public class TextChunkingStrategy implements ChunkingStrategy {
         
         List<Document> chunks = new ArrayList<>();
         
-        // 简单的按句子分割实现
-        String[] sentences = content.split("[.!?]");
+        // 按句子分割（识别中日文和西文句末标点，句子保留原有标点）
+        List<String> sentences = SentenceSegmenter.split(content);
         StringBuilder currentChunk = new StringBuilder();
         Map<String, Object> chunkMetadata = Map.copyOf(metadata);
         
@@ -53,7 +54,7 @@ public class TextChunkingStrategy implements ChunkingStrategy {
             if (currentChunk.length() > 0) {
                 currentChunk.append(" ");
             }
-            currentChunk.append(trimmedSentence).append(".");
+            currentChunk.append(trimmedSentence);
         }
         
         // 添加最后剩余的内容
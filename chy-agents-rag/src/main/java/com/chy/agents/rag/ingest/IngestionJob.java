@@ -0,0 +1,174 @@
+package com.chy.agents.rag.ingest;
+
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 导入任务
+ * 记录一次批量导入的进度，各阶段并发更新计数，可随时查询进度或等待完成
+ */
+public class IngestionJob {
+
+    /**
+     * 任务状态
+     */
+    public enum State {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final long startedAt = System.currentTimeMillis();
+    private final long startedNanos = System.nanoTime();
+    private final List<String> documentIds = Collections.synchronizedList(new ArrayList<>());
+    private final CompletableFuture<IngestionJob> completion = new CompletableFuture<>();
+
+    private final LongAdder documents = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder embedded = new LongAdder();
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * 等待写入的文档，只由写入线程访问
+     */
+    final List<Document> storeBuffer = new ArrayList<>();
+
+    private volatile long finishedNanos;
+    private volatile String error;
+    private volatile boolean aborted;
+
+    public String getId() {
+        return id;
+    }
+
+    public List<String> getDocumentIds() {
+        synchronized (documentIds) {
+            return List.copyOf(documentIds);
+        }
+    }
+
+    public long getChunks() {
+        return chunks.sum();
+    }
+
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    public long getStored() {
+        return stored.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public State getState() {
+        if (!completion.isDone()) {
+            return State.RUNNING;
+        }
+        return completion.isCompletedExceptionally() ? State.FAILED : State.COMPLETED;
+    }
+
+    public boolean isDone() {
+        return completion.isDone();
+    }
+
+    /**
+     * 等待任务完成
+     *
+     * @return 当前任务
+     */
+    public IngestionJob await() {
+        return completion.join();
+    }
+
+    /**
+     * 任务完成时完成的Future
+     */
+    public CompletableFuture<IngestionJob> toFuture() {
+        return completion.copy();
+    }
+
+    /**
+     * 获取任务进度
+     *
+     * @return 进度映射
+     */
+    public Map<String, Object> getProgress() {
+        long end = finishedNanos != 0 ? finishedNanos : System.nanoTime();
+        long elapsedMillis = Math.max(1, (end - startedNanos) / 1_000_000);
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("id", id);
+        progress.put("state", getState().name());
+        progress.put("startedAt", startedAt);
+        progress.put("elapsedMillis", elapsedMillis);
+        progress.put("documents", documents.sum());
+        progress.put("chunks", chunks.sum());
+        progress.put("duplicates", duplicates.sum());
+        progress.put("embedded", embedded.sum());
+        progress.put("stored", stored.sum());
+        progress.put("failed", failed.sum());
+        progress.put("chunksPerSecond", stored.sum() * 1000.0 / elapsedMillis);
+        if (error != null) {
+            progress.put("error", error);
+        }
+        return progress;
+    }
+
+    void document(String documentId) {
+        documentIds.add(documentId);
+        documents.increment();
+    }
+
+    void chunk() {
+        chunks.increment();
+    }
+
+    void duplicate() {
+        duplicates.increment();
+    }
+
+    void embedded(int count) {
+        embedded.add(count);
+    }
+
+    void stored(int count) {
+        stored.add(count);
+    }
+
+    void failed(int count) {
+        failed.add(count);
+    }
+
+    void complete() {
+        finishedNanos = System.nanoTime();
+        completion.complete(this);
+    }
+
+    /**
+     * 标记任务已失败，在途批次不再向量化和写入
+     */
+    void abort() {
+        aborted = true;
+    }
+
+    boolean isAborted() {
+        return aborted;
+    }
+
+    void fail(Throwable cause) {
+        finishedNanos = System.nanoTime();
+        error = cause.getMessage();
+        completion.completeExceptionally(cause);
+    }
+}
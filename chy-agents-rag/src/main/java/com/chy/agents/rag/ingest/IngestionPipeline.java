@@ -0,0 +1,464 @@
+package com.chy.agents.rag.ingest;
+
+import com.chy.agents.rag.chunk.TextChunker;
+import com.chy.agents.rag.chunk.TextChunker.DocumentChunk;
+import com.chy.agents.rag.embeddings.EmbeddingService;
+import com.chy.agents.rag.embeddings.EmbeddingVector;
+import com.chy.agents.rag.vector.VectorStoreService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * RAG批量导入流水线
+ * 分块 → 按文档内的内容哈希去重 → 按批向量化（有界并行）→ 批量写入向量存储。
+ * 分块在协调线程上逐块进行（文件来源按流式分块读取），已分块未写入的批次数受信号量限制，
+ * 向量化或写入跟不上时分块阶段等待（背压），因此导入大文件时内存只与在途批次数有关；
+ * 向量化在固定大小的线程池中并行，写入由单个线程把多个向量化批次合并为一次批量写入。
+ * 失败的批次按退避重试，仍失败时计入失败数，不影响同一任务的其他批次；
+ * 任务本身失败（如分块出错）时停止在途批次，尚未写入的分块全部计入失败数。
+ */
+@Slf4j
+public class IngestionPipeline implements AutoCloseable {
+
+    public static final String DOCUMENT_ID_KEY = "documentId";
+    public static final String DOCUMENT_TITLE_KEY = "documentTitle";
+    public static final String CHUNK_INDEX_KEY = "chunkIndex";
+    public static final String CONTENT_HASH_KEY = "contentHash";
+
+    private final TextChunker textChunker;
+    private final EmbeddingService embeddingService;
+    private final VectorStoreService vectorStoreService;
+    private final IngestionProperties properties;
+
+    private final ExecutorService coordinator;
+    private final ExecutorService embeddingPool;
+    private final ExecutorService storePool;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+
+    /**
+     * 已导入的去重键（文档ID + 内容哈希）到文档ID，按插入顺序淘汰
+     */
+    private final LinkedHashMap<String, String> seen = new LinkedHashMap<>();
+
+    /**
+     * 文档ID到已分块数，用于删除文档时定位全部分块
+     */
+    private final Map<String, Integer> chunkCounts = new ConcurrentHashMap<>();
+
+    private final AtomicInteger activeJobs = new AtomicInteger();
+    private final LongAdder jobs = new LongAdder();
+    private final LongAdder documents = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder embedded = new LongAdder();
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder embeddingBatches = new LongAdder();
+    private final LongAdder embeddingNanos = new LongAdder();
+    private final LongAdder storeBatches = new LongAdder();
+    private final LongAdder storeNanos = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder backpressureNanos = new LongAdder();
+
+    public IngestionPipeline(TextChunker textChunker, EmbeddingService embeddingService,
+                             VectorStoreService vectorStoreService, IngestionProperties properties) {
+        this.textChunker = textChunker;
+        this.embeddingService = embeddingService;
+        this.vectorStoreService = vectorStoreService;
+        this.properties = properties;
+        this.maxInFlight = Math.max(1, properties.getMaxInFlightBatches());
+        this.inFlight = new Semaphore(maxInFlight);
+        this.coordinator = Executors.newCachedThreadPool(daemonThreads("chy-rag-ingest-"));
+        this.embeddingPool = Executors.newFixedThreadPool(Math.max(1, properties.getEmbeddingParallelism()),
+                daemonThreads("chy-rag-embed-"));
+        this.storePool = Executors.newSingleThreadExecutor(daemonThreads("chy-rag-store-"));
+    }
+
+    /**
+     * 提交导入任务，立即返回
+     *
+     * @param sources 待导入的文档
+     * @return 导入任务
+     */
+    public IngestionJob submit(List<IngestionSource> sources) {
+        IngestionJob job = new IngestionJob();
+        jobs.increment();
+        activeJobs.incrementAndGet();
+        try {
+            coordinator.execute(() -> run(job, List.copyOf(sources)));
+        } catch (RejectedExecutionException e) {
+            activeJobs.decrementAndGet();
+            job.fail(e);
+        }
+        return job;
+    }
+
+    /**
+     * 导入并等待完成
+     *
+     * @param sources 待导入的文档
+     * @return 已完成的导入任务
+     */
+    public IngestionJob ingest(List<IngestionSource> sources) {
+        return submit(sources).await();
+    }
+
+    /**
+     * 获取文档已导入的分块ID
+     *
+     * @param documentId 文档ID
+     * @return 分块ID列表，未经本流水线导入（如重启前导入）时返回空列表
+     */
+    public List<String> chunkIds(String documentId) {
+        Integer count = chunkCounts.get(documentId);
+        if (count == null) {
+            return List.of();
+        }
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(chunkId(documentId, i));
+        }
+        return ids;
+    }
+
+    /**
+     * 移除文档的去重记录和分块记录，文档删除后再次导入相同内容时不会被当作重复
+     *
+     * @param documentId 文档ID
+     */
+    public void forget(String documentId) {
+        synchronized (seen) {
+            seen.values().removeIf(documentId::equals);
+        }
+        chunkCounts.remove(documentId);
+    }
+
+    /**
+     * 分块在向量存储中的ID
+     *
+     * @param documentId 文档ID
+     * @param chunkIndex 分块序号
+     * @return 分块ID
+     */
+    public static String chunkId(String documentId, int chunkIndex) {
+        return documentId + "-" + chunkIndex;
+    }
+
+    /**
+     * 获取流水线统计
+     *
+     * @return 统计映射
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("jobs", jobs.sum());
+        metrics.put("activeJobs", activeJobs.get());
+        metrics.put("documents", documents.sum());
+        metrics.put("chunks", chunks.sum());
+        metrics.put("duplicates", duplicates.sum());
+        metrics.put("embedded", embedded.sum());
+        metrics.put("stored", stored.sum());
+        metrics.put("failed", failed.sum());
+        metrics.put("retries", retries.sum());
+        metrics.put("inFlightBatches", maxInFlight - inFlight.availablePermits());
+        metrics.put("backpressureMillis", backpressureNanos.sum() / 1_000_000);
+        long batches = embeddingBatches.sum();
+        metrics.put("embeddingBatches", batches);
+        metrics.put("avgEmbeddingBatchMillis", batches > 0 ? embeddingNanos.sum() / 1_000_000.0 / batches : 0.0);
+        long writes = storeBatches.sum();
+        metrics.put("storeBatches", writes);
+        metrics.put("avgStoreBatchMillis", writes > 0 ? storeNanos.sum() / 1_000_000.0 / writes : 0.0);
+        synchronized (seen) {
+            metrics.put("dedupeEntries", seen.size());
+        }
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        coordinator.shutdown();
+        awaitTermination(coordinator);
+        embeddingPool.shutdown();
+        awaitTermination(embeddingPool);
+        storePool.shutdown();
+        awaitTermination(storePool);
+    }
+
+    private void run(IngestionJob job, List<IngestionSource> sources) {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        try {
+            int batchSize = Math.max(1, properties.getEmbeddingBatchSize());
+            List<Document> batch = new ArrayList<>(batchSize);
+            for (IngestionSource source : sources) {
+                job.document(source.documentId());
+                documents.increment();
+                try (Stream<DocumentChunk> documentChunks = source.chunks(textChunker)) {
+                    Iterator<DocumentChunk> iterator = documentChunks.iterator();
+                    while (iterator.hasNext()) {
+                        DocumentChunk chunk = iterator.next();
+                        job.chunk();
+                        chunks.increment();
+                        chunkCounts.merge(source.documentId(), chunk.getChunkIndex() + 1, Math::max);
+                        String hash = contentHash(chunk.getContent());
+                        if (properties.isDeduplicate() && !markSeen(source.documentId(), hash)) {
+                            job.duplicate();
+                            duplicates.increment();
+                            continue;
+                        }
+                        batch.add(toDocument(source, chunk, hash));
+                        if (batch.size() >= batchSize) {
+                            pending.add(dispatch(job, batch));
+                            batch = new ArrayList<>(batchSize);
+                        }
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                pending.add(dispatch(job, batch));
+            }
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+            // 写入线程上合并的最后一批
+            CompletableFuture.runAsync(() -> flush(job), storePool).join();
+            job.complete();
+            log.debug("导入任务 [{}] 完成: {}", job.getId(), job.getProgress());
+        } catch (Throwable e) {
+            log.warn("导入任务 [{}] 失败: {}", job.getId(), e.getMessage());
+            abort(job, pending, e);
+            job.fail(e);
+        } finally {
+            activeJobs.decrementAndGet();
+        }
+    }
+
+    /**
+     * 停止失败任务的在途批次：尚未向量化或写入的批次直接丢弃，等待它们结束后丢弃写入线程上已合并的分块，
+     * 使任务进度在失败时已计入全部未写入的分块
+     */
+    private void abort(IngestionJob job, List<CompletableFuture<Void>> pending, Throwable error) {
+        job.abort();
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        try {
+            CompletableFuture.runAsync(() -> {
+                if (!job.storeBuffer.isEmpty()) {
+                    discard(job, List.copyOf(job.storeBuffer), error);
+                    job.storeBuffer.clear();
+                }
+            }, storePool).join();
+        } catch (RejectedExecutionException e) {
+            // 流水线已关闭，写入线程不再处理该任务
+            log.debug("导入任务 [{}] 的待写入分块未能丢弃: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 提交一个向量化批次，在途批次已满时等待
+     */
+    private CompletableFuture<Void> dispatch(IngestionJob job, List<Document> batch) throws InterruptedException {
+        long start = System.nanoTime();
+        inFlight.acquire();
+        backpressureNanos.add(System.nanoTime() - start);
+        try {
+            return CompletableFuture.supplyAsync(() -> embed(job, batch), embeddingPool)
+                    .thenAcceptAsync(embeddedBatch -> buffer(job, embeddedBatch), storePool)
+                    .handle((ignored, error) -> {
+                        inFlight.release();
+                        if (error != null) {
+                            discard(job, batch, error instanceof CompletionException && error.getCause() != null
+                                    ? error.getCause() : error);
+                        }
+                        return null;
+                    });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private List<Document> embed(IngestionJob job, List<Document> batch) {
+        if (job.isAborted()) {
+            throw new CancellationException("导入任务已失败");
+        }
+        if (!properties.isPrecomputeEmbeddings()) {
+            return batch;
+        }
+        List<String> texts = new ArrayList<>(batch.size());
+        for (Document document : batch) {
+            texts.add(document.getContent());
+        }
+        long start = System.nanoTime();
+        List<EmbeddingVector> embeddings = withRetry(() -> embeddingService.embedTexts(texts));
+        embeddingNanos.add(System.nanoTime() - start);
+        embeddingBatches.increment();
+        if (embeddings.size() != batch.size()) {
+            throw new IllegalStateException("向量数量与文本数量不一致: " + embeddings.size() + " != " + batch.size());
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            // Spring AI文档以List<Double>携带向量，使用不复制的视图
+            batch.get(i).setEmbedding(embeddings.get(i).asList());
+        }
+        job.embedded(batch.size());
+        embedded.add(batch.size());
+        return batch;
+    }
+
+    /**
+     * 在写入线程上合并批次，达到批量写入大小时写入
+     */
+    private void buffer(IngestionJob job, List<Document> batch) {
+        if (job.isAborted()) {
+            throw new CancellationException("导入任务已失败");
+        }
+        job.storeBuffer.addAll(batch);
+        if (job.storeBuffer.size() >= Math.max(1, properties.getStoreBatchSize())) {
+            flush(job);
+        }
+    }
+
+    private void flush(IngestionJob job) {
+        if (job.storeBuffer.isEmpty()) {
+            return;
+        }
+        List<Document> batch = List.copyOf(job.storeBuffer);
+        job.storeBuffer.clear();
+        long start = System.nanoTime();
+        try {
+            withRetry(() -> {
+                vectorStoreService.addDocuments(batch);
+                return null;
+            });
+            storeNanos.add(System.nanoTime() - start);
+            storeBatches.increment();
+            job.stored(batch.size());
+            stored.add(batch.size());
+        } catch (RuntimeException e) {
+            discard(job, batch, e);
+        }
+    }
+
+    private void discard(IngestionJob job, List<Document> batch, Throwable error) {
+        log.warn("导入任务 [{}] 丢弃 {} 个分块: {}", job.getId(), batch.size(), error.getMessage());
+        job.failed(batch.size());
+        failed.add(batch.size());
+        // 未写入的内容允许再次导入
+        synchronized (seen) {
+            for (Document document : batch) {
+                Map<String, Object> metadata = document.getMetadata();
+                seen.remove(dedupeKey(String.valueOf(metadata.get(DOCUMENT_ID_KEY)),
+                        String.valueOf(metadata.get(CONTENT_HASH_KEY))));
+            }
+        }
+    }
+
+    private <T> T withRetry(Supplier<T> action) {
+        long backoff = properties.getRetryBackoffMillis();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return action.get();
+            } catch (RuntimeException e) {
+                if (attempt >= properties.getMaxRetries()) {
+                    throw e;
+                }
+                retries.increment();
+                try {
+                    Thread.sleep(backoff << attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * 记录文档内的内容哈希，只在同一文档内去重，不同文档的相同内容各自保留
+     *
+     * @return 首次出现时返回true
+     */
+    private boolean markSeen(String documentId, String hash) {
+        String key = dedupeKey(documentId, hash);
+        synchronized (seen) {
+            if (seen.containsKey(key)) {
+                return false;
+            }
+            seen.put(key, documentId);
+            if (seen.size() > properties.getDedupeCacheSize()) {
+                seen.remove(seen.keySet().iterator().next());
+            }
+            return true;
+        }
+    }
+
+    private static Document toDocument(IngestionSource source, DocumentChunk chunk, String hash) {
+        Map<String, Object> metadata = new HashMap<>();
+        if (source.metadata() != null) {
+            metadata.putAll(source.metadata());
+        }
+        metadata.put(DOCUMENT_ID_KEY, source.documentId());
+        metadata.put(DOCUMENT_TITLE_KEY, chunk.getDocumentTitle());
+        metadata.put(CHUNK_INDEX_KEY, chunk.getChunkIndex());
+        metadata.put(CONTENT_HASH_KEY, hash);
+        return new Document(chunkId(source.documentId(), chunk.getChunkIndex()), chunk.getContent(), metadata);
+    }
+
+    private static String dedupeKey(String documentId, String hash) {
+        return documentId + ":" + hash;
+    }
+
+    /**
+     * 计算内容的SHA-256哈希
+     */
+    static String contentHash(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
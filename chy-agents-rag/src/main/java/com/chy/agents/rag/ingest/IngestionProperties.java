@@ -0,0 +1,59 @@
+package com.chy.agents.rag.ingest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * RAG批量导入配置
+ */
+@Data
+@ConfigurationProperties(prefix = "chy.agents.rag.ingestion")
+public class IngestionProperties {
+
+    /**
+     * 单次向量化请求的文本数（按嵌入提供商的批量上限设置）
+     */
+    private int embeddingBatchSize = 64;
+
+    /**
+     * 并行向量化的请求数
+     */
+    private int embeddingParallelism = 4;
+
+    /**
+     * 单次写入向量存储的文档数
+     */
+    private int storeBatchSize = 256;
+
+    /**
+     * 已分块、尚未写入的批次数上限，超出时分块阶段等待（背压）
+     */
+    private int maxInFlightBatches = 16;
+
+    /**
+     * 是否预先计算向量（通过EmbeddingService批量、并行、带缓存地向量化后随文档写入）。
+     * 内置向量存储经PrecomputedEmbeddingClient直接使用文档自带的向量；自定义向量存储需要同样包装其嵌入客户端，
+     * 否则写入时会再次向量化
+     */
+    private boolean precomputeEmbeddings = true;
+
+    /**
+     * 是否按内容哈希在同一文档内去重（不同文档的相同内容不去重）
+     */
+    private boolean deduplicate = true;
+
+    /**
+     * 去重记录的内容哈希数上限（跨批次导入共享，超出时淘汰最早的记录）
+     */
+    private int dedupeCacheSize = 1_000_000;
+
+    /**
+     * 向量化或写入失败后的最大重试次数
+     */
+    private int maxRetries = 2;
+
+    /**
+     * 首次重试的退避时间（毫秒），之后每次翻倍
+     */
+    private long retryBackoffMillis = 500;
+}
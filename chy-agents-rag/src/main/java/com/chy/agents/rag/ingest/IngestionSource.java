@@ -0,0 +1,54 @@
+package com.chy.agents.rag.ingest;
+
+import com.chy.agents.rag.chunk.TextChunker;
+import com.chy.agents.rag.chunk.TextChunker.DocumentChunk;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 待导入的原始文档
+ * 内容为文本或文件：文件按流式分块读取，不整体载入内存
+ *
+ * @param documentId 文档ID
+ * @param title 文档标题
+ * @param content 文档内容，文件来源时为空
+ * @param metadata 附加到每个分块的元数据，可以为空
+ * @param file UTF-8文本文件，文本来源时为空
+ */
+public record IngestionSource(String documentId, String title, String content, Map<String, Object> metadata,
+                              Path file) {
+
+    public IngestionSource(String documentId, String title, String content) {
+        this(documentId, title, content, Map.of(), null);
+    }
+
+    public IngestionSource(String documentId, String title, String content, Map<String, Object> metadata) {
+        this(documentId, title, content, metadata, null);
+    }
+
+    /**
+     * 文件来源
+     *
+     * @param documentId 文档ID
+     * @param title 文档标题
+     * @param file UTF-8文本文件
+     * @return 导入来源
+     */
+    public static IngestionSource ofFile(String documentId, String title, Path file) {
+        return new IngestionSource(documentId, title, null, Map.of(), file);
+    }
+
+    /**
+     * 分块
+     *
+     * @param chunker 分块器
+     * @return 按顺序产生的分块，使用后需关闭
+     */
+    Stream<DocumentChunk> chunks(TextChunker chunker) {
+        return file != null
+                ? chunker.chunkStream(file, documentId, title)
+                : chunker.chunkWithMetadata(content, documentId, title).stream();
+    }
+}
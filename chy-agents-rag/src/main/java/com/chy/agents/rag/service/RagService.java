@@ -1,11 +1,11 @@
 package com.chy.agents.rag.service;
 
-import com.chy.agents.rag.chunk.TextChunker;
-import com.chy.agents.rag.chunk.TextChunker.DocumentChunk;
-import com.chy.agents.rag.embeddings.EmbeddingService;
+import com.chy.agents.rag.ingest.IngestionJob;
+import com.chy.agents.rag.ingest.IngestionPipeline;
+import com.chy.agents.rag.ingest.IngestionSource;
 import com.chy.agents.rag.vector.VectorStoreService;
 
-import java.util.HashMap;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -20,28 +20,25 @@ import org.springframework.stereotype.Service;
 @Service
 public class RagService {
 
-    private final TextChunker textChunker;
-    private final EmbeddingService embeddingService;
     private final VectorStoreService vectorStoreService;
+    private final IngestionPipeline ingestionPipeline;
 
     /**
      * 构造函数
      * 
-     * @param textChunker 文本分块器
-     * @param embeddingService 嵌入服务
      * @param vectorStoreService 向量存储服务
+     * @param ingestionPipeline 导入流水线
      */
     public RagService(
-            TextChunker textChunker,
-            EmbeddingService embeddingService,
-            VectorStoreService vectorStoreService) {
-        this.textChunker = textChunker;
-        this.embeddingService = embeddingService;
+            VectorStoreService vectorStoreService,
+            IngestionPipeline ingestionPipeline) {
         this.vectorStoreService = vectorStoreService;
+        this.ingestionPipeline = ingestionPipeline;
     }
 
     /**
      * 添加文档到知识库
+     * 分块后批量向量化并写入，等待写入完成后返回
      * 
      * @param content 文档内容
      * @param title 文档标题
@@ -49,24 +46,49 @@ public class RagService {
      */
     public String addDocument(String content, String title) {
         String documentId = UUID.randomUUID().toString();
-        
-        // 1. 分块
-        List<DocumentChunk> chunks = textChunker.chunkWithMetadata(content, documentId, title);
-        
-        // 2. 存储每个分块
-        for (int i = 0; i < chunks.size(); i++) {
-            DocumentChunk chunk = chunks.get(i);
-            Map<String, Object> metadata = new HashMap<>();
-            metadata.put("documentId", chunk.getDocumentId());
-            metadata.put("documentTitle", chunk.getDocumentTitle());
-            metadata.put("chunkIndex", chunk.getChunkIndex());
-            
-            String chunkId = documentId + "-" + i;
-            vectorStoreService.addDocument(chunk.getContent(), chunkId, metadata);
+        IngestionJob job = ingestionPipeline.ingest(List.of(new IngestionSource(documentId, title, content)));
+        if (job.getFailed() > 0) {
+            throw new IllegalStateException("文档导入失败: " + job.getFailed() + "/" + job.getChunks() + " 个分块未写入");
         }
-        
         return documentId;
     }
+
+    /**
+     * 添加文件到知识库
+     * 文件按流式分块读取，不整体载入内存，等待写入完成后返回
+     * 
+     * @param file UTF-8文本文件
+     * @param title 文档标题
+     * @return 文档ID
+     */
+    public String addDocument(Path file, String title) {
+        String documentId = UUID.randomUUID().toString();
+        IngestionJob job = ingestionPipeline.ingest(List.of(IngestionSource.ofFile(documentId, title, file)));
+        if (job.getFailed() > 0) {
+            throw new IllegalStateException("文档导入失败: " + job.getFailed() + "/" + job.getChunks() + " 个分块未写入");
+        }
+        return documentId;
+    }
+
+    /**
+     * 批量添加文档到知识库
+     * 立即返回导入任务，可通过任务查询进度或等待完成
+     * 
+     * @param sources 待导入的文档
+     * @return 导入任务
+     */
+    public IngestionJob addDocuments(List<IngestionSource> sources) {
+        return ingestionPipeline.submit(sources);
+    }
+
+    /**
+     * 获取导入统计
+     * 
+     * @return 统计映射
+     */
+    public Map<String, Object> getIngestionMetrics() {
+        return ingestionPipeline.getMetrics();
+    }
     
     /**
      * 根据查询检索相关文档
@@ -80,13 +102,18 @@ public class RagService {
     }
     
     /**
-     * 删除文档
+     * 删除文档的全部分块
+     * 按导入时记录的分块ID删除，没有记录时（如重启前导入的文档）按文档ID元数据删除
      * 
      * @param documentId 文档ID
      */
     public void deleteDocument(String documentId) {
-        // 实际应用中，应该先查询出所有与该文档相关的分块，然后批量删除
-        // 这里简化实现
-        vectorStoreService.deleteDocument(documentId);
+        List<String> chunkIds = ingestionPipeline.chunkIds(documentId);
+        if (!chunkIds.isEmpty()) {
+            vectorStoreService.deleteDocuments(chunkIds);
+        } else {
+            vectorStoreService.deleteByMetadata(IngestionPipeline.DOCUMENT_ID_KEY, documentId);
+        }
+        ingestionPipeline.forget(documentId);
     }
 }
@@ -3,6 +3,7 @@ package com.chy.agents.rag.vector;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
@@ -63,6 +64,16 @@ public class VectorStoreService {
     public void addDocuments(List<String> contents, List<String> ids, List<Map<String, Object>> metadata) {
         vectorStore.add(contents, ids, metadata);
     }
+
+    /**
+     * 批量添加文档到向量存储
+     * 向量存储的嵌入客户端经PrecomputedEmbeddingClient包装时，已携带向量的文档直接写入，不再重新向量化
+     * 
+     * @param documents 文档列表
+     */
+    public void addDocuments(List<Document> documents) {
+        vectorStore.add(documents);
+    }
     
     /**
      * 检索相似文档
@@ -97,4 +108,15 @@ public class VectorStoreService {
     public void deleteDocuments(List<String> ids) {
         vectorStore.delete(ids);
     }
+
+    /**
+     * 按元数据删除文档
+     * 需要向量存储支持按过滤表达式删除
+     * 
+     * @param key 元数据键
+     * @param value 元数据值
+     */
+    public void deleteByMetadata(String key, Object value) {
+        vectorStore.delete(new FilterExpressionBuilder().eq(key, value).build());
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,175 @@
+package com.chy.agents.rag.cache;
+
+import com.chy.agents.core.chat.ChatClient;
+import com.chy.agents.core.chat.cache.ResponseCache;
+import com.chy.agents.core.chat.message.BaseMessage;
+import com.chy.agents.core.chat.message.Message;
+import com.chy.agents.core.chat.message.MessageDelta;
+import com.chy.agents.core.chat.prompt.Prompt;
+import com.chy.agents.core.execution.AgentExecutor;
+import com.chy.agents.rag.embeddings.EmbeddingCache;
+import com.chy.agents.rag.embeddings.EmbeddingCacheProperties;
+import com.chy.agents.rag.embeddings.EmbeddingService;
+import com.chy.agents.rag.embeddings.EmbeddingVector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SemanticCacheTest {
+
+    private final Map<String, float[]> vectors = new HashMap<>();
+    private final SemanticCacheProperties properties = new SemanticCacheProperties();
+    private final AgentExecutor executor = new AgentExecutor();
+    private final AtomicInteger calls = new AtomicInteger();
+    private Supplier<Flux<MessageDelta>> deltas = Flux::empty;
+    private final ChatClient client = new FakeClient();
+    private SemanticCache cache;
+
+    SemanticCacheTest() {
+        vectors.put("如何重置密码", new float[]{1f, 0f});
+        // 与上一句的余弦相似度约为0.95
+        vectors.put("怎么重置密码", new float[]{0.95f, 0.312f});
+        vectors.put("今天天气如何", new float[]{0f, 1f});
+        properties.setEnabled(true);
+        properties.setSimilarityThreshold(0.9);
+        cache = new SemanticCache(embeddings(), properties, executor);
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.close();
+    }
+
+    @Test
+    void hitsAboveThresholdAndMissesBelowIt() {
+        cache.store(cache.lookup(client, Prompt.of("如何重置密码")), BaseMessage.assistantMessage("点击忘记密码"));
+
+        SemanticCache.Lookup similar = cache.lookup(client, Prompt.of("怎么重置密码"));
+        SemanticCache.Lookup unrelated = cache.lookup(client, Prompt.of("今天天气如何"));
+
+        assertTrue(similar.isHit());
+        assertEquals("点击忘记密码", similar.answer());
+        assertFalse(unrelated.isHit());
+        assertEquals(1, cache.getAuditTrail().size());
+        assertEquals(0.95, cache.getAuditTrail().get(0).similarity(), 0.01);
+
+        properties.setSimilarityThreshold(0.99);
+        assertFalse(cache.lookup(client, Prompt.of("怎么重置密码")).isHit());
+    }
+
+    @Test
+    void isolatesScopesAndEvictsLeastRecentlyUsedScope() {
+        properties.setMaxScopes(1);
+        cache.store(cache.lookup(client, Prompt.of("助手A", "如何重置密码")), BaseMessage.assistantMessage("A"));
+
+        // 系统提示不同，属于另一个作用域
+        assertFalse(cache.lookup(client, Prompt.of("助手B", "如何重置密码")).isHit());
+
+        cache.store(cache.lookup(client, Prompt.of("助手B", "如何重置密码")), BaseMessage.assistantMessage("B"));
+        assertEquals("B", cache.lookup(client, Prompt.of("助手B", "如何重置密码")).answer());
+        assertFalse(cache.lookup(client, Prompt.of("助手A", "如何重置密码")).isHit());
+        assertEquals(1, cache.getMetrics().get("scopes"));
+        assertEquals(1L, cache.getMetrics().get("evictions"));
+    }
+
+    @Test
+    void bypassSkipsLookup() {
+        cache.store(cache.lookup(client, Prompt.of("如何重置密码")), BaseMessage.assistantMessage("点击忘记密码"));
+
+        Prompt bypass = Prompt.builder().userInput("如何重置密码")
+                .parameters(Map.of(ResponseCache.BYPASS_PARAM, true)).build();
+
+        assertNull(cache.lookup(client, bypass));
+        assertNull(cache.lookup(client, Prompt.of("   ")));
+
+        ChatClient caching = cache.decorate("test", client);
+        caching.call(bypass);
+        caching.call(bypass);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void doesNotStoreTruncatedStream() {
+        ChatClient caching = cache.decorate("test", client);
+        deltas = () -> Flux.just(MessageDelta.of("点击", 0), MessageDelta.finish(1, "length"));
+
+        caching.streamDeltas(Prompt.of("如何重置密码")).blockLast();
+        caching.streamDeltas(Prompt.of("怎么重置密码")).blockLast();
+        assertEquals(2, calls.get());
+        assertEquals(0L, cache.getMetrics().get("stores"));
+
+        deltas = () -> Flux.just(MessageDelta.of("点击", 0), MessageDelta.of("忘记密码", 1), MessageDelta.finish(2, "stop"));
+        caching.streamDeltas(Prompt.of("如何重置密码")).blockLast();
+        String replayed = MessageDelta.join(caching.streamDeltas(Prompt.of("怎么重置密码"))).block().getContent();
+
+        assertEquals("点击忘记密码", replayed);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void doesNotStoreBlankAnswers() {
+        cache.store(cache.lookup(client, Prompt.of("如何重置密码")), BaseMessage.assistantMessage(" \n "));
+
+        assertFalse(cache.lookup(client, Prompt.of("如何重置密码")).isHit());
+        assertEquals(0L, cache.getMetrics().get("stores"));
+    }
+
+    private EmbeddingService embeddings() {
+        return new EmbeddingService(null, new EmbeddingCache(new EmbeddingCacheProperties()), null, executor) {
+            @Override
+            public EmbeddingVector embedText(String text) {
+                float[] vector = vectors.get(text);
+                if (vector == null) {
+                    throw new IllegalArgumentException("unknown text: " + text);
+                }
+                return EmbeddingVector.of(vector);
+            }
+        };
+    }
+
+    private class FakeClient implements ChatClient {
+
+        @Override
+        public Message call(Prompt prompt) {
+            calls.incrementAndGet();
+            return BaseMessage.assistantMessage("answer");
+        }
+
+        @Override
+        public CompletableFuture<Message> callAsync(Prompt prompt) {
+            return CompletableFuture.completedFuture(call(prompt));
+        }
+
+        @Override
+        public Flux<MessageDelta> streamDeltas(Prompt prompt) {
+            calls.incrementAndGet();
+            return deltas.get();
+        }
+
+        @Override
+        public Map<String, Object> getConfig() {
+            return Map.of();
+        }
+
+        @Override
+        public String getProvider() {
+            return "test";
+        }
+
+        @Override
+        public String getModel() {
+            return "test";
+        }
+    }
+}
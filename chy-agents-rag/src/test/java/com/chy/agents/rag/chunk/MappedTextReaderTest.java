@@ -0,0 +1,99 @@
+package com.chy.agents.rag.chunk;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MappedTextReaderTest {
+
+    private static final int REGION_BYTES = 4096;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsEmptyFile() throws IOException {
+        Path file = write(new byte[0]);
+        try (Reader reader = new MappedTextReader(file, StandardCharsets.UTF_8, REGION_BYTES)) {
+            assertEquals(-1, reader.read());
+            assertEquals(-1, reader.read(new char[16], 0, 16));
+        }
+    }
+
+    @Test
+    void readsNothingAfterClose() throws IOException {
+        Path file = write("中".repeat(REGION_BYTES).getBytes(StandardCharsets.UTF_8));
+        Reader reader = new MappedTextReader(file, StandardCharsets.UTF_8, REGION_BYTES);
+        assertEquals('中', reader.read());
+
+        // 关闭时已释放映射，之后的读取不能再访问区域
+        reader.close();
+        reader.close();
+        assertEquals(-1, reader.read(new char[16], 0, 16));
+    }
+
+    @Test
+    void decodesCharactersSplitAcrossRegions() throws IOException {
+        // 让2、3、4字节字符的每个切分位置都落在区域边界上
+        for (String character : new String[]{"é", "中", "😀"}) {
+            int width = character.getBytes(StandardCharsets.UTF_8).length;
+            for (int shift = 1; shift < width; shift++) {
+                String text = "a".repeat(REGION_BYTES - shift) + character.repeat(3) + "end";
+                Path file = write(text.getBytes(StandardCharsets.UTF_8));
+                assertEquals(text, readAll(file, 8192), character + " shift " + shift);
+                assertEquals(text, readAll(file, 1), character + " shift " + shift);
+            }
+        }
+    }
+
+    @Test
+    void replacesMalformedAndTruncatedInput() throws IOException {
+        byte[] middle = {'a', (byte) 0xFF, 'b'};
+        assertEquals("a\uFFFDb", readAll(write(middle), 16));
+
+        byte[] truncated = {'a', (byte) 0xE4, (byte) 0xB8};
+        assertEquals("a\uFFFD", readAll(write(truncated), 16));
+    }
+
+    @Test
+    void matchesStringDecodingForRandomText() throws IOException {
+        Random random = new Random(7);
+        String[] alphabet = {"a", "Z", " ", "\n", "é", "中", "文", "。", "😀", "𠀀"};
+        for (int round = 0; round < 20; round++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(REGION_BYTES * 3);
+            while (text.length() < length) {
+                text.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            Path file = write(text.toString().getBytes(StandardCharsets.UTF_8));
+            int chunk = 1 + random.nextInt(3000);
+            assertEquals(text.toString(), readAll(file, chunk), "round " + round + " chunk " + chunk);
+        }
+    }
+
+    private Path write(byte[] bytes) throws IOException {
+        Path file = Files.createTempFile(dir, "text", ".txt");
+        Files.write(file, bytes);
+        return file;
+    }
+
+    private static String readAll(Path file, int chunk) throws IOException {
+        StringBuilder result = new StringBuilder();
+        char[] buffer = new char[chunk];
+        try (Reader reader = new MappedTextReader(file, StandardCharsets.UTF_8, REGION_BYTES)) {
+            int count;
+            while ((count = reader.read(buffer, 0, chunk)) != -1) {
+                result.append(buffer, 0, count);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,83 @@
+package com.chy.agents.rag.chunk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SentenceSegmenterTest {
+
+    @Test
+    void splitsAfterCjkTerminals() {
+        assertEquals(List.of("你好。", "今天天气很好！", "你呢？"), SentenceSegmenter.split("你好。今天天气很好！你呢？"));
+        assertEquals(List.of("真的吗？！", "是的……", "好"), SentenceSegmenter.split("真的吗？！是的……好"));
+    }
+
+    @Test
+    void keepsClosingQuotesWithTheSentence() {
+        assertEquals(List.of("他说：“走吧。”", "然后走了。"), SentenceSegmenter.split("他说：“走吧。”然后走了。"));
+        assertEquals(List.of("(It works.) ", "Next"), SentenceSegmenter.split("(It works.) Next"));
+    }
+
+    @Test
+    void requiresWhitespaceAfterLatinTerminals() {
+        assertEquals(List.of("Pi is 3.14. ", "See www.example.com now!  ", "Ok"),
+                SentenceSegmenter.split("Pi is 3.14. See www.example.com now!  Ok"));
+    }
+
+    @Test
+    void breaksAtNewlines() {
+        assertEquals(List.of("标题\n\n", "正文第一行\n", "second line"),
+                SentenceSegmenter.split("标题\n\n正文第一行\nsecond line"));
+    }
+
+    @Test
+    void cutsLongSentencesAtClauseBreaks() {
+        List<String> sentences = new ArrayList<>();
+        SentenceSegmenter segmenter = new SentenceSegmenter(16, sentences::add);
+        String text = "一二三四五六七八，九十一二三四五六七八九十一二三四五六七八九十。";
+        text.chars().forEach(c -> segmenter.accept((char) c));
+        segmenter.finish();
+
+        assertEquals("一二三四五六七八，", sentences.get(0));
+        assertEquals(text, String.join("", sentences));
+        assertTrue(sentences.stream().allMatch(sentence -> sentence.length() <= 16), sentences.toString());
+    }
+
+    @Test
+    void neverCutsSurrogatePairs() {
+        List<String> sentences = new ArrayList<>();
+        SentenceSegmenter segmenter = new SentenceSegmenter(16, sentences::add);
+        String text = "😀".repeat(40);
+        text.chars().forEach(c -> segmenter.accept((char) c));
+        segmenter.finish();
+
+        assertEquals(text, String.join("", sentences));
+        for (String sentence : sentences) {
+            assertFalse(Character.isHighSurrogate(sentence.charAt(sentence.length() - 1)));
+        }
+    }
+
+    @Test
+    void concatenationReproducesInput() {
+        Random random = new Random(3);
+        String[] alphabet = {"a", "b", " ", "\n", ".", "!", "?", "。", "！", "，", "”", "中", "😀", "3"};
+        for (int round = 0; round < 200; round++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = random.nextInt(300); i > 0; i--) {
+                text.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            List<String> sentences = new ArrayList<>();
+            SentenceSegmenter segmenter = new SentenceSegmenter(16 + random.nextInt(64), sentences::add);
+            text.chars().forEach(c -> segmenter.accept((char) c));
+            segmenter.finish();
+            assertEquals(text.toString(), String.join("", sentences));
+            assertTrue(sentences.stream().noneMatch(String::isEmpty));
+        }
+    }
+}
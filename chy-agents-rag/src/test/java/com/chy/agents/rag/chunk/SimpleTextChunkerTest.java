@@ -0,0 +1,45 @@
+package com.chy.agents.rag.chunk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimpleTextChunkerTest {
+
+    @Test
+    void splitsChineseSentences() {
+        SimpleTextChunker chunker = new SimpleTextChunker(10, 0);
+        assertEquals(List.of("第一句话。第二句话。", "第三句话。"), chunker.chunk("第一句话。第二句话。第三句话。"));
+    }
+
+    @Test
+    void keepsDecimalsInsideSentences() {
+        SimpleTextChunker chunker = new SimpleTextChunker(20, 0);
+        assertEquals(List.of("Pi is 3.14 exactly.", "Next"), chunker.chunk("Pi is 3.14 exactly. Next"));
+    }
+
+    @Test
+    void windowsOversizedSentencesWithOverlap() {
+        SimpleTextChunker chunker = new SimpleTextChunker(10, 2);
+        assertEquals(List.of("a".repeat(10), "a".repeat(10), "a".repeat(9)), chunker.chunk("a".repeat(25)));
+    }
+
+    @Test
+    void streamingMatchesInMemoryChunking() {
+        SimpleTextChunker chunker = new SimpleTextChunker(50, 10);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            text.append(i % 4 == 0 ? "长句".repeat(40) + "。" : "第" + i + "句。").append(i % 9 == 0 ? "\n" : "");
+        }
+        List<String> expected = chunker.chunk(text.toString());
+        try (Stream<TextChunker.DocumentChunk> chunks = chunker.chunkStream(new StringReader(text.toString()), "doc", "t")) {
+            assertEquals(expected, chunks.map(TextChunker.DocumentChunk::getContent).toList());
+        }
+        assertTrue(expected.stream().allMatch(chunk -> chunk.length() <= 50));
+    }
+}
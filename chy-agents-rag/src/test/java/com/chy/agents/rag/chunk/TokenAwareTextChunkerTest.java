@@ -0,0 +1,74 @@
+package com.chy.agents.rag.chunk;
+
+import com.chy.agents.common.tokenizer.Tokenizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenAwareTextChunkerTest {
+
+    /**
+     * 每个码点一个token，便于核对预算
+     */
+    private static final Tokenizer CODE_POINTS = new Tokenizer() {
+        @Override
+        public String getName() {
+            return "code-points";
+        }
+
+        @Override
+        public int countTokens(String text) {
+            return text == null ? 0 : text.codePointCount(0, text.length());
+        }
+
+        @Override
+        public String truncate(String text, int maxTokens) {
+            return countTokens(text) <= maxTokens ? text : text.substring(0, text.offsetByCodePoints(0, maxTokens));
+        }
+    };
+
+    @Test
+    void packsWholeSentencesWithinBudget() {
+        TokenAwareTextChunker chunker = new TokenAwareTextChunker(CODE_POINTS, 8, 0);
+        assertEquals(List.of("第一句。第二句。", "第三句。"), chunker.chunk("第一句。第二句。第三句。"));
+        assertEquals(List.of(), chunker.chunk(""));
+    }
+
+    @Test
+    void overlapsTrailingSentences() {
+        TokenAwareTextChunker chunker = new TokenAwareTextChunker(CODE_POINTS, 12, 4);
+        assertEquals(List.of("甲甲甲。乙乙乙。丙丙丙。", "丙丙丙。丁丁丁。"), chunker.chunk("甲甲甲。乙乙乙。丙丙丙。丁丁丁。"));
+    }
+
+    @Test
+    void splitsOversizedSentencesAtClauseBreaks() {
+        TokenAwareTextChunker chunker = new TokenAwareTextChunker(CODE_POINTS, 10, 0);
+        List<String> chunks = chunker.chunk("一二三四五六，七八九十一二三四五六七八九十。");
+
+        assertEquals("一二三四五六，", chunks.get(0));
+        assertTrue(chunks.stream().allMatch(chunk -> CODE_POINTS.countTokens(chunk) <= 10), chunks.toString());
+        assertEquals("一二三四五六，七八九十一二三四五六七八九十。", String.join("", chunks));
+    }
+
+    @Test
+    void streamingMatchesInMemoryChunking() {
+        TokenAwareTextChunker chunker = new TokenAwareTextChunker(CODE_POINTS, 20, 6);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            text.append(i % 3 == 0 ? "Sentence number " + i + ". " : "第" + i + "句话，内容略长一些。");
+            if (i % 17 == 0) {
+                text.append('\n');
+            }
+        }
+        List<String> expected = chunker.chunk(text.toString());
+        try (Stream<TextChunker.DocumentChunk> chunks = chunker.chunkStream(new StringReader(text.toString()), "doc", "t")) {
+            assertEquals(expected, chunks.map(TextChunker.DocumentChunk::getContent).toList());
+        }
+        assertTrue(expected.stream().allMatch(chunk -> CODE_POINTS.countTokens(chunk) <= 20));
+    }
+}
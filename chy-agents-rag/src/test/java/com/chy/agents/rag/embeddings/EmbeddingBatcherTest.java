@@ -0,0 +1,154 @@
+package com.chy.agents.rag.embeddings;
+
+import com.chy.agents.core.execution.AgentExecutor;
+import com.chy.agents.core.execution.AgentExecutorProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmbeddingBatcherTest {
+
+    private final List<List<String>> calls = Collections.synchronizedList(new ArrayList<>());
+    private final List<AutoCloseable> resources = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (AutoCloseable resource : resources) {
+            resource.close();
+        }
+    }
+
+    @Test
+    void coalescesConcurrentRequests() throws Exception {
+        EmbeddingBatcher batcher = batcher(recording(), properties(50, 5_000), executor(8, 16));
+        List<CompletableFuture<EmbeddingVector>> results = IntStream.range(0, 16)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> batcher.embed("x".repeat(i % 8 + 1))))
+                .toList();
+
+        for (int i = 0; i < 16; i++) {
+            assertEquals((float) (i % 8 + 1), results.get(i).get(5, TimeUnit.SECONDS).get(0));
+        }
+        Map<String, Object> metrics = batcher.getMetrics();
+        assertTrue((long) metrics.get("batches") < 16, metrics.toString());
+        assertEquals(16L, (long) metrics.get("coalesced") + (long) calls.stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    void propagatesUpstreamFailures() {
+        EmbeddingBatcher batcher = batcher(texts -> {
+            throw new IllegalStateException("provider down");
+        }, properties(1, 5_000), executor(4, 16));
+
+        assertThrows(IllegalStateException.class, () -> batcher.embed("text"));
+        assertEquals(1L, batcher.getMetrics().get("failures"));
+    }
+
+    @Test
+    void failsBatchWhenBulkheadRejectsWithoutBlockingCollection() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Function<List<String>, List<EmbeddingVector>> upstream = texts -> {
+            if (texts.contains("slow")) {
+                entered.countDown();
+                await(release);
+            }
+            return vectors(texts);
+        };
+        // 舱壁只允许一个在途批次且不排队
+        EmbeddingBatcher batcher = batcher(upstream, properties(1, 5_000), executor(1, 0));
+        CompletableFuture<EmbeddingVector> slow = CompletableFuture.supplyAsync(() -> batcher.embed("slow"));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(RejectedExecutionException.class, () -> batcher.embed("rejected")));
+        release.countDown();
+        assertEquals(4f, slow.get(5, TimeUnit.SECONDS).get(0));
+        assertEquals(2f, batcher.embed("ok").get(0));
+    }
+
+    @Test
+    void returnsQueuedRequestsToCallersOnClose() throws Exception {
+        // 最长等待远大于关闭超时，请求在关闭时仍在收集线程手中
+        EmbeddingBatcher batcher = new EmbeddingBatcher(recording(), "test", properties(60_000, 100),
+                executor(4, 16));
+        CompletableFuture<EmbeddingVector> pending = CompletableFuture.supplyAsync(() -> batcher.embed("abc"));
+        Thread.sleep(100);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), batcher::close);
+        assertEquals(3f, pending.get(5, TimeUnit.SECONDS).get(0));
+        assertEquals(1L, batcher.getMetrics().get("bypassed"));
+        assertEquals(0, batcher.getMetrics().get("pending"));
+    }
+
+    @Test
+    void sendsDirectlyAfterClose() {
+        EmbeddingBatcher batcher = batcher(recording(), properties(5, 5_000), executor(4, 16));
+        batcher.close();
+
+        assertEquals(4f, batcher.embed("text").get(0));
+        assertEquals(List.of(List.of("text")), calls);
+        assertEquals(1L, batcher.getMetrics().get("bypassed"));
+    }
+
+    private Function<List<String>, List<EmbeddingVector>> recording() {
+        return texts -> {
+            calls.add(List.copyOf(texts));
+            return vectors(texts);
+        };
+    }
+
+    private EmbeddingBatcher batcher(Function<List<String>, List<EmbeddingVector>> upstream,
+                                     EmbeddingBatchingProperties properties, AgentExecutor executor) {
+        EmbeddingBatcher batcher = new EmbeddingBatcher(upstream, "test", properties, executor);
+        resources.add(0, batcher);
+        return batcher;
+    }
+
+    private AgentExecutor executor(int maxConcurrent, int maxQueue) {
+        AgentExecutorProperties properties = new AgentExecutorProperties();
+        properties.setVirtualThreads(false);
+        properties.setMaxConcurrentPerProvider(maxConcurrent);
+        properties.setMaxQueuePerProvider(maxQueue);
+        AgentExecutor executor = new AgentExecutor(properties);
+        resources.add(executor);
+        return executor;
+    }
+
+    private static EmbeddingBatchingProperties properties(long maxDelayMillis, long shutdownTimeoutMillis) {
+        EmbeddingBatchingProperties properties = new EmbeddingBatchingProperties();
+        properties.setMaxDelayMillis(maxDelayMillis);
+        properties.setShutdownTimeoutMillis(shutdownTimeoutMillis);
+        return properties;
+    }
+
+    /**
+     * 向量只有一维，值为文本长度
+     */
+    private static List<EmbeddingVector> vectors(List<String> texts) {
+        return texts.stream().map(text -> EmbeddingVector.of(new float[]{text.length()})).toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
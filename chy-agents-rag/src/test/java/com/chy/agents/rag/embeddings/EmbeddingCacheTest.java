@@ -0,0 +1,102 @@
+package com.chy.agents.rag.embeddings;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class EmbeddingCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void normalizesTextBeforeHashing() {
+        EmbeddingCache cache = new EmbeddingCache(properties("m"));
+        assertEquals(cache.key("你好  世界"), cache.key(" 你好\n\t世界 "));
+        // NFC：组合字符与预组合字符得到同一个键
+        assertEquals(cache.key("cafe\u0301"), cache.key("caf\u00e9"));
+        assertNotEquals(cache.key("你好世界"), cache.key("你好 世界"));
+    }
+
+    @Test
+    void scopesKeysByModel() {
+        EmbeddingCache a = new EmbeddingCache(properties("model-a"));
+        EmbeddingCache b = new EmbeddingCache(properties("model-b"));
+        EmbeddingCache unnamed = new EmbeddingCache(properties(null));
+
+        assertNotEquals(a.key("text"), b.key("text"));
+        assertEquals(new EmbeddingCache(properties(EmbeddingCacheProperties.DEFAULT_MODEL)).key("text"),
+                unnamed.key("text"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        EmbeddingCacheProperties properties = properties("m");
+        properties.setMaxEntries(2);
+        EmbeddingCache cache = new EmbeddingCache(properties);
+        EmbeddingCache.Key first = cache.key("first");
+        EmbeddingCache.Key second = cache.key("second");
+        EmbeddingCache.Key third = cache.key("third");
+        EmbeddingVector vector = EmbeddingVector.of(new float[]{1, 2});
+
+        cache.put(first, vector);
+        cache.put(second, vector);
+        assertSame(vector, cache.get(first));
+        cache.put(third, vector);
+
+        assertNotNull(cache.get(first));
+        assertNull(cache.get(second));
+        assertNotNull(cache.get(third));
+        assertEquals(1L, cache.getMetrics().get("evictions"));
+        assertEquals(List.of(true, false, true),
+                cache.getAll(List.of(first, second, third)).stream().map(v -> v != null).toList());
+    }
+
+    @Test
+    void hitsPersistentLayerAfterRestart() {
+        EmbeddingCacheProperties properties = properties("m");
+        properties.getPersistent().setEnabled(true);
+        properties.getPersistent().setFile(dir.resolve("cache.bin").toString());
+        properties.getPersistent().setMaxBytes(64 * 1024);
+        EmbeddingCache.Key key;
+        try (EmbeddingCache cache = new EmbeddingCache(properties)) {
+            key = cache.key("持久化");
+            cache.put(key, EmbeddingVector.of(new float[]{0.5f, -1f}));
+        }
+        try (EmbeddingCache cache = new EmbeddingCache(properties)) {
+            EmbeddingVector vector = cache.get(key);
+            assertEquals("[0.5, -1.0]", Arrays.toString(new float[]{vector.get(0), vector.get(1)}));
+            assertEquals(1L, cache.getMetrics().get("persistentHits"));
+            // 提升到堆内后直接命中
+            cache.get(key);
+            assertEquals(1L, cache.getMetrics().get("hits"));
+        }
+    }
+
+    @Test
+    void disabledCacheStoresNothing() {
+        EmbeddingCacheProperties properties = properties("m");
+        properties.setEnabled(false);
+        EmbeddingCache cache = new EmbeddingCache(properties);
+        EmbeddingCache.Key key = cache.key("text");
+        cache.put(key, EmbeddingVector.of(new float[]{1}));
+
+        assertNull(cache.get(key));
+        assertEquals(0, cache.getMetrics().get("entries"));
+    }
+
+    private static EmbeddingCacheProperties properties(String model) {
+        EmbeddingCacheProperties properties = new EmbeddingCacheProperties();
+        properties.setModel(model);
+        return properties;
+    }
+}
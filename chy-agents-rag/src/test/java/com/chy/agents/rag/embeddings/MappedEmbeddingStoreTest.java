@@ -0,0 +1,135 @@
+package com.chy.agents.rag.embeddings;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedEmbeddingStoreTest {
+
+    private static final int MAX_BYTES = 64 * 1024;
+
+    /**
+     * 文件头和记录头的长度，与实现中的格式一致
+     */
+    private static final int FILE_HEADER_BYTES = 32;
+    private static final int RECORD_HEADER_BYTES = 24;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBackAfterReopen() {
+        Path file = dir.resolve("cache.bin");
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(file, MAX_BYTES, "model-a")) {
+            assertTrue(store.put(key(1), new float[]{1, 2, 3}));
+            assertTrue(store.put(key(2), new float[]{4, 5, 6}));
+            assertFalse(store.put(key(1), new float[]{7, 8, 9}));
+            assertArrayEquals(new float[]{1, 2, 3}, store.get(key(1)));
+            assertNull(store.get(key(3)));
+        }
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(file, MAX_BYTES, "model-a")) {
+            assertEquals(2, store.size());
+            assertEquals(3, store.getDimensions());
+            assertArrayEquals(new float[]{4, 5, 6}, store.get(key(2)));
+            assertTrue(store.put(key(3), new float[]{0, 0, 1}));
+        }
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(file, MAX_BYTES, "model-a")) {
+            assertEquals(3, store.size());
+        }
+    }
+
+    @Test
+    void resetsWhenModelChanges() {
+        Path file = dir.resolve("cache.bin");
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(file, MAX_BYTES, "model-a")) {
+            for (int i = 0; i < 10; i++) {
+                store.put(key(i), new float[]{i, i, i});
+            }
+        }
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(file, MAX_BYTES, "model-b")) {
+            assertEquals(0, store.size());
+            assertEquals(0, store.getDimensions());
+            assertNull(store.get(key(1)));
+            // 新模型的维度不同，写入一条后旧模型的后续记录不能重新出现
+            assertTrue(store.put(key(100), new float[]{1, 2}));
+        }
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(file, MAX_BYTES, "model-b")) {
+            assertEquals(1, store.size());
+            assertArrayEquals(new float[]{1, 2}, store.get(key(100)));
+        }
+    }
+
+    @Test
+    void rejectsOtherDimensions() {
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir.resolve("cache.bin"), MAX_BYTES, "m")) {
+            assertTrue(store.put(key(1), new float[]{1, 2, 3}));
+            assertFalse(store.put(key(2), new float[]{1, 2}));
+            assertFalse(store.put(key(3), new float[0]));
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    void dropsRecordsWithBadChecksum() throws Exception {
+        Path file = dir.resolve("cache.bin");
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(file, MAX_BYTES, "m")) {
+            for (int i = 0; i < 3; i++) {
+                store.put(key(i), new float[]{i, i, i, i});
+            }
+        }
+        // 模拟断电：第二条记录的向量只有一部分落盘
+        int second = FILE_HEADER_BYTES + RECORD_HEADER_BYTES + 4 * Float.BYTES;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putFloat(0, 42f), second + RECORD_HEADER_BYTES);
+        }
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(file, MAX_BYTES, "m")) {
+            assertEquals(1, store.size());
+            assertArrayEquals(new float[]{0, 0, 0, 0}, store.get(key(0)));
+            assertNull(store.get(key(1)));
+            assertNull(store.get(key(2)));
+            assertTrue(store.put(key(1), new float[]{1, 1, 1, 1}));
+        }
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(file, MAX_BYTES, "m")) {
+            assertEquals(2, store.size());
+            assertArrayEquals(new float[]{1, 1, 1, 1}, store.get(key(1)));
+        }
+    }
+
+    @Test
+    void stopsAppendingWhenFull() {
+        int recordBytes = RECORD_HEADER_BYTES + 64 * Float.BYTES;
+        int maxBytes = FILE_HEADER_BYTES + recordBytes * 3 + 4;
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir.resolve("cache.bin"), maxBytes, "m")) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(store.put(key(i), new float[64]));
+            }
+            assertFalse(store.put(key(3), new float[64]));
+            assertEquals(maxBytes - 4, store.getUsedBytes());
+        }
+    }
+
+    @Test
+    void ignoresAccessAfterClose() {
+        MappedEmbeddingStore store = new MappedEmbeddingStore(dir.resolve("cache.bin"), MAX_BYTES, "m");
+        store.put(key(1), new float[]{1});
+        store.close();
+        store.close();
+
+        assertNull(store.get(key(1)));
+        assertFalse(store.put(key(2), new float[]{2}));
+    }
+
+    private static EmbeddingCache.Key key(long value) {
+        return new EmbeddingCache.Key(value, ~value);
+    }
+}
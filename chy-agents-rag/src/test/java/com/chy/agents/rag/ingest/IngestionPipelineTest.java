@@ -0,0 +1,264 @@
+package com.chy.agents.rag.ingest;
+
+import com.chy.agents.rag.chunk.TextChunker;
+import com.chy.agents.rag.embeddings.EmbeddingCache;
+import com.chy.agents.rag.embeddings.EmbeddingCacheProperties;
+import com.chy.agents.rag.embeddings.EmbeddingService;
+import com.chy.agents.rag.embeddings.EmbeddingVector;
+import com.chy.agents.rag.vector.VectorStoreService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestionPipelineTest {
+
+    private final IngestionProperties properties = new IngestionProperties();
+    private final List<List<String>> embeddingCalls = Collections.synchronizedList(new ArrayList<>());
+    private final List<List<Document>> storeCalls = Collections.synchronizedList(new ArrayList<>());
+    private Function<List<String>, List<EmbeddingVector>> embedder = IngestionPipelineTest::vectors;
+    private Runnable storeAction = () -> { };
+    private IngestionPipeline pipeline;
+
+    IngestionPipelineTest() {
+        properties.setEmbeddingParallelism(1);
+        properties.setRetryBackoffMillis(1);
+    }
+
+    @AfterEach
+    void shutdown() {
+        if (pipeline != null) {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    void deduplicatesWithinDocumentOnly() {
+        IngestionJob job = pipeline().ingest(List.of(
+                new IngestionSource("a", "A", "x|y|x"),
+                new IngestionSource("b", "B", "x")));
+
+        assertEquals(4, job.getChunks());
+        assertEquals(1, job.getDuplicates());
+        assertEquals(3, job.getStored());
+        assertEquals(Set.of("a-0", "a-1", "b-0"), storedIds());
+        assertEquals("x", stored("b-0").getContent());
+        assertFalse(stored("a-0").getEmbedding().isEmpty());
+    }
+
+    @Test
+    void chunkIdsCoverDuplicatesAndForgetAllowsReimport() {
+        pipeline().ingest(List.of(new IngestionSource("a", "A", "x|y|x")));
+
+        assertEquals(List.of("a-0", "a-1", "a-2"), pipeline.chunkIds("a"));
+        assertEquals(List.of(), pipeline.chunkIds("missing"));
+        assertEquals(3, pipeline.ingest(List.of(new IngestionSource("a", "A", "x|y|x"))).getDuplicates());
+
+        pipeline.forget("a");
+        assertEquals(List.of(), pipeline.chunkIds("a"));
+        IngestionJob again = pipeline.ingest(List.of(new IngestionSource("a", "A", "x|y|x")));
+        assertEquals(2, again.getStored());
+        assertEquals(1, again.getDuplicates());
+    }
+
+    @Test
+    void embedsInBatchesAndMergesStoreWrites() {
+        properties.setEmbeddingBatchSize(2);
+        properties.setStoreBatchSize(4);
+
+        IngestionJob job = pipeline().ingest(List.of(new IngestionSource("a", "A", text(10))));
+
+        assertEquals(10, job.getStored());
+        assertEquals(5, embeddingCalls.size());
+        assertTrue(embeddingCalls.stream().allMatch(batch -> batch.size() == 2));
+        assertEquals(List.of(4, 4, 2), storeCalls.stream().map(List::size).toList());
+        assertEquals(10, storedIds().size());
+    }
+
+    @Test
+    void skipsEmbeddingWhenNotPrecomputed() {
+        properties.setPrecomputeEmbeddings(false);
+
+        IngestionJob job = pipeline().ingest(List.of(new IngestionSource("a", "A", text(3))));
+
+        assertEquals(3, job.getStored());
+        assertTrue(embeddingCalls.isEmpty());
+    }
+
+    @Test
+    void chunkingWaitsWhenInFlightBatchesAreFull() throws Exception {
+        properties.setEmbeddingBatchSize(1);
+        properties.setMaxInFlightBatches(1);
+        CountDownLatch release = new CountDownLatch(1);
+        embedder = texts -> {
+            await(release);
+            return vectors(texts);
+        };
+
+        IngestionJob job = pipeline().submit(List.of(new IngestionSource("a", "A", text(5))));
+        waitUntil(() -> embeddingCalls.size() == 1);
+        // 第一批在向量化，第二块已分块但等待许可，之后的分块不再读取
+        waitUntil(() -> job.getChunks() == 2);
+        Thread.sleep(50);
+
+        assertEquals(2, job.getChunks());
+        assertEquals(1, pipeline.getMetrics().get("inFlightBatches"));
+        assertFalse(job.isDone());
+
+        release.countDown();
+        assertEquals(5, job.await().getStored());
+        assertTrue((long) pipeline.getMetrics().get("backpressureMillis") >= 0);
+    }
+
+    @Test
+    void retriesTransientEmbeddingFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+        embedder = texts -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("boom");
+            }
+            return vectors(texts);
+        };
+
+        IngestionJob job = pipeline().ingest(List.of(new IngestionSource("a", "A", text(3))));
+
+        assertEquals(3, job.getStored());
+        assertEquals(0, job.getFailed());
+        assertEquals(1L, pipeline.getMetrics().get("retries"));
+    }
+
+    @Test
+    void discardsBatchAfterRetriesAndAllowsReimport() {
+        properties.setMaxRetries(1);
+        storeAction = () -> {
+            throw new IllegalStateException("store down");
+        };
+
+        IngestionJob job = pipeline().ingest(List.of(new IngestionSource("a", "A", text(3))));
+
+        assertEquals(IngestionJob.State.COMPLETED, job.getState());
+        assertEquals(0, job.getStored());
+        assertEquals(3, job.getFailed());
+        assertEquals(2, storeCalls.size());
+
+        // 丢弃的内容不留在去重记录中
+        storeAction = () -> { };
+        assertEquals(3, pipeline.ingest(List.of(new IngestionSource("a", "A", text(3)))).getStored());
+    }
+
+    @Test
+    void failedJobDiscardsUnwrittenChunks() {
+        properties.setEmbeddingBatchSize(1);
+        properties.setStoreBatchSize(100);
+
+        IngestionJob job = pipeline().submit(List.of(
+                new IngestionSource("a", "A", text(3)),
+                new IngestionSource("b", "B", FAIL)));
+
+        assertThrows(CompletionException.class, job::await);
+        assertEquals(IngestionJob.State.FAILED, job.getState());
+        assertEquals(3, job.getFailed());
+        assertEquals(0, job.getStored());
+        assertTrue(storeCalls.isEmpty());
+        assertEquals(0, pipeline.getMetrics().get("inFlightBatches"));
+    }
+
+    private static final String FAIL = "<fail>";
+
+    private IngestionPipeline pipeline() {
+        TextChunker chunker = new TextChunker() {
+            @Override
+            public List<String> chunk(String text) {
+                return Arrays.asList(text.split("\\|"));
+            }
+
+            @Override
+            public List<DocumentChunk> chunkWithMetadata(String text, String documentId, String documentTitle) {
+                if (FAIL.equals(text)) {
+                    throw new IllegalStateException("chunking failed");
+                }
+                List<DocumentChunk> chunks = new ArrayList<>();
+                List<String> parts = chunk(text);
+                for (int i = 0; i < parts.size(); i++) {
+                    chunks.add(new DocumentChunk(parts.get(i), documentId, documentTitle, i));
+                }
+                return chunks;
+            }
+        };
+        EmbeddingService embeddingService = new EmbeddingService(null,
+                new EmbeddingCache(new EmbeddingCacheProperties()), null, null) {
+            @Override
+            public List<EmbeddingVector> embedTexts(List<String> texts) {
+                embeddingCalls.add(List.copyOf(texts));
+                return embedder.apply(texts);
+            }
+        };
+        VectorStoreService vectorStoreService = new VectorStoreService(null) {
+            @Override
+            public void addDocuments(List<Document> documents) {
+                storeCalls.add(List.copyOf(documents));
+                storeAction.run();
+            }
+        };
+        pipeline = new IngestionPipeline(chunker, embeddingService, vectorStoreService, properties);
+        return pipeline;
+    }
+
+    private Set<String> storedIds() {
+        return storeCalls.stream().flatMap(List::stream).map(Document::getId).collect(Collectors.toSet());
+    }
+
+    private Document stored(String id) {
+        return storeCalls.stream().flatMap(List::stream).filter(document -> document.getId().equals(id))
+                .findFirst().orElseThrow();
+    }
+
+    private static String text(int chunks) {
+        List<String> parts = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) {
+            parts.add("chunk " + i);
+        }
+        return String.join("|", parts);
+    }
+
+    private static List<EmbeddingVector> vectors(List<String> texts) {
+        List<EmbeddingVector> vectors = new ArrayList<>();
+        for (String text : texts) {
+            vectors.add(EmbeddingVector.of(new float[]{text.length(), 1f}));
+        }
+        return vectors;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
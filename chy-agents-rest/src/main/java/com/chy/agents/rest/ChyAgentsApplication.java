@@ -2,6 +2,7 @@ package com.chy.agents.rest;
 
 import com.chy.agents.common.config.AiConfig;
 import com.chy.agents.common.config.ModelConfig;
+import com.chy.agents.common.config.TokenizerConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
@@ -14,7 +15,7 @@ import org.springframework.context.annotation.Import;
  * @date 2025/3/12
  */
 @SpringBootApplication
-@Import({AiConfig.class, ModelConfig.class})
+@Import({AiConfig.class, ModelConfig.class, TokenizerConfig.class})
 @ComponentScan(basePackages = {
     "com.chy.agents.rest",
     "com.chy.agents.core",
@@ -1,5 +1,6 @@
 package com.chy.agents.rest.controller;
 
+import com.chy.agents.chat.service.SessionManager;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.Message;
@@ -8,12 +9,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 聊天控制器。
@@ -28,8 +27,9 @@ public class ChatController {
     @Autowired
     private ChatClient chatClient;
     
-    // 简单的会话管理，生产环境应使用持久化存储
-    private final Map<String, List<Message>> sessionStore = new ConcurrentHashMap<>();
+    // 所有控制器共享的会话存储
+    @Autowired
+    private SessionManager sessionManager;
 
     /**
      * 简单聊天接口
@@ -58,12 +58,9 @@ public class ChatController {
         String sessionId = request.getOrDefault("sessionId", UUID.randomUUID().toString());
         String userInput = request.get("message");
         
-        // 获取或创建会话历史
-        List<Message> history = sessionStore.computeIfAbsent(sessionId, k -> new ArrayList<>());
-        
-        // 添加用户消息到历史
-        UserMessage userMessage = new UserMessage(userInput);
-        history.add(userMessage);
+        // 添加用户消息到会话并获取历史
+        sessionManager.addMessage(sessionId, new UserMessage(userInput));
+        List<Message> history = sessionManager.getSessionHistory(sessionId);
         
         // 使用会话历史调用模型
         String response = chatClient.prompt()
@@ -71,8 +68,8 @@ public class ChatController {
                 .call()
                 .content();
         
-        // 将助手回复添加到历史
-        history.add(new AssistantMessage(response));
+        // 将助手回复添加到会话
+        sessionManager.addMessage(sessionId, new AssistantMessage(response));
         
         return Map.of(
             "sessionId", sessionId,
@@ -108,12 +105,9 @@ public class ChatController {
         String sessionId = request.getOrDefault("sessionId", UUID.randomUUID().toString());
         String userInput = request.get("message");
         
-        // 获取或创建会话历史
-        List<Message> history = sessionStore.computeIfAbsent(sessionId, k -> new ArrayList<>());
-        
-        // 添加用户消息到历史
-        UserMessage userMessage = new UserMessage(userInput);
-        history.add(userMessage);
+        // 添加用户消息到会话并获取历史
+        sessionManager.addMessage(sessionId, new UserMessage(userInput));
+        List<Message> history = sessionManager.getSessionHistory(sessionId);
         
         // 使用会话历史调用模型
         return chatClient.prompt()
@@ -136,7 +130,7 @@ public class ChatController {
      */
     @DeleteMapping("/session/{sessionId}")
     public Map<String, String> clearSession(@PathVariable String sessionId) {
-        sessionStore.remove(sessionId);
+        sessionManager.deleteSession(sessionId);
         return Map.of("status", "success", "message", "会话已清除");
     }
 } 
\ No newline at end of file
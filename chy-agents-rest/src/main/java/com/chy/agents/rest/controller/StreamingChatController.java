@@ -1,5 +1,6 @@
 package com.chy.agents.rest.controller;
 
+import com.chy.agents.chat.service.SessionManager;
 import com.chy.agents.chat.service.StreamingChatService;
 import com.chy.agents.rest.dto.ChatRequest;
 import jakarta.annotation.Resource;
@@ -13,11 +14,9 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import reactor.core.publisher.Flux;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 流式聊天控制器
@@ -35,8 +34,9 @@ public class StreamingChatController {
     @Resource
     private SimpMessagingTemplate messagingTemplate;
 
-    // 存储会话历史
-    private final Map<String, List<Message>> sessionStore = new ConcurrentHashMap<>();
+    // 所有控制器共享的会话存储
+    @Resource
+    private SessionManager sessionManager;
 
     /**
      * 流式聊天
@@ -45,13 +45,12 @@ public class StreamingChatController {
      */
     @MessageMapping("/chat.stream")
     public void streamChat(@Payload ChatRequest request) {
-        String sessionId = request.getSessionId();
-        if (sessionId == null || sessionId.isEmpty()) {
-            sessionId = UUID.randomUUID().toString();
-        }
+        String sessionId = request.getSessionId() == null || request.getSessionId().isEmpty()
+                ? UUID.randomUUID().toString()
+                : request.getSessionId();
 
-        // 获取或创建会话历史
-        List<Message> history = sessionStore.computeIfAbsent(sessionId, k -> new ArrayList<>());
+        // 获取会话历史快照
+        List<Message> history = sessionManager.getSessionHistory(sessionId);
         
         // 添加用户消息到历史
         String userInput = request.getMessage();
@@ -68,9 +67,11 @@ public class StreamingChatController {
             responseFlux = streamingChatService.chatStream(userInput, history);
         }
         
-        // 订阅流式响应并发送到WebSocket
+        // 订阅流式响应并发送到WebSocket，同时累积完整响应用于写入历史
+        StringBuilder fullResponse = new StringBuilder();
         responseFlux.subscribe(
             content -> {
+                fullResponse.append(content);
                 messagingTemplate.convertAndSend("/topic/chat/" + sessionId, 
                         Map.of("type", "chunk", "content", content));
             },
@@ -79,10 +80,9 @@ public class StreamingChatController {
                         Map.of("type", "error", "message", error.getMessage()));
             },
             () -> {
-                // 完成时，将完整响应添加到历史
-                String fullResponse = responseFlux.collectList().block().stream().reduce("", String::concat);
-                history.add(new UserMessage(userInput));
-                history.add(new AssistantMessage(fullResponse));
+                // 完成时，将完整响应添加到历史（不再重新订阅并阻塞等待整个流）
+                sessionManager.addMessages(sessionId,
+                        List.of(new UserMessage(userInput), new AssistantMessage(fullResponse.toString())));
                 
                 messagingTemplate.convertAndSend("/topic/chat/" + sessionId, 
                         Map.of("type", "complete", "sessionId", sessionId));
@@ -96,6 +96,6 @@ public class StreamingChatController {
      * @param sessionId 会话ID
      */
     public void clearSessionHistory(String sessionId) {
-        sessionStore.remove(sessionId);
+        sessionManager.deleteSession(sessionId);
     }
 } 
\ No newline at end of file
@@ -5,8 +5,10 @@ import com.chy.agents.core.agent.AgentResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -94,6 +96,28 @@ public class SpringAiAgentController {
                         .body(Map.of("error", "处理请求失败: " + e.getMessage())));
     }
     
+    /**
+     * 流式处理请求，片段到达即推送给客户端
+     */
+    @PostMapping(value = "/process/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<Map<String, Object>> processStream(@RequestBody Map<String, String> request) {
+        String input = request.get("input");
+        if (input == null || input.isEmpty()) {
+            return Flux.just(Map.of("type", "error", "error", "输入内容不能为空"));
+        }
+        
+        Map<String, Object> context = new HashMap<>();
+        if (request.containsKey("provider")) {
+            context.put("forcedProvider", request.get("provider"));
+        }
+        
+        return assistantAgent.executeStream(input, context)
+                .map(delta -> delta.isFinished()
+                        ? Map.<String, Object>of("type", "complete", "finishReason", delta.getFinishReason())
+                        : Map.<String, Object>of("type", "chunk", "content", delta.getContent()))
+                .onErrorResume(e -> Flux.just(Map.of("type", "error", "error", "处理请求失败: " + e.getMessage())));
+    }
+    
     /**
      * 控制代理状态
      */
@@ -0,0 +1,33 @@
+package com.chy.agents.storage.vector;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingClient;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.List;
+
+/**
+ * 向量存储使用的嵌入客户端
+ * 向量存储写入时逐个文档调用{@link #embed(Document)}，已携带向量的文档（如导入流水线预先批量向量化的分块）
+ * 直接返回自带的向量，不再访问嵌入提供商；其余请求（包括按文本的批量请求）交给被包装的客户端
+ */
+public class PrecomputedEmbeddingClient implements EmbeddingClient {
+
+    private final EmbeddingClient delegate;
+
+    public PrecomputedEmbeddingClient(EmbeddingClient delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<Double> embed(Document document) {
+        List<Double> embedding = document.getEmbedding();
+        return embedding != null && !embedding.isEmpty() ? embedding : delegate.embed(document);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+}
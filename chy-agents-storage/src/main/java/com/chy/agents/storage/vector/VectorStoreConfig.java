@@ -25,10 +25,13 @@ public class VectorStoreConfig {
     @ConditionalOnProperty(prefix = "chy.agents.storage.vector", name = "type", havingValue = "pgvector", matchIfMissing = false)
     static class PgVectorStoreConfig {
 
+        /**
+         * 嵌入客户端经{@link PrecomputedEmbeddingClient}包装，已携带向量的文档写入时不再重新向量化
+         */
         @Bean
         @ConditionalOnBean({JdbcTemplate.class, EmbeddingClient.class})
         public VectorStore pgVectorStore(JdbcTemplate jdbcTemplate, EmbeddingClient embeddingClient) {
-            return new PgVectorStore(jdbcTemplate, embeddingClient);
+            return new PgVectorStore(jdbcTemplate, new PrecomputedEmbeddingClient(embeddingClient));
         }
     }
 } 
\ No newline at end of file